@@ -0,0 +1,81 @@
+package com.example.demo.config;
+
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * パスワードエンコーダーの設定。
+ *
+ * - 保存形式は "{bcrypt}$2a$12$..." のような ID 付き（DelegatingPasswordEncoder）。
+ *   ID のない既存のハッシュは BCrypt として照合する
+ * - BCrypt のコストは security.password.bcrypt.strength で固定できる。
+ *   未指定なら起動時に実測し、1 回のハッシュが target-millis に収まる最大のコストを選ぶ
+ * - ログイン成功時、コストが低い・ID がないなど古い形式のハッシュは現在の設定で自動的に再ハッシュされる
+ *   （DaoAuthenticationProvider + UserProfileDetailsService#updatePassword）
+ */
+@Configuration
+public class PasswordEncoderConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordEncoderConfig.class);
+
+    static final String BCRYPT_ID = "bcrypt";
+
+    // 計測用のダミーパスワード
+    private static final String PROBE = "calibration-probe";
+
+    @Bean
+    public PasswordEncoder passwordEncoder(
+            @Value("${security.password.bcrypt.strength:0}") int fixedStrength,
+            @Value("${security.password.target-millis:250}") long targetMillis,
+            @Value("${security.password.bcrypt.min-strength:10}") int minStrength,
+            @Value("${security.password.bcrypt.max-strength:14}") int maxStrength) {
+
+        int strength = fixedStrength > 0
+                ? fixedStrength
+                : calibrate(targetMillis, minStrength, maxStrength);
+
+        BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(strength);
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(BCRYPT_ID, Map.of(BCRYPT_ID, bcrypt));
+        // ID なしの既存ハッシュ（"$2a$10$..."）も照合できるように
+        encoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return encoder;
+    }
+
+    /**
+     * 1 回のハッシュが targetMillis 以内に収まる最大のコストを求める（min〜max の範囲）。
+     * コストが 1 上がるごとに時間はおよそ倍になるので、超えた時点で打ち切る。
+     */
+    static int calibrate(long targetMillis, int minStrength, int maxStrength) {
+        int min = Math.max(4, minStrength);
+        int max = Math.min(31, Math.max(min, maxStrength));
+
+        // JIT のウォームアップ（最初の計測が過大にならないように）
+        new BCryptPasswordEncoder(4).encode(PROBE);
+
+        int chosen = min;
+        for (int strength = min; strength <= max; strength++) {
+            long start = System.nanoTime();
+            new BCryptPasswordEncoder(strength).encode(PROBE);
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+            if (elapsedMillis > targetMillis) {
+                break;
+            }
+            chosen = strength;
+            // 次のコストで確実に超える見込みなら計測しない
+            if (elapsedMillis * 2 > targetMillis) {
+                break;
+            }
+        }
+        logger.info("BCrypt strength calibrated to {} (target {} ms)", chosen, targetMillis);
+        return chosen;
+    }
+}
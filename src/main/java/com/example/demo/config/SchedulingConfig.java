@@ -0,0 +1,13 @@
+package com.example.demo.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * 定期実行（@Scheduled）を有効化する設定。
+ * パーティション保守などのバッチ処理で使用する。
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -5,21 +5,26 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.csrf.HttpSessionCsrfTokenRepository;
 import org.springframework.security.web.session.HttpSessionEventPublisher;
 
+import com.example.demo.service.UserDetailsCache;
 import com.example.demo.service.UserProfileDetailsService;
 
 @Configuration
 public class SecurityConfig {
 
     private final UserProfileDetailsService userDetailsService;
+    private final UserDetailsCache userDetailsCache;
+    private final PasswordEncoder passwordEncoder;
 
-    public SecurityConfig(UserProfileDetailsService userDetailsService) {
+    public SecurityConfig(UserProfileDetailsService userDetailsService, UserDetailsCache userDetailsCache,
+                          PasswordEncoder passwordEncoder) {
         this.userDetailsService = userDetailsService;
+        this.userDetailsCache = userDetailsCache;
+        this.passwordEncoder = passwordEncoder;
     }
 
     @Bean
@@ -44,6 +49,9 @@ public class SecurityConfig {
                     "user/register/**", // ユーザー登録関連のリクエストを許可
                     "/css/**", "/js/**"  // 静的リソース
                 ).permitAll() // 認証不要
+                .requestMatchers("/api/shift/ical/*.ics").permitAll() // 個人カレンダー（URL のトークンで認証）
+                .requestMatchers("/api/cache/**").hasRole("ADMIN") // キャッシュ統計は管理者のみ
+                .requestMatchers("/api/import/**").hasRole("ADMIN") // CSV 一括取込は管理者のみ
                 .anyRequest().authenticated() // その他のリクエストは認証が必要
             )
             // フォームログインの設定
@@ -64,18 +72,16 @@ public class SecurityConfig {
         return http.build(); // SecurityFilterChainのビルド
     }
 
-    // パスワードエンコーダーの設定（BCryptを使用）
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
-    }
+    // パスワードエンコーダーは PasswordEncoderConfig で定義（コスト調整・旧形式の判定）
 
     // 認証プロバイダーの設定
     @Bean
     public DaoAuthenticationProvider authenticationProvider() {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
         authProvider.setUserDetailsService(userDetailsService);
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setPasswordEncoder(passwordEncoder);
+        authProvider.setUserCache(userDetailsCache); // ログインのたびに user_profiles を引かない
+        authProvider.setUserDetailsPasswordService(userDetailsService); // 古い形式のハッシュはログイン成功時に再ハッシュ
         return authProvider;
     }
 
@@ -0,0 +1,52 @@
+package com.example.demo.config;
+
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * 仮想スレッドでの実行モード（プロファイル virtual-threads、Java 21 以上で起動する）。
+ *
+ * - Tomcat のリクエスト処理・@Async / @Scheduled の実行は spring.threads.virtual.enabled で仮想スレッドになる
+ * - スレッド数で DB への同時アクセスが抑えられなくなるため、DataSource を GuardedDataSource で包み、
+ *   接続の同時使用数と空き待ちの数に上限をかける（溢れたリクエストは待たずに失敗させる）
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    // BeanPostProcessor は他の Bean より先に作られるため static にする（設定値は Environment から読む）
+    @Bean
+    static BeanPostProcessor guardedDataSourcePostProcessor(Environment environment) {
+        if (Runtime.version().feature() < 21) {
+            logger.warn("spring.threads.virtual.enabled is set but the runtime is Java {}; virtual threads need Java 21+",
+                    Runtime.version().feature());
+        }
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof GuardedDataSource) {
+                    return bean;
+                }
+                int maxConcurrent = environment.getProperty("datasource.guard.max-concurrent", Integer.class,
+                        environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10));
+                int maxWaiting = environment.getProperty("datasource.guard.max-waiting", Integer.class, 200);
+                Duration acquireTimeout = environment.getProperty("datasource.guard.acquire-timeout",
+                        Duration.class, Duration.ofSeconds(3));
+                logger.info("Guarding DataSource '{}': max-concurrent={}, max-waiting={}, acquire-timeout={}",
+                        beanName, maxConcurrent, maxWaiting, acquireTimeout);
+                return new GuardedDataSource(dataSource, maxConcurrent, maxWaiting, acquireTimeout);
+            }
+        };
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.demo.controller;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.demo.dto.BulkImportResult;
+import com.example.demo.service.BulkImportService;
+
+/**
+ * 必要人員・希望休/有給・臨時職員の予定の CSV 一括取込 API（管理者のみ。SecurityConfig 参照）
+ * 例）curl -X POST --data-binary @requirements.csv -H 'Content-Type: text/csv' .../api/import/requirements
+ */
+@RestController
+@RequestMapping("/api/import")
+public class BulkImportController {
+
+    private final BulkImportService bulkImportService;
+
+    public BulkImportController(BulkImportService bulkImportService) {
+        this.bulkImportService = bulkImportService;
+    }
+
+    /**
+     * CSV を取り込む（リクエスト本文は一時ファイルに受けてから取り込む。全体をメモリに載せない）
+     *
+     * @param kind requirements / requests / assignments（形式は BulkImportService 参照）
+     * @return 取込件数と行ごとのエラー（未知の種別は 404）
+     */
+    @PostMapping(value = "/{kind}", consumes = { "text/csv", "text/plain" })
+    public ResponseEntity<BulkImportResult> importCsv(@PathVariable String kind,
+                                                      HttpServletRequest request) throws IOException {
+        Optional<BulkImportService.Kind> target = BulkImportService.Kind.fromPath(kind);
+        if (target.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(bulkImportService.importCsv(target.get(), request.getInputStream()));
+    }
+}
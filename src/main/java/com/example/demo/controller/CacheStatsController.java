@@ -0,0 +1,32 @@
+package com.example.demo.controller;
+
+import java.util.Map;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.demo.service.EntityCacheService;
+
+/**
+ * キャッシュ統計の参照 API（管理者のみ。SecurityConfig 参照）
+ */
+@RestController
+@RequestMapping("/api/cache")
+public class CacheStatsController {
+
+    private final EntityCacheService entityCacheService;
+
+    public CacheStatsController(EntityCacheService entityCacheService) {
+        this.entityCacheService = entityCacheService;
+    }
+
+    /**
+     * 二次キャッシュのヒット／ミス統計（収集が無効な設定では {"enabled": false}）
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats() {
+        return ResponseEntity.ok(entityCacheService.getStatistics());
+    }
+}
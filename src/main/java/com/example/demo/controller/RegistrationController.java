@@ -2,6 +2,7 @@ package com.example.demo.controller;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import jakarta.validation.Valid;
 
@@ -16,6 +17,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 
 import com.example.demo.dto.UserProfileDto;
+import com.example.demo.service.DepartmentRegistry;
 import com.example.demo.service.UserProfileService;
 
 @Controller
@@ -28,9 +30,21 @@ public class RegistrationController {
     // サービスクラスを利用してビジネスロジックを実行
     private final UserProfileService userProfileService;
 
+    // 所属セレクト・表示名用の部署マスタ
+    private final DepartmentRegistry departmentRegistry;
+
     // コンストラクタでUserProfileServiceを注入
-    public RegistrationController(UserProfileService userProfileService) {
+    public RegistrationController(UserProfileService userProfileService, DepartmentRegistry departmentRegistry) {
         this.userProfileService = userProfileService;
+        this.departmentRegistry = departmentRegistry;
+    }
+
+    /**
+     * 部署コード → 表示名（登録・確認・完了画面の所属表示に使う）
+     */
+    @ModelAttribute("departmentNames")
+    public Map<String, String> departmentNames() {
+        return departmentRegistry.displayNames();
     }
 
     /**
@@ -70,6 +84,9 @@ public class RegistrationController {
             Model model) {
         logger.debug("Received data for confirmation: {}", userProfileDto); // デバッグログ
 
+        // 未登録の部署も入力エラーとして扱う
+        departmentRegistry.rejectIfUnknown(userProfileDto.getDepartment(), bindingResult);
+
         // バリデーションエラーがある場合は登録画面に戻る
         if (bindingResult.hasErrors()) {
             logger.error("Validation errors: {}", bindingResult.getAllErrors()); // エラーログ
@@ -96,6 +113,9 @@ public class RegistrationController {
             Model model) {
         logger.debug("Processing registration: {}", userProfileDto); // デバッグログ
 
+        // 未登録の部署も入力エラーとして扱う
+        departmentRegistry.rejectIfUnknown(userProfileDto.getDepartment(), bindingResult);
+
         // バリデーションエラーがある場合は登録画面に戻る
         if (bindingResult.hasErrors()) {
             logger.error("Validation errors during registration: {}", bindingResult.getAllErrors()); // エラーログ
@@ -0,0 +1,110 @@
+package com.example.demo.controller;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import com.example.demo.model.UserProfile;
+import com.example.demo.repository.UserProfileRepository;
+import com.example.demo.service.ShiftCalendarService;
+
+/**
+ * 職員ごとの確定済み勤務の iCalendar 配信（カレンダーアプリの購読用）。
+ * .ics はログインなしで取得でき（SecurityConfig 参照）、URL のトークンで本人のものか確かめる。
+ */
+@RestController
+@RequestMapping("/api/shift/ical")
+public class ShiftCalendarController {
+
+    private final ShiftCalendarService shiftCalendarService;
+    private final UserProfileRepository userProfileRepository;
+
+    public ShiftCalendarController(ShiftCalendarService shiftCalendarService,
+                                   UserProfileRepository userProfileRepository) {
+        this.shiftCalendarService = shiftCalendarService;
+        this.userProfileRepository = userProfileRepository;
+    }
+
+    /**
+     * 確定済み勤務の iCalendar
+     * 例）/api/shift/ical/12.ics?token=...
+     *
+     * @param userId ユーザーID
+     * @param token 配信トークン（/api/shift/ical/link で取得。/link/regenerate で作り直せる）
+     */
+    @GetMapping("/{userId:\\d+}.ics")
+    public void feed(@PathVariable Long userId,
+                     @RequestParam(required = false) String token,
+                     WebRequest webRequest,
+                     HttpServletResponse response) throws IOException {
+
+        // トークンが違う（作り直し前の URL を含む）・ユーザーが削除済みの場合は、どちらか分からないよう同じく 404 にする
+        // （未ログインなので /error へ転送するとログイン画面へのリダイレクトになる。ステータスだけを返す）
+        if (!shiftCalendarService.verifyToken(userId, token)) {
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+
+        List<YearMonth> months = shiftCalendarService.feedMonths();
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        if (webRequest.checkNotModified(shiftCalendarService.etag(userId, months))) {
+            return;
+        }
+
+        response.setContentType("text/calendar; charset=UTF-8");
+        Writer writer = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+        shiftCalendarService.writeIcs(userId, months, writer);
+        writer.flush();
+    }
+
+    /**
+     * ログイン中の職員の配信 URL（カレンダーアプリに登録する）
+     */
+    @GetMapping("/link")
+    public Map<String, String> link(Principal principal) {
+        UserProfile user = currentUser(principal);
+        return Map.of("url", feedUrl(user.getId(), shiftCalendarService.tokenFor(user.getId())));
+    }
+
+    /**
+     * ログイン中の職員の配信 URL を作り直す（URL が漏れたとき用。以前の URL は 404 になる）
+     */
+    @PostMapping("/link/regenerate")
+    public Map<String, String> regenerateLink(Principal principal) {
+        UserProfile user = currentUser(principal);
+        return Map.of("url", feedUrl(user.getId(), shiftCalendarService.regenerateToken(user.getId())));
+    }
+
+    private UserProfile currentUser(Principal principal) {
+        return userProfileRepository.findByUsername(principal.getName())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+    }
+
+    private static String feedUrl(Long userId, String token) {
+        return ServletUriComponentsBuilder.fromCurrentContextPath()
+                .path("/api/shift/ical/{userId}.ics")
+                .queryParam("token", token)
+                .buildAndExpand(userId)
+                .toUriString();
+    }
+}
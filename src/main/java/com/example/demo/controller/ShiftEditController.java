@@ -1,14 +1,24 @@
 package com.example.demo.controller;
 
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam; // ← 追加：action 受け取り用
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import com.example.demo.dto.ShiftDeltaRequest;
+import com.example.demo.dto.ShiftDeltaResult;
+import com.example.demo.dto.ShiftSaveResult;
 import com.example.demo.form.ShiftGenerationForm;
 import com.example.demo.model.Shift;
+import com.example.demo.service.DepartmentRegistry;
 import com.example.demo.service.ShiftService;
 
 /**
@@ -26,15 +36,18 @@ import com.example.demo.service.ShiftService;
  * ▼変更点
  * ・フロント側のボタンはすべて /api/shift/request/save にPOSTし、name="action" の値で分岐
  * ・本クラスのルートも /api/shift/request に変更
+ * ・一時保存・確定は、画面で変更したセルだけを JSON で送る差分保存（/delta）も受け付ける
  */
 @Controller
 @RequestMapping("/api/shift/request") // ★ 変更：/shift → /api/shift/request
 public class ShiftEditController {
 
     private final ShiftService shiftService;
+    private final DepartmentRegistry departmentRegistry;
 
-    public ShiftEditController(ShiftService shiftService) {
+    public ShiftEditController(ShiftService shiftService, DepartmentRegistry departmentRegistry) {
         this.shiftService = shiftService;
+        this.departmentRegistry = departmentRegistry;
     }
 
     /**
@@ -70,38 +83,90 @@ public class ShiftEditController {
         // action の大小文字・余白を吸収
         final String normalizedAction = action == null ? "CONFIRMED" : action.trim().toUpperCase();
 
+        // 行ウィンドウ表示（大人数の部署）の画面はすべてのセルを持たないため、セルを送ってこない。
+        // 確定・確定解除はサーバ側の現在の値で月全体を対象にする（変更中のセルは画面が先に差分保存している）
+        boolean wholeMonth = form.getShifts() == null && form.getTargetMonth() != null && !"DRAFT".equals(normalizedAction);
+        if (wholeMonth && "UNCONFIRM".equals(normalizedAction)) {
+            form.setShifts(shiftService.getMonthCells(resolvedDepartment, form.getTargetMonth()));
+        }
+
         String notice;
+        try {
+            switch (normalizedAction) {
+            case "DRAFT":
+                // ▼ 下書き保存
+                ShiftSaveResult draft = shiftService.saveShifts(form, Shift.Status.DRAFT);
+                notice = saveNotice(draft, "シフトを一時保存しました。");
+                break;
+
+            case "UNCONFIRM":
+                // ▼ 確定解除（CONFIRMED → DRAFT）
+                shiftService.unconfirmShifts(form);
+                notice = "シフトの確定を解除しました。";
+                break;
+
+            case "CONFIRMED":
+            default:
+                // ▼ 確定保存（想定外アクションも CONFIRMED と同等で扱う）
+                // 表示後に他の画面で変更されたセルがあれば何も確定しない（差分保存と同じくロックの中で確認する）
+                if (wholeMonth) {
+                    shiftService.confirmMonth(resolvedDepartment, form.getTargetMonth());
+                    notice = "シフトを確定しました。";
+                } else {
+                    ShiftSaveResult confirmed = shiftService.saveShifts(form, Shift.Status.CONFIRMED);
+                    notice = saveNotice(confirmed, "シフトを確定しました。");
+                }
+                break;
+            }
+        } catch (OptimisticLockingFailureException e) {
+            // 月単位格納で、同じ月の行を別の保存が先に更新していた（何も保存していない）
+            notice = "他の保存と重なったため保存できませんでした。画面を再読み込みしてから保存し直してください。";
+        }
+
+        // 画面上部に通知を出す（Flash Attribute）
+        ra.addFlashAttribute("notice", notice);
+
+        // PRG：保存後は生成画面へ戻る
+        return redirectToGenerate(form, ra);
+    }
+
+    /**
+     * 差分保存エンドポイント（generate.html の一時保存・確定から fetch で呼ぶ）
+     * - 変更したセルだけを、表示時のバージョンつきで受け取り、1トランザクションでまとめて保存する
+     * - action=DRAFT / CONFIRMED（確定解除は従来どおり /save で月全体に対して行う）
+     *
+     * @return 200: 保存後のセルの状態／409: 他の保存と競合したセルの現在の状態（何も保存しない）
+     */
+    @PostMapping("/delta")
+    @ResponseBody
+    public ResponseEntity<ShiftDeltaResult> saveDelta(@RequestBody ShiftDeltaRequest request) {
+        if (request == null || !departmentRegistry.contains(request.department())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown department");
+        }
+
+        String normalizedAction = request.action() == null ? "CONFIRMED" : request.action().trim().toUpperCase();
+        Shift.Status status;
         switch (normalizedAction) {
         case "DRAFT":
-            // ▼ 下書き保存
-            shiftService.saveShifts(form, Shift.Status.DRAFT);
-            notice = "シフトを一時保存しました。";
-            break;
-
-        case "UNCONFIRM":
-            // ▼ 確定解除（CONFIRMED → DRAFT）
-            shiftService.unconfirmShifts(form);
-            notice = "シフトの確定を解除しました。";
+            status = Shift.Status.DRAFT;
             break;
-
         case "CONFIRMED":
-            // ▼ 確定保存
-            shiftService.saveShifts(form, Shift.Status.CONFIRMED);
-            notice = "シフトを確定しました。";
+            status = Shift.Status.CONFIRMED;
             break;
-
         default:
-            // ▼ 想定外アクションは CONFIRMED と同等で扱う
-            shiftService.saveShifts(form, Shift.Status.CONFIRMED);
-            notice = "シフトを確定しました。";
-            break;
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported action: " + request.action());
         }
 
-        // 画面上部に通知を出す（Flash Attribute）
-        ra.addFlashAttribute("notice", notice);
-
-        // PRG：保存後は生成画面へ戻る
-        return redirectToGenerate(form, ra);
+        ShiftDeltaResult result;
+        try {
+            result = shiftService.saveShiftDelta(request.department(), request.cells(), status);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        } catch (OptimisticLockingFailureException e) {
+            // 月単位格納の行を別の保存が先に更新していた（画面は再読み込みして差分を取り直す）
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Concurrent update", e);
+        }
+        return ResponseEntity.status(result.applied() ? HttpStatus.OK : HttpStatus.CONFLICT).body(result);
     }
 
     /* =========================
@@ -154,6 +219,20 @@ public class ShiftEditController {
     // }
     */
 
+    // 保存結果の通知（保存しなかった場合はその理由）
+    private static String saveNotice(ShiftSaveResult result, String savedNotice) {
+        if (result.applied()) {
+            return savedNotice;
+        }
+        if (!result.invalid().isEmpty()) {
+            return "勤務として登録できない値のセルがあるため保存しませんでした（" + result.invalid().size()
+                    + "件: " + String.join(", ", result.invalid().subList(0, Math.min(5, result.invalid().size())))
+                    + (result.invalid().size() > 5 ? " ほか" : "") + "）。値を直してから保存し直してください。";
+        }
+        return "画面を開いた後に他の画面で変更されたセルがあるため保存しませんでした（" + result.conflicts().size()
+                + "件）。画面を再読み込みしてから保存し直してください。";
+    }
+
     // 共通：保存後は generate 画面にリダイレクト
     private String redirectToGenerate(ShiftGenerationForm form, RedirectAttributes ra) {
         if (form != null) {
@@ -0,0 +1,120 @@
+package com.example.demo.controller;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.YearMonth;
+import java.util.List;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.example.demo.service.DepartmentRegistry;
+import com.example.demo.service.ShiftExportService;
+
+/**
+ * 勤務表のファイル出力（給与計算などの外部連携用）。
+ * 一覧画面をスクレイピングせずに済むよう、月単位の勤務表をそのまま出力する。
+ */
+@Controller
+@RequestMapping("/shift")
+public class ShiftExportController {
+
+    // 一度に出力できる最大月数（誤操作で全期間を出力しないように）
+    private static final int MAX_MONTHS = 24;
+
+    private static final MediaType XLSX =
+            MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+
+    private final ShiftExportService shiftExportService;
+    private final DepartmentRegistry departmentRegistry;
+
+    public ShiftExportController(ShiftExportService shiftExportService,
+                                 DepartmentRegistry departmentRegistry) {
+        this.shiftExportService = shiftExportService;
+        this.departmentRegistry = departmentRegistry;
+    }
+
+    /**
+     * 勤務表 CSV の出力
+     * 例）/shift/export.csv?department=amami&month=2025-04&months=12
+     *
+     * @param department 対象部署
+     * @param month 開始月（省略時は今月）
+     * @param months 出力する月数（省略時は1）
+     */
+    @GetMapping("/export.csv")
+    public void exportCsv(@RequestParam(required = false, defaultValue = "amami") String department,
+                          @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth month,
+                          @RequestParam(required = false, defaultValue = "1") int months,
+                          HttpServletResponse response) throws IOException {
+
+        // 未登録の部署は部署コードの変換（DepartmentConverter）に渡す前に弾く
+        if (!departmentRegistry.contains(department)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown department: " + department);
+        }
+        YearMonth from = (month != null) ? month : YearMonth.now();
+        int monthCount = Math.max(1, Math.min(months, MAX_MONTHS));
+
+        response.setContentType("text/csv; charset=UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"shifts_" + department.replaceAll("[^A-Za-z0-9_-]", "_")
+                        + "_" + from + "_" + monthCount + "m.csv\"");
+
+        // レスポンスへ直接書き出す（全体をバッファしない）
+        Writer writer = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8));
+        // Excel で文字化けしないよう BOM を付ける
+        writer.write('\uFEFF');
+        shiftExportService.writeCsv(department, from, monthCount, writer);
+        writer.flush();
+    }
+
+    /**
+     * 勤務表 xlsx の出力（部署×月ごとに1シート、勤務種別で色分け、日ごとの出勤人数つき）
+     * 例）/shift/export.xlsx?department=amami&month=2025-04&months=3
+     *
+     * 書き出しは非同期（StreamingResponseBody）で行い、リクエストスレッドを占有しない。
+     *
+     * @param department 対象部署（省略時は全部署）
+     * @param month 開始月（省略時は今月）
+     * @param months 出力する月数（省略時は1）
+     */
+    @GetMapping("/export.xlsx")
+    public ResponseEntity<StreamingResponseBody> exportXlsx(
+            @RequestParam(required = false) String department,
+            @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth month,
+            @RequestParam(required = false, defaultValue = "1") int months) {
+
+        if (department != null && !department.isBlank() && !departmentRegistry.contains(department)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown department: " + department);
+        }
+        YearMonth from = (month != null) ? month : YearMonth.now();
+        int monthCount = Math.max(1, Math.min(months, MAX_MONTHS));
+        List<String> departments = (department != null && !department.isBlank())
+                ? List.of(department)
+                : List.copyOf(departmentRegistry.displayNames().keySet());
+        String label = (department != null && !department.isBlank())
+                ? department.replaceAll("[^A-Za-z0-9_-]", "_")
+                : "all";
+
+        StreamingResponseBody body = out -> shiftExportService.writeXlsx(departments, from, monthCount, out);
+        return ResponseEntity.ok()
+                .contentType(XLSX)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"shifts_" + label + "_" + from + "_" + monthCount + "m.xlsx\"")
+                .body(body);
+    }
+}
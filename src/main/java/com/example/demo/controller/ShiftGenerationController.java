@@ -6,18 +6,29 @@ import java.util.List;
 import java.util.Map;
 import java.util.stream.IntStream;
 
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
 
-import com.example.demo.dto.UserProfileDto;
+import com.example.demo.dto.ShiftGridRowView;
+import com.example.demo.dto.UserSummary;
+import com.example.demo.model.ShiftType;
 import com.example.demo.form.ShiftGenerationForm;
+import com.example.demo.service.DepartmentRegistry;
 import com.example.demo.service.ShiftGenerationService;
+import com.example.demo.service.ShiftGridVersionService;
 import com.example.demo.service.ShiftService;
-import com.example.demo.service.UserProfileService;
+import com.example.demo.service.UserDirectory;
 
 /**
  * シフト生成に関する画面コントローラ
@@ -30,15 +41,26 @@ public class ShiftGenerationController {
 
     // --- サービスをDI（依存性注入） ---
     private final ShiftGenerationService shiftGenerationService;
-    private final UserProfileService userProfileService;
+    private final UserDirectory userDirectory;
     private final ShiftService shiftService;
+    private final ShiftGridVersionService shiftGridVersionService;
+    private final DepartmentRegistry departmentRegistry;
+
+    // この人数を超える部署は、行を画面側で必要な範囲だけ描画する（/api/shift/grid から範囲ごとに取得）
+    private final int windowThreshold;
 
     public ShiftGenerationController(ShiftGenerationService shiftGenerationService,
-                                     UserProfileService userProfileService,
-                                     ShiftService shiftService) {
+                                     UserDirectory userDirectory,
+                                     ShiftService shiftService,
+                                     ShiftGridVersionService shiftGridVersionService,
+                                     DepartmentRegistry departmentRegistry,
+                                     @Value("${shift.grid.window-threshold:150}") int windowThreshold) {
         this.shiftGenerationService = shiftGenerationService;
-        this.userProfileService = userProfileService;
+        this.userDirectory = userDirectory;
         this.shiftService = shiftService;
+        this.shiftGridVersionService = shiftGridVersionService;
+        this.departmentRegistry = departmentRegistry;
+        this.windowThreshold = windowThreshold;
     }
 
     /**
@@ -50,13 +72,28 @@ public class ShiftGenerationController {
             @RequestParam(required = false, defaultValue = "amami") String department,
             @RequestParam(required = false)
             @DateTimeFormat(pattern = "yyyy-MM") YearMonth month,
-            Model model) {
+            Model model,
+            WebRequest webRequest,
+            HttpServletResponse response) {
 
         System.out.println("▶ showGeneratePage 開始");
 
+        // 未登録の部署は表示しない（部署マスタ departments にない）
+        if (!departmentRegistry.contains(department)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown department: " + department);
+        }
+
+        // --- 0. 前回表示から変更がなければ、クエリもテンプレート描画も行わずに 304 を返す ---
+        YearMonth etagMonth = (month != null) ? month : YearMonth.now();
+        String etag = shiftGridVersionService.etag("generate", department, etagMonth, webRequest.getSessionId());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+
         try {
             // --- 1. 対象月を決定（指定なければ今月） ---
-            YearMonth targetMonth = (month != null) ? month : YearMonth.now();
+            YearMonth targetMonth = etagMonth;
             System.out.println("▶ 対象月: " + targetMonth);
 
             // --- 2. 月の日付リストを生成（1日〜末日） ---
@@ -64,20 +101,18 @@ public class ShiftGenerationController {
                     .mapToObj(targetMonth::atDay)
                     .toList();
 
-            // --- 3. 部署でユーザーを絞り込み ---
-            List<UserProfileDto> users = userProfileService.getAllUserProfiles().stream()
-                    .filter(u -> department.equalsIgnoreCase(u.getDepartment()))
-                    .toList();
+            // --- 3. 部署でユーザーを絞り込み（メモリ上のディレクトリから取得。user_profiles は参照しない） ---
+            List<UserSummary> users = userDirectory.findByDepartment(department);
             System.out.println("▶ ユーザー件数: " + users.size());
 
-            // --- 4. シフト情報を取得 ---
-            Map<String, String> shiftMap = shiftService.getShiftMap(users, dates, department);
+            // --- 4. シフト情報を取得（行ウィンドウ表示の場合、セルは画面が範囲ごとに取得するのでここでは読まない） ---
+            boolean windowed = users.size() > windowThreshold;
+            // バージョンはセルより先に読む（表示する値がバージョンより古くならないように）
+            Map<String, Long> cellVersions = windowed ? Map.of() : shiftService.getCellVersions(department, targetMonth);
+            Map<String, ShiftType> shiftMap = windowed ? Map.of() : shiftService.getShiftMap(users, dates, department);
 
-            // --- 5. 部署コードと日本語表示名のマッピング ---
-            Map<String, String> departmentDisplayMap = Map.of(
-                    "amami", "天美",
-                    "main", "本社"
-            );
+            // --- 5. 部署コードと日本語表示名のマッピング（部署マスタの並び順） ---
+            Map<String, String> departmentDisplayMap = departmentRegistry.displayNames();
 
             // --- 6. Thymeleafに渡す値をmodelにセット ---
             model.addAttribute("users", users);
@@ -89,6 +124,14 @@ public class ShiftGenerationController {
             model.addAttribute("selectedDepartmentName",
                     departmentDisplayMap.getOrDefault(department, department));
             model.addAttribute("shiftMap", shiftMap);
+            // 行ごとの表示用配列（セルのキー・表示文字列・CSS クラス・差分保存で送り返すバージョン）を Java 側で作っておく
+            List<String> dateKeys = ShiftGridRowView.dateKeys(dates);
+            model.addAttribute("dateKeys", dateKeys);
+            // フォーム送信（確定など）で、表示後に他の画面で変更されたセルを検出するための基準
+            model.addAttribute("baseVersion", cellVersions.values().stream().mapToLong(Long::longValue).max().orElse(0L));
+            model.addAttribute("rows", windowed ? List.of() : ShiftGridRowView.build(users, dateKeys, shiftMap, cellVersions));
+            model.addAttribute("windowed", windowed);
+            model.addAttribute("userCount", users.size());
             model.addAttribute("form", new ShiftGenerationForm());
 
             // 可視化用フラグ
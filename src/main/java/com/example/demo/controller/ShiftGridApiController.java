@@ -0,0 +1,151 @@
+package com.example.demo.controller;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.demo.dto.ShiftGridDto;
+import com.example.demo.dto.UserSummary;
+import com.example.demo.model.ShiftMonth;
+import com.example.demo.model.ShiftType;
+import com.example.demo.service.DepartmentRegistry;
+import com.example.demo.service.ShiftGridVersionService;
+import com.example.demo.service.ShiftLiveUpdates;
+import com.example.demo.service.ShiftService;
+import com.example.demo.service.UserDirectory;
+
+/**
+ * 月グリッドの JSON API（画面側で描画する用）。
+ * 応答はセル数ではなくコード数に比例する大きさで、gzip（server.compression）がよく効く。
+ * 一覧画面と同じく保存・ユーザー変更で進むバージョンを ETag にし、変更がなければ 304 を返す。
+ * 開いている画面への変更の配信（SSE）もここで受け付ける。
+ */
+@RestController
+@RequestMapping("/api/shift")
+public class ShiftGridApiController {
+
+    // コード1文字 → 表示文字列（未設定の '.' は空文字）
+    private static final Map<String, String> LEGEND;
+
+    static {
+        Map<String, String> legend = new LinkedHashMap<>();
+        for (ShiftType type : ShiftType.values()) {
+            legend.put(String.valueOf(type.getPacked()), type.getLabel());
+        }
+        legend.put(String.valueOf(ShiftMonth.EMPTY), "");
+        LEGEND = Collections.unmodifiableMap(legend);
+    }
+
+    private final ShiftService shiftService;
+    private final UserDirectory userDirectory;
+    private final ShiftGridVersionService shiftGridVersionService;
+    private final DepartmentRegistry departmentRegistry;
+    private final ShiftLiveUpdates shiftLiveUpdates;
+
+    public ShiftGridApiController(ShiftService shiftService, UserDirectory userDirectory,
+                                  ShiftGridVersionService shiftGridVersionService,
+                                  DepartmentRegistry departmentRegistry,
+                                  ShiftLiveUpdates shiftLiveUpdates) {
+        this.shiftService = shiftService;
+        this.userDirectory = userDirectory;
+        this.shiftGridVersionService = shiftGridVersionService;
+        this.departmentRegistry = departmentRegistry;
+        this.shiftLiveUpdates = shiftLiveUpdates;
+    }
+
+    /**
+     * 部署×年月の月グリッド
+     *
+     * @param department 部署コード
+     * @param month 年月（yyyy-MM）
+     * @param offset 先頭行の位置（省略時は 0）
+     * @param limit 行数（省略時は全行）
+     * @return 列指向の月グリッド（変更がなければ 304 で本文なし）
+     */
+    @GetMapping("/grid")
+    public ShiftGridDto getGrid(@RequestParam String department,
+                                @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth month,
+                                @RequestParam(defaultValue = "0") int offset,
+                                @RequestParam(required = false) Integer limit,
+                                WebRequest webRequest,
+                                HttpServletResponse response) {
+
+        if (!departmentRegistry.contains(department)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown department: " + department);
+        }
+        if (offset < 0 || (limit != null && limit <= 0)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid row range");
+        }
+
+        // 本文にセッション固有の値（CSRF トークンなど）を含まないので、ETag はセッションに依存させない
+        // （行範囲は URL が違うので、ブラウザのキャッシュは範囲ごとに分かれる）
+        String etag = shiftGridVersionService.etag("grid", department, month, null);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+
+        List<UserSummary> all = userDirectory.findByDepartment(department);
+        int from = Math.min(offset, all.size());
+        int to = limit == null ? all.size() : (int) Math.min((long) from + limit, all.size());
+        List<UserSummary> users = all.subList(from, to);
+
+        List<Long> userIds = users.stream().map(UserSummary::getId).toList();
+        List<String> names = users.stream()
+                .map(u -> u.getLastName() + " " + u.getFirstName())
+                .toList();
+        List<String> rows = shiftService.getPackedRows(users, month, department);
+
+        // セルのバージョンは表示する範囲の行だけ引き、行ごとに「日 → バージョン」にまとめる
+        Map<String, Long> cellVersions = shiftService.getCellVersions(department, month, users);
+        List<Map<Integer, Long>> versions = new ArrayList<>(users.size());
+        for (UserSummary user : users) {
+            Map<Integer, Long> byDay = new HashMap<>();
+            String prefix = user.getId() + "_";
+            for (int day = 1; day <= month.lengthOfMonth(); day++) {
+                Long version = cellVersions.get(prefix + month.atDay(day));
+                if (version != null) {
+                    byDay.put(day, version);
+                }
+            }
+            versions.add(byDay);
+        }
+
+        return new ShiftGridDto(department, month.atDay(1), month.lengthOfMonth(), all.size(), from,
+                userIds, names, rows, versions, LEGEND);
+    }
+
+    /**
+     * 部署×年月の変更の購読（Server-Sent Events）。
+     * 保存がコミットされるたびに "cells" イベントで変更後のセル（ShiftCellState の配列）が届く。
+     *
+     * @param department 部署コード
+     * @param month 年月（yyyy-MM）
+     */
+    @GetMapping(path = "/grid/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(@RequestParam String department,
+                                @RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth month) {
+        if (!departmentRegistry.contains(department)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown department: " + department);
+        }
+        return shiftLiveUpdates.subscribe(department, month);
+    }
+}
@@ -6,60 +6,87 @@ import java.util.List;
 import java.util.Map;
 import java.util.stream.IntStream;
 
+import jakarta.servlet.http.HttpServletResponse;
+
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
 
-import com.example.demo.dto.UserProfileDto;
+import com.example.demo.dto.ShiftGridRowView;
+import com.example.demo.dto.UserSummary;
+import com.example.demo.model.ShiftType;
+import com.example.demo.service.DepartmentRegistry;
+import com.example.demo.service.ShiftGridVersionService;
 import com.example.demo.service.ShiftService;
-import com.example.demo.service.UserProfileService;
+import com.example.demo.service.UserDirectory;
 
 @Controller
 @RequestMapping("/shift")
 public class ShiftListController {
 
     private final ShiftService shiftService;
-    private final UserProfileService userProfileService;
+    private final UserDirectory userDirectory;
+    private final ShiftGridVersionService shiftGridVersionService;
+    private final DepartmentRegistry departmentRegistry;
 
-    public ShiftListController(ShiftService shiftService, UserProfileService userProfileService) {
+    public ShiftListController(ShiftService shiftService, UserDirectory userDirectory,
+                               ShiftGridVersionService shiftGridVersionService,
+                               DepartmentRegistry departmentRegistry) {
         this.shiftService = shiftService;
-        this.userProfileService = userProfileService;
+        this.userDirectory = userDirectory;
+        this.shiftGridVersionService = shiftGridVersionService;
+        this.departmentRegistry = departmentRegistry;
     }
 
     @GetMapping("/list")
     public String showShiftList(@RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth month,
                                  @RequestParam(required = false, defaultValue = "amami") String department,
-                                 Model model) {
+                                 Model model,
+                                 WebRequest webRequest,
+                                 HttpServletResponse response) {
 
         // 月が指定されていなければ今月を使用
         YearMonth targetMonth = (month != null) ? month : YearMonth.now();
 
+        // 未登録の部署は表示しない（部署マスタ departments にない）
+        if (!departmentRegistry.contains(department)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown department: " + department);
+        }
+
+        // 前回表示から変更がなければ、クエリもテンプレート描画も行わずに 304 を返す
+        String etag = shiftGridVersionService.etag("list", department, targetMonth, webRequest.getSessionId());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+
         // 指定月の全日付をリスト化（1日〜末日）
         List<LocalDate> dates = IntStream.rangeClosed(1, targetMonth.lengthOfMonth())
             .mapToObj(targetMonth::atDay)
             .toList();
 
-        // ユーザー一覧を部署コード（amami/main）でフィルタリング
-        List<UserProfileDto> users = userProfileService.getAllUserProfiles().stream()
-            .filter(u -> department.equalsIgnoreCase(u.getDepartment()))
-            .toList();
+        // ユーザー一覧を部署コード（amami/main）で絞り込み（メモリ上のディレクトリから取得。user_profiles は参照しない）
+        List<UserSummary> users = userDirectory.findByDepartment(department);
 
-        // シフト情報を userId + '_' + 日付 をキーとして取得（表示用）
-        Map<String, String> shiftMap = shiftService.getShiftMap(users, dates, department);
+        // シフト情報を userId + '_' + 日付 をキーとして取得し、行ごとの表示用配列にしておく（テンプレートでセルごとに引かない）
+        Map<String, ShiftType> shiftMap = shiftService.getShiftMap(users, dates, department);
+        List<String> dateKeys = ShiftGridRowView.dateKeys(dates);
+        List<ShiftGridRowView> rows = ShiftGridRowView.build(users, dateKeys, shiftMap, Map.of());
 
-        // 部署コードと表示名のマッピング（日本語表示用）
-        Map<String, String> departmentDisplayMap = Map.of(
-            "amami", "天美",
-            "main", "本社"
-        );
+        // 部署コードと表示名のマッピング（部署マスタの並び順。日本語表示用）
+        Map<String, String> departmentDisplayMap = departmentRegistry.displayNames();
 
         // モデルに各種属性を追加
         model.addAttribute("users", users);
         model.addAttribute("dates", dates);
-        model.addAttribute("shiftMap", shiftMap);
+        model.addAttribute("rows", rows);
         model.addAttribute("department", department);
         model.addAttribute("month", targetMonth);
         model.addAttribute("departments", departmentDisplayMap.keySet()); // セレクト用
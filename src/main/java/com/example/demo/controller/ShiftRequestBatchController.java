@@ -0,0 +1,68 @@
+package com.example.demo.controller;
+
+import java.security.Principal;
+import java.time.YearMonth;
+import java.util.List;
+
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.demo.dto.ShiftRequestBatchResult;
+import com.example.demo.form.ShiftRequestForm;
+import com.example.demo.model.UserProfile;
+import com.example.demo.repository.UserProfileRepository;
+import com.example.demo.service.DepartmentRegistry;
+import com.example.demo.service.ShiftRequestBatchService;
+
+/**
+ * 職員本人の希望休/有給の一括申請 API（ログイン中の職員・所属部署の分だけ受け付ける）
+ * 例）POST /api/shift/requests?month=2025-04
+ *     [{"date":"2025-04-05","requestType":"休"},{"date":"2025-04-12","requestType":"有"}]
+ */
+@RestController
+@RequestMapping("/api/shift")
+public class ShiftRequestBatchController {
+
+    // 1回で受け付ける申請の最大件数（1か月分に対して十分な数）
+    private static final int MAX_FORMS = 62;
+
+    private final ShiftRequestBatchService shiftRequestBatchService;
+    private final UserProfileRepository userProfileRepository;
+    private final DepartmentRegistry departmentRegistry;
+
+    public ShiftRequestBatchController(ShiftRequestBatchService shiftRequestBatchService,
+                                       UserProfileRepository userProfileRepository,
+                                       DepartmentRegistry departmentRegistry) {
+        this.shiftRequestBatchService = shiftRequestBatchService;
+        this.userProfileRepository = userProfileRepository;
+        this.departmentRegistry = departmentRegistry;
+    }
+
+    /**
+     * 1か月分の申請を登録する
+     *
+     * @param month 対象月（yyyy-MM）
+     * @param forms 申請（userId・department は省略可。指定する場合は本人・所属部署であること）
+     * @return 日ごとの結果（不正な日は REJECTED として理由を返し、残りの日は登録する）
+     */
+    @PostMapping("/requests")
+    public ShiftRequestBatchResult submit(@RequestParam @DateTimeFormat(pattern = "yyyy-MM") YearMonth month,
+                                          @RequestBody List<ShiftRequestForm> forms,
+                                          Principal principal) {
+        if (forms.size() > MAX_FORMS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Too many requests: " + forms.size());
+        }
+        UserProfile user = userProfileRepository.findByUsername(principal.getName())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        if (!departmentRegistry.contains(user.getDepartment())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "User has no department");
+        }
+        return shiftRequestBatchService.submit(user.getId(), user.getDepartment(), month, forms, user.getUsername());
+    }
+}
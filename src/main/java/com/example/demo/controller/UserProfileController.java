@@ -1,7 +1,6 @@
 package com.example.demo.controller;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -11,6 +10,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -19,9 +19,13 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
 import com.example.demo.dto.UserProfileDto;
+import com.example.demo.dto.UserProfilePageDto;
+import com.example.demo.service.DepartmentRegistry;
 import com.example.demo.service.UserProfileService;
 
 @RestController
@@ -30,20 +34,38 @@ public class UserProfileController {
 
     private static final Logger logger = LoggerFactory.getLogger(UserProfileController.class);
     private final UserProfileService userProfileService;
+    private final DepartmentRegistry departmentRegistry;
 
-    public UserProfileController(UserProfileService userProfileService) {
+    public UserProfileController(UserProfileService userProfileService, DepartmentRegistry departmentRegistry) {
         this.userProfileService = userProfileService;
+        this.departmentRegistry = departmentRegistry;
     }
 
     /**
-     * ユーザー一覧の取得
+     * ユーザー一覧の取得（部署絞り込み・キーセットページング）
      * 
-     * @return ユーザー情報のリスト
+     * @param department - 絞り込む部署（省略時は全部署）
+     * @param afterDepartment - 前ページの nextAfterDepartment（全部署のとき）
+     * @param afterId - 前ページの nextAfterId（先頭ページは省略）
+     * @param size - ページサイズ（省略時は既定値）
+     * @return ユーザー情報の1ページ分
      */
     @GetMapping("/list")
-    public ResponseEntity<List<UserProfileDto>> getAllUsers() {
-        List<UserProfileDto> users = userProfileService.getAllUserProfiles();
-        return ResponseEntity.ok(users);
+    public ResponseEntity<UserProfilePageDto> getAllUsers(
+            @RequestParam(required = false) String department,
+            @RequestParam(required = false) String afterDepartment,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(required = false) Integer size) {
+        // 未登録の部署は部署コードの変換（DepartmentConverter）に渡す前に弾く
+        if (StringUtils.hasText(department) && !departmentRegistry.contains(department)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown department: " + department);
+        }
+        if (StringUtils.hasText(afterDepartment) && !UserProfilePageDto.NO_DEPARTMENT.equals(afterDepartment)
+                && !departmentRegistry.contains(afterDepartment)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor: " + afterDepartment);
+        }
+        UserProfilePageDto page = userProfileService.getUserProfilePage(department, afterDepartment, afterId, size);
+        return ResponseEntity.ok(page);
     }
 
     /**
@@ -60,6 +82,7 @@ public class UserProfileController {
 
         logger.debug("Received registration request: {}", userProfileDto);
 
+        departmentRegistry.rejectIfUnknown(userProfileDto.getDepartment(), bindingResult);
         if (bindingResult.hasErrors()) {
             logger.error("Validation errors: {}", bindingResult.getAllErrors());
             return ResponseEntity.badRequest().body(getValidationErrors(bindingResult));
@@ -103,6 +126,7 @@ public class UserProfileController {
 
         logger.debug("Updating user profile for ID: {} with data: {}", id, userProfileDto);
 
+        departmentRegistry.rejectIfUnknown(userProfileDto.getDepartment(), bindingResult);
         if (bindingResult.hasErrors()) {
             logger.error("Validation errors: {}", bindingResult.getAllErrors());
             return ResponseEntity.badRequest().body(getValidationErrors(bindingResult));
@@ -1,19 +1,25 @@
 package com.example.demo.controller;
 
-import java.util.List;
+import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.util.StringUtils;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.server.ResponseStatusException;
 
 import com.example.demo.dto.UserProfileDto;
+import com.example.demo.dto.UserProfilePageDto;
+import com.example.demo.service.DepartmentRegistry;
 import com.example.demo.service.UserProfileService;
 
 @Controller
@@ -22,21 +28,48 @@ public class UserProfileViewController {
 
     private static final Logger logger = LoggerFactory.getLogger(UserProfileViewController.class);
     private final UserProfileService userProfileService;
+    private final DepartmentRegistry departmentRegistry;
 
-    public UserProfileViewController(UserProfileService userProfileService) {
+    public UserProfileViewController(UserProfileService userProfileService, DepartmentRegistry departmentRegistry) {
         this.userProfileService = userProfileService;
+        this.departmentRegistry = departmentRegistry;
     }
 
     /**
-     * ユーザー一覧画面の表示
+     * 部署コード → 表示名（一覧の絞り込み・編集の所属セレクト・各画面の所属表示に使う）
+     */
+    @ModelAttribute("departmentNames")
+    public Map<String, String> departmentNames() {
+        return departmentRegistry.displayNames();
+    }
+
+    /**
+     * ユーザー一覧画面の表示（部署絞り込み・キーセットページング）
      * 
+     * @param department 絞り込む部署（省略時は全部署）
+     * @param afterDepartment 前ページ最後の部署（全部署のとき）
+     * @param afterId 前ページ最後のユーザーID（先頭ページは省略）
+     * @param size ページサイズ（省略時は既定値）
      * @param model Thymeleafに渡すデータを保持するModelオブジェクト
      * @return ユーザー一覧画面のテンプレート名
      */
     @GetMapping("/list")
-    public String showUserList(Model model) {
-        List<UserProfileDto> users = userProfileService.getAllUserProfiles();
-        model.addAttribute("users", users);
+    public String showUserList(@RequestParam(required = false) String department,
+                               @RequestParam(required = false) String afterDepartment,
+                               @RequestParam(required = false) Long afterId,
+                               @RequestParam(required = false) Integer size,
+                               Model model) {
+        // 未登録の部署は部署コードの変換（DepartmentConverter）に渡す前に弾く
+        if (StringUtils.hasText(department) && !departmentRegistry.contains(department)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown department: " + department);
+        }
+        if (StringUtils.hasText(afterDepartment) && !UserProfilePageDto.NO_DEPARTMENT.equals(afterDepartment)
+                && !departmentRegistry.contains(afterDepartment)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor: " + afterDepartment);
+        }
+        UserProfilePageDto page = userProfileService.getUserProfilePage(department, afterDepartment, afterId, size);
+        model.addAttribute("users", page.getUsers());
+        model.addAttribute("page", page);
         return "user/list";
     }
 
@@ -88,6 +121,8 @@ public class UserProfileViewController {
             @ModelAttribute("user") UserProfileDto user,
             BindingResult bindingResult, Model model) {
 
+        // 未登録の部署は部署コードの変換（DepartmentConverter）に渡す前に弾き、編集画面に戻す
+        departmentRegistry.rejectIfUnknown(user.getDepartment(), bindingResult);
         if (bindingResult.hasErrors()) {
             return "user/edit";
         }
@@ -104,6 +139,7 @@ public class UserProfileViewController {
             @ModelAttribute("user") UserProfileDto user,  // `userProfileDto` を `user` に統一
             BindingResult bindingResult) {
 
+        departmentRegistry.rejectIfUnknown(user.getDepartment(), bindingResult);
         if (bindingResult.hasErrors()) {
             return "user/edit";
         }
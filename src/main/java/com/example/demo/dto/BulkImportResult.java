@@ -0,0 +1,25 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+/**
+ * CSV 一括取込の結果。
+ * エラーのあった行は取り込まずに飛ばし、残りの行は取り込む（ファイル全体を止めない）。
+ *
+ * @param kind 取込種別（requirements / requests / assignments）
+ * @param lines 読んだデータ行数（ヘッダー・空行を除く）
+ * @param imported 取り込んだ行数（同じキーの行が複数あれば後の行の値が残る）
+ * @param errorCount エラーの行数
+ * @param errors エラーの内容（先頭から上限件数まで）
+ */
+public record BulkImportResult(String kind, int lines, int imported, int errorCount, List<LineError> errors) {
+
+    /**
+     * 行単位のエラー
+     *
+     * @param line 行番号（ヘッダーを1行目とする）
+     * @param message 内容
+     */
+    public record LineError(int line, String message) {
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.demo.dto;
+
+import java.time.LocalDate;
+
+import com.example.demo.model.ShiftType;
+
+/**
+ * 勤務表（ユーザー×日付）の1セル分を表す読み取り専用プロジェクション。
+ * エンティティを丸ごと読まず、出力に必要な列だけを取得する（CSV 出力などで使用）。
+ * シフトが1件もないユーザーも行として返すため、date / shiftType は null になり得る。
+ */
+public interface RosterCellView {
+
+    Long getUserId();
+
+    String getLastName();
+
+    String getFirstName();
+
+    LocalDate getDate();
+
+    ShiftType getShiftType();
+}
@@ -0,0 +1,19 @@
+package com.example.demo.dto;
+
+/**
+ * 勤務表（ユーザー×月）の1行分を表す読み取り専用プロジェクション（月単位格納の CSV 出力用）。
+ * codes は ShiftMonth と同じ1日1文字のコード列（ShiftType#fromPacked で戻す）。その月の行がないユーザーは null。
+ * draftMask は下書きの日のビット（1日目が最下位ビット）。その月の行がないユーザーは null。
+ */
+public interface RosterMonthView {
+
+    Long getUserId();
+
+    String getLastName();
+
+    String getFirstName();
+
+    String getCodes();
+
+    Integer getDraftMask();
+}
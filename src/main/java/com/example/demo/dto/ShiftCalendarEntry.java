@@ -0,0 +1,15 @@
+package com.example.demo.dto;
+
+import java.time.LocalDate;
+
+import com.example.demo.model.ShiftType;
+
+/**
+ * 個人カレンダー（iCalendar 配信）の1日分。確定済み（CONFIRMED）の勤務だけを表す。
+ *
+ * @param date 勤務日
+ * @param shiftType 勤務種別
+ * @param department 部署コード
+ */
+public record ShiftCalendarEntry(LocalDate date, ShiftType shiftType, String department) {
+}
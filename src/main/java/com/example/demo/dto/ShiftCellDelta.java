@@ -0,0 +1,14 @@
+package com.example.demo.dto;
+
+import java.time.LocalDate;
+
+/**
+ * 勤務表の差分保存で送られてくる1セル分の変更。
+ *
+ * @param userId 対象ユーザー
+ * @param date 対象日
+ * @param value 変更後の勤務（表示文字列。"" または "-" はクリア）
+ * @param version 画面が表示していたときのセルのバージョン（一度も変更されていないセルは 0）
+ */
+public record ShiftCellDelta(Long userId, LocalDate date, String value, long version) {
+}
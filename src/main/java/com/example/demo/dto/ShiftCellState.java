@@ -0,0 +1,14 @@
+package com.example.demo.dto;
+
+import java.time.LocalDate;
+
+/**
+ * 勤務表の1セルの現在の状態（差分保存の応答）。
+ *
+ * @param userId 対象ユーザー
+ * @param date 対象日
+ * @param value 勤務（表示文字列。未設定は ""）
+ * @param version セルのバージョン（最新の変更イベントID。一度も変更されていなければ 0）
+ */
+public record ShiftCellState(Long userId, LocalDate date, String value, long version) {
+}
@@ -0,0 +1,32 @@
+package com.example.demo.dto;
+
+import java.time.LocalDate;
+
+import com.example.demo.model.Shift;
+import com.example.demo.model.ShiftType;
+
+/**
+ * 勤務表の1セルの変更（変更履歴 shift_change_events の1行分。部署・操作者・時刻は ShiftChangeLog が付ける）。
+ *
+ * @param userId 対象ユーザー
+ * @param date 対象日
+ * @param oldType 変更前の勤務種別（未設定なら null）
+ * @param newType 変更後の勤務種別（クリアなら null）
+ * @param status 変更後の保存状態
+ */
+public record ShiftChangeEvent(Long userId, LocalDate date, ShiftType oldType, ShiftType newType, Shift.Status status) {
+
+    /**
+     * 変更前後で勤務種別・保存状態のどちらかが変わるときだけイベントを返す（変わらなければ null）
+     *
+     * @param oldStatus 変更前の保存状態（セルがなかった場合は null）
+     */
+    public static ShiftChangeEvent ofChange(Long userId, LocalDate date,
+                                            ShiftType oldType, Shift.Status oldStatus,
+                                            ShiftType newType, Shift.Status newStatus) {
+        if (oldType == newType && (newType == null || oldStatus == newStatus)) {
+            return null;
+        }
+        return new ShiftChangeEvent(userId, date, oldType, newType, newStatus);
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+/**
+ * 勤務表の差分保存リクエスト（POST /api/shift/request/delta の JSON 本文）。
+ * 画面で変更したセルだけを送る。
+ *
+ * @param department 部署コード
+ * @param action DRAFT（一時保存）または CONFIRMED（確定）
+ * @param cells 変更したセル
+ */
+public record ShiftDeltaRequest(String department, String action, List<ShiftCellDelta> cells) {
+}
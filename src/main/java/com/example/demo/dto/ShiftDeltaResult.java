@@ -0,0 +1,15 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+/**
+ * 勤務表の差分保存の結果。
+ *
+ * - applied = true : すべてのセルを保存した。cells は保存後の状態（新しいバージョン）
+ * - applied = false: 他の保存と競合したので何も保存していない。cells は競合したセルの現在の状態
+ *
+ * @param applied 保存したか
+ * @param cells セルの状態
+ */
+public record ShiftDeltaResult(boolean applied, List<ShiftCellState> cells) {
+}
@@ -0,0 +1,34 @@
+package com.example.demo.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 月グリッド（部署×年月）の列指向 JSON（GET /api/shift/grid）。
+ * セルごとのオブジェクトは持たず、ユーザー行ごとに1日1文字のコード列を返す。
+ * rows[i] の j 文字目が userIds[i] の (origin + j 日) の勤務で、文字の意味は legend を引く。
+ * offset / limit を指定すると、部署の全 total 行のうち offset 行目からの範囲だけを返す（行ウィンドウ表示用）。
+ *
+ * @param department 部署コード
+ * @param origin 1文字目の日付（月初）
+ * @param days 日数（各コード列の長さ）
+ * @param total 部署の全行数
+ * @param offset 先頭行の位置（0 始まり）
+ * @param userIds 行のユーザーID（表示順）
+ * @param names 行のユーザー表示名（userIds と同じ順）
+ * @param rows 行ごとのコード列（userIds と同じ順。'.' = 未設定）
+ * @param versions 行ごとのセルのバージョン（日 → 最新の変更イベントID。変更のないセルは含まない。差分保存で送り返す）
+ * @param legend コード1文字 → 表示文字列
+ */
+public record ShiftGridDto(String department,
+                           LocalDate origin,
+                           int days,
+                           int total,
+                           int offset,
+                           List<Long> userIds,
+                           List<String> names,
+                           List<String> rows,
+                           List<Map<Integer, Long>> versions,
+                           Map<String, String> legend) {
+}
@@ -0,0 +1,108 @@
+package com.example.demo.dto;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.example.demo.model.ShiftType;
+
+/**
+ * 勤務表画面（一覧・生成）の1行分の表示用モデル（不変）。
+ *
+ * セルごとのキー組み立て・Map 参照・表示文字列と CSS クラスの決定を Java 側で1回だけ済ませておき、
+ * テンプレートは日付順の配列をそのまま出力する（SpEL での処理をセルごとに行わない）。
+ * 配列はすべて日付順で、長さは表示する日数。
+ */
+public final class ShiftGridRowView {
+
+    // 未設定セルの表示
+    private static final String EMPTY_TEXT = "-";
+
+    private final Long userId;
+    private final String name;
+    private final String[] keys;
+    private final String[] texts;
+    private final String[] values;
+    private final String[] cssClasses;
+    private final long[] versions;
+
+    private ShiftGridRowView(Long userId, String name, String[] keys, String[] texts, String[] values,
+                             String[] cssClasses, long[] versions) {
+        this.userId = userId;
+        this.name = name;
+        this.keys = keys;
+        this.texts = texts;
+        this.values = values;
+        this.cssClasses = cssClasses;
+        this.versions = versions;
+    }
+
+    /**
+     * 表示用の行を組み立てる
+     *
+     * @param users 行のユーザー（この順で返す）
+     * @param dateKeys 表示する日付（"yyyy-MM-dd"。日付順）
+     * @param shiftMap Map<"userId_日付", 勤務種別>
+     * @param cellVersions Map<"userId_日付", セルのバージョン>（差分保存用。不要なら空）
+     */
+    public static List<ShiftGridRowView> build(List<UserSummary> users, List<String> dateKeys,
+                                               Map<String, ShiftType> shiftMap, Map<String, Long> cellVersions) {
+        List<ShiftGridRowView> rows = new ArrayList<>(users.size());
+        int days = dateKeys.size();
+        for (UserSummary user : users) {
+            String[] keys = new String[days];
+            String[] texts = new String[days];
+            String[] values = new String[days];
+            long[] versions = new long[days];
+            String prefix = user.getId() + "_";
+            for (int i = 0; i < days; i++) {
+                String key = prefix + dateKeys.get(i);
+                ShiftType shiftType = shiftMap.get(key);
+                String label = shiftType == null ? "" : shiftType.getLabel();
+                keys[i] = key;
+                values[i] = label;
+                texts[i] = label.isEmpty() ? EMPTY_TEXT : label;
+                Long version = cellVersions.get(key);
+                versions[i] = version == null ? 0 : version;
+            }
+            // CSS クラスは勤務種別の表示文字列と同じ（未設定は付けない）
+            rows.add(new ShiftGridRowView(user.getId(), fullName(user), keys, texts, values, values, versions));
+        }
+        return rows;
+    }
+
+    /**
+     * 表示する日付のキー（"yyyy-MM-dd"）
+     */
+    public static List<String> dateKeys(List<LocalDate> dates) {
+        return dates.stream().map(LocalDate::toString).toList();
+    }
+
+    private static String fullName(UserSummary user) {
+        String last = user.getLastName() == null ? "" : user.getLastName();
+        String first = user.getFirstName() == null ? "" : user.getFirstName();
+        return last + " " + first;
+    }
+
+    // --- Getter（配列はテンプレートから添字で参照する） ---
+
+    public Long getUserId() { return userId; }
+
+    public String getName() { return name; }
+
+    // セルのキー "userId_yyyy-MM-dd"（ボタン・hidden の id / name に使う）
+    public String[] getKeys() { return keys; }
+
+    // セルの表示文字列（未設定は "-"）
+    public String[] getTexts() { return texts; }
+
+    // 送信値（未設定は ""）
+    public String[] getValues() { return values; }
+
+    // セルの CSS クラス（未設定は ""）
+    public String[] getCssClasses() { return cssClasses; }
+
+    // セルのバージョン（未変更は 0）
+    public long[] getVersions() { return versions; }
+}
@@ -0,0 +1,37 @@
+package com.example.demo.dto;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * 希望休/有給の一括申請の結果（1か月分）。
+ * 不正な日は書き込まずに飛ばし、残りの日は登録する（申請全体は止めない）。
+ *
+ * @param department 部署コード
+ * @param month 年月
+ * @param saved 書き込んだ日数（新規 + 変更）
+ * @param days 日ごとの結果（申請の順）
+ */
+public record ShiftRequestBatchResult(String department, YearMonth month, int saved, List<DayResult> days) {
+
+    /**
+     * 日ごとの結果の種類
+     */
+    public enum Outcome {
+        CREATED,    // 新規登録
+        UPDATED,    // 種別を変更
+        UNCHANGED,  // 登録済みと同じ
+        REJECTED    // 登録しなかった（message に理由）
+    }
+
+    /**
+     * 1日分の結果
+     *
+     * @param date 日付
+     * @param outcome 結果
+     * @param message REJECTED の理由（それ以外は null）
+     */
+    public record DayResult(LocalDate date, Outcome outcome, String message) {
+    }
+}
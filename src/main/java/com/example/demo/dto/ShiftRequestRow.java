@@ -0,0 +1,14 @@
+package com.example.demo.dto;
+
+import java.time.LocalDate;
+
+/**
+ * 一括で書き込む希望休/有給の申請1件（検証済みの値）。
+ *
+ * @param userId 申請する職員
+ * @param date 日付
+ * @param department 部署コード（登録済みであること）
+ * @param requestType 種別（休/有）
+ */
+public record ShiftRequestRow(Long userId, LocalDate date, String department, String requestType) {
+}
@@ -0,0 +1,27 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+/**
+ * 勤務表のフォーム送信による保存（一時保存・確定）の結果。
+ * 画面の表示後に他の保存で変わったセルを、表示時の値のまま送ってきた場合は何も保存せず、そのセルを返す。
+ * 勤務種別として解釈できない値のセルがある場合も何も保存せず、そのセルを返す。
+ *
+ * @param applied 保存したか
+ * @param conflicts 競合したセル（"userId_日付"）
+ * @param invalid 値が不正なセル（"userId_日付"）
+ */
+public record ShiftSaveResult(boolean applied, List<String> conflicts, List<String> invalid) {
+
+    public static ShiftSaveResult saved() {
+        return new ShiftSaveResult(true, List.of(), List.of());
+    }
+
+    public static ShiftSaveResult conflicted(List<String> conflicts) {
+        return new ShiftSaveResult(false, conflicts, List.of());
+    }
+
+    public static ShiftSaveResult rejected(List<String> invalid) {
+        return new ShiftSaveResult(false, List.of(), invalid);
+    }
+}
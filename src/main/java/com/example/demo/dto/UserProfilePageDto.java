@@ -0,0 +1,84 @@
+package com.example.demo.dto;
+
+import java.util.List;
+
+/**
+ * ユーザー一覧の1ページ分（キーセットページング）。
+ * 次ページは nextAfterDepartment / nextAfterId をそのまま次のリクエストに渡して取得する。
+ */
+public class UserProfilePageDto {
+
+    // 部署未所属のユーザー（全部署一覧の末尾）を読んでいる途中を表すカーソル値
+    public static final String NO_DEPARTMENT = "_none";
+
+    // このページのユーザー
+    private List<UserProfileDto> users;
+
+    // 絞り込み中の部署（全部署の場合は null）
+    private String department;
+
+    // ページサイズ
+    private int size;
+
+    // 次ページのカーソル（最後のページなら null）
+    private String nextAfterDepartment;
+    private Long nextAfterId;
+
+    public UserProfilePageDto() {
+    }
+
+    public UserProfilePageDto(List<UserProfileDto> users, String department, int size,
+                              String nextAfterDepartment, Long nextAfterId) {
+        this.users = users;
+        this.department = department;
+        this.size = size;
+        this.nextAfterDepartment = nextAfterDepartment;
+        this.nextAfterId = nextAfterId;
+    }
+
+    // --- Getter / Setter ---
+
+    public List<UserProfileDto> getUsers() {
+        return users;
+    }
+
+    public void setUsers(List<UserProfileDto> users) {
+        this.users = users;
+    }
+
+    public String getDepartment() {
+        return department;
+    }
+
+    public void setDepartment(String department) {
+        this.department = department;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public String getNextAfterDepartment() {
+        return nextAfterDepartment;
+    }
+
+    public void setNextAfterDepartment(String nextAfterDepartment) {
+        this.nextAfterDepartment = nextAfterDepartment;
+    }
+
+    public Long getNextAfterId() {
+        return nextAfterId;
+    }
+
+    public void setNextAfterId(Long nextAfterId) {
+        this.nextAfterId = nextAfterId;
+    }
+
+    public boolean isHasNext() {
+        return nextAfterId != null;
+    }
+}
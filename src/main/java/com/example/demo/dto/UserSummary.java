@@ -0,0 +1,89 @@
+package com.example.demo.dto;
+
+import java.time.DayOfWeek;
+import java.util.Objects;
+
+import com.example.demo.model.UserProfile;
+
+/**
+ * 勤務表の行表示に必要な最小限のユーザー情報（不変）。
+ * UserDirectory のスナップショットとして共有されるため、setter は持たない。
+ */
+public final class UserSummary {
+
+    private final Long id;
+    private final String lastName;
+    private final String firstName;
+    private final String employmentType;
+    private final String department;
+
+    // 曜日固定休のビットマスク（bit0 = 月曜 … bit6 = 日曜）
+    private final int offMask;
+
+    public UserSummary(Long id, String lastName, String firstName, String employmentType,
+                       String department, int offMask) {
+        this.id = id;
+        this.lastName = lastName;
+        this.firstName = firstName;
+        this.employmentType = employmentType;
+        this.department = department;
+        this.offMask = offMask;
+    }
+
+    /**
+     * エンティティから生成（曜日ごとの *Off フラグをビットマスクに畳み込む）
+     */
+    public static UserSummary from(UserProfile profile) {
+        int mask = 0;
+        mask |= bit(profile.getMondayOff(), DayOfWeek.MONDAY);
+        mask |= bit(profile.getTuesdayOff(), DayOfWeek.TUESDAY);
+        mask |= bit(profile.getWednesdayOff(), DayOfWeek.WEDNESDAY);
+        mask |= bit(profile.getThursdayOff(), DayOfWeek.THURSDAY);
+        mask |= bit(profile.getFridayOff(), DayOfWeek.FRIDAY);
+        mask |= bit(profile.getSaturdayOff(), DayOfWeek.SATURDAY);
+        mask |= bit(profile.getSundayOff(), DayOfWeek.SUNDAY);
+        return new UserSummary(profile.getId(), profile.getLastName(), profile.getFirstName(),
+                profile.getEmploymentType(), profile.getDepartment(), mask);
+    }
+
+    private static int bit(Boolean off, DayOfWeek dayOfWeek) {
+        return Boolean.TRUE.equals(off) ? 1 << (dayOfWeek.getValue() - 1) : 0;
+    }
+
+    // 指定曜日が固定休かどうか
+    public boolean isOffOn(DayOfWeek dayOfWeek) {
+        return (offMask & (1 << (dayOfWeek.getValue() - 1))) != 0;
+    }
+
+    // --- Getter ---
+
+    public Long getId() { return id; }
+
+    public String getLastName() { return lastName; }
+
+    public String getFirstName() { return firstName; }
+
+    public String getEmploymentType() { return employmentType; }
+
+    public String getDepartment() { return department; }
+
+    public int getOffMask() { return offMask; }
+
+    // 再読込時に内容が変わったかの判定に使う
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof UserSummary other)) return false;
+        return offMask == other.offMask
+                && Objects.equals(id, other.id)
+                && Objects.equals(lastName, other.lastName)
+                && Objects.equals(firstName, other.firstName)
+                && Objects.equals(employmentType, other.employmentType)
+                && Objects.equals(department, other.department);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, lastName, firstName, employmentType, department, offMask);
+    }
+}
@@ -29,6 +29,9 @@ public class ShiftGenerationForm {
     // HTML側では name="shifts[123_2025-09-11]" value="日" のように送信される想定
     private Map<String, String> shifts;
 
+    // 画面表示時点のセルのバージョンの最大値（これより後に変更されたセルは競合として確認する。省略時は確認しない）
+    private Long baseVersion;
+
     // --- Getter / Setter ---
 
     public List<ShiftRequestForm> getShiftRequests() {
@@ -71,4 +74,12 @@ public class ShiftGenerationForm {
     public void setShifts(Map<String, String> shifts) {
         this.shifts = shifts;
     }
+
+    public Long getBaseVersion() {
+        return baseVersion;
+    }
+
+    public void setBaseVersion(Long baseVersion) {
+        this.baseVersion = baseVersion;
+    }
 }
@@ -0,0 +1,58 @@
+package com.example.demo.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * 部署マスタ。
+ * 各テーブルは部署を整数の department_id で参照し、アプリケーション側では部署コード（例: "amami"）で扱う。
+ * コード ⇔ ID の変換は DepartmentConverter が DepartmentRegistry（メモリ上のキャッシュ）を使って行う。
+ * 部署の追加は departments への INSERT だけでよく、コードの変更は要らない。
+ */
+@Entity
+@Table(name = "departments")
+public class Department {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    // 部署コード（URL パラメータや画面で使う識別子。例: "amami", "main"）
+    @Column(nullable = false, unique = true, length = 50)
+    private String code;
+
+    // 表示名（例: "天美", "本社"）
+    @Column(nullable = false, length = 100)
+    private String name;
+
+    // 画面のセレクトボックスでの並び順
+    @Column(name = "sort_order", nullable = false)
+    private int sortOrder;
+
+    public Department() {
+    }
+
+    public Department(Integer id, String code, String name, int sortOrder) {
+        this.id = id;
+        this.code = code;
+        this.name = name;
+        this.sortOrder = sortOrder;
+    }
+
+    // ===== Getter・Setter =====
+    public Integer getId() { return id; }
+    public void setId(Integer id) { this.id = id; }
+
+    public String getCode() { return code; }
+    public void setCode(String code) { this.code = code; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public int getSortOrder() { return sortOrder; }
+    public void setSortOrder(int sortOrder) { this.sortOrder = sortOrder; }
+}
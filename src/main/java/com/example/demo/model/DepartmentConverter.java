@@ -0,0 +1,32 @@
+package com.example.demo.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import com.example.demo.service.DepartmentRegistry;
+
+/**
+ * 部署コード（"amami" など）⇔ department_id（departments.id）の変換。
+ * Spring の Bean として生成される（Hibernate の Bean コンテナが SpringBeanContainer のため）ので、
+ * DepartmentRegistry をコンストラクタで受け取り、DB を引かずにメモリ上で変換する。
+ * 未登録のコードは IllegalArgumentException（黙って NULL にすると部署なしの行ができるため）。
+ */
+@Converter
+public class DepartmentConverter implements AttributeConverter<String, Integer> {
+
+    private final DepartmentRegistry departmentRegistry;
+
+    public DepartmentConverter(DepartmentRegistry departmentRegistry) {
+        this.departmentRegistry = departmentRegistry;
+    }
+
+    @Override
+    public Integer convertToDatabaseColumn(String attribute) {
+        return attribute == null ? null : departmentRegistry.idOf(attribute);
+    }
+
+    @Override
+    public String convertToEntityAttribute(Integer dbData) {
+        return dbData == null ? null : departmentRegistry.codeOf(dbData);
+    }
+}
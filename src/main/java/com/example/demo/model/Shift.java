@@ -4,6 +4,7 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
@@ -17,6 +18,8 @@ import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
 import jakarta.persistence.UniqueConstraint;
 
+import org.hibernate.annotations.PartitionKey;
+
 /**
  * 勤務情報を表すエンティティ。
  * ユーザー、日付、勤務種別、時間帯、所属部署、臨時かどうか、保存状態などを保持する。
@@ -25,7 +28,7 @@ import jakarta.persistence.UniqueConstraint;
 @Table(
     name = "shifts",
     // ▼ 同一ユーザー・同一日・同一部署で一意（重複登録防止）
-    uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "date", "department"})
+    uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "date", "department_id"})
 )
 public class Shift {
     @Id
@@ -33,6 +36,11 @@ public class Shift {
     private Long id;
 
     // 勤務日
+    // PostgreSQL では date で月パーティションに分かれ、主キーは (id, date)。
+    // @PartitionKey で UPDATE / DELETE の WHERE に date も付け、対象月のパーティションだけに当てる。
+    // パーティションキーなので既存行の日付は変えない（別の日にするなら削除して作り直す）
+    @PartitionKey
+    @Column(updatable = false)
     private LocalDate date;
 
     // 対象ユーザー（正社員／パート／臨時）
@@ -40,13 +48,17 @@ public class Shift {
     @JoinColumn(name = "user_id")
     private UserProfile user;
 
-    // 勤務種別（"日", "夜", "明", "休", "有", "臨(確)", "臨(自)"）
-    private String shiftType;
+    // 勤務種別（"日", "夜", "明", "休", "有", "臨(確)", "臨(自)"）。DB には smallint のコードで保存
+    @Convert(converter = ShiftTypeConverter.class)
+    @Column(name = "shift_type")
+    private ShiftType shiftType;
 
     // 勤務時間帯（例: "9:00-14:00"）
     private String timeSlot;
 
-    // 所属部署
+    // 所属部署（部署コード。DB には departments.id を保存）
+    @Convert(converter = DepartmentConverter.class)
+    @Column(name = "department_id")
     private String department;
 
     // 臨時職員かどうか
@@ -91,8 +103,8 @@ public class Shift {
     public UserProfile getUser() { return user; }
     public void setUser(UserProfile user) { this.user = user; }
 
-    public String getShiftType() { return shiftType; }
-    public void setShiftType(String shiftType) { this.shiftType = shiftType; }
+    public ShiftType getShiftType() { return shiftType; }
+    public void setShiftType(ShiftType shiftType) { this.shiftType = shiftType; }
 
     public String getTimeSlot() { return timeSlot; }
     public void setTimeSlot(String timeSlot) { this.timeSlot = timeSlot; }
@@ -0,0 +1,206 @@
+package com.example.demo.model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Arrays;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import jakarta.persistence.Version;
+
+/**
+ * 1ユーザー×1部署×1か月分の勤務を1行にまとめたエンティティ（shift.storage.mode=monthly 用）。
+ *
+ * 日ごとの勤務種別は codes に1日1文字（ShiftType#getPacked、'.' = 未設定）で詰め、
+ * 日ごとの状態（DRAFT / 臨時 / 事前指定）は int のビットマスクで持つ（bit0 = 1日）。
+ * 勤務時間帯（Shift#timeSlot）は保持しない。
+ *
+ * 1行に1か月分を詰めるため、別の日を編集した保存どうしでも同じ行を読み書きする。
+ * 後の保存が先の保存の日を古い値で上書きしないよう、楽観ロック（version）を掛ける。
+ */
+@Entity
+@Table(
+    name = "shift_months",
+    uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "department_id", "month_start"})
+)
+public class ShiftMonth {
+
+    // 未設定の日
+    public static final char EMPTY = '.';
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // 対象ユーザー（ID だけ使うことが多いので遅延ロード）
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    private UserProfile user;
+
+    // 所属部署（部署コード。DB には departments.id を保存）
+    @Convert(converter = DepartmentConverter.class)
+    @Column(name = "department_id", nullable = false)
+    private String department;
+
+    // 対象月の1日
+    @Column(name = "month_start", nullable = false)
+    private LocalDate monthStart;
+
+    // 勤務種別コード（1日1文字、長さ = 月の日数）
+    @Column(nullable = false, length = 31)
+    private String codes;
+
+    @Column(name = "draft_mask", nullable = false)
+    private int draftMask;
+
+    @Column(name = "temporary_mask", nullable = false)
+    private int temporaryMask;
+
+    @Column(name = "fixed_mask", nullable = false)
+    private int fixedMask;
+
+    @Column(name = "updated_by", length = 100)
+    private String updatedBy;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    // 楽観ロック（V14）
+    @Version
+    @Column(nullable = false)
+    private long version;
+
+    protected ShiftMonth() {
+    }
+
+    // 空の月（全日未設定）を作る
+    public ShiftMonth(UserProfile user, String department, YearMonth month) {
+        this.user = user;
+        this.department = department;
+        this.monthStart = month.atDay(1);
+        char[] empty = new char[month.lengthOfMonth()];
+        Arrays.fill(empty, EMPTY);
+        this.codes = new String(empty);
+    }
+
+    @PrePersist
+    @PreUpdate
+    public void touchUpdatedAt() {
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    /**
+     * 指定日の勤務種別（未設定なら null）
+     * @param day 日（1始まり）
+     */
+    public ShiftType getShiftType(int day) {
+        if (day < 1 || day > codes.length()) {
+            return null;
+        }
+        return ShiftType.fromPacked(codes.charAt(day - 1));
+    }
+
+    // 指定日が DRAFT か
+    public boolean isDraft(int day) {
+        return (draftMask & bit(day)) != 0;
+    }
+
+    public boolean isTemporary(int day) {
+        return (temporaryMask & bit(day)) != 0;
+    }
+
+    public boolean isFixed(int day) {
+        return (fixedMask & bit(day)) != 0;
+    }
+
+    /**
+     * 指定日のセルを設定する
+     * @param day 日（1始まり）
+     * @param shiftType 勤務種別
+     * @param status 保存状態
+     * @param temporary 臨時職員か
+     * @param fixed 事前指定か
+     */
+    public void setCell(int day, ShiftType shiftType, Shift.Status status, boolean temporary, boolean fixed) {
+        char[] chars = codes.toCharArray();
+        chars[day - 1] = shiftType.getPacked();
+        codes = new String(chars);
+        draftMask = apply(draftMask, day, status == Shift.Status.DRAFT);
+        temporaryMask = apply(temporaryMask, day, temporary);
+        fixedMask = apply(fixedMask, day, fixed);
+    }
+
+    /**
+     * 指定日のセルをクリアする
+     */
+    public void clearCell(int day) {
+        char[] chars = codes.toCharArray();
+        chars[day - 1] = EMPTY;
+        codes = new String(chars);
+        draftMask = apply(draftMask, day, false);
+        temporaryMask = apply(temporaryMask, day, false);
+        fixedMask = apply(fixedMask, day, false);
+    }
+
+    /**
+     * 指定日を DRAFT に戻す（設定済みの日のみ）。変更があれば true
+     */
+    public boolean markDraft(int day) {
+        if (getShiftType(day) == null || isDraft(day)) {
+            return false;
+        }
+        draftMask |= bit(day);
+        return true;
+    }
+
+    // 全日未設定か（行を削除してよいか）
+    public boolean isEmpty() {
+        return codes.chars().allMatch(c -> c == EMPTY);
+    }
+
+    private static int bit(int day) {
+        return 1 << (day - 1);
+    }
+
+    private static int apply(int mask, int day, boolean on) {
+        return on ? (mask | bit(day)) : (mask & ~bit(day));
+    }
+
+    // ===== Getter・Setter =====
+    public Long getId() { return id; }
+
+    public UserProfile getUser() { return user; }
+
+    public String getDepartment() { return department; }
+
+    public LocalDate getMonthStart() { return monthStart; }
+
+    public YearMonth getMonth() { return YearMonth.from(monthStart); }
+
+    public String getCodes() { return codes; }
+
+    public int getDraftMask() { return draftMask; }
+
+    public int getTemporaryMask() { return temporaryMask; }
+
+    public int getFixedMask() { return fixedMask; }
+
+    public String getUpdatedBy() { return updatedBy; }
+    public void setUpdatedBy(String updatedBy) { this.updatedBy = updatedBy; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+
+    public long getVersion() { return version; }
+}
@@ -2,8 +2,10 @@ package com.example.demo.model;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Set;
 
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
@@ -17,6 +19,8 @@ import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
 import jakarta.persistence.UniqueConstraint;
 
+import org.hibernate.annotations.PartitionKey;
+
 /**
  * ユーザーのシフト(日・夜・休・有など)を保持するエンティティ。
  */
@@ -24,9 +28,13 @@ import jakarta.persistence.UniqueConstraint;
 @Table(
     name = "shift_requests",
     // ▼ 同一ユーザー・同一日・同一部署で一意（重複登録防止）
-    uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "date", "department"})
+    uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "date", "department_id"})
 )
 public class ShiftRequest {
+
+    // 申請種別として受け付ける値（一括申請・CSV 取り込みの検証で共通に使う）
+    public static final Set<String> REQUEST_TYPES = Set.of("休", "有");
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -37,12 +45,19 @@ public class ShiftRequest {
     private UserProfile user;
 
     // 対象日
+    // PostgreSQL では date で月パーティションに分かれ、主キーは (id, date)。
+    // @PartitionKey で UPDATE / DELETE の WHERE に date も付け、対象月のパーティションだけに当てる。
+    // パーティションキーなので既存行の日付は変えない（別の日にするなら削除して作り直す）
+    @PartitionKey
+    @Column(updatable = false)
     private LocalDate date;
 
     // 申請種別（"休" または "有"）
     private String requestType;
 
-    // 所属部署
+    // 所属部署（部署コード。DB には departments.id を保存）
+    @Convert(converter = DepartmentConverter.class)
+    @Column(name = "department_id")
     private String department;
 
     // =====  ステータス（DRAFT:一時保存 / CONFIRMED:確定） =====
@@ -2,17 +2,31 @@ package com.example.demo.model;
 
 import java.time.LocalDate;
 
+import jakarta.persistence.Cacheable;
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * 各日付・時間帯・部署ごとの必要人員数を表すエンティティ。
+ * 更新はまれなので二次キャッシュに載せる（月単位クエリの結果キャッシュからも参照される）。
  */
 @Entity
-@Table(name = "shift_requirements")
+@Table(
+    name = "shift_requirements",
+    // ▼ 同一部署・同一日・同一時間帯で一意（一括取込の upsert のキー）
+    uniqueConstraints = @UniqueConstraint(columnNames = {"department_id", "date", "time_slot"})
+)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class ShiftRequirement {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -21,7 +35,9 @@ public class ShiftRequirement {
     // 対象日
     private LocalDate date;
 
-    // 所属部署
+    // 所属部署（部署コード。DB には departments.id を保存）
+    @Convert(converter = DepartmentConverter.class)
+    @Column(name = "department_id")
     private String department;
 
     // 勤務時間帯
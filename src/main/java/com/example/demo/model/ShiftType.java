@@ -0,0 +1,76 @@
+package com.example.demo.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 勤務種別。
+ *
+ * - label : 画面・CSV に表示する文字列（入力値もこれで受け付ける）
+ * - code  : DB（shifts.shift_type, smallint）に保存する値。既存データの意味が変わるので変更・再利用しないこと
+ * - packed: 月単位格納（shift_months.codes）で使う1文字コード
+ */
+public enum ShiftType {
+
+    DAY("日", (short) 1, 'D'),          // 日勤
+    NIGHT("夜", (short) 2, 'N'),        // 夜勤
+    AFTER_NIGHT("明", (short) 3, 'A'),  // 夜勤明け
+    OFF("休", (short) 4, 'O'),          // 休み
+    PAID_LEAVE("有", (short) 5, 'P'),   // 有給
+    TEMP_FIXED("臨(確)", (short) 6, 'T'), // 臨時（事前確定）
+    TEMP_SELF("臨(自)", (short) 7, 'S');  // 臨時（自主）
+
+    private static final Map<String, ShiftType> BY_LABEL = new HashMap<>();
+    private static final ShiftType[] BY_CODE = new ShiftType[8];
+    private static final Map<Character, ShiftType> BY_PACKED = new HashMap<>();
+
+    static {
+        for (ShiftType type : values()) {
+            BY_LABEL.put(type.label, type);
+            BY_CODE[type.code] = type;
+            BY_PACKED.put(type.packed, type);
+        }
+    }
+
+    private final String label;
+    private final short code;
+    private final char packed;
+
+    ShiftType(String label, short code, char packed) {
+        this.label = label;
+        this.code = code;
+        this.packed = packed;
+    }
+
+    public String getLabel() { return label; }
+
+    public short getCode() { return code; }
+
+    public char getPacked() { return packed; }
+
+    /**
+     * 表示文字列から取得（前後の空白は無視）。該当なしは null
+     */
+    public static ShiftType fromLabel(String label) {
+        return label == null ? null : BY_LABEL.get(label.trim());
+    }
+
+    /**
+     * DB の値から取得
+     * @throws IllegalArgumentException 未定義のコード
+     */
+    public static ShiftType fromCode(short code) {
+        ShiftType type = (code > 0 && code < BY_CODE.length) ? BY_CODE[code] : null;
+        if (type == null) {
+            throw new IllegalArgumentException("Unknown shift type code: " + code);
+        }
+        return type;
+    }
+
+    /**
+     * 月単位格納の1文字コードから取得。未設定・不明は null
+     */
+    public static ShiftType fromPacked(char packed) {
+        return BY_PACKED.get(packed);
+    }
+}
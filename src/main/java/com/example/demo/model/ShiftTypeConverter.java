@@ -0,0 +1,21 @@
+package com.example.demo.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * ShiftType ⇔ smallint（ShiftType#getCode）の変換
+ */
+@Converter
+public class ShiftTypeConverter implements AttributeConverter<ShiftType, Short> {
+
+    @Override
+    public Short convertToDatabaseColumn(ShiftType attribute) {
+        return attribute == null ? null : attribute.getCode();
+    }
+
+    @Override
+    public ShiftType convertToEntityAttribute(Short dbData) {
+        return dbData == null ? null : ShiftType.fromCode(dbData);
+    }
+}
@@ -2,6 +2,8 @@ package com.example.demo.model;
 
 import java.time.LocalDate;
 
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
@@ -9,12 +11,17 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 
 /**
  * 臨時職員の事前出勤予定を保持するエンティティ。
  */
 @Entity
-@Table(name = "temporary_worker_assignments")
+@Table(
+    name = "temporary_worker_assignments",
+    // ▼ 同一ユーザー・同一日・同一部署・同一時間帯で一意（一括取込の upsert のキー）
+    uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "date", "department_id", "time_slot"})
+)
 public class TemporaryWorkerAssignment {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -28,7 +35,9 @@ public class TemporaryWorkerAssignment {
     // 出勤日
     private LocalDate date;
 
-    // 所属部署
+    // 所属部署（部署コード。DB には departments.id を保存）
+    @Convert(converter = DepartmentConverter.class)
+    @Column(name = "department_id")
     private String department;
 
     // 勤務時間帯
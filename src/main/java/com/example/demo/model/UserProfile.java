@@ -2,7 +2,9 @@ package com.example.demo.model;
 
 import java.time.LocalDate;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
@@ -10,10 +12,15 @@ import jakarta.persistence.Id;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.Table;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.ColumnDefault;
 
 @Entity
 @Table(name = "user_profiles")
+// 画面表示・生成のたびに参照され、更新はまれなので二次キャッシュに載せる（設定は application.conf）
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 public class UserProfile {
 
     @Id
@@ -47,7 +54,9 @@ public class UserProfile {
     @ColumnDefault("'未設定'") // デフォルト値
     private String employmentType = "未設定";
 
-    @Column(name = "department", length = 50)
+    // 所属部署（部署コード。DB には departments.id を保存）
+    @Convert(converter = DepartmentConverter.class)
+    @Column(name = "department_id")
     private String department;
     
     // 各曜日の「休み」フラグ（デフォルト：false）
@@ -116,6 +125,11 @@ public class UserProfile {
     @Column(name = "sunday_end_time")
     private String sundayEndTime;
 
+    // 個人カレンダー配信 URL の世代番号（作り直すたびに進め、以前の URL を無効にする）
+    @Column(name = "ical_feed_version", nullable = false)
+    @ColumnDefault("0")
+    private int icalFeedVersion;
+
     // デフォルトコンストラクタ（JPA用）
     public UserProfile() {
     }
@@ -384,9 +398,14 @@ public class UserProfile {
     public void setSundayEndTime(String sundayEndTime) {
         this.sundayEndTime = sundayEndTime;
     }
-    
-    
 
+    public int getIcalFeedVersion() {
+        return icalFeedVersion;
+    }
+
+    public void setIcalFeedVersion(int icalFeedVersion) {
+        this.icalFeedVersion = icalFeedVersion;
+    }
 
     // ログ出力用
     @Override
@@ -0,0 +1,51 @@
+package com.example.demo.repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import jakarta.persistence.QueryHint;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.example.demo.dto.RosterMonthView;
+import com.example.demo.model.ShiftMonth;
+
+@Repository
+public interface ShiftMonthRepository extends JpaRepository<ShiftMonth, Long> {
+
+    // 部署×月範囲（月グリッドの読み込み。1ユーザー1か月1行）
+    List<ShiftMonth> findByDepartmentAndMonthStartBetween(String department, LocalDate fromMonthStart, LocalDate toMonthStart);
+
+    // 保存対象の月をまとめて取得（セルごとに検索しない）
+    List<ShiftMonth> findByDepartmentAndMonthStartIn(String department, Collection<LocalDate> monthStarts);
+
+    // 職員の指定月の行（部署をまたいで。個人カレンダーの読み込み）
+    List<ShiftMonth> findByUser_IdAndMonthStart(Long userId, LocalDate monthStart);
+
+    /**
+     * 部署の勤務表を1ユーザー1行でストリーム取得する（月単位格納の CSV 出力用）。
+     * ShiftRepository#streamRosterCells の月単位版。部署所属ユーザー全員を ID 順に返す。
+     * 下書きの日は draftMask で判別する（確定分だけを出すかは呼び出し側で決める）。
+     * 呼び出し側でトランザクション必須・close 必須。
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT u.id AS userId, u.lastName AS lastName, u.firstName AS firstName, m.codes AS codes,"
+         + "       m.draftMask AS draftMask"
+         + "  FROM UserProfile u"
+         + "  LEFT JOIN ShiftMonth m ON m.user = u AND m.department = :department"
+         + "                        AND m.monthStart = :monthStart"
+         + " WHERE u.department = :department"
+         + " ORDER BY u.id")
+    Stream<RosterMonthView> streamRosterMonths(@Param("department") String department,
+                                               @Param("monthStart") LocalDate monthStart);
+}
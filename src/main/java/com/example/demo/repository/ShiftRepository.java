@@ -1,17 +1,26 @@
 package com.example.demo.repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import jakarta.persistence.QueryHint;
+
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.example.demo.dto.RosterCellView;
 import com.example.demo.model.Shift;
 import com.example.demo.model.Shift.Status;
 
 @Repository
-public interface ShiftRepository extends JpaRepository<Shift, Long> {
+public interface ShiftRepository extends JpaRepository<Shift, Long>, ShiftRepositoryCustom {
 
     /**
      * 指定された部署と日付の「範囲」に該当するすべてのシフトを取得する（両端含む）。
@@ -58,6 +67,13 @@ public interface ShiftRepository extends JpaRepository<Shift, Long> {
      */
     List<Shift> findByUser_IdAndDateBetween(Long userId, LocalDate start, LocalDate end);
 
+    /**
+     * 部署＋日付の範囲（両端含む）のうち、指定ユーザーのシフトを取得する。
+     * 保存前に、保存するセルの既存行をまとめて読むのに使う。
+     */
+    List<Shift> findByDepartmentAndDateBetweenAndUser_IdIn(
+            String department, LocalDate start, LocalDate end, Collection<Long> userIds);
+
     /**
      * 指定ユーザー・日付・部署でシフトを一意に取得。
      * upsert 時に利用する。
@@ -79,4 +95,33 @@ public interface ShiftRepository extends JpaRepository<Shift, Long> {
      * ユーザーと日付でシフトを取得（既存互換用）。
      */
     Shift findByUser_IdAndDate(Long userId, LocalDate date);
+
+    /**
+     * 部署の勤務表をセル単位のプロジェクションとしてストリームで取得する（CSV 出力用）。
+     * - 部署所属ユーザー全員を ID 順に返し、シフトのない日は含めない（ユーザーごとに最低1行）
+     * - 行はユーザーID → 日付の順に並ぶので、呼び出し側はユーザーが変わった時点で1行を書き出せる
+     * - フェッチサイズを指定して JDBC カーソルで少しずつ読む（呼び出し側でトランザクション必須・close 必須）
+     * - statuses に含まれない状態のシフトは空欄扱い（給与向けの CSV は確定分だけを出す）
+     *
+     * @param department 対象部署
+     * @param start 開始日（含む）
+     * @param end 終了日（含む）
+     * @param statuses 出力するシフトの状態
+     */
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT u.id AS userId, u.lastName AS lastName, u.firstName AS firstName,"
+         + "       s.date AS date, s.shiftType AS shiftType"
+         + "  FROM UserProfile u"
+         + "  LEFT JOIN Shift s ON s.user = u AND s.department = :department"
+         + "                   AND s.date BETWEEN :startDate AND :endDate"
+         + "                   AND s.status IN :statuses"
+         + " WHERE u.department = :department"
+         + " ORDER BY u.id, s.date")
+    Stream<RosterCellView> streamRosterCells(@Param("department") String department,
+                                             @Param("startDate") LocalDate start,
+                                             @Param("endDate") LocalDate end,
+                                             @Param("statuses") Collection<Status> statuses);
 }
@@ -0,0 +1,36 @@
+package com.example.demo.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import com.example.demo.model.Shift;
+
+/**
+ * ShiftRepository の独自実装部分（Spring Data の derived query では書けないもの）。
+ * 実装は {@link ShiftRepositoryImpl}。
+ */
+public interface ShiftRepositoryCustom {
+
+    /**
+     * 部署＋日付範囲（両端含む）のシフトを「1セル（ユーザー×日付）1件」に正規化して取得する。
+     * 同一セルに複数行ある場合の優先順位は DB 側で解決する:
+     *  1. Status が DRAFT の行
+     *  2. updatedAt が新しい行（null は最後）
+     *  3. id が大きい行
+     *
+     * @param department 対象部署
+     * @param start 開始日（含む）
+     * @param end 終了日（含む）
+     * @return セルごとに1件のシフト
+     */
+    List<Shift> findEffectiveByDepartmentAndDateBetween(String department, LocalDate start, LocalDate end);
+
+    /**
+     * 新しいシフトを JDBC バッチでまとめて INSERT する（ID を IDENTITY で振るため、
+     * Hibernate の persist では INSERT をバッチにできない）。
+     * 渡したエンティティは永続化コンテキストに入らず、ID も設定されない。
+     *
+     * @param shifts 新規のシフト（user・date・department が設定済みであること）
+     */
+    void insertAll(List<Shift> shifts);
+}
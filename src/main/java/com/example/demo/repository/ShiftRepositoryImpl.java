@@ -0,0 +1,125 @@
+package com.example.demo.repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.demo.model.Shift;
+import com.example.demo.service.DepartmentRegistry;
+
+/**
+ * {@link ShiftRepositoryCustom} の実装。
+ * PostgreSQL では DISTINCT ON、それ以外（テストの H2）では ROW_NUMBER() ウィンドウ関数で
+ * 同じ優先順位を表現し、1セル1行だけを転送する。
+ * ネイティブクエリには DepartmentConverter が効かないため、部署コードは DepartmentRegistry で ID に変換して渡す。
+ * 新規行の INSERT は JdbcTemplate のバッチで送る（同じトランザクションの接続を使う）。
+ */
+public class ShiftRepositoryImpl implements ShiftRepositoryCustom {
+
+    // エンティティへのマッピングに必要な列（SELECT * を避け、ウィンドウ関数の補助列を含めない）
+    private static final String COLUMNS =
+            "id, date, user_id, shift_type, time_slot, department_id, is_temporary, is_fixed, status, updated_by, updated_at";
+
+    // ▼ PostgreSQL：DISTINCT ON は ORDER BY の先頭が DISTINCT ON の列と一致している必要がある
+    private static final String EFFECTIVE_CELLS_POSTGRESQL =
+            "SELECT DISTINCT ON (s.user_id, s.date) " + prefixed("s") +
+            " FROM shifts s" +
+            " WHERE s.department_id = :departmentId AND s.date BETWEEN :startDate AND :endDate" +
+            " ORDER BY s.user_id, s.date, (s.status = 'DRAFT') DESC, s.updated_at DESC NULLS LAST, s.id DESC";
+
+    // ▼ H2 ほか：同等の順序で ROW_NUMBER() を振り、各セルの先頭行だけを残す
+    private static final String EFFECTIVE_CELLS_WINDOW =
+            "SELECT " + COLUMNS + " FROM (" +
+            "  SELECT " + prefixed("s") + "," +
+            "         ROW_NUMBER() OVER (PARTITION BY s.user_id, s.date" +
+            "           ORDER BY CASE WHEN s.status = 'DRAFT' THEN 0 ELSE 1 END, s.updated_at DESC NULLS LAST, s.id DESC) AS rn" +
+            "  FROM shifts s" +
+            "  WHERE s.department_id = :departmentId AND s.date BETWEEN :startDate AND :endDate" +
+            ") ranked WHERE ranked.rn = 1";
+
+    private static final String INSERT =
+            "INSERT INTO shifts (date, user_id, shift_type, time_slot, department_id, is_temporary, is_fixed," +
+            " status, updated_by, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final DepartmentRegistry departmentRegistry;
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    // DB 製品は起動後に変わらないため、初回判定結果を使い回す
+    private volatile Boolean postgreSQL;
+
+    public ShiftRepositoryImpl(DepartmentRegistry departmentRegistry, JdbcTemplate jdbcTemplate,
+                               @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
+        this.departmentRegistry = departmentRegistry;
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Shift> findEffectiveByDepartmentAndDateBetween(String department, LocalDate start, LocalDate end) {
+        String sql = isPostgreSQL() ? EFFECTIVE_CELLS_POSTGRESQL : EFFECTIVE_CELLS_WINDOW;
+        return entityManager.createNativeQuery(sql, Shift.class)
+                .setParameter("departmentId", departmentRegistry.idOf(department))
+                .setParameter("startDate", start)
+                .setParameter("endDate", end)
+                .getResultList();
+    }
+
+    @Override
+    public void insertAll(List<Shift> shifts) {
+        if (shifts.isEmpty()) {
+            return;
+        }
+        // エンティティの @PrePersist と同じく、更新時刻は書き込み時点
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT, shifts, batchSize, (ps, shift) -> {
+            ps.setDate(1, Date.valueOf(shift.getDate()));
+            ps.setLong(2, shift.getUser().getId());
+            if (shift.getShiftType() == null) {
+                ps.setNull(3, Types.SMALLINT);
+            } else {
+                ps.setShort(3, shift.getShiftType().getCode());
+            }
+            ps.setString(4, shift.getTimeSlot());
+            ps.setInt(5, departmentRegistry.idOf(shift.getDepartment()));
+            ps.setBoolean(6, shift.isTemporary());
+            ps.setBoolean(7, shift.isFixed());
+            ps.setString(8, shift.getStatus().name());
+            ps.setString(9, shift.getUpdatedBy());
+            ps.setTimestamp(10, now);
+        });
+    }
+
+    private boolean isPostgreSQL() {
+        Boolean cached = postgreSQL;
+        if (cached == null) {
+            Dialect dialect = entityManager.getEntityManagerFactory()
+                    .unwrap(SessionFactoryImplementor.class)
+                    .getJdbcServices()
+                    .getDialect();
+            cached = dialect instanceof PostgreSQLDialect;
+            postgreSQL = cached;
+        }
+        return cached;
+    }
+
+    private static String prefixed(String alias) {
+        return alias + "." + COLUMNS.replace(", ", ", " + alias + ".");
+    }
+}
@@ -3,7 +3,10 @@ package com.example.demo.repository;
 import java.time.LocalDate;
 import java.util.List;
 
+import jakarta.persistence.LockModeType;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.stereotype.Repository;
 
 import com.example.demo.model.ShiftRequest;
@@ -32,6 +35,19 @@ public interface ShiftRequestRepository extends JpaRepository<ShiftRequest, Long
      */
     List<ShiftRequest> findByDepartmentAndDateBetween(String department, LocalDate start, LocalDate end);
 
+    /**
+     * 特定ユーザーの部署・期間内の申請を行ロック付き（SELECT ... FOR UPDATE）で取得（一意制約 user_id・date・department_id の照合用）。
+     * 照合から書き込みまでの間に管理者が確定しても、確定はこのトランザクションの終了まで待つ
+     * @param userId ユーザーID
+     * @param department 部署コード
+     * @param start 開始日（含む）
+     * @param end 終了日（含む）
+     * @return 該当期間の申請リスト
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<ShiftRequest> findForUpdateByUser_IdAndDepartmentAndDateBetween(Long userId, String department,
+                                                                         LocalDate start, LocalDate end);
+
     /**
      * 特定ユーザー・日付の申請を取得
      * @param user 対象ユーザー
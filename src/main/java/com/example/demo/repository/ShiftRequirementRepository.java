@@ -3,16 +3,27 @@ package com.example.demo.repository;
 import java.time.LocalDate;
 import java.util.List;
 
+import jakarta.persistence.QueryHint;
+
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import com.example.demo.model.ShiftRequirement;
 
 public interface ShiftRequirementRepository extends JpaRepository<ShiftRequirement, Long> {
 
+    // クエリ結果キャッシュのリージョン名（application.conf / EntityCacheService と一致させる）
+    String QUERY_CACHE_REGION = "shift-requirements-query";
+
     // 特定の日付・部署の要件を取得
     List<ShiftRequirement> findByDateAndDepartment(LocalDate date, String department);
 
-    // 部署・月単位（期間）の要件一覧を取得
+    // 部署・月単位（期間）の要件一覧を取得（結果は二次キャッシュのクエリキャッシュに載せる）
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = QUERY_CACHE_REGION)
+    })
     List<ShiftRequirement> findByDepartmentAndDateBetween(String department, LocalDate startDate, LocalDate endDate);
 
     // 時間帯で絞り込む
@@ -3,7 +3,10 @@ package com.example.demo.repository;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.example.demo.model.UserProfile;
@@ -26,4 +29,33 @@ public interface UserProfileRepository extends JpaRepository<UserProfile, Long>
     // 所属部署＋雇用形態で絞る（例: 天美のパート）
     List<UserProfile> findByDepartmentAndEmploymentType(String department, String employmentType);
 
+    // 所属部署で絞り、ID 順に並べて取得（シフト画面の行順を安定させる）
+    List<UserProfile> findByDepartmentOrderByIdAsc(String department);
+
+    // ===== キーセット（シーク）ページング =====
+    // OFFSET を使わず「前ページ最後の (department, id) より後ろ」から limit 件を読む。
+    // (department, id) の複合インデックス（V5）を前提に、何ページ目でも読む行数はページサイズ分だけ。
+
+    // 部署指定：先頭ページ
+    List<UserProfile> findByDepartmentOrderByIdAsc(String department, Limit limit);
+
+    // 部署指定：afterId より後ろのページ
+    List<UserProfile> findByDepartmentAndIdGreaterThanOrderByIdAsc(String department, Long afterId, Limit limit);
+
+    // 全部署：先頭ページ（部署 → ID 順。部署未所属のユーザーは含めず、末尾の別ページングで読む）
+    @Query("SELECT u FROM UserProfile u WHERE u.department IS NOT NULL ORDER BY u.department, u.id")
+    List<UserProfile> findFirstPageOrderByDepartmentAndId(Limit limit);
+
+    // 全部署：(afterDepartment, afterId) より後ろのページ（行値比較でインデックスをそのまま辿る。NULL は比較で外れる）
+    @Query("SELECT u FROM UserProfile u WHERE (u.department, u.id) > (:afterDepartment, :afterId) ORDER BY u.department, u.id")
+    List<UserProfile> findPageAfterOrderByDepartmentAndId(@Param("afterDepartment") String afterDepartment,
+                                                         @Param("afterId") Long afterId,
+                                                         Limit limit);
+
+    // 全部署の末尾：部署未所属のユーザー（ID 順）
+    List<UserProfile> findByDepartmentIsNullOrderByIdAsc(Limit limit);
+
+    // 全部署の末尾：部署未所属で afterId より後ろ
+    List<UserProfile> findByDepartmentIsNullAndIdGreaterThanOrderByIdAsc(Long afterId, Limit limit);
+
 }
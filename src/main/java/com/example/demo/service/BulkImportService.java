@@ -0,0 +1,486 @@
+package com.example.demo.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.dto.BulkImportResult;
+import com.example.demo.dto.ShiftRequestRow;
+import com.example.demo.model.ShiftRequest;
+
+/**
+ * 必要人員・希望休/有給・臨時職員の予定の CSV 一括取込。
+ *
+ * - 本文は一時ファイルに受けてからトランザクションを開く（アップロードの間 DB 接続を持たない）
+ * - 入力は1行ずつ読み、部署は DepartmentRegistry、職員は UserDirectory（メモリ上）で検証する（行ごとに DB を引かない）
+ * - 正しい行は batch-size 件ずつ複数行の upsert 1文で書き込む（自然キーが同じ行は更新）
+ *   PostgreSQL は INSERT ... ON CONFLICT、それ以外（テストの H2）は MERGE ... KEY
+ * - 不正な行はエラーとして行番号つきで返し、残りの行は取り込む
+ *
+ * CSV の形式（1行目はヘッダーとして読み飛ばす。文字コードは UTF-8）:
+ *   requirements : 日付,部署,時間帯,必要人数
+ *   requests     : 職員ID,日付,部署,種別(休/有)[,状態(DRAFT/CONFIRMED)]
+ *   assignments  : 職員ID,日付,部署,時間帯
+ */
+@Service
+public class BulkImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkImportService.class);
+
+    // 結果に含めるエラーの最大件数（件数自体は errorCount で全件数える）
+    static final int MAX_REPORTED_ERRORS = 100;
+
+    // 申請（shift_requests）の書き込む列と自然キー
+    private static final List<String> REQUEST_COLUMNS =
+            List.of("user_id", "date", "department_id", "request_type", "status", "updated_by", "updated_at");
+    private static final List<String> REQUEST_KEYS = List.of("user_id", "date", "department_id");
+
+    // 必要人数の上限（桁違いの入力ミスを弾く）
+    private static final int MAX_REQUIRED_COUNT = 999;
+
+    // 操作者が取れない場合
+    private static final String SYSTEM_ACTOR = "system";
+
+    /**
+     * 取込種別（URL の /api/import/{kind}）
+     */
+    public enum Kind {
+        REQUIREMENTS("requirements"),
+        REQUESTS("requests"),
+        ASSIGNMENTS("assignments");
+
+        private final String path;
+
+        Kind(String path) {
+            this.path = path;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public static Optional<Kind> fromPath(String path) {
+            return Arrays.stream(values()).filter(k -> k.path.equals(path)).findFirst();
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DepartmentRegistry departmentRegistry;
+    private final UserDirectory userDirectory;
+    private final EntityCacheService entityCacheService;
+    private final MonthGridCache monthGridCache;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    // DB 製品は起動後に変わらないため、初回判定結果を使い回す
+    private volatile Boolean postgreSQL;
+
+    public BulkImportService(JdbcTemplate jdbcTemplate,
+                             DepartmentRegistry departmentRegistry,
+                             UserDirectory userDirectory,
+                             EntityCacheService entityCacheService,
+                             MonthGridCache monthGridCache,
+                             TransactionTemplate transactionTemplate,
+                             @Value("${shift.import.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.departmentRegistry = departmentRegistry;
+        this.userDirectory = userDirectory;
+        this.entityCacheService = entityCacheService;
+        this.monthGridCache = monthGridCache;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * CSV を取り込む（全体を1トランザクションで書き込む）。
+     * 受信中に接続とトランザクションを持ち続けないよう、本文はいったん一時ファイルへ書き出してから
+     * トランザクションを開き、一時ファイルを読みながら書き込む（全体をメモリには載せない）。
+     *
+     * @param kind 取込種別
+     * @param body CSV（UTF-8。呼び出し側で close する）
+     * @return 取込件数と行ごとのエラー
+     */
+    public BulkImportResult importCsv(Kind kind, InputStream body) throws IOException {
+        Path spool = Files.createTempFile("bulk-import-", ".csv");
+        try {
+            Files.copy(body, spool, StandardCopyOption.REPLACE_EXISTING);
+            return transactionTemplate.execute(status -> {
+                // 不正なバイト列は置換文字にして読む（その行は検証でエラーになる）
+                try (BufferedReader in = new BufferedReader(
+                        new InputStreamReader(Files.newInputStream(spool), StandardCharsets.UTF_8))) {
+                    return importLines(kind, in);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            Files.deleteIfExists(spool);
+        }
+    }
+
+    // 一時ファイルの各行を検証し、batch-size 件ずつ書き込む（トランザクション内で呼ぶ）
+    private BulkImportResult importLines(Kind kind, BufferedReader in) throws IOException {
+        Target target = targetOf(kind);
+
+        // 自然キー → 書き込む値（同じチャンク内で同じキーが続いた場合は後の行で上書きする）
+        Map<List<Object>, Object[]> pending = new LinkedHashMap<>();
+        List<BulkImportResult.LineError> errors = new ArrayList<>();
+        int errorCount = 0;
+        int lines = 0;
+        int imported = 0;
+
+        int lineNo = 0;
+        String line;
+        while ((line = in.readLine()) != null) {
+            lineNo++;
+            if (lineNo == 1 || line.isBlank()) {
+                continue;
+            }
+            lines++;
+            try {
+                Object[] row = target.parser().apply(split(line));
+                pending.put(target.keyOf(row), row);
+                imported++;
+            } catch (IllegalArgumentException e) {
+                errorCount++;
+                if (errors.size() < MAX_REPORTED_ERRORS) {
+                    errors.add(new BulkImportResult.LineError(lineNo, e.getMessage()));
+                }
+                continue;
+            }
+            if (pending.size() >= batchSize) {
+                flush(target, pending);
+            }
+        }
+        flush(target, pending);
+
+        if (imported > 0) {
+            evictCachesAfterCommit(kind);
+        }
+        logger.info("Bulk import {}: {} line(s), {} imported, {} error(s)", kind.getPath(), lines, imported, errorCount);
+        return new BulkImportResult(kind.getPath(), lines, imported, errorCount, List.copyOf(errors));
+    }
+
+    /**
+     * 職員本人の申請を下書き（DRAFT）として batch-size 件ずつ upsert する（一括申請用。キャッシュの破棄は呼び出し側で行う）。
+     * 確定済み（CONFIRMED）の行は書き換えない。照合の後に管理者が確定した行を下書きに戻さないよう、条件は書き込む文の中で判定する
+     * （PostgreSQL は ON CONFLICT ... DO UPDATE ... WHERE、それ以外は MERGE ... USING ... WHEN MATCHED AND）
+     *
+     * @param rows 申請（部署は登録済みであること）
+     * @param actor 更新者
+     * @return 書き込んだ行数（確定済みのため書き換えなかった行は含まない）
+     */
+    public int upsertDraftRequests(Collection<ShiftRequestRow> rows, String actor) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        String status = ShiftRequest.RequestStatus.DRAFT.name();
+        Map<List<Object>, Object[]> pending = new LinkedHashMap<>();
+        int written = 0;
+        for (ShiftRequestRow row : rows) {
+            Object[] values = { row.userId(), Date.valueOf(row.date()), departmentRegistry.idOf(row.department()),
+                    row.requestType(), status, actor, now };
+            pending.put(List.of(values[0], values[1], values[2]), values);
+            if (pending.size() >= batchSize) {
+                written += flushDraftRequests(pending);
+            }
+        }
+        return written + flushDraftRequests(pending);
+    }
+
+    // 溜まった行を複数行の upsert 1文で書き込む
+    private void flush(Target target, Map<List<Object>, Object[]> pending) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        String values = tuples(target.columns().size(), pending.size());
+        String sql = isPostgreSQL() ? target.postgresPrefix() + values + target.postgresSuffix()
+                                    : target.h2Prefix() + values;
+        write(sql, pending);
+    }
+
+    // 申請を確定済みの行を除いて upsert する（upsertDraftRequests 用）
+    private int flushDraftRequests(Map<List<Object>, Object[]> pending) {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        String columns = String.join(", ", REQUEST_COLUMNS);
+        String sql;
+        if (isPostgreSQL()) {
+            sql = "INSERT INTO shift_requests (" + columns + ") VALUES " + tuples(REQUEST_COLUMNS.size(), pending.size())
+                + " ON CONFLICT (" + String.join(", ", REQUEST_KEYS) + ") DO UPDATE SET"
+                + " request_type = EXCLUDED.request_type, status = EXCLUDED.status,"
+                + " updated_by = EXCLUDED.updated_by, updated_at = EXCLUDED.updated_at"
+                + " WHERE shift_requests.status <> 'CONFIRMED'";
+        } else {
+            // MERGE ... KEY には条件を付けられないため MERGE ... USING を使う（VALUES の型はキャストで明示する）
+            String tuple = "(CAST(? AS BIGINT), CAST(? AS DATE), CAST(? AS INTEGER), CAST(? AS VARCHAR),"
+                         + " CAST(? AS VARCHAR), CAST(? AS VARCHAR), CAST(? AS TIMESTAMP))";
+            sql = "MERGE INTO shift_requests t"
+                + " USING (VALUES " + String.join(", ", Collections.nCopies(pending.size(), tuple)) + ")"
+                + " AS s (" + columns + ")"
+                + " ON t.user_id = s.user_id AND t.date = s.date AND t.department_id = s.department_id"
+                + " WHEN MATCHED AND t.status <> 'CONFIRMED' THEN UPDATE SET"
+                + " request_type = s.request_type, status = s.status,"
+                + " updated_by = s.updated_by, updated_at = s.updated_at"
+                + " WHEN NOT MATCHED THEN INSERT (" + columns + ")"
+                + " VALUES (" + String.join(", ", REQUEST_COLUMNS.stream().map(c -> "s." + c).toList()) + ")";
+        }
+        return write(sql, pending);
+    }
+
+    // (?, ?, ...) を rows 個カンマでつなぐ
+    private static String tuples(int columns, int rows) {
+        String tuple = "(" + String.join(", ", Collections.nCopies(columns, "?")) + ")";
+        return String.join(", ", Collections.nCopies(rows, tuple));
+    }
+
+    // 行の値を並べたパラメータで1文を実行し、pending を空にする
+    private int write(String sql, Map<List<Object>, Object[]> pending) {
+        Object[] args = new Object[pending.values().stream().mapToInt(row -> row.length).sum()];
+        int i = 0;
+        for (Object[] row : pending.values()) {
+            System.arraycopy(row, 0, args, i, row.length);
+            i += row.length;
+        }
+        int written = jdbcTemplate.update(sql, args);
+        pending.clear();
+        return written;
+    }
+
+    // JDBC で直接書き込むため、必要人員の二次キャッシュと月グリッドのキャッシュはコミット後に捨てる
+    private void evictCachesAfterCommit(Kind kind) {
+        Runnable evict = () -> {
+            if (kind == Kind.REQUIREMENTS) {
+                entityCacheService.evictShiftRequirements();
+            }
+            monthGridCache.invalidateAll();
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict.run();
+                }
+            });
+        } else {
+            evict.run();
+        }
+    }
+
+    // ===== 種別ごとの列と行の解釈 =====
+
+    private Target targetOf(Kind kind) {
+        return switch (kind) {
+            case REQUIREMENTS -> new Target("shift_requirements",
+                    List.of("date", "department_id", "time_slot", "required_count"),
+                    List.of("department_id", "date", "time_slot"),
+                    cols -> {
+                        requireColumns(cols, 4);
+                        return new Object[] { date(cols[0]), department(cols[1]), timeSlot(cols[2]), requiredCount(cols[3]) };
+                    });
+            case REQUESTS -> {
+                Set<Long> userIds = userDirectory.userIds();
+                String actor = currentActor();
+                Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+                yield new Target("shift_requests", REQUEST_COLUMNS, REQUEST_KEYS,
+                        cols -> {
+                            requireColumns(cols, 4);
+                            String status = cols.length > 4 && !cols[4].isEmpty() ? requestStatus(cols[4])
+                                                                                  : ShiftRequest.RequestStatus.DRAFT.name();
+                            return new Object[] { user(cols[0], userIds), date(cols[1]), department(cols[2]),
+                                    requestType(cols[3]), status, actor, now };
+                        });
+            }
+            case ASSIGNMENTS -> {
+                Set<Long> userIds = userDirectory.userIds();
+                yield new Target("temporary_worker_assignments",
+                        List.of("user_id", "date", "department_id", "time_slot", "is_fixed"),
+                        List.of("user_id", "date", "department_id", "time_slot"),
+                        cols -> {
+                            requireColumns(cols, 4);
+                            return new Object[] { user(cols[0], userIds), date(cols[1]), department(cols[2]),
+                                    timeSlot(cols[3]), Boolean.TRUE };
+                        });
+            }
+        };
+    }
+
+    private static void requireColumns(String[] cols, int required) {
+        if (cols.length < required) {
+            throw new IllegalArgumentException("列が足りません（" + required + "列必要、" + cols.length + "列）");
+        }
+    }
+
+    private static Date date(String value) {
+        try {
+            return Date.valueOf(LocalDate.parse(value));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("日付は yyyy-MM-dd 形式で指定してください: " + value);
+        }
+    }
+
+    private Integer department(String code) {
+        if (!departmentRegistry.contains(code)) {
+            throw new IllegalArgumentException("未登録の部署です: " + code);
+        }
+        return departmentRegistry.idOf(code);
+    }
+
+    private static Long user(String value, Set<Long> userIds) {
+        Long id;
+        try {
+            id = Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("職員ID が数値ではありません: " + value);
+        }
+        if (!userIds.contains(id)) {
+            throw new IllegalArgumentException("未登録（または部署未所属）の職員です: " + value);
+        }
+        return id;
+    }
+
+    private static String timeSlot(String value) {
+        if (value.isEmpty() || value.length() > 255) {
+            throw new IllegalArgumentException("時間帯が空か長すぎます");
+        }
+        return value;
+    }
+
+    private static Integer requiredCount(String value) {
+        int count;
+        try {
+            count = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("必要人数が数値ではありません: " + value);
+        }
+        if (count < 0 || count > MAX_REQUIRED_COUNT) {
+            throw new IllegalArgumentException("必要人数は 0〜" + MAX_REQUIRED_COUNT + " で指定してください: " + value);
+        }
+        return count;
+    }
+
+    private static String requestType(String value) {
+        if (!ShiftRequest.REQUEST_TYPES.contains(value)) {
+            throw new IllegalArgumentException("種別は 休 または 有 で指定してください: " + value);
+        }
+        return value;
+    }
+
+    private static String requestStatus(String value) {
+        try {
+            return ShiftRequest.RequestStatus.valueOf(value.toUpperCase()).name();
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("状態は DRAFT または CONFIRMED で指定してください: " + value);
+        }
+    }
+
+    // 1行をカンマで分割する（ダブルクォートで囲んだ値と "" のエスケープに対応。値の前後の空白は除く）
+    static String[] split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString().strip());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString().strip());
+        return fields.toArray(String[]::new);
+    }
+
+    private static String currentActor() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getName() != null ? authentication.getName() : SYSTEM_ACTOR;
+    }
+
+    private boolean isPostgreSQL() {
+        Boolean cached = postgreSQL;
+        if (cached == null) {
+            cached = jdbcTemplate.execute((ConnectionCallback<Boolean>) con ->
+                    "PostgreSQL".equalsIgnoreCase(con.getMetaData().getDatabaseProductName()));
+            postgreSQL = cached;
+        }
+        return cached;
+    }
+
+    /**
+     * 取込先のテーブル
+     *
+     * @param table テーブル名
+     * @param columns 書き込む列（parser が返す値の順）
+     * @param keys 自然キーの列（一意制約と同じ）
+     * @param parser CSV の1行 → 書き込む値（不正な行は IllegalArgumentException）
+     */
+    private record Target(String table, List<String> columns, List<String> keys, Function<String[], Object[]> parser) {
+
+        List<Object> keyOf(Object[] row) {
+            return keys.stream().map(key -> row[columns.indexOf(key)]).toList();
+        }
+
+        String postgresPrefix() {
+            return "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES ";
+        }
+
+        String postgresSuffix() {
+            List<String> updates = columns.stream()
+                    .filter(column -> !keys.contains(column))
+                    .map(column -> column + " = EXCLUDED." + column)
+                    .toList();
+            return " ON CONFLICT (" + String.join(", ", keys) + ") DO UPDATE SET " + String.join(", ", updates);
+        }
+
+        String h2Prefix() {
+            return "MERGE INTO " + table + " (" + String.join(", ", columns) + ")"
+                 + " KEY (" + String.join(", ", keys) + ") VALUES ";
+        }
+    }
+}
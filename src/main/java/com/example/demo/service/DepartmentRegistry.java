@@ -0,0 +1,176 @@
+package com.example.demo.service;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.validation.Errors;
+
+/**
+ * 部署マスタ（departments）をメモリ上に保持するレジストリ。
+ *
+ * - 部署コード ⇔ department_id の変換（DepartmentConverter）と、画面の部署セレクト・表示名に使う
+ * - 読み取り：volatile な不変スナップショットを参照するだけ（ロックなし）
+ * - 未知のコード・ID を引いたときは、別インスタンスで追加された部署かもしれないので再読込してから判定する
+ *   （不正なパラメータで毎回 DB を読まないよう、再読込は reload-interval に1回まで）
+ *
+ * DepartmentConverter は EntityManagerFactory の構築中に生成されるため、JPA ではなく JdbcTemplate で読む。
+ */
+@Component
+public class DepartmentRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(DepartmentRegistry.class);
+
+    private static final String SELECT_ALL =
+            "SELECT id, code, name FROM departments ORDER BY sort_order, id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long reloadIntervalNanos;
+
+    // 未ロードの間は null
+    private volatile Snapshot snapshot;
+    private volatile long loadedAt;
+
+    // 再読込の排他。DB を読むため synchronized ではなく ReentrantLock（仮想スレッドがキャリアを占有しないように）
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public DepartmentRegistry(JdbcTemplate jdbcTemplate,
+                              @Value("${department.registry.reload-interval:PT30S}") Duration reloadInterval) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.reloadIntervalNanos = reloadInterval.toNanos();
+    }
+
+    /**
+     * 部署コード → 表示名（並び順どおり・不変）
+     */
+    public Map<String, String> displayNames() {
+        return snapshot().nameByCode();
+    }
+
+    /**
+     * 表示名（未登録のコードはコードをそのまま返す）
+     */
+    public String nameOf(String code) {
+        return displayNames().getOrDefault(code, code);
+    }
+
+    /**
+     * 登録済みの部署コードか
+     */
+    public boolean contains(String code) {
+        return code != null && lookup(code, Snapshot::idByCode) != null;
+    }
+
+    /**
+     * 入力の所属が未登録の部署なら department 項目のエラーにする（DepartmentConverter に渡す前に弾く）。
+     * すでに department に入力チェックのエラーがあればそちらを優先する
+     */
+    public void rejectIfUnknown(String code, Errors errors) {
+        if (!errors.hasFieldErrors("department") && !contains(code)) {
+            errors.rejectValue("department", "department.unknown", "登録されていない所属です。");
+        }
+    }
+
+    /**
+     * 部署コード → department_id
+     * @throws IllegalArgumentException 未登録のコード
+     */
+    public Integer idOf(String code) {
+        Integer id = lookup(code, Snapshot::idByCode);
+        if (id == null) {
+            throw new IllegalArgumentException("Unknown department code: " + code);
+        }
+        return id;
+    }
+
+    /**
+     * department_id → 部署コード
+     * @throws IllegalArgumentException 未登録の ID
+     */
+    public String codeOf(Integer id) {
+        String code = lookup(id, Snapshot::codeById);
+        if (code == null) {
+            throw new IllegalArgumentException("Unknown department id: " + id);
+        }
+        return code;
+    }
+
+    /**
+     * departments を読み直してスナップショットを差し替える
+     */
+    public void reload() {
+        lock.lock();
+        try {
+            Map<String, Integer> idByCode = new HashMap<>();
+            Map<Integer, String> codeById = new HashMap<>();
+            Map<String, String> nameByCode = new LinkedHashMap<>();
+            jdbcTemplate.query(SELECT_ALL, rs -> {
+                int id = rs.getInt("id");
+                String code = rs.getString("code");
+                idByCode.put(code, id);
+                codeById.put(id, code);
+                nameByCode.put(code, rs.getString("name"));
+            });
+            snapshot = new Snapshot(Map.copyOf(idByCode), Map.copyOf(codeById),
+                    Collections.unmodifiableMap(nameByCode));
+            loadedAt = System.nanoTime();
+            logger.debug("Department registry loaded: {}", nameByCode.keySet());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private <K, V> V lookup(K key, Function<Snapshot, Map<K, V>> table) {
+        if (key == null) {
+            return null;
+        }
+        V value = table.apply(snapshot()).get(key);
+        if (value == null) {
+            reloadIfStale();
+            value = table.apply(snapshot).get(key);
+        }
+        return value;
+    }
+
+    // 前回の読み込みから reload-interval 以上経っていれば読み直す（同時に来た取りこぼしは1回にまとめる）
+    private void reloadIfStale() {
+        lock.lock();
+        try {
+            if (System.nanoTime() - loadedAt >= reloadIntervalNanos) {
+                reload();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            lock.lock();
+            try {
+                if (snapshot == null) {
+                    reload();
+                }
+                current = snapshot;
+            } finally {
+                lock.unlock();
+            }
+        }
+        return current;
+    }
+
+    private record Snapshot(Map<String, Integer> idByCode,
+                            Map<Integer, String> codeById,
+                            Map<String, String> nameByCode) {
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.demo.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.model.ShiftRequirement;
+import com.example.demo.model.UserProfile;
+import com.example.demo.repository.ShiftRequirementRepository;
+
+/**
+ * Hibernate 二次キャッシュの明示的な無効化と統計の取得。
+ * JPA 経由の更新は Hibernate が自動で無効化するが、コミット後に確実に捨てたい場合や
+ * ネイティブ SQL・一括処理で書き込んだ場合はここを呼ぶ。
+ */
+@Service
+public class EntityCacheService {
+
+    private final SessionFactory sessionFactory;
+
+    public EntityCacheService(EntityManagerFactory entityManagerFactory) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+    }
+
+    /**
+     * 指定ユーザーのキャッシュを破棄（更新・削除後）
+     */
+    public void evictUserProfile(Long id) {
+        if (id != null) {
+            sessionFactory.getCache().evictEntityData(UserProfile.class, id);
+        }
+    }
+
+    /**
+     * 必要人員のエンティティとクエリ結果のキャッシュを破棄（必要人員の書き込み後）
+     */
+    public void evictShiftRequirements() {
+        sessionFactory.getCache().evictEntityData(ShiftRequirement.class);
+        sessionFactory.getCache().evictQueryRegion(ShiftRequirementRepository.QUERY_CACHE_REGION);
+    }
+
+    /**
+     * 二次キャッシュ・クエリキャッシュのヒット／ミス統計
+     * @return 全体とリージョンごとの件数（統計の収集が無効なら enabled=false のみ）
+     */
+    public Map<String, Object> getStatistics() {
+        Statistics stats = sessionFactory.getStatistics();
+        // 既定では収集しない（cache.statistics.enabled）。件数がすべて 0 に見えないよう無効であることを返す
+        if (!stats.isStatisticsEnabled()) {
+            return Map.of("enabled", false);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", true);
+        result.put("secondLevelHits", stats.getSecondLevelCacheHitCount());
+        result.put("secondLevelMisses", stats.getSecondLevelCacheMissCount());
+        result.put("secondLevelPuts", stats.getSecondLevelCachePutCount());
+        result.put("queryCacheHits", stats.getQueryCacheHitCount());
+        result.put("queryCacheMisses", stats.getQueryCacheMissCount());
+        result.put("queryCachePuts", stats.getQueryCachePutCount());
+
+        Map<String, Object> regions = new LinkedHashMap<>();
+        for (String regionName : stats.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = stats.getCacheRegionStatistics(regionName);
+            if (region == null) {
+                continue;
+            }
+            Map<String, Object> regionStats = new LinkedHashMap<>();
+            regionStats.put("hits", region.getHitCount());
+            regionStats.put("misses", region.getMissCount());
+            regionStats.put("puts", region.getPutCount());
+            regionStats.put("elementsInMemory", region.getElementCountInMemory());
+            regions.put(regionName, regionStats);
+        }
+        result.put("regions", regions);
+        return result;
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.demo.service;
+
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.demo.model.ShiftType;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * 部署×年月ごとの月グリッド（Map<"userId_日付", ShiftType>）のキャッシュ。
+ *
+ * - 件数上限つき（上限を超えると Caffeine が使用頻度の低いものから追い出す）
+ * - 無効化は保存・確定解除・自動生成から、該当する (部署, 年月) だけを狙って行う
+ * - 世代カウンタ：読み込み開始時の世代を控えておき、読み込み中に無効化が入った場合は
+ *   結果をキャッシュしない（古い読み込み結果で上書きされるのを防ぐ）
+ *
+ * 世代カウンタはキーのハッシュで固定数のスロットに割り当てる（キー数に比例してメモリが増えない）。
+ * 別キーが同じスロットに当たった場合はキャッシュされないだけで、結果の正しさには影響しない。
+ * 同じカウンタを勤務表画面の ETag（version）にも使う。
+ */
+@Component
+public class MonthGridCache {
+
+    // 世代カウンタのスロット数（2のべき乗）
+    private static final int GENERATION_SLOTS = 256;
+
+    private final Cache<Key, Map<String, ShiftType>> entries;
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_SLOTS);
+
+    public MonthGridCache(@Value("${shift.grid-cache.max-entries:200}") long maxEntries) {
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .build();
+    }
+
+    /**
+     * キャッシュから取得し、なければ loader で読み込んでキャッシュする。
+     *
+     * @param department 部署
+     * @param month 年月
+     * @param loader 読み込み処理（不変の Map を返すこと）
+     * @return 月グリッド
+     */
+    public Map<String, ShiftType> get(String department, YearMonth month, Supplier<Map<String, ShiftType>> loader) {
+        Key key = new Key(department, month);
+        Map<String, ShiftType> cached = entries.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        int slot = slotOf(key);
+        long generation = generations.get(slot);
+        Map<String, ShiftType> loaded = loader.get();
+
+        // 書き込みトランザクション内で読んだ値はロールバックされ得るのでキャッシュしない
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return loaded;
+        }
+
+        // 読み込み中に無効化が入っていなければ登録
+        if (generations.get(slot) == generation) {
+            entries.asMap().putIfAbsent(key, loaded);
+            // 登録直後に無効化が走った場合に備えて再確認
+            if (generations.get(slot) != generation) {
+                entries.asMap().remove(key, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * 指定部署・年月のバージョン（無効化のたびに進む。別キーの無効化で進むこともある）
+     */
+    public long version(String department, YearMonth month) {
+        return generations.get(slotOf(new Key(department, month)));
+    }
+
+    /**
+     * 指定部署・年月のキャッシュを無効化する。
+     * トランザクション中であればコミット後に無効化する（コミット前の古い値を読み直して載せないように）。
+     * バージョンは呼び出し時とコミット後の両方で進める（コミット前後どちらで参照した ETag も古いまま残らないように）。
+     *
+     * @param department 部署
+     * @param months 対象年月
+     */
+    public void invalidate(String department, Collection<YearMonth> months) {
+        if (department == null || months == null || months.isEmpty()) {
+            return;
+        }
+        Set<YearMonth> targets = Set.copyOf(months);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            for (YearMonth month : targets) {
+                generations.incrementAndGet(slotOf(new Key(department, month)));
+            }
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evictNow(department, targets);
+                }
+            });
+        } else {
+            evictNow(department, targets);
+        }
+    }
+
+    /**
+     * すべて無効化する（一括取込などで影響範囲を特定しない場合）
+     */
+    public void invalidateAll() {
+        for (int i = 0; i < GENERATION_SLOTS; i++) {
+            generations.incrementAndGet(i);
+        }
+        entries.invalidateAll();
+    }
+
+    private void evictNow(String department, Set<YearMonth> months) {
+        for (YearMonth month : months) {
+            Key key = new Key(department, month);
+            generations.incrementAndGet(slotOf(key));
+            entries.invalidate(key);
+        }
+    }
+
+    private static int slotOf(Key key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (GENERATION_SLOTS - 1);
+    }
+
+    // キャッシュキー（部署, 年月）
+    private static final class Key {
+        private final String department;
+        private final YearMonth month;
+
+        Key(String department, YearMonth month) {
+            this.department = department;
+            this.month = month;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key other)) return false;
+            return Objects.equals(department, other.department) && Objects.equals(month, other.month);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(department, month);
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package com.example.demo.service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.dto.ShiftCalendarEntry;
+import com.example.demo.dto.ShiftChangeEvent;
+import com.example.demo.model.Shift;
+import com.example.demo.model.ShiftMonth;
+import com.example.demo.model.ShiftType;
+import com.example.demo.model.UserProfile;
+import com.example.demo.repository.ShiftMonthRepository;
+import com.example.demo.repository.UserProfileRepository;
+
+/**
+ * 月単位格納（shift_months）の読み書き。shift.storage.mode=monthly のときだけ使われる。
+ *
+ * 月グリッドの読み込み・保存とも「部署×月」の行をまとめて読み、1ユーザー1か月1行で書くため、
+ * 行数はセル数ではなくユーザー数に比例する。
+ * 日単位の行（shifts）を前提にした SQL は、互換ビュー shift_days で同じ形のまま参照できる。
+ *
+ * 呼び出し側（ShiftService / ShiftGenerationService）のトランザクション内で使うこと。
+ * 変更のあったセルは同じトランザクションで変更履歴（ShiftChangeLog）に追記する。
+ *
+ * 書き込みは行全体の読み直し → 書き戻しになるため、部署×月のロック（ShiftEditLocks）を取ってから行を読む。
+ * 別インスタンスからの保存との競合は ShiftMonth の version で検出する（コミット時に
+ * OptimisticLockingFailureException。呼び出し側で競合として報告する）。
+ */
+@Component
+public class MonthlyShiftStore {
+
+    private final ShiftMonthRepository shiftMonthRepository;
+    private final UserProfileRepository userProfileRepository;
+    private final ShiftChangeLog shiftChangeLog;
+    private final ShiftEditLocks shiftEditLocks;
+    private final boolean enabled;
+
+    public MonthlyShiftStore(ShiftMonthRepository shiftMonthRepository,
+                             UserProfileRepository userProfileRepository,
+                             ShiftChangeLog shiftChangeLog,
+                             ShiftEditLocks shiftEditLocks,
+                             @Value("${shift.storage.mode:daily}") String storageMode) {
+        this.shiftMonthRepository = shiftMonthRepository;
+        this.userProfileRepository = userProfileRepository;
+        this.shiftChangeLog = shiftChangeLog;
+        this.shiftEditLocks = shiftEditLocks;
+        this.enabled = "monthly".equalsIgnoreCase(storageMode.trim());
+    }
+
+    /**
+     * 月単位格納が有効か
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 部署・期間の勤務を Map<"userId_日付", 勤務種別> で返す（ShiftService#getShiftMap と同じ形）
+     *
+     * @param userIds 対象ユーザー（空なら絞り込まない）
+     * @param dates 対象日
+     */
+    public Map<String, ShiftType> loadShiftMap(String department, Set<Long> userIds, Set<LocalDate> dates) {
+        LocalDate start = dates.stream().min(LocalDate::compareTo).orElseThrow();
+        LocalDate end = dates.stream().max(LocalDate::compareTo).orElseThrow();
+
+        List<ShiftMonth> rows = shiftMonthRepository.findByDepartmentAndMonthStartBetween(
+                department, start.withDayOfMonth(1), end.withDayOfMonth(1));
+
+        Map<String, ShiftType> map = new HashMap<>();
+        for (ShiftMonth row : rows) {
+            Long userId = row.getUser().getId();
+            if (!userIds.isEmpty() && !userIds.contains(userId)) {
+                continue;
+            }
+            YearMonth month = row.getMonth();
+            for (int day = 1; day <= row.getCodes().length(); day++) {
+                ShiftType shiftType = row.getShiftType(day);
+                if (shiftType == null) {
+                    continue;
+                }
+                LocalDate date = month.atDay(day);
+                if (dates.contains(date)) {
+                    map.put(userId + "_" + date, shiftType);
+                }
+            }
+        }
+        return map;
+    }
+
+    /**
+     * 職員の指定月の確定済み勤務（個人カレンダー用。部署をまたいで返し、並びは呼び出し側で揃える）
+     *
+     * @param userId ユーザーID
+     * @param month 年月
+     */
+    public List<ShiftCalendarEntry> loadConfirmedEntries(Long userId, YearMonth month) {
+        List<ShiftCalendarEntry> entries = new ArrayList<>();
+        for (ShiftMonth row : shiftMonthRepository.findByUser_IdAndMonthStart(userId, month.atDay(1))) {
+            for (int day = 1; day <= row.getCodes().length(); day++) {
+                ShiftType shiftType = row.getShiftType(day);
+                if (shiftType != null && !row.isDraft(day)) {
+                    entries.add(new ShiftCalendarEntry(month.atDay(day), shiftType, row.getDepartment()));
+                }
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * 画面入力のセルをまとめて保存する。
+     *
+     * @param department 部署
+     * @param cells ユーザーID → (日付 → 勤務種別。null はクリア)
+     * @param status 保存状態
+     * @return 変更した月
+     */
+    public Set<YearMonth> save(String department, Map<Long, Map<LocalDate, ShiftType>> cells, Shift.Status status) {
+        if (cells.isEmpty()) {
+            return Set.of();
+        }
+        Map<RowKey, ShiftMonth> rows = lockAndLoadRows(department, monthsOf(cells));
+        Map<Long, UserProfile> users = null; // 新しい行が必要になったときだけ読む
+
+        Set<YearMonth> touched = new HashSet<>();
+        List<ShiftMonth> dirty = new ArrayList<>();
+        List<ShiftChangeEvent> changes = new ArrayList<>();
+
+        for (Map.Entry<Long, Map<LocalDate, ShiftType>> userCells : cells.entrySet()) {
+            Long userId = userCells.getKey();
+            for (Map.Entry<LocalDate, ShiftType> cell : userCells.getValue().entrySet()) {
+                LocalDate date = cell.getKey();
+                ShiftType value = cell.getValue();
+                RowKey key = new RowKey(userId, YearMonth.from(date));
+                ShiftMonth row = rows.get(key);
+
+                int day = date.getDayOfMonth();
+                if (value == null) {
+                    if (row != null) {
+                        ShiftType old = row.getShiftType(day);
+                        if (old != null) {
+                            changes.add(new ShiftChangeEvent(userId, date, old, null, status));
+                        }
+                        row.clearCell(day);
+                        dirty.add(row);
+                        touched.add(key.month());
+                    }
+                    continue;
+                }
+
+                if (row == null) {
+                    if (users == null) {
+                        users = userProfileRepository.findAllById(cells.keySet()).stream()
+                                .collect(Collectors.toMap(UserProfile::getId, Function.identity()));
+                    }
+                    UserProfile user = users.get(userId);
+                    if (user == null) {
+                        continue; // 存在しないユーザーはスキップ
+                    }
+                    row = new ShiftMonth(user, department, key.month());
+                    rows.put(key, row);
+                }
+                ShiftType oldType = row.getShiftType(day);
+                Shift.Status oldStatus = oldType == null ? null : statusOf(row, day);
+                ShiftChangeEvent change = ShiftChangeEvent.ofChange(userId, date, oldType, oldStatus, value, status);
+                if (change != null) {
+                    changes.add(change);
+                }
+                row.setCell(day, value, status, false, false);
+                dirty.add(row);
+                touched.add(key.month());
+            }
+        }
+
+        flush(dirty);
+        shiftChangeLog.append(department, changes);
+        return touched;
+    }
+
+    /**
+     * 指定セルを DRAFT に戻す
+     *
+     * @param cells ユーザーID → 日付
+     * @return 変更した月
+     */
+    public Set<YearMonth> unconfirm(String department, Map<Long, Set<LocalDate>> cells) {
+        if (cells.isEmpty()) {
+            return Set.of();
+        }
+        Set<YearMonth> months = cells.values().stream()
+                .flatMap(Set::stream)
+                .map(YearMonth::from)
+                .collect(Collectors.toSet());
+        Map<RowKey, ShiftMonth> rows = lockAndLoadRows(department, months);
+
+        Set<YearMonth> touched = new HashSet<>();
+        List<ShiftMonth> dirty = new ArrayList<>();
+        List<ShiftChangeEvent> changes = new ArrayList<>();
+        cells.forEach((userId, dates) -> {
+            for (LocalDate date : dates) {
+                ShiftMonth row = rows.get(new RowKey(userId, YearMonth.from(date)));
+                if (row != null && row.markDraft(date.getDayOfMonth())) {
+                    ShiftType type = row.getShiftType(date.getDayOfMonth());
+                    changes.add(new ShiftChangeEvent(userId, date, type, type, Shift.Status.DRAFT));
+                    dirty.add(row);
+                    touched.add(row.getMonth());
+                }
+            }
+        });
+        shiftMonthRepository.saveAll(dirty.stream().distinct().toList());
+        shiftChangeLog.append(department, changes);
+        return touched;
+    }
+
+    /**
+     * 自動生成の結果（日単位の Shift）を月単位の行に畳んで保存する（DRAFT として保存）
+     */
+    public void saveGenerated(String department, List<Shift> shifts) {
+        if (shifts.isEmpty()) {
+            return;
+        }
+        Set<YearMonth> months = shifts.stream()
+                .map(s -> YearMonth.from(s.getDate()))
+                .collect(Collectors.toSet());
+        Map<RowKey, ShiftMonth> rows = lockAndLoadRows(department, months);
+
+        List<ShiftMonth> dirty = new ArrayList<>();
+        List<ShiftChangeEvent> changes = new ArrayList<>();
+        for (Shift shift : shifts) {
+            if (shift.getShiftType() == null) {
+                continue;
+            }
+            RowKey key = new RowKey(shift.getUser().getId(), YearMonth.from(shift.getDate()));
+            ShiftMonth row = rows.computeIfAbsent(key, k -> new ShiftMonth(shift.getUser(), department, k.month()));
+            int day = shift.getDate().getDayOfMonth();
+            ShiftType oldType = row.getShiftType(day);
+            ShiftChangeEvent change = ShiftChangeEvent.ofChange(key.userId(), shift.getDate(),
+                    oldType, oldType == null ? null : statusOf(row, day), shift.getShiftType(), shift.getStatus());
+            if (change != null) {
+                changes.add(change);
+            }
+            row.setCell(day, shift.getShiftType(), shift.getStatus(), shift.isTemporary(), shift.isFixed());
+            dirty.add(row);
+        }
+        shiftMonthRepository.saveAll(dirty.stream().distinct().toList());
+        shiftChangeLog.append(department, changes);
+    }
+
+    // 部署×月のロックを取ってから既存行を読む（読んでからコミットまでに同じ月の別の保存が割り込まないように）
+    private Map<RowKey, ShiftMonth> lockAndLoadRows(String department, Set<YearMonth> months) {
+        shiftEditLocks.lockUntilCompletion(department, months);
+        return loadRows(department, months);
+    }
+
+    // 部署×月の既存行を (ユーザー, 月) で引けるようにまとめて読む
+    private Map<RowKey, ShiftMonth> loadRows(String department, Set<YearMonth> months) {
+        List<LocalDate> monthStarts = months.stream().map(m -> m.atDay(1)).toList();
+        Map<RowKey, ShiftMonth> rows = new HashMap<>();
+        for (ShiftMonth row : shiftMonthRepository.findByDepartmentAndMonthStartIn(department, monthStarts)) {
+            rows.put(new RowKey(row.getUser().getId(), row.getMonth()), row);
+        }
+        return rows;
+    }
+
+    // 変更行を保存し、全日クリアになった行は削除する
+    private void flush(List<ShiftMonth> dirty) {
+        List<ShiftMonth> toSave = new ArrayList<>();
+        List<ShiftMonth> emptied = new ArrayList<>();
+        for (ShiftMonth row : dirty.stream().distinct().toList()) {
+            if (row.isEmpty()) {
+                if (row.getId() != null) {
+                    emptied.add(row);
+                }
+            } else {
+                toSave.add(row);
+            }
+        }
+        shiftMonthRepository.saveAll(toSave);
+        shiftMonthRepository.deleteAll(emptied);
+    }
+
+    private static Shift.Status statusOf(ShiftMonth row, int day) {
+        return row.isDraft(day) ? Shift.Status.DRAFT : Shift.Status.CONFIRMED;
+    }
+
+    private static Set<YearMonth> monthsOf(Map<Long, Map<LocalDate, ShiftType>> cells) {
+        return cells.values().stream()
+                .flatMap(m -> m.keySet().stream())
+                .map(YearMonth::from)
+                .collect(Collectors.toSet());
+    }
+
+    // (ユーザーID, 年月)
+    private record RowKey(Long userId, YearMonth month) {
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.demo.service;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * 月単位レンジパーティション（PostgreSQL, V4 マイグレーション）の保守を行うサービス。
+ * - 当月から monthsAhead か月先までのパーティションを事前作成
+ * - retentionMonths より古い月のパーティションを切り離して archive スキーマへ移動
+ *
+ * パーティションを持たない H2（テスト）では動かさないよう既定では無効。PostgreSQL の本番は prod プロファイルで有効化する。
+ */
+@Service
+@ConditionalOnProperty(name = "shift.partition.maintenance.enabled", havingValue = "true")
+public class PartitionMaintenanceService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PartitionMaintenanceService.class);
+
+    // 月パーティション化されているテーブル
+    private static final List<String> PARTITIONED_TABLES = List.of("shifts", "shift_requests");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int monthsAhead;
+    private final int retentionMonths;
+
+    public PartitionMaintenanceService(JdbcTemplate jdbcTemplate,
+                                       @Value("${shift.partition.months-ahead:3}") int monthsAhead,
+                                       @Value("${shift.partition.retention-months:0}") int retentionMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+    }
+
+    /**
+     * 起動直後に一度実行（長期停止後の起動でも当月分が欠けないように）。
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintainPartitions();
+    }
+
+    /**
+     * 毎月1日の深夜に実行。
+     */
+    @Scheduled(cron = "${shift.partition.maintenance.cron:0 30 2 1 * *}")
+    public void maintainPartitions() {
+        YearMonth current = YearMonth.now();
+        for (String table : PARTITIONED_TABLES) {
+            try {
+                // ① 当月〜 monthsAhead か月先まで作成（既存ならそのまま）
+                for (int i = 0; i <= monthsAhead; i++) {
+                    LocalDate month = current.plusMonths(i).atDay(1);
+                    jdbcTemplate.queryForObject("SELECT ensure_month_partition(?, ?)",
+                            String.class, table, Date.valueOf(month));
+                }
+
+                // ② 保持期間を過ぎた月をアーカイブ（0 以下なら無効）
+                if (retentionMonths > 0) {
+                    LocalDate before = current.minusMonths(retentionMonths).atDay(1);
+                    Integer archived = jdbcTemplate.queryForObject("SELECT archive_month_partitions(?, ?)",
+                            Integer.class, table, Date.valueOf(before));
+                    if (archived != null && archived > 0) {
+                        logger.info("Archived {} partition(s) of {} before {}", archived, table, before);
+                    }
+                }
+            } catch (RuntimeException e) {
+                // 保守処理の失敗で画面側を止めない（次回の実行で再試行）
+                logger.error("Partition maintenance failed for table {}", table, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.demo.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.DayOfWeek;
+import java.time.YearMonth;
+import java.time.format.TextStyle;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.poi.ss.usermodel.BorderStyle;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.FillPatternType;
+import org.apache.poi.ss.usermodel.Font;
+import org.apache.poi.ss.usermodel.HorizontalAlignment;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.DefaultIndexedColorMap;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.apache.poi.xssf.usermodel.XSSFColor;
+
+import com.example.demo.model.ShiftType;
+
+/**
+ * 勤務表の xlsx（ShiftExportService#writeXlsx 用）。1シート = 部署×月。
+ *
+ * - SXSSF でメモリに置く行数を window-rows に制限し、それより前の行は一時ファイル（圧縮）へ書き出す
+ * - セルの背景色は生成画面（shift/generate.html）の勤務種別ごとの色に合わせる
+ * - 末尾に日ごとの出勤人数の合計行を付ける（合計は行を書きながら数えるので、書き出した行を読み返さない）
+ *
+ * 使い終わったら必ず close する（一時ファイルを消す）。
+ */
+class RosterWorkbook implements Closeable {
+
+    // 先頭の列（職員ID・職員名）
+    private static final int FIXED_COLUMNS = 2;
+
+    // 出勤として数える勤務種別（明け・休み・有給は数えない）
+    private static final Set<ShiftType> WORKING = EnumSet.of(
+            ShiftType.DAY, ShiftType.NIGHT, ShiftType.TEMP_FIXED, ShiftType.TEMP_SELF);
+
+    // generate.html の .日 / .夜 ... と同じ色
+    private static final Map<ShiftType, String> FILL_COLORS = new EnumMap<>(Map.of(
+            ShiftType.DAY, "e0f7fa",
+            ShiftType.NIGHT, "d1c4e9",
+            ShiftType.AFTER_NIGHT, "ffe0b2",
+            ShiftType.OFF, "b3e5fc",
+            ShiftType.PAID_LEAVE, "fff9c4",
+            ShiftType.TEMP_FIXED, "c8e6c9",
+            ShiftType.TEMP_SELF, "f0f4c3"));
+
+    private final SXSSFWorkbook workbook;
+    private final CellStyle headerStyle;
+    private final CellStyle plainStyle;
+    private final CellStyle totalStyle;
+    private final Map<ShiftType, CellStyle> typeStyles = new EnumMap<>(ShiftType.class);
+
+    // 書き込み中のシート
+    private SXSSFSheet sheet;
+    private int days;
+    private int nextRow;
+    private int[] workingCounts;
+
+    RosterWorkbook(int windowRows) {
+        this.workbook = new SXSSFWorkbook(windowRows);
+        this.workbook.setCompressTempFiles(true);
+
+        Font bold = workbook.createFont();
+        bold.setBold(true);
+
+        this.headerStyle = bordered();
+        headerStyle.setFont(bold);
+        headerStyle.setAlignment(HorizontalAlignment.CENTER);
+        this.plainStyle = bordered();
+        this.totalStyle = bordered();
+        totalStyle.setFont(bold);
+        totalStyle.setAlignment(HorizontalAlignment.CENTER);
+
+        // セルスタイルはブック全体で共有する（セルごとに作ると上限に達する）
+        for (ShiftType type : ShiftType.values()) {
+            XSSFCellStyle style = (XSSFCellStyle) bordered();
+            style.setAlignment(HorizontalAlignment.CENTER);
+            style.setFillForegroundColor(color(FILL_COLORS.get(type)));
+            style.setFillPattern(FillPatternType.SOLID_FOREGROUND);
+            typeStyles.put(type, style);
+        }
+    }
+
+    /**
+     * シートを追加して見出し行を書く
+     *
+     * @param department 部署コード
+     * @param month 年月
+     */
+    void startSheet(String department, YearMonth month) {
+        sheet = workbook.createSheet(department + "_" + month);
+        days = month.lengthOfMonth();
+        nextRow = 0;
+        workingCounts = new int[days];
+
+        Row header = sheet.createRow(nextRow++);
+        text(header, 0, "職員ID", headerStyle);
+        text(header, 1, "職員名", headerStyle);
+        for (int d = 1; d <= days; d++) {
+            DayOfWeek dayOfWeek = month.atDay(d).getDayOfWeek();
+            text(header, FIXED_COLUMNS + d - 1,
+                    d + "(" + dayOfWeek.getDisplayName(TextStyle.SHORT, Locale.JAPANESE) + ")", headerStyle);
+        }
+        sheet.createFreezePane(FIXED_COLUMNS, 1);
+        sheet.setColumnWidth(1, 16 * 256);
+        for (int d = 0; d < days; d++) {
+            sheet.setColumnWidth(FIXED_COLUMNS + d, 7 * 256);
+        }
+    }
+
+    /**
+     * 1ユーザー分の行を書く
+     *
+     * @param cells 日ごとの勤務（0 = 1日。未設定は null）
+     */
+    void addRow(Long userId, String name, ShiftType[] cells) {
+        Row row = sheet.createRow(nextRow++);
+        Cell id = row.createCell(0);
+        id.setCellValue(userId);
+        id.setCellStyle(plainStyle);
+        text(row, 1, name, plainStyle);
+        for (int d = 0; d < days; d++) {
+            ShiftType type = cells[d];
+            if (type == null) {
+                text(row, FIXED_COLUMNS + d, "", plainStyle);
+                continue;
+            }
+            text(row, FIXED_COLUMNS + d, type.getLabel(), typeStyles.get(type));
+            if (WORKING.contains(type)) {
+                workingCounts[d]++;
+            }
+        }
+    }
+
+    /**
+     * 日ごとの合計行を書いてシートを閉じる
+     */
+    void finishSheet() {
+        Row total = sheet.createRow(nextRow++);
+        text(total, 0, "", totalStyle);
+        text(total, 1, "出勤人数", totalStyle);
+        for (int d = 0; d < days; d++) {
+            Cell cell = total.createCell(FIXED_COLUMNS + d);
+            cell.setCellValue(workingCounts[d]);
+            cell.setCellStyle(totalStyle);
+        }
+        sheet = null;
+    }
+
+    /**
+     * ブックを書き出す（出力先は閉じない）
+     */
+    void write(OutputStream out) throws IOException {
+        workbook.write(out);
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        // 一時ファイルを消してから閉じる
+        workbook.dispose();
+        workbook.close();
+    }
+
+    private CellStyle bordered() {
+        CellStyle style = workbook.createCellStyle();
+        style.setBorderTop(BorderStyle.THIN);
+        style.setBorderBottom(BorderStyle.THIN);
+        style.setBorderLeft(BorderStyle.THIN);
+        style.setBorderRight(BorderStyle.THIN);
+        return style;
+    }
+
+    private static void text(Row row, int column, String value, CellStyle style) {
+        Cell cell = row.createCell(column);
+        cell.setCellValue(value);
+        cell.setCellStyle(style);
+    }
+
+    private static XSSFColor color(String hex) {
+        byte[] rgb = new byte[3];
+        for (int i = 0; i < 3; i++) {
+            rgb[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        }
+        return new XSSFColor(rgb, new DefaultIndexedColorMap());
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.demo.service;
+
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.demo.dto.ShiftCalendarEntry;
+import com.example.demo.dto.ShiftChangeEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * ユーザー×年月ごとの確定済み勤務（個人カレンダー配信用）のキャッシュ。
+ *
+ * MonthGridCache と同じ作り（件数上限つき・世代カウンタで読み込み中の無効化を検出）で、
+ * 世代カウンタは iCalendar の ETag にも使う。
+ * 無効化は変更履歴の追記（ShiftChangeLog#append）から、変更のあったユーザー×年月だけを狙って行う。
+ */
+@Component
+public class ShiftCalendarCache {
+
+    // 世代カウンタのスロット数（2のべき乗。キーはユーザー数×月数なので MonthGridCache より多めに取る）
+    private static final int GENERATION_SLOTS = 1024;
+
+    private final Cache<Key, List<ShiftCalendarEntry>> entries;
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_SLOTS);
+
+    public ShiftCalendarCache(@Value("${shift.ical.cache.max-entries:5000}") long maxEntries) {
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .build();
+    }
+
+    /**
+     * キャッシュから取得し、なければ loader で読み込んでキャッシュする。
+     *
+     * @param userId ユーザー
+     * @param month 年月
+     * @param loader 読み込み処理（不変の List を返すこと）
+     */
+    public List<ShiftCalendarEntry> get(Long userId, YearMonth month, Supplier<List<ShiftCalendarEntry>> loader) {
+        Key key = new Key(userId, month);
+        List<ShiftCalendarEntry> cached = entries.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        int slot = slotOf(key);
+        long generation = generations.get(slot);
+        List<ShiftCalendarEntry> loaded = loader.get();
+
+        // 書き込みトランザクション内で読んだ値はロールバックされ得るのでキャッシュしない
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return loaded;
+        }
+
+        if (generations.get(slot) == generation) {
+            entries.asMap().putIfAbsent(key, loaded);
+            if (generations.get(slot) != generation) {
+                entries.asMap().remove(key, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * 指定ユーザー・年月のバージョン（無効化のたびに進む。別キーの無効化で進むこともある）
+     */
+    public long version(Long userId, YearMonth month) {
+        return generations.get(slotOf(new Key(userId, month)));
+    }
+
+    /**
+     * 変更のあったセルのユーザー×年月を無効化する（トランザクション中であればコミット後にも無効化する）
+     *
+     * @param events 変更イベント
+     */
+    public void invalidate(Collection<ShiftChangeEvent> events) {
+        Set<Key> keys = events.stream()
+                .filter(e -> e.userId() != null && e.date() != null)
+                .map(e -> new Key(e.userId(), YearMonth.from(e.date())))
+                .collect(Collectors.toSet());
+        if (keys.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            keys.forEach(key -> generations.incrementAndGet(slotOf(key)));
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evictNow(keys);
+                }
+            });
+        } else {
+            evictNow(keys);
+        }
+    }
+
+    private void evictNow(Set<Key> keys) {
+        for (Key key : keys) {
+            generations.incrementAndGet(slotOf(key));
+            entries.invalidate(key);
+        }
+    }
+
+    private static int slotOf(Key key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (GENERATION_SLOTS - 1);
+    }
+
+    // キャッシュキー（ユーザー, 年月）
+    private record Key(Long userId, YearMonth month) {
+    }
+}
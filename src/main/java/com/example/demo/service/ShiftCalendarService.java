@@ -0,0 +1,278 @@
+package com.example.demo.service;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.dto.ShiftCalendarEntry;
+import com.example.demo.model.Shift;
+import com.example.demo.model.ShiftType;
+import com.example.demo.model.UserProfile;
+import com.example.demo.repository.ShiftRepository;
+import com.example.demo.repository.UserProfileRepository;
+
+/**
+ * 職員ごとの確定済み勤務を iCalendar（RFC 5545）で配信する。
+ *
+ * - 認証はログインではなく URL のトークン（ユーザーID と配信 URL の世代番号の HMAC）。カレンダーアプリはセッションを持てないため
+ * - URL が漏れた場合は本人が作り直せる（世代番号を進めると以前の URL は 404 になる）。削除されたユーザーの URL も 404
+ * - 配信範囲は今月を基準に months-back か月前から months-ahead か月先まで
+ * - 月ごとの確定済み勤務は ShiftCalendarCache に載せ、ETag はその世代カウンタだけで決める
+ *   （数分おきの取得でも、保存がなければ 304 を返すだけでクエリは発行しない）
+ * - 本文はレスポンスへ1行ずつ書き出す
+ *
+ * 読み込みは確定済みセルだけを対象にする（月単位格納が有効なら shift_months から読む）。
+ */
+@Service
+public class ShiftCalendarService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShiftCalendarService.class);
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private static final DateTimeFormatter DATE = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final DateTimeFormatter STAMP = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+
+    // RFC 5545：1行は 75 オクテットまで（超える分は CRLF + 空白で折り返す）
+    private static final int MAX_LINE_OCTETS = 75;
+
+    private final ShiftRepository shiftRepository;
+    private final UserProfileRepository userProfileRepository;
+    private final MonthlyShiftStore monthlyShiftStore;
+    private final ShiftCalendarCache shiftCalendarCache;
+    private final DepartmentRegistry departmentRegistry;
+    private final SecretKeySpec tokenKey;
+    private final int monthsBack;
+    private final int monthsAhead;
+
+    // 起動ごとに異なる値（再起動で世代カウンタが戻っても以前の ETag と一致しないように）
+    private final String instanceTag = Long.toString(System.currentTimeMillis(), 36);
+
+    public ShiftCalendarService(ShiftRepository shiftRepository,
+                                UserProfileRepository userProfileRepository,
+                                MonthlyShiftStore monthlyShiftStore,
+                                ShiftCalendarCache shiftCalendarCache,
+                                DepartmentRegistry departmentRegistry,
+                                @Value("${shift.ical.secret:}") String secret,
+                                @Value("${shift.ical.months-back:1}") int monthsBack,
+                                @Value("${shift.ical.months-ahead:2}") int monthsAhead) {
+        this.shiftRepository = shiftRepository;
+        this.userProfileRepository = userProfileRepository;
+        this.monthlyShiftStore = monthlyShiftStore;
+        this.shiftCalendarCache = shiftCalendarCache;
+        this.departmentRegistry = departmentRegistry;
+        this.monthsBack = Math.max(0, monthsBack);
+        this.monthsAhead = Math.max(0, monthsAhead);
+
+        byte[] key;
+        if (secret == null || secret.isBlank()) {
+            // 未設定なら起動ごとの乱数（再起動で配信 URL が無効になる）
+            logger.warn("shift.ical.secret is not set; calendar feed URLs will change on every restart");
+            key = new byte[32];
+            new SecureRandom().nextBytes(key);
+        } else {
+            key = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        this.tokenKey = new SecretKeySpec(key, HMAC_ALGORITHM);
+    }
+
+    /**
+     * 配信 URL に付けるトークン（現在の世代番号のもの）
+     *
+     * @param userId ユーザーID
+     */
+    public String tokenFor(Long userId) {
+        int feedVersion = userProfileRepository.findById(userId).map(UserProfile::getIcalFeedVersion).orElse(0);
+        return encode(hmac(userId, feedVersion));
+    }
+
+    /**
+     * 配信 URL を作り直す（世代番号を進め、以前の URL を無効にする）
+     *
+     * @param userId ユーザーID
+     * @return 新しいトークン
+     * @throws IllegalArgumentException ユーザーが存在しない
+     */
+    @Transactional
+    public String regenerateToken(Long userId) {
+        UserProfile user = userProfileRepository.findById(userId)
+                .orElseThrow(() -> new IllegalArgumentException("User not found: " + userId));
+        user.setIcalFeedVersion(user.getIcalFeedVersion() + 1);
+        userProfileRepository.save(user);
+        return encode(hmac(userId, user.getIcalFeedVersion()));
+    }
+
+    /**
+     * トークンが指定ユーザーの現在の世代のものか（比較は一定時間で行う）。
+     * ユーザーが存在しなければ false。世代番号は UserProfile の二次キャッシュから引くので、繰り返しの取得でもクエリは増えない
+     */
+    public boolean verifyToken(Long userId, String token) {
+        if (userId == null || token == null) {
+            return false;
+        }
+        byte[] given;
+        try {
+            given = Base64.getUrlDecoder().decode(token);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return userProfileRepository.findById(userId)
+                .map(user -> MessageDigest.isEqual(hmac(userId, user.getIcalFeedVersion()), given))
+                .orElse(false);
+    }
+
+    /**
+     * 配信する年月（古い順）
+     */
+    public List<YearMonth> feedMonths() {
+        YearMonth current = YearMonth.now();
+        List<YearMonth> months = new ArrayList<>(monthsBack + monthsAhead + 1);
+        for (int i = -monthsBack; i <= monthsAhead; i++) {
+            months.add(current.plusMonths(i));
+        }
+        return months;
+    }
+
+    /**
+     * ETag（引用符なし）。クエリは発行しない
+     *
+     * @param userId ユーザーID
+     * @param months 配信する年月
+     */
+    public String etag(Long userId, List<YearMonth> months) {
+        String versions = months.stream()
+                .map(month -> Long.toString(shiftCalendarCache.version(userId, month)))
+                .collect(Collectors.joining("."));
+        return "ical-" + userId + "-" + months.get(0) + "-" + versions + "-" + instanceTag;
+    }
+
+    /**
+     * iCalendar を書き出す（終日の予定を1勤務1件）
+     *
+     * @param userId ユーザーID
+     * @param months 配信する年月
+     * @param out 出力先（呼び出し側で close する）
+     */
+    @Transactional(readOnly = true)
+    public void writeIcs(Long userId, List<YearMonth> months, Writer out) throws IOException {
+        String stamp = OffsetDateTime.now(ZoneOffset.UTC).format(STAMP);
+
+        writeLine(out, "BEGIN:VCALENDAR");
+        writeLine(out, "VERSION:2.0");
+        writeLine(out, "PRODID:-//ShiftManager//Shift Calendar//JA");
+        writeLine(out, "CALSCALE:GREGORIAN");
+        writeLine(out, "METHOD:PUBLISH");
+        writeLine(out, "X-WR-CALNAME:" + escape("勤務予定"));
+        for (YearMonth month : months) {
+            for (ShiftCalendarEntry entry : shiftCalendarCache.get(userId, month, () -> load(userId, month))) {
+                writeEvent(out, userId, entry, stamp);
+            }
+        }
+        writeLine(out, "END:VCALENDAR");
+        out.flush();
+    }
+
+    // 指定月の確定済み勤務（日付順・不変）
+    private List<ShiftCalendarEntry> load(Long userId, YearMonth month) {
+        if (monthlyShiftStore.isEnabled()) {
+            return monthlyShiftStore.loadConfirmedEntries(userId, month).stream()
+                    .sorted(Comparator.comparing(ShiftCalendarEntry::date))
+                    .toList();
+        }
+        return shiftRepository.findByUser_IdAndDateBetween(userId, month.atDay(1), month.atEndOfMonth()).stream()
+                .filter(shift -> shift.getStatus() == Shift.Status.CONFIRMED && shift.getShiftType() != null)
+                .map(shift -> new ShiftCalendarEntry(shift.getDate(), shift.getShiftType(), shift.getDepartment()))
+                .sorted(Comparator.comparing(ShiftCalendarEntry::date))
+                .toList();
+    }
+
+    private void writeEvent(Writer out, Long userId, ShiftCalendarEntry entry, String stamp) throws IOException {
+        LocalDate date = entry.date();
+        ShiftType type = entry.shiftType();
+        String departmentName = departmentRegistry.nameOf(entry.department());
+
+        writeLine(out, "BEGIN:VEVENT");
+        // 同じ日・部署のセルは同じ UID（勤務が変われば同じ予定が更新される）
+        writeLine(out, "UID:shift-" + userId + "-" + date.format(DATE) + "-" + entry.department() + "@shiftmanager");
+        writeLine(out, "DTSTAMP:" + stamp);
+        writeLine(out, "DTSTART;VALUE=DATE:" + date.format(DATE));
+        writeLine(out, "DTEND;VALUE=DATE:" + date.plusDays(1).format(DATE));
+        writeLine(out, "SUMMARY:" + escape(type.getLabel() + "（" + departmentName + "）"));
+        // 休み・有給は予定として時間を塞がない
+        boolean free = type == ShiftType.OFF || type == ShiftType.PAID_LEAVE;
+        writeLine(out, "TRANSP:" + (free ? "TRANSPARENT" : "OPAQUE"));
+        writeLine(out, "END:VEVENT");
+    }
+
+    // 75 オクテットを超える行は、文字の途中で切らないように折り返す
+    private static void writeLine(Writer out, String line) throws IOException {
+        int octets = 0;
+        for (int i = 0; i < line.length(); ) {
+            int codePoint = line.codePointAt(i);
+            int size = utf8Length(codePoint);
+            if (octets + size > MAX_LINE_OCTETS) {
+                out.write("\r\n ");
+                octets = 1;
+            }
+            out.write(Character.toChars(codePoint));
+            octets += size;
+            i += Character.charCount(codePoint);
+        }
+        out.write("\r\n");
+    }
+
+    private static int utf8Length(int codePoint) {
+        if (codePoint < 0x80) return 1;
+        if (codePoint < 0x800) return 2;
+        if (codePoint < 0x10000) return 3;
+        return 4;
+    }
+
+    // TEXT 値のエスケープ（\ ; , 改行）
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\")
+                .replace(";", "\\;")
+                .replace(",", "\\,")
+                .replace("\r\n", "\\n")
+                .replace("\n", "\\n");
+    }
+
+    private static String encode(byte[] token) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(token);
+    }
+
+    // 世代 0 は世代番号を導入する前と同じ入力にする（発行済みの URL をそのまま使えるように）
+    private byte[] hmac(Long userId, int feedVersion) {
+        String message = feedVersion == 0 ? "ical:" + userId : "ical:" + userId + ":" + feedVersion;
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(tokenKey);
+            return mac.doFinal(message.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new IllegalStateException("HMAC is not available", e);
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package com.example.demo.service;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.dto.ShiftCellState;
+import com.example.demo.dto.ShiftChangeEvent;
+import com.example.demo.model.ShiftMonth;
+import com.example.demo.model.ShiftType;
+
+/**
+ * 勤務表の変更履歴（追記のみ）と月スナップショット。
+ *
+ * - 保存処理（ShiftService / ShiftGenerationService / MonthlyShiftStore）は変更のあったセルだけを
+ *   ShiftChangeEvent にまとめ、保存と同じトランザクションで append する（JDBC バッチで一括 INSERT）
+ * - イベントID はセルのバージョンを兼ねる（差分保存の競合判定・画面への変更配信）
+ * - shift_month_snapshots に「部署×月」の状態を定期的に保存しておき（ShiftSnapshotService）、
+ *   ある時点の月の状態は「その時点以前の最新スナップショット + それ以降のイベント」で復元する。
+ *   再生するのはスナップショット後の末尾だけで、(department_id, month_start, id) のインデックスで直接たどる
+ *
+ * スナップショットの payload は1ユーザー1行の "userId:codes"（codes は ShiftMonth と同じ1日1文字、'.' = 未設定）。
+ * 保存状態（DRAFT / CONFIRMED）はイベントにだけ残し、復元の対象は勤務種別とする。
+ */
+@Component
+public class ShiftChangeLog {
+
+    private static final String INSERT_EVENT =
+            "INSERT INTO shift_change_events"
+          + " (department_id, month_start, user_id, date, old_code, new_code, status, actor, changed_at)"
+          + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SELECT_SNAPSHOT_AS_OF =
+            "SELECT last_event_id, last_changed_at, payload FROM shift_month_snapshots"
+          + " WHERE department_id = ? AND month_start = ? AND last_changed_at <= ?"
+          + " ORDER BY last_event_id DESC LIMIT 1";
+
+    private static final String SELECT_LATEST_SNAPSHOT =
+            "SELECT last_event_id, last_changed_at, payload FROM shift_month_snapshots"
+          + " WHERE department_id = ? AND month_start = ?"
+          + " ORDER BY last_event_id DESC LIMIT 1";
+
+    // スナップショット以降のイベント（時点指定の復元用）
+    private static final String SELECT_TAIL_UNTIL =
+            "SELECT id, user_id, date, new_code, changed_at FROM shift_change_events"
+          + " WHERE department_id = ? AND month_start = ? AND id > ? AND changed_at <= ?"
+          + " ORDER BY id";
+
+    // スナップショット以降のイベント（次のスナップショット作成用）
+    private static final String SELECT_TAIL_UP_TO =
+            "SELECT id, user_id, date, new_code, changed_at FROM shift_change_events"
+          + " WHERE department_id = ? AND month_start = ? AND id > ? AND id <= ?"
+          + " ORDER BY id";
+
+    // セルごとの最新イベントID（セルのバージョン）。(department_id, month_start, user_id, date, id) のインデックスだけで引く
+    private static final String SELECT_CELL_VERSIONS =
+            "SELECT user_id, date, MAX(id) AS version FROM shift_change_events"
+          + " WHERE department_id = ? AND month_start = ?";
+
+    private static final String INSERT_SNAPSHOT =
+            "INSERT INTO shift_month_snapshots"
+          + " (department_id, month_start, last_event_id, last_changed_at, taken_at, payload)"
+          + " VALUES (?, ?, ?, ?, ?, ?)";
+
+    // 操作者が取れない場合（スケジューラなど）
+    private static final String SYSTEM_ACTOR = "system";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DepartmentRegistry departmentRegistry;
+    private final ShiftLiveUpdates shiftLiveUpdates;
+    private final ShiftCalendarCache shiftCalendarCache;
+    private final int batchSize;
+
+    public ShiftChangeLog(JdbcTemplate jdbcTemplate,
+                          DepartmentRegistry departmentRegistry,
+                          ShiftLiveUpdates shiftLiveUpdates,
+                          ShiftCalendarCache shiftCalendarCache,
+                          @Value("${shift.change-log.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.departmentRegistry = departmentRegistry;
+        this.shiftLiveUpdates = shiftLiveUpdates;
+        this.shiftCalendarCache = shiftCalendarCache;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * 変更イベントを追記する（呼び出し側のトランザクションに参加する）。
+     * 採番されたイベントID がセルの新しいバージョンになり、コミット後に開いている画面へ配信する（ShiftLiveUpdates）。
+     * 変更のあったユーザー×月の個人カレンダー（ShiftCalendarCache）も無効化する。
+     *
+     * @param department 部署コード
+     * @param events 変更のあったセル
+     */
+    public void append(String department, Collection<ShiftChangeEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        Integer departmentId = departmentRegistry.idOf(department);
+        String actor = currentActor();
+        Timestamp changedAt = Timestamp.valueOf(LocalDateTime.now());
+
+        List<ShiftChangeEvent> rows = List.copyOf(events);
+        Map<YearMonth, List<ShiftCellState>> published = new HashMap<>();
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            List<ShiftChangeEvent> chunk = rows.subList(from, Math.min(from + batchSize, rows.size()));
+            KeyHolder keys = new GeneratedKeyHolder();
+            jdbcTemplate.batchUpdate(con -> con.prepareStatement(INSERT_EVENT, new String[] { "id" }),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            ShiftChangeEvent event = chunk.get(i);
+                            ps.setInt(1, departmentId);
+                            ps.setDate(2, Date.valueOf(event.date().withDayOfMonth(1)));
+                            ps.setLong(3, event.userId());
+                            ps.setDate(4, Date.valueOf(event.date()));
+                            setCode(ps, 5, event.oldType());
+                            setCode(ps, 6, event.newType());
+                            ps.setString(7, event.status().name());
+                            ps.setString(8, actor);
+                            ps.setTimestamp(9, changedAt);
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return chunk.size();
+                        }
+                    }, keys);
+
+            List<Map<String, Object>> ids = keys.getKeyList();
+            for (int i = 0; i < chunk.size() && i < ids.size(); i++) {
+                ShiftChangeEvent event = chunk.get(i);
+                long version = ((Number) ids.get(i).values().iterator().next()).longValue();
+                String value = event.newType() == null ? "" : event.newType().getLabel();
+                published.computeIfAbsent(YearMonth.from(event.date()), m -> new ArrayList<>())
+                        .add(new ShiftCellState(event.userId(), event.date(), value, version));
+            }
+        }
+        published.forEach((month, cells) -> shiftLiveUpdates.publishAfterCommit(department, month, cells));
+        shiftCalendarCache.invalidate(rows);
+    }
+
+    /**
+     * 指定時点の月の勤務を Map<"userId_日付", 勤務種別> で復元する（ShiftService#getShiftMap と同じ形）
+     *
+     * @param department 部署コード
+     * @param month 対象月
+     * @param asOf この時刻までの変更を反映する
+     */
+    public Map<String, ShiftType> monthAsOf(String department, YearMonth month, LocalDateTime asOf) {
+        Integer departmentId = departmentRegistry.idOf(department);
+        Date monthStart = Date.valueOf(month.atDay(1));
+        Timestamp until = Timestamp.valueOf(asOf);
+
+        MonthState state = jdbcTemplate.query(SELECT_SNAPSHOT_AS_OF,
+                rs -> rs.next() ? MonthState.decode(month, rs.getLong(1), rs.getTimestamp(2), rs.getString(3))
+                                : MonthState.empty(month),
+                departmentId, monthStart, until);
+        replay(state, SELECT_TAIL_UNTIL, departmentId, monthStart, until);
+
+        Map<String, ShiftType> map = new HashMap<>();
+        state.rows.forEach((userId, codes) -> {
+            for (int day = 1; day <= codes.length; day++) {
+                ShiftType shiftType = ShiftType.fromPacked(codes[day - 1]);
+                if (shiftType != null) {
+                    map.put(userId + "_" + month.atDay(day), shiftType);
+                }
+            }
+        });
+        return map;
+    }
+
+    /**
+     * セルのバージョン（そのセルの最新の変更イベントID）を Map<"userId_日付", バージョン> で返す。
+     * 一度も変更されていないセルは含まない（バージョン 0 として扱う）。
+     *
+     * @param department 部署コード
+     * @param month 対象月
+     * @param userIds 対象ユーザー（空なら部署の全ユーザー）
+     */
+    public Map<String, Long> cellVersions(String department, YearMonth month, Collection<Long> userIds) {
+        List<Object> args = new ArrayList<>();
+        args.add(departmentRegistry.idOf(department));
+        args.add(Date.valueOf(month.atDay(1)));
+        StringBuilder sql = new StringBuilder(SELECT_CELL_VERSIONS);
+        if (!userIds.isEmpty()) {
+            sql.append(" AND user_id IN (").append(String.join(", ", Collections.nCopies(userIds.size(), "?"))).append(')');
+            args.addAll(userIds);
+        }
+        sql.append(" GROUP BY user_id, date");
+
+        Map<String, Long> versions = new HashMap<>();
+        jdbcTemplate.query(sql.toString(), rs -> {
+            versions.put(rs.getLong("user_id") + "_" + rs.getDate("date").toLocalDate(), rs.getLong("version"));
+        }, args.toArray());
+        return versions;
+    }
+
+    /**
+     * 部署×月のスナップショットを取る（前回のスナップショットに upToEventId までのイベントを重ねる）
+     *
+     * @param departmentId 部署ID
+     * @param month 対象月
+     * @param upToEventId 含める最後のイベントID
+     * @return 新しいスナップショットを保存したか（前回から変更がなければ false）
+     */
+    public boolean takeSnapshot(int departmentId, YearMonth month, long upToEventId) {
+        Date monthStart = Date.valueOf(month.atDay(1));
+        MonthState state = jdbcTemplate.query(SELECT_LATEST_SNAPSHOT,
+                rs -> rs.next() ? MonthState.decode(month, rs.getLong(1), rs.getTimestamp(2), rs.getString(3))
+                                : MonthState.empty(month),
+                departmentId, monthStart);
+        long previousEventId = state.lastEventId;
+        replay(state, SELECT_TAIL_UP_TO, departmentId, monthStart, upToEventId);
+        if (state.lastEventId == previousEventId) {
+            return false;
+        }
+        jdbcTemplate.update(INSERT_SNAPSHOT, departmentId, monthStart, state.lastEventId,
+                state.lastChangedAt, Timestamp.valueOf(LocalDateTime.now()), state.encode());
+        return true;
+    }
+
+    // スナップショット以降のイベントを ID 順に重ねる
+    private void replay(MonthState state, String sql, int departmentId, Date monthStart, Object bound) {
+        jdbcTemplate.query(sql, rs -> {
+            long userId = rs.getLong("user_id");
+            LocalDate date = rs.getDate("date").toLocalDate();
+            short code = rs.getShort("new_code");
+            ShiftType newType = rs.wasNull() ? null : ShiftType.fromCode(code);
+            state.apply(rs.getLong("id"), rs.getTimestamp("changed_at"), userId, date.getDayOfMonth(), newType);
+        }, departmentId, monthStart, state.lastEventId, bound);
+    }
+
+    private static void setCode(PreparedStatement ps, int index, ShiftType type) throws SQLException {
+        if (type == null) {
+            ps.setNull(index, Types.SMALLINT);
+        } else {
+            ps.setShort(index, type.getCode());
+        }
+    }
+
+    private static String currentActor() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getName() != null ? authentication.getName() : SYSTEM_ACTOR;
+    }
+
+    /**
+     * 復元中の月の状態（ユーザーID → 1日1文字のコード列）
+     */
+    private static final class MonthState {
+
+        private final int length;
+        private final Map<Long, char[]> rows = new TreeMap<>();
+        private long lastEventId;
+        private Timestamp lastChangedAt;
+
+        private MonthState(int length) {
+            this.length = length;
+        }
+
+        static MonthState empty(YearMonth month) {
+            return new MonthState(month.lengthOfMonth());
+        }
+
+        static MonthState decode(YearMonth month, long lastEventId, Timestamp lastChangedAt, String payload) {
+            MonthState state = empty(month);
+            state.lastEventId = lastEventId;
+            state.lastChangedAt = lastChangedAt;
+            for (String line : payload.split("\n")) {
+                int colon = line.indexOf(':');
+                if (colon > 0) {
+                    state.rows.put(Long.valueOf(line.substring(0, colon)), line.substring(colon + 1).toCharArray());
+                }
+            }
+            return state;
+        }
+
+        void apply(long eventId, Timestamp changedAt, long userId, int day, ShiftType newType) {
+            char[] codes = rows.computeIfAbsent(userId, id -> {
+                char[] empty = new char[length];
+                Arrays.fill(empty, ShiftMonth.EMPTY);
+                return empty;
+            });
+            codes[day - 1] = newType == null ? ShiftMonth.EMPTY : newType.getPacked();
+            lastEventId = eventId;
+            if (lastChangedAt == null || changedAt.after(lastChangedAt)) {
+                lastChangedAt = changedAt;
+            }
+        }
+
+        String encode() {
+            StringBuilder sb = new StringBuilder(rows.size() * (length + 8));
+            rows.forEach((userId, codes) -> {
+                if (!isEmpty(codes)) {
+                    sb.append(userId).append(':').append(codes).append('\n');
+                }
+            });
+            return sb.toString();
+        }
+
+        private static boolean isEmpty(char[] codes) {
+            for (char c : codes) {
+                if (c != ShiftMonth.EMPTY) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.demo.service;
+
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 勤務表（部署×年月）の差分保存を直列化するロック。
+ *
+ * セルのバージョン確認から書き込み・コミットまでを、同じ部署×年月の別の差分保存と重ならないようにする
+ * （確認と書き込みの間に他の保存が割り込むと、古いバージョンに基づく変更が通ってしまうため）。
+ * ロックはトランザクション完了時（コミット／ロールバック後）に解放する。
+ *
+ * MonthGridCache の世代カウンタと同じく、キーのハッシュで固定数のストライプに割り当てる。
+ * 別キーが同じストライプに当たった場合は待たされるだけで、結果の正しさには影響しない。
+ * 同一 JVM 内の保存だけを直列化する（複数インスタンス構成では効かない）。
+ */
+@Component
+public class ShiftEditLocks {
+
+    // ストライプ数（2のべき乗）
+    private static final int STRIPES = 64;
+
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    public ShiftEditLocks() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * 指定部署・年月のロックを取り、現在のトランザクションの完了時に解放する
+     *
+     * @param department 部署
+     * @param months 対象年月
+     * @throws IllegalStateException トランザクション外で呼ばれた
+     */
+    public void lockUntilCompletion(String department, Collection<YearMonth> months) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Shift edit lock requires an active transaction");
+        }
+        // デッドロックしないよう、ストライプ番号の昇順で取る
+        List<ReentrantLock> acquired = months.stream()
+                .mapToInt(month -> stripeOf(department, month))
+                .distinct()
+                .sorted()
+                .mapToObj(i -> locks[i])
+                .toList();
+        acquired.forEach(ReentrantLock::lock);
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                acquired.forEach(ReentrantLock::unlock);
+            }
+        });
+    }
+
+    private static int stripeOf(String department, YearMonth month) {
+        int h = Objects.hash(department, month);
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+}
@@ -0,0 +1,232 @@
+package com.example.demo.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.dto.RosterCellView;
+import com.example.demo.dto.RosterMonthView;
+import com.example.demo.model.Shift;
+import com.example.demo.model.ShiftType;
+import com.example.demo.repository.ShiftMonthRepository;
+import com.example.demo.repository.ShiftRepository;
+
+/**
+ * 勤務表の CSV 出力（給与計算向け）と xlsx 出力（印刷向け）。
+ * DB からセル単位のプロジェクションをストリームで読み、ユーザーが切り替わるたびに1行ずつ書き出す。
+ * 月全体のリストをメモリに組み立てないため、出力期間や人数に関わらずヒープ使用量は一定。
+ * xlsx も書き終えた行は一定行数ごとに一時ファイルへ追い出す（RosterWorkbook）。
+ *
+ * CSV の出力形式（1ユーザー1行、日付列は常に31列。月末以降は空欄）:
+ *   年月,職員ID,職員名,1,2,...,31
+ * CSV は給与計算に渡すため確定済みのシフトだけを出し、下書きの日は空欄にする。
+ * xlsx は作成途中の確認にも使うので下書きも含める。
+ */
+@Service
+public class ShiftExportService {
+
+    // 月の最大日数（列数を月によらず固定する）
+    private static final int MAX_DAYS = 31;
+
+    // 表計算ソフトが数式として解釈する先頭文字（職員名は自己登録で入るため無害化する）
+    private static final String FORMULA_PREFIXES = "=+-@\t\r";
+
+    private final ShiftRepository shiftRepository;
+    private final ShiftMonthRepository shiftMonthRepository;
+    private final MonthlyShiftStore monthlyShiftStore;
+    private final int xlsxWindowRows;
+
+    public ShiftExportService(ShiftRepository shiftRepository,
+                              ShiftMonthRepository shiftMonthRepository,
+                              MonthlyShiftStore monthlyShiftStore,
+                              @Value("${shift.export.xlsx.window-rows:100}") int xlsxWindowRows) {
+        this.shiftRepository = shiftRepository;
+        this.shiftMonthRepository = shiftMonthRepository;
+        this.monthlyShiftStore = monthlyShiftStore;
+        this.xlsxWindowRows = xlsxWindowRows;
+    }
+
+    /**
+     * 指定部署の from から months か月分を CSV として書き出す。
+     *
+     * @param department 対象部署
+     * @param from 開始月
+     * @param months 月数（1以上）
+     * @param out 出力先（呼び出し側で close する）
+     */
+    @Transactional(readOnly = true)
+    public void writeCsv(String department, YearMonth from, int months, Writer out) throws IOException {
+        writeHeader(out);
+        String[] labels = new String[MAX_DAYS];
+        for (int i = 0; i < months; i++) {
+            YearMonth month = from.plusMonths(i);
+            forEachRow(department, month, true, (userId, name, cells) -> {
+                for (int d = 0; d < MAX_DAYS; d++) {
+                    labels[d] = cells[d] != null ? cells[d].getLabel() : null;
+                }
+                writeRow(out, month, userId, name, labels);
+            });
+        }
+        out.flush();
+    }
+
+    /**
+     * 指定部署の from から months か月分を xlsx として書き出す（部署×月ごとに1シート）。
+     *
+     * @param departments 対象部署
+     * @param from 開始月
+     * @param months 月数（1以上）
+     * @param out 出力先（呼び出し側で close する）
+     */
+    @Transactional(readOnly = true)
+    public void writeXlsx(List<String> departments, YearMonth from, int months, OutputStream out) throws IOException {
+        try (RosterWorkbook workbook = new RosterWorkbook(xlsxWindowRows)) {
+            for (String department : departments) {
+                for (int i = 0; i < months; i++) {
+                    YearMonth month = from.plusMonths(i);
+                    workbook.startSheet(department, month);
+                    forEachRow(department, month, false, workbook::addRow);
+                    workbook.finishSheet();
+                }
+            }
+            workbook.write(out);
+        }
+    }
+
+    private void writeHeader(Writer out) throws IOException {
+        out.write("年月,職員ID,職員名");
+        for (int d = 1; d <= MAX_DAYS; d++) {
+            out.write(',');
+            out.write(Integer.toString(d));
+        }
+        out.write("\r\n");
+    }
+
+    // 格納形式に応じて、1ユーザー1か月分ずつ handler に渡す（cells は使い回すので handler の中で使い切ること）
+    // confirmedOnly のときは下書きの日を空欄にする
+    private void forEachRow(String department, YearMonth month, boolean confirmedOnly,
+                            RosterRowHandler handler) throws IOException {
+        if (monthlyShiftStore.isEnabled()) {
+            forEachMonthlyRow(department, month, confirmedOnly, handler);
+        } else {
+            forEachDailyRow(department, month, confirmedOnly, handler);
+        }
+    }
+
+    private void forEachDailyRow(String department, YearMonth month, boolean confirmedOnly,
+                                 RosterRowHandler handler) throws IOException {
+        LocalDate start = month.atDay(1);
+        LocalDate end = month.atEndOfMonth();
+
+        // 1ユーザー分のセルだけを保持して使い回す
+        ShiftType[] cells = new ShiftType[MAX_DAYS];
+        Long currentUserId = null;
+        String currentName = null;
+
+        Set<Shift.Status> statuses = confirmedOnly
+                ? EnumSet.of(Shift.Status.CONFIRMED)
+                : EnumSet.allOf(Shift.Status.class);
+        try (Stream<RosterCellView> rows = shiftRepository.streamRosterCells(department, start, end, statuses)) {
+            Iterator<RosterCellView> it = rows.iterator();
+            while (it.hasNext()) {
+                RosterCellView row = it.next();
+
+                // ユーザーが切り替わったら前のユーザーを書き出す
+                if (!row.getUserId().equals(currentUserId)) {
+                    if (currentUserId != null) {
+                        handler.row(currentUserId, currentName, cells);
+                    }
+                    currentUserId = row.getUserId();
+                    currentName = fullName(row);
+                    Arrays.fill(cells, null);
+                }
+
+                if (row.getDate() != null && row.getShiftType() != null) {
+                    cells[row.getDate().getDayOfMonth() - 1] = row.getShiftType();
+                }
+            }
+        }
+
+        if (currentUserId != null) {
+            handler.row(currentUserId, currentName, cells);
+        }
+    }
+
+    // 月単位格納：1ユーザー1行をそのまま展開する
+    private void forEachMonthlyRow(String department, YearMonth month, boolean confirmedOnly,
+                                   RosterRowHandler handler) throws IOException {
+        ShiftType[] cells = new ShiftType[MAX_DAYS];
+        try (Stream<RosterMonthView> rows = shiftMonthRepository.streamRosterMonths(department, month.atDay(1))) {
+            Iterator<RosterMonthView> it = rows.iterator();
+            while (it.hasNext()) {
+                RosterMonthView row = it.next();
+                Arrays.fill(cells, null);
+                String codes = row.getCodes();
+                int draftMask = row.getDraftMask() != null ? row.getDraftMask() : 0;
+                if (codes != null) {
+                    for (int d = 0; d < codes.length() && d < MAX_DAYS; d++) {
+                        if (confirmedOnly && (draftMask & (1 << d)) != 0) {
+                            continue;
+                        }
+                        cells[d] = ShiftType.fromPacked(codes.charAt(d));
+                    }
+                }
+                String last = row.getLastName() != null ? row.getLastName() : "";
+                String first = row.getFirstName() != null ? row.getFirstName() : "";
+                handler.row(row.getUserId(), last + " " + first, cells);
+            }
+        }
+    }
+
+    private void writeRow(Writer out, YearMonth month, Long userId, String name, String[] cells) throws IOException {
+        out.write(month.toString());
+        out.write(',');
+        out.write(userId.toString());
+        out.write(',');
+        out.write(escape(name));
+        for (String cell : cells) {
+            out.write(',');
+            if (cell != null) {
+                out.write(escape(cell));
+            }
+        }
+        out.write("\r\n");
+    }
+
+    private static String fullName(RosterCellView row) {
+        String last = row.getLastName() != null ? row.getLastName() : "";
+        String first = row.getFirstName() != null ? row.getFirstName() : "";
+        return last + " " + first;
+    }
+
+    // 数式として解釈される先頭文字は ' を前置して文字列にする（CSV インジェクション対策）
+    // その上で RFC 4180：カンマ・改行・ダブルクォートを含む値はクォートする
+    private static String escape(String value) {
+        if (!value.isEmpty() && FORMULA_PREFIXES.indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+                && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    // 1ユーザー1か月分の行を受け取る
+    @FunctionalInterface
+    private interface RosterRowHandler {
+        void row(Long userId, String name, ShiftType[] cells) throws IOException;
+    }
+}
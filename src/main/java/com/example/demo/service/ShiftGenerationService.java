@@ -1,6 +1,7 @@
 package com.example.demo.service;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -9,9 +10,11 @@ import java.util.stream.Collectors;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.example.demo.dto.ShiftChangeEvent;
 import com.example.demo.model.Shift;
 import com.example.demo.model.ShiftRequest;
 import com.example.demo.model.ShiftRequirement;
+import com.example.demo.model.ShiftType;
 import com.example.demo.model.TemporaryWorkerAssignment;
 import com.example.demo.model.UserProfile;
 import com.example.demo.repository.ShiftRepository;
@@ -28,18 +31,30 @@ public class ShiftGenerationService {
     private final ShiftRequestRepository shiftRequestRepository;
     private final TemporaryWorkerAssignmentRepository temporaryWorkerAssignmentRepository;
     private final ShiftRepository shiftRepository;
+    private final MonthGridCache monthGridCache;
+    private final MonthlyShiftStore monthlyShiftStore;
+    private final ShiftChangeLog shiftChangeLog;
+    private final ShiftEditLocks shiftEditLocks;
     
     // コンストラクタ　Spring がリポジトリを渡し、フィールドに代入
     public ShiftGenerationService(UserProfileRepository userProfileRepository,
                                   ShiftRequirementRepository shiftRequirementRepository,
                                   ShiftRequestRepository shiftRequestRepository,
                                   TemporaryWorkerAssignmentRepository temporaryWorkerAssignmentRepository,
-                                  ShiftRepository shiftRepository) {
+                                  ShiftRepository shiftRepository,
+                                  MonthGridCache monthGridCache,
+                                  MonthlyShiftStore monthlyShiftStore,
+                                  ShiftChangeLog shiftChangeLog,
+                                  ShiftEditLocks shiftEditLocks) {
         this.userProfileRepository = userProfileRepository;
         this.shiftRequirementRepository = shiftRequirementRepository;
         this.shiftRequestRepository = shiftRequestRepository;
         this.temporaryWorkerAssignmentRepository = temporaryWorkerAssignmentRepository;
         this.shiftRepository = shiftRepository;
+        this.monthGridCache = monthGridCache;
+        this.monthlyShiftStore = monthlyShiftStore;
+        this.shiftChangeLog = shiftChangeLog;
+        this.shiftEditLocks = shiftEditLocks;
     }
 
     /**
@@ -48,9 +63,13 @@ public class ShiftGenerationService {
      *  - LocalDate#datesUntil で「日付ストリーム」を作成し、ラムダ内で date が実質finalとなるようにする
      *  - 1日単位で生成した Shift をまとめて saveAll することで DB I/O を削減（マイクロ最適化）
      *  - 事前臨時 → 正/パ の順に割当（今は単純な割当。将来はルール拡張想定）
+     *  - 同じ部署×年月の保存（一時保存・差分保存・確定）とは ShiftEditLocks で直列化する
      */
     @Transactional
     public void generateShifts(int year, int month, String department) {
+        // 生成した行の書き込みと変更履歴の追記が、同じ月の他の保存と重ならないようにする（日単位・月単位格納とも）
+        shiftEditLocks.lockUntilCompletion(department, List.of(YearMonth.of(year, month)));
+
         // ① 対象月の開始日と終了日（末日）を算出
         LocalDate start = LocalDate.of(year, month, 1);
         LocalDate end = start.withDayOfMonth(start.lengthOfMonth());
@@ -75,6 +94,11 @@ public class ShiftGenerationService {
                         .stream()
                         .collect(Collectors.groupingBy(TemporaryWorkerAssignment::getDate));
 
+        // 月単位格納の場合は月全体を集めてから、ユーザーごとに1行で保存する
+        List<Shift> generatedForMonth = new ArrayList<>();
+        // 日単位格納で保存したセルの変更履歴
+        List<ShiftChangeEvent> changes = new ArrayList<>();
+
         // ④ start〜end（含む）をストリームで走査（datesUntil は上限非包含なので end.plusDays(1)）
         start.datesUntil(end.plusDays(1)).forEach(date -> {
 
@@ -107,7 +131,7 @@ public class ShiftGenerationService {
                     shift.setDate(date);                 // 当日
                     shift.setDepartment(department);     // 部署
                     shift.setTimeSlot(slot);             // 時間帯
-                    shift.setShiftType("臨(確)");        // 勤務種別 = 事前確定の臨時
+                    shift.setShiftType(ShiftType.TEMP_FIXED); // 勤務種別 = 事前確定の臨時
                     shift.setTemporary(true);            // 臨時フラグ
                     shift.setFixed(true);                // 事前指定フラグ
                     shiftsToSaveToday.add(shift);        // 後でまとめて保存
@@ -131,7 +155,7 @@ public class ShiftGenerationService {
                         shift.setDate(date);                // 当日
                         shift.setDepartment(department);    // 部署
                         shift.setTimeSlot(slot);            // 時間帯
-                        shift.setShiftType("日");           // 仮ロジック：日勤
+                        shift.setShiftType(ShiftType.DAY);  // 仮ロジック：日勤
                         shift.setTemporary(false);          // 臨時ではない
                         shift.setFixed(false);              // 事前指定ではない
                         shiftsToSaveToday.add(shift);       // 後でまとめて保存
@@ -140,10 +164,24 @@ public class ShiftGenerationService {
             }
 
             // ④-5 1日分をまとめて保存（DB I/O を削減）
-            if (!shiftsToSaveToday.isEmpty()) {
+            if (monthlyShiftStore.isEnabled()) {
+                generatedForMonth.addAll(shiftsToSaveToday);
+            } else if (!shiftsToSaveToday.isEmpty()) {
                 shiftRepository.saveAll(shiftsToSaveToday);
+                shiftsToSaveToday.forEach(shift -> changes.add(new ShiftChangeEvent(
+                        shift.getUser().getId(), date, null, shift.getShiftType(), shift.getStatus())));
             }
         });
+
+        if (monthlyShiftStore.isEnabled()) {
+            monthlyShiftStore.saveGenerated(department, generatedForMonth);
+        }
+
+        // 変更履歴は月分をまとめて追記（月単位格納の場合は MonthlyShiftStore が追記する）
+        shiftChangeLog.append(department, changes);
+
+        // ⑤ 生成した月の表示キャッシュを無効化（コミット後）
+        monthGridCache.invalidate(department, List.of(YearMonth.of(year, month)));
     }
 
     /**
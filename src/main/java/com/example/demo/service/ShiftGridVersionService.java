@@ -0,0 +1,50 @@
+package com.example.demo.service;
+
+import java.time.YearMonth;
+
+import org.springframework.stereotype.Service;
+
+/**
+ * 勤務表画面（部署×年月）の ETag を組み立てる。
+ *
+ * クエリは一切発行せず、メモリ上のカウンタだけで決まる：
+ * - MonthGridCache のバージョン（保存・確定解除・自動生成で進む）
+ * - UserDirectory のバージョン（ユーザーの登録・更新・削除で進む）
+ * - 起動時刻（再起動でカウンタが戻っても以前の ETag と一致しないように）
+ *
+ * DB を直接更新した場合など、アプリを経由しない変更は検知できない
+ * （UserDirectory の定期再読込で拾えるユーザー情報を除く）。
+ */
+@Service
+public class ShiftGridVersionService {
+
+    private final MonthGridCache monthGridCache;
+    private final UserDirectory userDirectory;
+
+    // 起動ごとに異なる値
+    private final String instanceTag = Long.toString(System.currentTimeMillis(), 36);
+
+    public ShiftGridVersionService(MonthGridCache monthGridCache, UserDirectory userDirectory) {
+        this.monthGridCache = monthGridCache;
+        this.userDirectory = userDirectory;
+    }
+
+    /**
+     * ETag（引用符なし）を返す
+     *
+     * @param view 画面名（一覧・生成画面で別の値にする）
+     * @param department 部署
+     * @param month 年月
+     * @param sessionId セッションID（画面に CSRF トークンやログインユーザーが埋め込まれるため、セッションが変われば別の ETag にする）
+     */
+    public String etag(String view, String department, YearMonth month, String sessionId) {
+        int sessionHash = sessionId == null ? 0 : sessionId.hashCode();
+        return view
+                + "-" + department.hashCode()
+                + "-" + month
+                + "-" + monthGridCache.version(department, month)
+                + "-" + userDirectory.version()
+                + "-" + instanceTag
+                + "-" + Integer.toHexString(sessionHash);
+    }
+}
@@ -0,0 +1,309 @@
+package com.example.demo.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.demo.dto.ShiftCellState;
+
+/**
+ * 勤務表（部署×年月）の変更を、開いている画面へ Server-Sent Events で配信する。
+ *
+ * - トピックは (部署, 年月)。購読者は画面1枚につき1つの SseEmitter
+ * - 保存がコミットされたら、変更のあったセル（ShiftCellState の配列）を "cells" イベントで送る
+ * - 購読者ごとに上限つきのキューを持ち、送信は専用のスレッドで行う（保存側のスレッドは送信を待たない）
+ * - キューが溢れた購読者（受信が追いつかない画面）は切断する。画面は再接続後に表示を取り直す
+ * - 送信スレッドは固定数のプールで共有しない（受信しない画面への送信はソケットへの書き込みで止まるため、
+ *   共有すると他のトピックの配信まで止まる）。購読者ごとに送信中のスレッドは高々1つで、
+ *   send-timeout を超えて送信が終わらない購読者は配信対象から外す（止まっているスレッドは書き込みが
+ *   失敗した時点で戻り、以降その購読者には送らない）
+ *
+ * 同一 JVM 内の保存だけを配信する（複数インスタンス構成では、別インスタンスでの保存は届かない）。
+ */
+@Component
+public class ShiftLiveUpdates {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShiftLiveUpdates.class);
+
+    // セル変更のイベント名（画面側は addEventListener('cells', ...) で受ける）
+    static final String CELLS_EVENT = "cells";
+
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final long sendTimeoutNanos;
+
+    private final Map<Topic, Set<Subscriber>> topics = new ConcurrentHashMap<>();
+    private final ExecutorService sender;
+
+    public ShiftLiveUpdates(@Value("${shift.live.buffer-size:64}") int bufferSize,
+                            @Value("${shift.live.timeout:PT30M}") Duration timeout,
+                            @Value("${shift.live.send-timeout:PT10S}") Duration sendTimeout) {
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeout.toMillis();
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        AtomicInteger threadNo = new AtomicInteger();
+        // 送信中の購読者の数だけスレッドを使う（止まった購読者が他の購読者の送信を待たせない）
+        this.sender = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "shift-live-" + threadNo.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * 購読を開始する（コントローラから SseEmitter をそのまま返す）
+     *
+     * @param department 部署
+     * @param month 年月
+     */
+    public SseEmitter subscribe(String department, YearMonth month) {
+        return subscribe(department, month, new SseEmitter(timeoutMillis));
+    }
+
+    // 購読を登録する（テストでは送信を記録する SseEmitter を渡す）
+    SseEmitter subscribe(String department, YearMonth month, SseEmitter emitter) {
+        Topic topic = new Topic(department, month);
+        Subscriber subscriber = new Subscriber(topic, emitter, new ArrayBlockingQueue<>(bufferSize));
+
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        topics.computeIfAbsent(topic, t -> new CopyOnWriteArraySet<>()).add(subscriber);
+
+        // 接続直後にコメントを1つ流して、プロキシ等でレスポンスが止まらないようにする
+        enqueue(subscriber, Message.comment("subscribed"));
+        return emitter;
+    }
+
+    /**
+     * 変更のあったセルを配信する。トランザクション中であればコミット後に配信する（ロールバックされた変更は流さない）
+     *
+     * @param department 部署
+     * @param month 年月
+     * @param cells 変更後のセルの状態
+     */
+    public void publishAfterCommit(String department, YearMonth month, List<ShiftCellState> cells) {
+        if (cells.isEmpty() || !topics.containsKey(new Topic(department, month))) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(department, month, cells);
+                }
+            });
+        } else {
+            publish(department, month, cells);
+        }
+    }
+
+    /**
+     * 購読中の件数（部署×年月ごとの合計）
+     */
+    public int subscriberCount() {
+        return topics.values().stream().mapToInt(Set::size).sum();
+    }
+
+    /**
+     * 定期的にコメントを送り、切れた接続を検出する（送信に失敗した購読者は外れる）
+     */
+    @Scheduled(fixedDelayString = "${shift.live.heartbeat-interval:PT30S}")
+    public void heartbeat() {
+        topics.values().forEach(subscribers -> subscribers.forEach(s -> enqueue(s, Message.comment("ping"))));
+    }
+
+    /**
+     * send-timeout を超えて送信が終わらない購読者（受信しない画面・止まった接続）を配信対象から外す
+     */
+    @Scheduled(fixedDelayString = "${shift.live.send-timeout:PT10S}")
+    public void evictStalled() {
+        long now = System.nanoTime();
+        topics.values().forEach(subscribers -> subscribers.forEach(subscriber -> {
+            long since = subscriber.sendingSince();
+            if (since != 0 && now - since > sendTimeoutNanos) {
+                logger.debug("Evicting stalled shift live subscriber for {}", subscriber.topic());
+                close(subscriber);
+            }
+        }));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        topics.values().forEach(subscribers -> subscribers.forEach(s -> s.emitter().complete()));
+        topics.clear();
+        sender.shutdownNow();
+    }
+
+    private void publish(String department, YearMonth month, List<ShiftCellState> cells) {
+        Set<Subscriber> subscribers = topics.get(new Topic(department, month));
+        if (subscribers == null) {
+            return;
+        }
+        Message message = Message.cells(List.copyOf(cells));
+        for (Subscriber subscriber : subscribers) {
+            enqueue(subscriber, message);
+        }
+    }
+
+    private void enqueue(Subscriber subscriber, Message message) {
+        if (subscriber.closed().get()) {
+            return;
+        }
+        if (!subscriber.queue().offer(message)) {
+            // 受信が追いつかない購読者は切る（溜め続けない）
+            logger.debug("Dropping slow shift live subscriber for {}", subscriber.topic());
+            close(subscriber);
+            // 送信中なら emitter の完了は送信が戻るまで待たされるので、保存側のスレッドでは行わない
+            completeAsync(subscriber);
+            return;
+        }
+        scheduleDrain(subscriber);
+    }
+
+    // 購読者ごとに送信中のタスクは1つだけ（イベントの順序を保つ）
+    private void scheduleDrain(Subscriber subscriber) {
+        if (subscriber.draining().compareAndSet(false, true)) {
+            try {
+                sender.execute(() -> drain(subscriber));
+            } catch (RuntimeException e) {
+                // 停止中など
+                subscriber.draining().set(false);
+            }
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        try {
+            Message message;
+            while (!subscriber.closed().get() && (message = subscriber.queue().poll()) != null) {
+                subscriber.startSending();
+                try {
+                    subscriber.emitter().send(message.toEvent());
+                } finally {
+                    subscriber.finishSending();
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            // 切断済み
+            close(subscriber);
+            return;
+        } finally {
+            subscriber.draining().set(false);
+        }
+        if (subscriber.closed().get()) {
+            // 送信中に外された（止まっていた送信がようやく戻った）
+            subscriber.emitter().complete();
+            return;
+        }
+        // 送信終了と次の enqueue が入れ違った場合の取りこぼし防止
+        if (!subscriber.queue().isEmpty()) {
+            scheduleDrain(subscriber);
+        }
+    }
+
+    private void completeAsync(Subscriber subscriber) {
+        try {
+            sender.execute(() -> subscriber.emitter().complete());
+        } catch (RuntimeException e) {
+            // 停止中など
+        }
+    }
+
+    // 配信対象から外す（以降は enqueue しない）
+    private void close(Subscriber subscriber) {
+        subscriber.closed().set(true);
+        remove(subscriber);
+        subscriber.queue().clear();
+    }
+
+    private void remove(Subscriber subscriber) {
+        topics.computeIfPresent(subscriber.topic(), (topic, subscribers) -> {
+            subscribers.remove(subscriber);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+    }
+
+    private record Topic(String department, YearMonth month) {
+    }
+
+    // 等価性は同一インスタンスで判定する（同じトピックに複数の画面が購読する）
+    private static final class Subscriber {
+
+        private final Topic topic;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Message> queue;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        // 送信を始めた時刻（System.nanoTime。送信中でなければ 0）
+        private volatile long sendingSince;
+
+        Subscriber(Topic topic, SseEmitter emitter, BlockingQueue<Message> queue) {
+            this.topic = topic;
+            this.emitter = emitter;
+            this.queue = queue;
+        }
+
+        Topic topic() { return topic; }
+
+        SseEmitter emitter() { return emitter; }
+
+        BlockingQueue<Message> queue() { return queue; }
+
+        AtomicBoolean draining() { return draining; }
+
+        AtomicBoolean closed() { return closed; }
+
+        long sendingSince() { return sendingSince; }
+
+        void startSending() {
+            long now = System.nanoTime();
+            sendingSince = now != 0 ? now : 1;
+        }
+
+        void finishSending() { sendingSince = 0; }
+    }
+
+    // 送信する内容（SseEventBuilder は送信のたびに作り直す。使い回すと本文が壊れるため）
+    private record Message(String comment, List<ShiftCellState> cells) {
+
+        static Message comment(String text) {
+            return new Message(text, null);
+        }
+
+        static Message cells(List<ShiftCellState> cells) {
+            return new Message(null, cells);
+        }
+
+        SseEmitter.SseEventBuilder toEvent() {
+            if (cells == null) {
+                return SseEmitter.event().comment(comment);
+            }
+            return SseEmitter.event().name(CELLS_EVENT).data(cells, MediaType.APPLICATION_JSON);
+        }
+    }
+}
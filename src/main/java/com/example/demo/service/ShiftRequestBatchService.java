@@ -0,0 +1,157 @@
+package com.example.demo.service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.dto.ShiftRequestBatchResult;
+import com.example.demo.dto.ShiftRequestBatchResult.DayResult;
+import com.example.demo.dto.ShiftRequestBatchResult.Outcome;
+import com.example.demo.dto.ShiftRequestRow;
+import com.example.demo.form.ShiftRequestForm;
+import com.example.demo.model.ShiftRequest;
+import com.example.demo.repository.ShiftRequestRepository;
+
+/**
+ * 職員本人による希望休/有給の一括申請（1か月分を1回で受け付ける）。
+ *
+ * - その月の本人の申請（user_id・date・department_id で一意）を行ロック付きで1回だけ読み、日ごとの照合はメモリ上で行う
+ * - 新規・変更の日だけを BulkImportService の複数行 upsert でまとめて書き込む（1日1リクエスト・1文にしない）
+ * - 管理者が確定した申請（CONFIRMED）は本人からは変更できない
+ *   （照合の後に確定された行も upsert の条件で書き換えない）
+ *
+ * 申請は下書き（DRAFT）として登録し、確定は従来どおり管理者が行う。
+ */
+@Service
+public class ShiftRequestBatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShiftRequestBatchService.class);
+
+    private final ShiftRequestRepository shiftRequestRepository;
+    private final BulkImportService bulkImportService;
+    private final DepartmentRegistry departmentRegistry;
+
+    public ShiftRequestBatchService(ShiftRequestRepository shiftRequestRepository,
+                                    BulkImportService bulkImportService,
+                                    DepartmentRegistry departmentRegistry) {
+        this.shiftRequestRepository = shiftRequestRepository;
+        this.bulkImportService = bulkImportService;
+        this.departmentRegistry = departmentRegistry;
+    }
+
+    /**
+     * 1か月分の申請を登録する（全体を1トランザクションで書き込む）
+     *
+     * @param userId 申請する職員
+     * @param department 部署コード（登録済みであること）
+     * @param month 対象月
+     * @param forms 申請（userId・department は省略可。指定する場合は引数と一致すること）
+     * @param actor 更新者
+     * @return 日ごとの結果
+     */
+    @Transactional
+    public ShiftRequestBatchResult submit(Long userId, String department, YearMonth month,
+                                          List<ShiftRequestForm> forms, String actor) {
+        if (!departmentRegistry.contains(department)) {
+            throw new IllegalArgumentException("Unknown department: " + department);
+        }
+
+        // 一意制約のキーのうち user_id・department_id は固定なので、その月の既存行を日付で引けるようにする
+        // 行ロックを取り、書き込むまでの間に管理者が確定できないようにする
+        Map<LocalDate, ShiftRequest> existing = shiftRequestRepository
+                .findForUpdateByUser_IdAndDepartmentAndDateBetween(userId, department, month.atDay(1), month.atEndOfMonth())
+                .stream()
+                .collect(Collectors.toMap(ShiftRequest::getDate, Function.identity(), (a, b) -> a, HashMap::new));
+
+        List<DayResult> days = new ArrayList<>(forms.size());
+        List<ShiftRequestRow> rows = new ArrayList<>();
+        Set<LocalDate> seen = new HashSet<>();
+
+        for (ShiftRequestForm form : forms) {
+            LocalDate date = form == null ? null : form.getDate();
+            String reason = validate(form, userId, department, month, seen);
+            if (reason != null) {
+                days.add(new DayResult(date, Outcome.REJECTED, reason));
+                continue;
+            }
+
+            ShiftRequest current = existing.get(date);
+            if (current != null && current.getStatus() == ShiftRequest.RequestStatus.CONFIRMED) {
+                days.add(new DayResult(date, Outcome.REJECTED, "確定済みの申請は変更できません"));
+                continue;
+            }
+            if (current != null && form.getRequestType().equals(current.getRequestType())) {
+                days.add(new DayResult(date, Outcome.UNCHANGED, null));
+                continue;
+            }
+
+            rows.add(new ShiftRequestRow(userId, date, department, form.getRequestType()));
+            days.add(new DayResult(date, current == null ? Outcome.CREATED : Outcome.UPDATED, null));
+        }
+
+        int saved = rows.isEmpty() ? 0 : bulkImportService.upsertDraftRequests(rows, actor);
+        if (saved < rows.size()) {
+            // 行ロックの後に確定済みの行が新たに登録された日は書き換えていないので、結果を却下に直す
+            days = rejectConfirmed(days, userId, department, month);
+        }
+        logger.info("Shift request batch: user={} department={} month={} submitted={} saved={}",
+                userId, department, month, forms.size(), saved);
+        return new ShiftRequestBatchResult(department, month, saved, List.copyOf(days));
+    }
+
+    // 書き込んだはずの日のうち、確定済みになっている日を却下として返す
+    private List<DayResult> rejectConfirmed(List<DayResult> days, Long userId, String department, YearMonth month) {
+        Set<LocalDate> confirmed = shiftRequestRepository
+                .findForUpdateByUser_IdAndDepartmentAndDateBetween(userId, department, month.atDay(1), month.atEndOfMonth())
+                .stream()
+                .filter(r -> r.getStatus() == ShiftRequest.RequestStatus.CONFIRMED)
+                .map(ShiftRequest::getDate)
+                .collect(Collectors.toSet());
+        return days.stream()
+                .map(day -> day.outcome() != Outcome.REJECTED && day.outcome() != Outcome.UNCHANGED
+                                && confirmed.contains(day.date())
+                        ? new DayResult(day.date(), Outcome.REJECTED, "確定済みの申請は変更できません")
+                        : day)
+                .toList();
+    }
+
+    // 登録できない理由（登録できる場合は null）。同じ日の2件目以降は重複として弾く
+    private static String validate(ShiftRequestForm form, Long userId, String department, YearMonth month,
+                                   Set<LocalDate> seen) {
+        if (form == null) {
+            return "申請が空です"; // JSON 配列の null 要素
+        }
+        LocalDate date = form.getDate();
+        if (date == null) {
+            return "日付がありません";
+        }
+        if (!YearMonth.from(date).equals(month)) {
+            return "対象月（" + month + "）以外の日付です";
+        }
+        if (form.getUserId() != null && !form.getUserId().equals(userId)) {
+            return "他の職員の申請はできません";
+        }
+        if (form.getDepartment() != null && !form.getDepartment().equals(department)) {
+            return "部署が違います: " + form.getDepartment();
+        }
+        if (form.getRequestType() == null || !ShiftRequest.REQUEST_TYPES.contains(form.getRequestType())) {
+            return "種別は 休 または 有 で指定してください";
+        }
+        if (!seen.add(date)) {
+            return "同じ日の申請が重複しています";
+        }
+        return null;
+    }
+}
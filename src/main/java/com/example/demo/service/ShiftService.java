@@ -1,11 +1,14 @@
 package com.example.demo.service;
 
 import java.time.LocalDate;
-import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;            // ★ 追加：min/max 用
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -15,10 +18,18 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
-import com.example.demo.dto.UserProfileDto;
+import com.example.demo.dto.ShiftCellDelta;
+import com.example.demo.dto.ShiftCellState;
+import com.example.demo.dto.ShiftChangeEvent;
+import com.example.demo.dto.ShiftDeltaResult;
+import com.example.demo.dto.ShiftSaveResult;
+import com.example.demo.dto.UserSummary;
 import com.example.demo.form.ShiftGenerationForm;
 import com.example.demo.model.Shift;
 import com.example.demo.model.Shift.Status;
+import com.example.demo.model.ShiftMonth;
+import com.example.demo.model.ShiftType;
+import com.example.demo.model.UserProfile;
 import com.example.demo.repository.ShiftRepository;
 import com.example.demo.repository.UserProfileRepository;
 
@@ -27,23 +38,35 @@ public class ShiftService {
 
     private final ShiftRepository shiftRepository;
     private final UserProfileRepository userProfileRepository;
+    private final MonthGridCache monthGridCache;
+    private final MonthlyShiftStore monthlyShiftStore;
+    private final ShiftChangeLog shiftChangeLog;
+    private final ShiftEditLocks shiftEditLocks;
 
     public ShiftService(ShiftRepository shiftRepository,
-                        UserProfileRepository userProfileRepository) {
+                        UserProfileRepository userProfileRepository,
+                        MonthGridCache monthGridCache,
+                        MonthlyShiftStore monthlyShiftStore,
+                        ShiftChangeLog shiftChangeLog,
+                        ShiftEditLocks shiftEditLocks) {
         this.shiftRepository = shiftRepository;
         this.userProfileRepository = userProfileRepository;
+        this.monthGridCache = monthGridCache;
+        this.monthlyShiftStore = monthlyShiftStore;
+        this.shiftChangeLog = shiftChangeLog;
+        this.shiftEditLocks = shiftEditLocks;
     }
 
     /**
      * 指定したユーザーリスト・日付リスト・部署に対するシフト情報を取得し、
-     * Map<"userId_日付", 勤務種別>の形式で返却する。
+     * Map<"userId_日付", 勤務種別>の形式で返却する（勤務種別は ShiftType。表示は getLabel()）。
      *
      * @param users ユーザー一覧（表示対象）
      * @param dates 表示対象月の日付一覧
      * @param department 所属部署名
      * @return Map形式の勤務情報（セル表示用）
      */
-    public Map<String, String> getShiftMap(List<UserProfileDto> users, List<LocalDate> dates, String department) {
+    public Map<String, ShiftType> getShiftMap(List<UserSummary> users, List<LocalDate> dates, String department) {
 
         // ★ ガード：dates が null/空なら即返す（IN () 問題の根絶 & 無駄クエリ抑止）
         if (dates == null || dates.isEmpty()) {
@@ -51,6 +74,33 @@ public class ShiftService {
             return Map.of();
         }
 
+        // 表示対象が 1 か月ちょうど（月初〜月末）の場合は部署×年月のキャッシュを使う。
+        // キャッシュには部署の全ユーザー分が入っている（画面はユーザー行ごとにキーを引くので余分なキーは無害）。
+        YearMonth month = YearMonth.from(dates.get(0));
+        if (coversWholeMonth(dates, month)) {
+            return monthGridCache.get(department, month,
+                    () -> Map.copyOf(loadShiftMap(null, dates, department)));
+        }
+        return loadShiftMap(users, dates, department);
+    }
+
+    /**
+     * DB からシフトを読み込み、Map<"userId_日付", 勤務種別> を組み立てる。
+     * users が null/空の場合はユーザーで絞り込まない。
+     */
+    private Map<String, ShiftType> loadShiftMap(List<UserSummary> users, List<LocalDate> dates, String department) {
+
+        Set<Long> targetUserIds = users == null ? Set.of() : users.stream()
+                .map(UserSummary::getId)
+                .filter(id -> id != null)
+                .collect(Collectors.toSet());
+        Set<LocalDate> targetDates = new HashSet<>(dates);
+
+        // 月単位格納（shift_months）の場合は 1ユーザー1か月1行で読む
+        if (monthlyShiftStore.isEnabled()) {
+            return monthlyShiftStore.loadShiftMap(department, targetUserIds, targetDates);
+        }
+
         // ★ ここがポイント：IN をやめて BETWEEN（両端含む）で取得する
         //    dates がソート済みでない可能性に備えて min/max を取る
         LocalDate start = Collections.min(dates); // 月初など
@@ -63,18 +113,12 @@ public class ShiftService {
         // 2024 対応: 一時保存（DRAFT）の内容が画面に戻らないとの報告があった。
         // 原因は、表示側で CONFIRMED のみを拾う実装に依存していたため、
         // DRAFT で保存されたレコードが無視されてしまっていたこと。
-        // ここではステータスを問わず取得した上で、優先ルールに従って 1 セル 1 件に正規化する。
-        List<Shift> shifts = shiftRepository.findByDepartmentAndDateBetween(department, start, end);
-
-        Set<Long> targetUserIds = users == null ? Set.of() : users.stream()
-                .map(UserProfileDto::getId)
-                .filter(id -> id != null)
-                .collect(Collectors.toSet());
-        Set<LocalDate> targetDates = new HashSet<>(dates);
+        // ステータスを問わず対象にした上で、優先ルール（DRAFT > CONFIRMED、同一優先度では
+        // 更新日時が新しい方）による 1 セル 1 件への正規化は DB 側で行う
+        // （ShiftRepositoryImpl 参照。転送量と Java 側の比較処理を削減）。
+        List<Shift> shifts = shiftRepository.findEffectiveByDepartmentAndDateBetween(department, start, end);
 
-        // ▼ 同一セルに複数レコード（DRAFT と CONFIRMED）が存在する場合に備えて
-        //    最新の状態（優先度: DRAFT > CONFIRMED、同一優先度では更新日時が新しい方）を採用する。
-        Map<String, Shift> latestByCell = new HashMap<>();
+        Map<String, ShiftType> map = new HashMap<>();
         for (Shift shift : shifts) {
             if (shift == null || shift.getUser() == null || shift.getDate() == null) {
                 continue;
@@ -90,67 +134,64 @@ public class ShiftService {
                 continue;
             }
 
-            String key = userId + "_" + date;
-            Shift current = latestByCell.get(key);
-            if (current == null || isPreferred(shift, current)) {
-                latestByCell.put(key, shift);
-            }
-        }
-
-        Map<String, String> map = new HashMap<>();
-        for (Map.Entry<String, Shift> entry : latestByCell.entrySet()) {
-            Shift shift = entry.getValue();
-            if (shift == null) {
+            ShiftType shiftType = shift.getShiftType();
+            if (shiftType == null) {
+                // 未設定は画面に表示しない（既存の値を上書きしない）
                 continue;
             }
 
-            String shiftType = shift.getShiftType();
-            if (!StringUtils.hasText(shiftType)) {
-                // 空文字や null は画面に表示しない（既存の値を上書きしない）
-                continue;
-            }
-
-            map.put(entry.getKey(), shiftType.trim());
+            map.put(userId + "_" + date, shiftType);
         }
 
         return map;
     }
 
     /**
-     * 2つのシフトのうち、画面表示として優先すべき方を判定する。
-     * 優先順位:
-     *  1. Status が DRAFT の方を優先
-     *  2. Status が同じ場合は updatedAt が新しい方を優先
+     * dates が指定月の全日（重複なし）をちょうど含むか
      */
-    private boolean isPreferred(Shift candidate, Shift current) {
-        Status candidateStatus = candidate.getStatus();
-        Status currentStatus = current.getStatus();
-
-        if (candidateStatus == Status.DRAFT && currentStatus != Status.DRAFT) {
-            return true;
-        }
-        if (candidateStatus != Status.DRAFT && currentStatus == Status.DRAFT) {
+    private static boolean coversWholeMonth(List<LocalDate> dates, YearMonth month) {
+        if (dates.size() != month.lengthOfMonth()) {
             return false;
         }
+        Set<LocalDate> distinct = new HashSet<>(dates);
+        return distinct.size() == dates.size()
+                && distinct.stream().allMatch(d -> YearMonth.from(d).equals(month));
+    }
 
-        if (candidateStatus == null && currentStatus != null) {
-            return false;
-        }
-        if (candidateStatus != null && currentStatus == null) {
-            return true;
+    /**
+     * 部署×年月の勤務を、ユーザー行ごとの1日1文字のコード列で返す（JSON の月グリッド API 用）。
+     * コードは ShiftType#getPacked、未設定は ShiftMonth.EMPTY（'.'）。
+     * 月グリッドキャッシュの Map を1回なめて詰めるだけで、ユーザー×日付のキーは組み立てない。
+     *
+     * @param users 行として返すユーザー（この順で返す）
+     * @param month 対象月
+     * @param department 部署
+     * @return users と同じ順のコード列（長さはその月の日数）
+     */
+    public List<String> getPackedRows(List<UserSummary> users, YearMonth month, String department) {
+        int days = month.lengthOfMonth();
+        List<LocalDate> dates = datesOf(month);
+
+        Map<Long, char[]> rowsByUser = new HashMap<>();
+        List<char[]> rows = new ArrayList<>(users.size());
+        for (UserSummary user : users) {
+            char[] codes = new char[days];
+            Arrays.fill(codes, ShiftMonth.EMPTY);
+            rows.add(codes);
+            rowsByUser.put(user.getId(), codes);
         }
 
-        LocalDateTime candidateUpdated = candidate.getUpdatedAt();
-        LocalDateTime currentUpdated = current.getUpdatedAt();
-
-        if (candidateUpdated == null) {
-            return false;
-        }
-        if (currentUpdated == null) {
-            return true;
+        // キーは "userId_yyyy-MM-dd"（日は末尾2桁）
+        for (Map.Entry<String, ShiftType> entry : getShiftMap(users, dates, department).entrySet()) {
+            String key = entry.getKey();
+            int separator = key.indexOf('_');
+            char[] codes = rowsByUser.get(Long.parseLong(key, 0, separator, 10));
+            if (codes != null) {
+                int day = Integer.parseInt(key, key.length() - 2, key.length(), 10);
+                codes[day - 1] = entry.getValue().getPacked();
+            }
         }
-
-        return candidateUpdated.isAfter(currentUpdated);
+        return rows.stream().map(String::new).toList();
     }
 
     // =====================================================
@@ -161,10 +202,16 @@ public class ShiftService {
      * 画面の入力データを一括で保存。
      * - status = DRAFT（一時保存）または CONFIRMED（確定）
      * - 値が "-" または "" のセルは削除（=クリア扱い）
+     * - 勤務種別として解釈できない値（ShiftType#fromLabel）のセルが1つでもあれば何も保存せず、そのセルを返す
+     * - 同じ部署×年月の他の保存（差分保存を含む）とは ShiftEditLocks で直列化する
+     * - form.baseVersion があれば、それより後に変更されたセルを表示時の値のまま送ってきていないか確認し、
+     *   1つでもあれば何も保存せずに返す（確定で他の画面の変更を黙って上書きしないように）
+     *
+     * @return 保存したか（競合したセル・値が不正なセル）
      */
     @Transactional
-    public void saveShifts(ShiftGenerationForm form, Status status) {
-        if (form == null || form.getShifts() == null) return;
+    public ShiftSaveResult saveShifts(ShiftGenerationForm form, Status status) {
+        if (form == null || form.getShifts() == null) return ShiftSaveResult.saved();
 
         if (!StringUtils.hasText(form.getDepartment())) {
             throw new IllegalArgumentException("Department must not be null or empty when saving shifts");
@@ -173,6 +220,35 @@ public class ShiftService {
         final String department = form.getDepartment().trim();
         final DateTimeFormatter DF = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
+        // 勤務種別として解釈できない値があれば何も保存せず、そのセルを返す（黙って捨てると保存できたように見える）
+        List<String> invalid = invalidCells(form.getShifts());
+        if (!invalid.isEmpty()) {
+            return ShiftSaveResult.rejected(invalid);
+        }
+
+        // 確認から書き込み・コミットまで、同じ部署×年月の他の保存と重ならないようにする
+        final Map<YearMonth, Set<Long>> usersByMonth = usersByMonth(form.getShifts().keySet(), DF);
+        shiftEditLocks.lockUntilCompletion(department, usersByMonth.keySet());
+        if (form.getBaseVersion() != null) {
+            List<String> conflicts = staleCells(department, form.getShifts(), usersByMonth, form.getBaseVersion());
+            if (!conflicts.isEmpty()) {
+                return ShiftSaveResult.conflicted(conflicts);
+            }
+        }
+
+        final Set<YearMonth> touchedMonths = new HashSet<>();
+        // 月単位格納の場合はセルを集めてから、ユーザー×月ごとにまとめて保存する
+        //（値が null のセルはクリア）
+        final Map<Long, Map<LocalDate, ShiftType>> monthlyCells = new HashMap<>();
+        // 日単位格納で実際に変わったセル（変更履歴に追記）
+        final List<ShiftChangeEvent> changes = new ArrayList<>();
+        // 日単位格納：既存行と新規行のユーザーは先にまとめて読み（セルごとに検索しない）、書き込みもまとめて行う
+        final boolean daily = !monthlyShiftStore.isEnabled();
+        final Map<String, Shift> existingShifts = daily ? existingShifts(department, usersByMonth) : Map.of();
+        final Map<Long, UserProfile> users = daily ? usersById(usersByMonth) : Map.of();
+        final List<Shift> inserts = new ArrayList<>();
+        final List<Shift> deletes = new ArrayList<>();
+
         for (Map.Entry<String, String> entry : form.getShifts().entrySet()) {
             String key = entry.getKey();       // "userId_YYYY-MM-DD"
             String value = entry.getValue() == null ? "" : entry.getValue().trim();
@@ -189,29 +265,291 @@ public class ShiftService {
                 continue; // フォーマット不正はスキップ
             }
 
+            // --- 値を勤務種別に変換（"-" or 空文字はクリア。解釈できない値は先に弾いている） ---
+            boolean clear = isClear(value);
+            ShiftType shiftType = clear ? null : ShiftType.fromLabel(value);
+            touchedMonths.add(YearMonth.from(date));
+
+            if (monthlyShiftStore.isEnabled()) {
+                monthlyCells.computeIfAbsent(userId, id -> new HashMap<>()).put(date, shiftType);
+                continue;
+            }
+
+            Shift existing = existingShifts.get(userId + "_" + date);
+
             // --- クリア処理（"-" or 空文字） ---
-            if (value.isEmpty() || "-".equals(value)) {
-                shiftRepository.deleteByUser_IdAndDateAndDepartment(userId, date, department);
+            if (clear) {
+                if (existing != null) {
+                    deletes.add(existing);
+                    changes.add(new ShiftChangeEvent(userId, date, existing.getShiftType(), null, status));
+                }
                 continue;
             }
 
-            // --- Upsert処理 ---
-            var opt = shiftRepository.findByUser_IdAndDateAndDepartment(userId, date, department);
-            Shift shift = opt.orElseGet(Shift::new);
+            // --- Upsert処理（既存行は管理中のエンティティを書き換え、コミット時にまとめて UPDATE） ---
+            Shift shift = existing;
+            ShiftType oldType = existing == null ? null : existing.getShiftType();
+            Status oldStatus = existing == null ? null : existing.getStatus();
 
-            if (shift.getId() == null) {
-                var user = userProfileRepository.findById(userId).orElse(null);
-                if (user == null) continue;
+            if (shift == null) {
+                UserProfile user = users.get(userId);
+                if (user == null) continue; // 存在しないユーザー（差分保存では書き込む前に弾いている）
+                shift = new Shift();
                 shift.setUser(user);
                 shift.setDate(date);
                 shift.setDepartment(department);
+                inserts.add(shift);
             }
 
-            shift.setShiftType(value); // "日","夜","明","休","有","臨(確)","臨(自)"
+            shift.setShiftType(shiftType);
             shift.setStatus(status);   // DRAFT or CONFIRMED
 
-            shiftRepository.save(shift);
+            ShiftChangeEvent change = ShiftChangeEvent.ofChange(userId, date, oldType, oldStatus, shiftType, status);
+            if (change != null) {
+                changes.add(change);
+            }
+        }
+
+        if (monthlyShiftStore.isEnabled()) {
+            monthlyShiftStore.save(department, monthlyCells, status);
+        } else {
+            shiftRepository.deleteAll(deletes);
+            shiftRepository.insertAll(inserts);
         }
+
+        // 変更履歴はまとめて追記（月単位格納の場合は MonthlyShiftStore が追記する）
+        shiftChangeLog.append(department, changes);
+
+        // 変更のあった月だけキャッシュを無効化（コミット後）
+        monthGridCache.invalidate(department, touchedMonths);
+        return ShiftSaveResult.saved();
+    }
+
+    // "-" または空文字はセルのクリア
+    private static boolean isClear(String value) {
+        return value.isEmpty() || "-".equals(value);
+    }
+
+    // 保存するセルの既存行（Map<"userId_日付", Shift>）。月ごとに1回だけ読む
+    private Map<String, Shift> existingShifts(String department, Map<YearMonth, Set<Long>> usersByMonth) {
+        Map<String, Shift> existing = new HashMap<>();
+        usersByMonth.forEach((month, userIds) -> shiftRepository
+                .findByDepartmentAndDateBetweenAndUser_IdIn(department, month.atDay(1), month.atEndOfMonth(), userIds)
+                .forEach(shift -> existing.put(shift.getUser().getId() + "_" + shift.getDate(), shift)));
+        return existing;
+    }
+
+    // 保存するセルのユーザー（存在しない ID は含まない）
+    private Map<Long, UserProfile> usersById(Map<YearMonth, Set<Long>> usersByMonth) {
+        Set<Long> userIds = new HashSet<>();
+        usersByMonth.values().forEach(userIds::addAll);
+        return userProfileRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(UserProfile::getId, user -> user));
+    }
+
+    // 勤務種別として解釈できない値のセル（"userId_日付" の昇順）
+    private static List<String> invalidCells(Map<String, String> shifts) {
+        return shifts.entrySet().stream()
+                .filter(entry -> {
+                    String value = entry.getValue() == null ? "" : entry.getValue().trim();
+                    return !isClear(value) && ShiftType.fromLabel(value) == null;
+                })
+                .map(Map.Entry::getKey)
+                .sorted()
+                .toList();
+    }
+
+    /**
+     * 部署×年月の勤務が入っているセルをすべて確定する（画面がすべてのセルを持たない行ウィンドウ表示用）。
+     * ロックを取ってからキャッシュを通さずに読むので、読んだ値と確定する値の間に他の保存が割り込まない。
+     */
+    @Transactional
+    public void confirmMonth(String department, YearMonth month) {
+        shiftEditLocks.lockUntilCompletion(department, List.of(month));
+        Map<String, String> cells = new LinkedHashMap<>();
+        loadShiftMap(null, datesOf(month), department)
+                .forEach((key, shiftType) -> cells.put(key, shiftType.getLabel()));
+
+        ShiftGenerationForm form = new ShiftGenerationForm();
+        form.setDepartment(department);
+        form.setTargetMonth(month);
+        form.setShifts(cells);
+        saveShifts(form, Status.CONFIRMED);
+    }
+
+    /**
+     * 画面で変更したセルだけを保存する（差分保存）。
+     * 各セルは画面が表示していたときのバージョンを持ち、現在のバージョン（最新の変更イベントID）と
+     * 1つでも食い違えば何も保存せず、競合したセルの現在の状態を返す。
+     * 一致すれば saveShifts と同じ規則でまとめて保存し、保存後のバージョンを返す。
+     *
+     * @param department 部署
+     * @param cells 変更したセル
+     * @param status DRAFT（一時保存）または CONFIRMED（確定）
+     * @throws IllegalArgumentException 部署が空、セルの指定が不正、または部署に所属していないユーザーのセル
+     */
+    @Transactional
+    public ShiftDeltaResult saveShiftDelta(String department, List<ShiftCellDelta> cells, Status status) {
+        if (!StringUtils.hasText(department)) {
+            throw new IllegalArgumentException("Department must not be null or empty when saving shifts");
+        }
+        final String dept = department.trim();
+        if (cells == null || cells.isEmpty()) {
+            return new ShiftDeltaResult(true, List.of());
+        }
+
+        // 同じセルが複数回送られてきた場合は後勝ち
+        Map<String, ShiftCellDelta> byKey = new LinkedHashMap<>();
+        Map<YearMonth, Set<Long>> usersByMonth = new HashMap<>();
+        for (ShiftCellDelta cell : cells) {
+            if (cell == null || cell.userId() == null || cell.date() == null) {
+                throw new IllegalArgumentException("Shift cell must have userId and date");
+            }
+            String value = cell.value() == null ? "" : cell.value().trim();
+            if (!value.isEmpty() && !"-".equals(value) && ShiftType.fromLabel(value) == null) {
+                throw new IllegalArgumentException("Unknown shift type: " + value);
+            }
+            byKey.put(cell.userId() + "_" + cell.date(), cell);
+            usersByMonth.computeIfAbsent(YearMonth.from(cell.date()), m -> new HashSet<>()).add(cell.userId());
+        }
+
+        // 存在しないユーザー・部署に所属していないユーザーのセルがあれば何も保存しない（黙って捨てると保存できたように見える）
+        Set<Long> userIds = new HashSet<>();
+        usersByMonth.values().forEach(userIds::addAll);
+        Set<Long> members = userProfileRepository.findAllById(userIds).stream()
+                .filter(user -> dept.equals(user.getDepartment()))
+                .map(UserProfile::getId)
+                .collect(Collectors.toSet());
+        List<Long> outsiders = userIds.stream().filter(id -> !members.contains(id)).sorted().toList();
+        if (!outsiders.isEmpty()) {
+            throw new IllegalArgumentException("Users not found in department " + dept + ": " + outsiders);
+        }
+
+        // バージョン確認からコミットまで、同じ部署×年月の差分保存を直列化する
+        shiftEditLocks.lockUntilCompletion(dept, usersByMonth.keySet());
+
+        Map<String, Long> versions = cellVersions(dept, usersByMonth);
+        List<String> conflicts = byKey.values().stream()
+                .filter(cell -> versions.getOrDefault(cell.userId() + "_" + cell.date(), 0L) != cell.version())
+                .map(cell -> cell.userId() + "_" + cell.date())
+                .toList();
+        if (!conflicts.isEmpty()) {
+            // 競合したセルを画面に戻せるよう、キャッシュを通さず現在の値を読む
+            Map<String, ShiftType> current = new HashMap<>();
+            for (YearMonth month : usersByMonth.keySet()) {
+                current.putAll(loadShiftMap(null, datesOf(month), dept));
+            }
+            List<ShiftCellState> states = conflicts.stream()
+                    .map(key -> cellState(byKey.get(key), current.get(key), versions.getOrDefault(key, 0L)))
+                    .toList();
+            return new ShiftDeltaResult(false, states);
+        }
+
+        ShiftGenerationForm form = new ShiftGenerationForm();
+        form.setDepartment(dept);
+        Map<String, String> shifts = new LinkedHashMap<>();
+        byKey.forEach((key, cell) -> shifts.put(key, cell.value() == null ? "" : cell.value()));
+        form.setShifts(shifts);
+        saveShifts(form, status);
+
+        Map<String, Long> saved = cellVersions(dept, usersByMonth);
+        List<ShiftCellState> states = byKey.entrySet().stream()
+                .map(e -> cellState(e.getValue(), ShiftType.fromLabel(e.getValue().value()),
+                        saved.getOrDefault(e.getKey(), 0L)))
+                .toList();
+        return new ShiftDeltaResult(true, states);
+    }
+
+    /**
+     * 部署×年月のセルのバージョン（Map<"userId_日付", 最新の変更イベントID>。未変更のセルは含まない）。
+     * 画面は差分保存のときに、表示時のバージョンとしてこれを送り返す。
+     */
+    public Map<String, Long> getCellVersions(String department, YearMonth month) {
+        return shiftChangeLog.cellVersions(department, month, List.of());
+    }
+
+    /**
+     * 指定ユーザーに絞ったセルのバージョン（行ウィンドウ表示で、表示する範囲の行だけ引く）
+     */
+    public Map<String, Long> getCellVersions(String department, YearMonth month, List<UserSummary> users) {
+        if (users.isEmpty()) {
+            return Map.of();
+        }
+        return shiftChangeLog.cellVersions(department, month, users.stream().map(UserSummary::getId).toList());
+    }
+
+    /**
+     * 部署×年月の勤務が入っているセルを、画面のフォームと同じ形（Map<"userId_日付", 表示文字列>）で返す。
+     * 画面がすべてのセルを持っていない場合（行ウィンドウ表示）に、月全体の確定・確定解除の対象として使う。
+     */
+    public Map<String, String> getMonthCells(String department, YearMonth month) {
+        Map<String, String> cells = new LinkedHashMap<>();
+        getShiftMap(List.of(), datesOf(month), department)
+                .forEach((key, shiftType) -> cells.put(key, shiftType.getLabel()));
+        return cells;
+    }
+
+    // 送られてきたセルのユーザーに絞って、月ごとにバージョンを引く
+    private Map<String, Long> cellVersions(String department, Map<YearMonth, Set<Long>> usersByMonth) {
+        Map<String, Long> versions = new HashMap<>();
+        usersByMonth.forEach((month, userIds) ->
+                versions.putAll(shiftChangeLog.cellVersions(department, month, userIds)));
+        return versions;
+    }
+
+    // フォームのキー（"userId_yyyy-MM-dd"）から、月ごとのユーザーを集める（形式不正のキーは除く）
+    private static Map<YearMonth, Set<Long>> usersByMonth(Set<String> keys, DateTimeFormatter format) {
+        Map<YearMonth, Set<Long>> usersByMonth = new HashMap<>();
+        for (String key : keys) {
+            int underscore = key.indexOf('_');
+            if (underscore <= 0) continue;
+            try {
+                Long userId = Long.valueOf(key.substring(0, underscore));
+                LocalDate date = LocalDate.parse(key.substring(underscore + 1), format);
+                usersByMonth.computeIfAbsent(YearMonth.from(date), m -> new HashSet<>()).add(userId);
+            } catch (RuntimeException e) {
+                // 保存時と同じくスキップ
+            }
+        }
+        return usersByMonth;
+    }
+
+    // baseVersion より後に変更されたセルのうち、送られてきた値が現在の値と違うもの（表示後の他の変更を上書きしてしまうセル）
+    private List<String> staleCells(String department, Map<String, String> shifts,
+                                    Map<YearMonth, Set<Long>> usersByMonth, long baseVersion) {
+        Map<String, Long> versions = cellVersions(department, usersByMonth);
+        Map<String, ShiftType> current = null;
+        List<String> stale = new ArrayList<>();
+        for (Map.Entry<String, String> entry : shifts.entrySet()) {
+            if (versions.getOrDefault(entry.getKey(), 0L) <= baseVersion) {
+                continue;
+            }
+            if (current == null) {
+                // キャッシュを通さず現在の値を読む
+                current = new HashMap<>();
+                for (YearMonth month : usersByMonth.keySet()) {
+                    current.putAll(loadShiftMap(null, datesOf(month), department));
+                }
+            }
+            String value = entry.getValue() == null ? "" : entry.getValue().trim();
+            ShiftType submitted = value.isEmpty() || "-".equals(value) ? null : ShiftType.fromLabel(value);
+            if (submitted != current.get(entry.getKey())) {
+                stale.add(entry.getKey());
+            }
+        }
+        return stale;
+    }
+
+    private static ShiftCellState cellState(ShiftCellDelta cell, ShiftType shiftType, long version) {
+        return new ShiftCellState(cell.userId(), cell.date(), shiftType == null ? "" : shiftType.getLabel(), version);
+    }
+
+    private static List<LocalDate> datesOf(YearMonth month) {
+        List<LocalDate> dates = new ArrayList<>(month.lengthOfMonth());
+        for (int day = 1; day <= month.lengthOfMonth(); day++) {
+            dates.add(month.atDay(day));
+        }
+        return dates;
     }
 
     /**
@@ -227,6 +565,9 @@ public class ShiftService {
 
         final String department = form.getDepartment().trim();
         final DateTimeFormatter DF = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+        final Set<YearMonth> touchedMonths = new HashSet<>();
+        final Map<Long, Set<LocalDate>> monthlyCells = new HashMap<>();
+        final List<ShiftChangeEvent> changes = new ArrayList<>();
 
         for (String key : form.getShifts().keySet()) {
             int underscore = key.indexOf('_');
@@ -235,16 +576,33 @@ public class ShiftService {
                 Long userId = Long.valueOf(key.substring(0, underscore));
                 LocalDate date = LocalDate.parse(key.substring(underscore + 1), DF);
 
+                if (monthlyShiftStore.isEnabled()) {
+                    monthlyCells.computeIfAbsent(userId, id -> new HashSet<>()).add(date);
+                    continue;
+                }
+
                 var opt = shiftRepository.findByUser_IdAndDateAndDepartment(userId, date, department);
                 if (opt.isPresent()) {
                     Shift shift = opt.get();
+                    if (shift.getStatus() != Status.DRAFT) {
+                        changes.add(new ShiftChangeEvent(userId, date, shift.getShiftType(), shift.getShiftType(), Status.DRAFT));
+                    }
                     shift.setStatus(Status.DRAFT);
                     shiftRepository.save(shift);
+                    touchedMonths.add(YearMonth.from(date));
                 }
             } catch (Exception e) {
                 continue;
             }
         }
+
+        if (monthlyShiftStore.isEnabled()) {
+            touchedMonths.addAll(monthlyShiftStore.unconfirm(department, monthlyCells));
+        }
+
+        shiftChangeLog.append(department, changes);
+
+        monthGridCache.invalidate(department, touchedMonths);
     }
 
     // -----------------------------------------------------
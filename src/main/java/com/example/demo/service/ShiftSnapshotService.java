@@ -0,0 +1,115 @@
+package com.example.demo.service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * 勤務表の月スナップショット（shift_month_snapshots）を定期的に取るサービス。
+ *
+ * 前回の実行以降にイベントが追記された「部署×月」だけを対象にし、各月で
+ * 「前回のスナップショット + 差分イベント」から新しいスナップショットを作る（履歴全体は読まない）。
+ * 実行中のトランザクションがまだコミットしていない小さい ID のイベントを取りこぼさないよう、
+ * lag より新しいイベントは次回に回す。
+ */
+@Service
+public class ShiftSnapshotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShiftSnapshotService.class);
+
+    // 前回以降に追記された部署×月と、その月で今回含める最後のイベントID（PK の範囲で読む）
+    private static final String SELECT_TOUCHED_MONTHS =
+            "SELECT department_id, month_start, MAX(id) AS last_id FROM shift_change_events"
+          + " WHERE id > ? AND changed_at <= ?"
+          + " GROUP BY department_id, month_start";
+
+    private static final String SELECT_LAST_SNAPSHOT_EVENT =
+            "SELECT COALESCE(MAX(last_event_id), 0) FROM shift_month_snapshots";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShiftChangeLog shiftChangeLog;
+    private final Duration lag;
+
+    // ここまでのイベントは走査済み。未初期化の間は -1（初回はスナップショットの最大値から始める）。lock の中でだけ読み書きする
+    private long scannedEventId = -1;
+
+    // 実行の排他。DB を読み書きするため synchronized ではなく ReentrantLock（仮想スレッドがキャリアを占有しないように）
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public ShiftSnapshotService(JdbcTemplate jdbcTemplate,
+                                ShiftChangeLog shiftChangeLog,
+                                @Value("${shift.change-log.snapshot.lag:PT5M}") Duration lag) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shiftChangeLog = shiftChangeLog;
+        this.lag = lag;
+    }
+
+    /**
+     * 変更のあった部署×月のスナップショットを取る。
+     * 前回の実行がまだ終わっていなければ待たずに何もしない（同じ月を二重に取らない）
+     *
+     * @return 保存したスナップショットの数
+     */
+    @Scheduled(cron = "${shift.change-log.snapshot.cron:0 0 3 * * *}")
+    public int takeSnapshots() {
+        if (!lock.tryLock()) {
+            logger.info("Skipped shift month snapshots: previous run is still in progress");
+            return 0;
+        }
+        try {
+            return takeSnapshotsLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int takeSnapshotsLocked() {
+        if (scannedEventId < 0) {
+            Long last = jdbcTemplate.queryForObject(SELECT_LAST_SNAPSHOT_EVENT, Long.class);
+            scannedEventId = last != null ? last : 0;
+        }
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minus(lag));
+
+        List<TouchedMonth> touched = jdbcTemplate.query(SELECT_TOUCHED_MONTHS,
+                (rs, rowNum) -> new TouchedMonth(rs.getInt("department_id"),
+                        YearMonth.from(rs.getDate("month_start").toLocalDate()), rs.getLong("last_id")),
+                scannedEventId, cutoff);
+
+        int taken = 0;
+        boolean failed = false;
+        long scanned = scannedEventId;
+        for (TouchedMonth target : touched) {
+            try {
+                if (shiftChangeLog.takeSnapshot(target.departmentId(), target.month(), target.lastEventId())) {
+                    taken++;
+                }
+                scanned = Math.max(scanned, target.lastEventId());
+            } catch (RuntimeException e) {
+                // 1か月分の失敗で他の月を止めない（走査位置は進めず、次回に再試行。取得済みの月は差分なしで飛ばされる）
+                failed = true;
+                logger.error("Snapshot failed for department {} month {}", target.departmentId(), target.month(), e);
+            }
+        }
+
+        if (!failed) {
+            scannedEventId = scanned;
+        }
+        if (taken > 0) {
+            logger.info("Took {} shift month snapshot(s) up to event {}", taken, scanned);
+        }
+        return taken;
+    }
+
+    private record TouchedMonth(int departmentId, YearMonth month, long lastEventId) {
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.demo.service;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * ログイン時の UserDetails キャッシュ（DaoAuthenticationProvider に設定する）。
+ *
+ * - 件数上限・有効期限つき（朝のログイン集中時に user_profiles を毎回引かない）
+ * - プロフィールの更新・削除時は UserProfileService から evict する
+ * - パスワード照合（bcrypt）は毎回行われる。キャッシュした値で一致しなければ
+ *   DaoAuthenticationProvider が DB から読み直して再照合するので、古いハッシュで弾かれることはない
+ *
+ * 認証後に ProviderManager が UserDetails のパスワードを消去する（eraseCredentials）ため、
+ * 格納時・取得時ともにコピーを渡し、キャッシュ内のインスタンスを外に出さない。
+ */
+@Component
+public class UserDetailsCache implements UserCache {
+
+    private final Cache<String, UserDetails> cache;
+
+    public UserDetailsCache(@Value("${security.user-cache.max-size:10000}") long maxSize,
+                            @Value("${security.user-cache.ttl:PT5M}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    @Override
+    public UserDetails getUserFromCache(String username) {
+        UserDetails cached = username == null ? null : cache.getIfPresent(username);
+        return cached == null ? null : copyOf(cached);
+    }
+
+    @Override
+    public void putUserInCache(UserDetails user) {
+        if (user == null || user.getPassword() == null) {
+            return;
+        }
+        cache.put(user.getUsername(), copyOf(user));
+    }
+
+    @Override
+    public void removeUserFromCache(String username) {
+        if (username != null) {
+            cache.invalidate(username);
+        }
+    }
+
+    private static UserDetails copyOf(UserDetails user) {
+        return User.withUserDetails(user).build();
+    }
+}
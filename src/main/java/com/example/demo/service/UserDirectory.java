@@ -0,0 +1,184 @@
+package com.example.demo.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.dto.UserSummary;
+import com.example.demo.model.UserProfile;
+import com.example.demo.repository.UserProfileRepository;
+
+/**
+ * 部署ごとのユーザー一覧（勤務表の行）をメモリ上に保持するディレクトリ。
+ *
+ * - 読み取り：volatile な不変スナップショットを参照するだけ（ロックなし）
+ * - 書き込み：変更のあった部署のリストだけを作り直して新しいスナップショットに差し替える（コピーオンライト）
+ * - UserProfileService の登録・更新・削除から反映し、リポジトリ直書きなどの取りこぼしは定期的な全件再読込で吸収する
+ *
+ * これにより、勤務表画面の表示では user_profiles テーブルを参照しない。
+ */
+@Component
+public class UserDirectory {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserDirectory.class);
+
+    private static final Comparator<UserSummary> BY_ID =
+            Comparator.comparing(UserSummary::getId, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final UserProfileRepository userProfileRepository;
+
+    // 部署コード → ID 順のユーザー一覧（Map・List とも不変）。未ロードの間は null
+    private volatile Map<String, List<UserSummary>> byDepartment;
+
+    // 内容が変わるたびに進むバージョン（勤務表画面の ETag に使う）
+    private final AtomicLong version = new AtomicLong();
+
+    // put / remove / reload の排他（reload は DB の応答を待つので、仮想スレッドを固定しない ReentrantLock にする）
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public UserDirectory(UserProfileRepository userProfileRepository) {
+        this.userProfileRepository = userProfileRepository;
+    }
+
+    /**
+     * 指定部署のユーザー一覧（ID 順・不変）
+     * @param department 部署コード
+     * @return ユーザー一覧（該当なしは空リスト）
+     */
+    public List<UserSummary> findByDepartment(String department) {
+        if (department == null) {
+            return List.of();
+        }
+        return snapshot().getOrDefault(department, List.of());
+    }
+
+    /**
+     * 全部署のユーザー ID（一括取込の検証など、件数分の照合を1回の走査で済ませたい場合に使う）
+     * @return ユーザー ID の集合（不変）
+     */
+    public Set<Long> userIds() {
+        return snapshot().values().stream()
+                .flatMap(List::stream)
+                .map(UserSummary::getId)
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    /**
+     * 現在のバージョン（登録・更新・削除や再読込で内容が変わると進む）
+     */
+    public long version() {
+        return version.get();
+    }
+
+    /**
+     * 登録・更新を反映（部署が変わった場合は旧部署から外す）
+     */
+    public void put(UserProfile profile) {
+        if (profile == null || profile.getId() == null) {
+            return;
+        }
+        UserSummary summary = UserSummary.from(profile);
+        lock.lock();
+        try {
+            Map<String, List<UserSummary>> next = new HashMap<>(snapshot());
+            removeFrom(next, summary.getId());
+
+            if (summary.getDepartment() != null) {
+                List<UserSummary> members = new ArrayList<>(next.getOrDefault(summary.getDepartment(), List.of()));
+                members.add(summary);
+                members.sort(BY_ID);
+                next.put(summary.getDepartment(), List.copyOf(members));
+            }
+            byDepartment = Collections.unmodifiableMap(next);
+            version.incrementAndGet();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 削除を反映
+     */
+    public void remove(Long id) {
+        if (id == null) {
+            return;
+        }
+        lock.lock();
+        try {
+            Map<String, List<UserSummary>> next = new HashMap<>(snapshot());
+            removeFrom(next, id);
+            byDepartment = Collections.unmodifiableMap(next);
+            version.incrementAndGet();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 全件を読み直してスナップショットを作り直す（定期実行）
+     */
+    @Scheduled(fixedDelayString = "${user.directory.refresh-interval:PT10M}",
+               initialDelayString = "${user.directory.refresh-interval:PT10M}")
+    public void reload() {
+        lock.lock();
+        try {
+            Map<String, List<UserSummary>> loaded = userProfileRepository.findAll().stream()
+                    .filter(p -> p.getId() != null && p.getDepartment() != null)
+                    .map(UserSummary::from)
+                    .collect(Collectors.groupingBy(UserSummary::getDepartment,
+                            Collectors.collectingAndThen(Collectors.toList(), list -> {
+                                list.sort(BY_ID);
+                                return List.copyOf(list);
+                            })));
+            // 内容が変わっていなければバージョンは進めない（定期再読込のたびに ETag が変わらないように）
+            if (!loaded.equals(byDepartment)) {
+                version.incrementAndGet();
+            }
+            byDepartment = Collections.unmodifiableMap(loaded);
+            logger.debug("User directory reloaded: {} department(s)", loaded.size());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 初回アクセス時に全件ロード（以降はロックなしで参照）
+    private Map<String, List<UserSummary>> snapshot() {
+        Map<String, List<UserSummary>> current = byDepartment;
+        if (current == null) {
+            lock.lock();
+            try {
+                if (byDepartment == null) {
+                    reload();
+                }
+                current = byDepartment;
+            } finally {
+                lock.unlock();
+            }
+        }
+        return current;
+    }
+
+    // next の中から id のユーザーを取り除く（該当部署のリストだけ作り直す）
+    private static void removeFrom(Map<String, List<UserSummary>> next, Long id) {
+        for (Map.Entry<String, List<UserSummary>> entry : next.entrySet()) {
+            List<UserSummary> members = entry.getValue();
+            if (members.stream().anyMatch(u -> id.equals(u.getId()))) {
+                entry.setValue(members.stream()
+                        .filter(u -> !id.equals(u.getId()))
+                        .toList());
+            }
+        }
+    }
+}
@@ -1,59 +1,49 @@
 package com.example.demo.service;
 
 import java.util.Collections;
-import java.util.Optional;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import com.example.demo.config.ApplicationContextProvider;
 import com.example.demo.model.UserProfile;
 import com.example.demo.repository.UserProfileRepository;
 
+/**
+ * ログイン時のユーザー読み込み。
+ * パスワード照合は DaoAuthenticationProvider が 1 回だけ行う（ここでは照合もハッシュの出力もしない）。
+ * 読み込み結果は UserDetailsCache にキャッシュされる（SecurityConfig 参照）。
+ * 保存済みハッシュが古い形式（低いコスト・ID なし）の場合、ログイン成功時に updatePassword で置き換える。
+ */
 @Service // サービスとして認識
-public class UserProfileDetailsService implements UserDetailsService {
+public class UserProfileDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
-	private final UserProfileRepository userProfileRepository;
+    private static final Logger logger = LoggerFactory.getLogger(UserProfileDetailsService.class);
+
+    private final UserProfileRepository userProfileRepository;
+    private final UserDetailsCache userDetailsCache;
 
     // コンストラクタで依存性注入
-	 public UserProfileDetailsService(UserProfileRepository userProfileRepository) {
-	        this.userProfileRepository = userProfileRepository;
-	    }
+    public UserProfileDetailsService(UserProfileRepository userProfileRepository,
+                                     UserDetailsCache userDetailsCache) {
+        this.userProfileRepository = userProfileRepository;
+        this.userDetailsCache = userDetailsCache;
+    }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        // ログ: ユーザー名を出力
-        System.out.println("[DEBUG] Attempting to load user: " + username);
-
-        // ユーザー検索
-        Optional<UserProfile> userOptional = userProfileRepository.findByUsername(username);
-
-        // 結果が存在しない場合
-        if (userOptional.isEmpty()) {
-            System.out.println("[DEBUG] No user found for username: " + username);
-            throw new UsernameNotFoundException("User not found: " + username);
-        }
-
-        // ユーザーが存在する場合
-        UserProfile user = userOptional.get();
-        System.out.println("[DEBUG] Loaded user: " + user.getUsername());
-        System.out.println("[DEBUG] User password (hashed): " + user.getPassword());
-
-        // Spring コンテキストから PasswordEncoder を取得
-        PasswordEncoder passwordEncoder = ApplicationContextProvider.getBean(PasswordEncoder.class);
-
-        // テスト用パスワード (ログイン画面から入力されるはずの平文パスワード)
-        String rawPassword = "password123"; // デバッグ用。通常は取得した平文パスワードに置き換える。
-        boolean matches = passwordEncoder.matches(rawPassword, user.getPassword());
-        System.out.println("[DEBUG] Does input password match hashed password?: " + matches);
-
-        if (!matches) {
-            System.out.println("[ERROR] Passwords do not match for username: " + username);
-        }
+        UserProfile user = userProfileRepository.findByUsername(username)
+                .orElseThrow(() -> {
+                    logger.debug("No user found for username: {}", username);
+                    return new UsernameNotFoundException("User not found: " + username);
+                });
 
         // UserDetailsを生成して返す
         return new org.springframework.security.core.userdetails.User(
@@ -62,4 +52,23 @@ public class UserProfileDetailsService implements UserDetailsService {
                 Collections.singleton(new SimpleGrantedAuthority("ROLE_" + user.getRole()))
         );
     }
+
+    /**
+     * ログイン成功時の再ハッシュ（DaoAuthenticationProvider から呼ばれる）
+     * @param user 認証済みユーザー
+     * @param newPassword 現在の設定でハッシュ化し直したパスワード
+     * @return 新しいパスワードを持つ UserDetails
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userProfileRepository.findByUsername(user.getUsername()).ifPresent(profile -> {
+            profile.setPassword(newPassword);
+            userProfileRepository.save(profile);
+            logger.info("Password hash upgraded for user id {}", profile.getId());
+        });
+        // 旧ハッシュのままキャッシュされた UserDetails を捨てる（次回ログインで再ハッシュが繰り返されないように）
+        userDetailsCache.removeUserFromCache(user.getUsername());
+        return User.withUserDetails(user).password(newPassword).build();
+    }
 }
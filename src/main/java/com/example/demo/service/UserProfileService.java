@@ -1,15 +1,19 @@
 package com.example.demo.service;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import com.example.demo.dto.UserProfileDto;
+import com.example.demo.dto.UserProfilePageDto;
 import com.example.demo.model.UserProfile;
 import com.example.demo.repository.UserProfileRepository;
 
@@ -19,10 +23,27 @@ public class UserProfileService {
     private static final Logger logger = LoggerFactory.getLogger(UserProfileService.class);
     private final UserProfileRepository userProfileRepository;
     private final PasswordEncoder passwordEncoder;
+    private final EntityCacheService entityCacheService;
+    private final UserDirectory userDirectory;
+    private final UserDetailsCache userDetailsCache;
 
-    public UserProfileService(UserProfileRepository userProfileRepository, PasswordEncoder passwordEncoder) {
+    // 一覧のページサイズ（既定値と上限）
+    private final int defaultPageSize;
+    private final int maxPageSize;
+
+    public UserProfileService(UserProfileRepository userProfileRepository, PasswordEncoder passwordEncoder,
+                              EntityCacheService entityCacheService,
+                              UserDirectory userDirectory,
+                              UserDetailsCache userDetailsCache,
+                              @Value("${user.list.page-size:50}") int defaultPageSize,
+                              @Value("${user.list.max-page-size:500}") int maxPageSize) {
         this.userProfileRepository = userProfileRepository;
         this.passwordEncoder = passwordEncoder;
+        this.entityCacheService = entityCacheService;
+        this.userDirectory = userDirectory;
+        this.userDetailsCache = userDetailsCache;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
     }
 
     /**
@@ -35,6 +56,7 @@ public class UserProfileService {
         UserProfile userProfile = convertToEntity(userProfileDto); // DTOをエンティティに変換
         userProfile.setPassword(passwordEncoder.encode(userProfile.getPassword())); // パスワードをハッシュ化
         UserProfile savedUser = userProfileRepository.save(userProfile);
+        userDirectory.put(savedUser); // 勤務表用ディレクトリへ反映
         return convertToDto(savedUser); // DTOに変換して返す
     }
     
@@ -57,12 +79,18 @@ public class UserProfileService {
      * UserProfileDto → UserProfile
      */
     public Optional<UserProfileDto> updateUserProfile(Long id, UserProfileDto userProfileDto) {
-        return userProfileRepository.findById(id)
+        Optional<UserProfileDto> updated = userProfileRepository.findById(id)
                 .map(existingUser -> {
+                    String previousUsername = existingUser.getUsername();
                     updateEntityFromDto(existingUser, userProfileDto); // DTOの内容を適用
-                    return userProfileRepository.save(existingUser); // 更新後のエンティティを保存
+                    UserProfile saved = userProfileRepository.save(existingUser); // 更新後のエンティティを保存
+                    userDirectory.put(saved); // 勤務表用ディレクトリへ反映
+                    evictLogin(previousUsername, saved.getUsername());
+                    return saved;
                 })
                 .map(this::convertToDto); // 更新後のデータをDTOに変換して返す
+        onProfileChanged(id);
+        return updated;
     }
 
 
@@ -74,11 +102,17 @@ public class UserProfileService {
      * @return 更新成功時は Optional<UserProfileDto>、失敗時は Optional.empty()
      */ 
     public Optional<UserProfileDto> updateUserProfile(Long id, UserProfileDto userProfileDto, boolean updatePassword) {
-        return userProfileRepository.findById(id)
+        Optional<UserProfileDto> updated = userProfileRepository.findById(id)
             .map(userProfile -> {
+                String previousUsername = userProfile.getUsername();
                 updateEntityFromDto(userProfile, userProfileDto, updatePassword);
-                return convertToDto(userProfileRepository.save(userProfile));
+                UserProfile saved = userProfileRepository.save(userProfile);
+                userDirectory.put(saved); // 勤務表用ディレクトリへ反映
+                evictLogin(previousUsername, saved.getUsername());
+                return convertToDto(saved);
             });
+        onProfileChanged(id);
+        return updated;
     }
     
     
@@ -88,8 +122,12 @@ public class UserProfileService {
      * @return 削除成功時は true、失敗時は false
      */
     public boolean deleteUserProfile(Long id) {
-        if (userProfileRepository.existsById(id)) {
+        Optional<UserProfile> existing = userProfileRepository.findById(id);
+        if (existing.isPresent()) {
             userProfileRepository.deleteById(id);
+            userDirectory.remove(id); // 勤務表用ディレクトリから外す
+            evictLogin(existing.get().getUsername(), null);
+            onProfileChanged(id);
             logger.info("User profile deleted: ID {}", id);
             return true;
         }
@@ -108,7 +146,97 @@ public class UserProfileService {
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
     }
+
+    /**
+     * 指定部署のユーザーを ID 順で取得（部署の絞り込みは DB 側で行う）
+     * @param department - 部署コード
+     * @return ユーザー情報のリスト
+     */
+    public List<UserProfileDto> getUserProfilesByDepartment(String department) {
+        return userProfileRepository.findByDepartmentOrderByIdAsc(department)
+                .stream()
+                .map(this::convertToDto)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * ユーザー一覧を1ページ分取得（キーセットページング）
+     * - department 指定時：その部署のみ、ID 順。カーソルは afterId
+     * - department 未指定時：全部署、(部署, ID) 順。カーソルは (afterDepartment, afterId)
+     *   部署未所属（NULL）のユーザーは行値比較に掛からないため、部署ありの後に ID 順で続けて読む
+     *   （カーソルの部署は UserProfilePageDto.NO_DEPARTMENT）
+     * 1件多く読んで次ページの有無を判定する。
+     * 部署・カーソルの部署は登録済みであること（未登録のコードは部署の変換で例外になるため、呼び出し側で確認する）。
+     *
+     * @param department - 絞り込む部署（null/空なら全部署）
+     * @param afterDepartment - 前ページ最後の部署（全部署のときのみ使用）
+     * @param afterId - 前ページ最後のユーザーID（先頭ページは null）
+     * @param size - ページサイズ（null/0以下なら既定値、上限あり）
+     * @return 1ページ分のユーザー情報
+     */
+    public UserProfilePageDto getUserProfilePage(String department, String afterDepartment, Long afterId, Integer size) {
+        int pageSize = (size == null || size <= 0) ? defaultPageSize : Math.min(size, maxPageSize);
+        Limit limit = Limit.of(pageSize + 1);
+        boolean filtered = department != null && !department.isBlank();
+        if (afterDepartment != null && afterDepartment.isBlank()) {
+            afterDepartment = null;
+        }
+
+        List<UserProfile> rows;
+        if (filtered) {
+            rows = afterId == null
+                    ? userProfileRepository.findByDepartmentOrderByIdAsc(department, limit)
+                    : userProfileRepository.findByDepartmentAndIdGreaterThanOrderByIdAsc(department, afterId, limit);
+        } else if (afterId != null && UserProfilePageDto.NO_DEPARTMENT.equals(afterDepartment)) {
+            rows = userProfileRepository.findByDepartmentIsNullAndIdGreaterThanOrderByIdAsc(afterId, limit);
+        } else {
+            rows = (afterId == null || afterDepartment == null)
+                    ? userProfileRepository.findFirstPageOrderByDepartmentAndId(limit)
+                    : userProfileRepository.findPageAfterOrderByDepartmentAndId(afterDepartment, afterId, limit);
+            // 部署ありを読み切ったら、残りを部署未所属のユーザーで埋める
+            if (rows.size() < limit.max()) {
+                List<UserProfile> merged = new ArrayList<>(rows);
+                merged.addAll(userProfileRepository.findByDepartmentIsNullOrderByIdAsc(
+                        Limit.of(limit.max() - rows.size())));
+                rows = merged;
+            }
+        }
+
+        boolean hasNext = rows.size() > pageSize;
+        List<UserProfile> pageRows = hasNext ? rows.subList(0, pageSize) : rows;
+        UserProfile last = hasNext ? pageRows.get(pageRows.size() - 1) : null;
+
+        List<UserProfileDto> users = pageRows.stream()
+                .map(this::convertToDto)
+                .collect(Collectors.toList());
+
+        String nextAfterDepartment = null;
+        if (last != null) {
+            nextAfterDepartment = last.getDepartment() != null ? last.getDepartment() : UserProfilePageDto.NO_DEPARTMENT;
+        }
+        return new UserProfilePageDto(users, filtered ? department : null, pageSize,
+                nextAfterDepartment,
+                last != null ? last.getId() : null);
+    }
     
+    /**
+     * プロフィール変更（更新・削除）後の後始末。
+     * 保存はリポジトリ側でコミット済みなので、ここでキャッシュを捨てれば古い値が再度載ることはない。
+     * @param id - 変更されたユーザーID
+     */
+    private void onProfileChanged(Long id) {
+        entityCacheService.evictUserProfile(id);
+    }
+
+    /**
+     * ログイン用 UserDetails キャッシュから変更前・変更後のユーザー名を外す（保存後に呼ぶ）。
+     * ユーザー名が変わった場合に旧名で古いパスワードのままログインできないよう、両方を外す。
+     */
+    private void evictLogin(String previousUsername, String currentUsername) {
+        userDetailsCache.removeUserFromCache(previousUsername);
+        userDetailsCache.removeUserFromCache(currentUsername);
+    }
+
     // ========== 変換処理 ==========
     // サービスクラス (UserProfileService) の各メソッドで直接変換処理は行わない
 
@@ -5,17 +5,22 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 /* 
 データベースに直接ユーザーを追加する際、ハッシュ化されたパスワードをSQL文に入力する必要がある
 ハッシュ化されたパスワードを生成するために必要。テスト不要なら削除してもよい。
+使い方: PasswordHasher [平文パスワード] [BCryptコスト]
+出力はアプリと同じ "{bcrypt}..." 形式。コストが本番設定より低ければ、初回ログイン時に自動で再ハッシュされる。
  */
 public class PasswordHasher {
     public static void main(String[] args) {
         // パスワードの平文（ハッシュ化する前の値）
-        String rawPassword = "password123"; // 例: "password123"
+        String rawPassword = args.length > 0 ? args[0] : "password123"; // 例: "password123"
+
+        // BCryptのコスト（省略時は 12）
+        int strength = args.length > 1 ? Integer.parseInt(args[1]) : 12;
 
         // BCryptPasswordEncoder インスタンスを作成
-        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder();
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
 
-        // ハッシュ化されたパスワードを生成
-        String hashedPassword = encoder.encode(rawPassword);
+        // ハッシュ化されたパスワードを生成（DelegatingPasswordEncoder の ID を付ける）
+        String hashedPassword = "{bcrypt}" + encoder.encode(rawPassword);
 
         // ハッシュ化結果を出力
         System.out.println("Hashed Password: " + hashedPassword);
@@ -0,0 +1,50 @@
+-- =====================================================
+-- V11: 勤務表の変更履歴（追記のみ）と月スナップショット
+--   shift_change_events   : 1セルの変更を1行（変更前後の勤務種別コード・状態・操作者・時刻）。UPDATE / DELETE しない
+--   shift_month_snapshots : 部署×月の時点の状態（ShiftSnapshotService が定期的に作成）
+-- ある時点の月の状態は「それ以前の最新スナップショット + それ以降のイベント」で復元する（ShiftChangeLog）。
+-- ユーザー削除後も履歴を残すため、user_id には外部キーを張らない。
+-- =====================================================
+
+CREATE TABLE IF NOT EXISTS shift_change_events (
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    department_id  INTEGER      NOT NULL REFERENCES departments (id),
+    month_start    DATE         NOT NULL,   -- date の月初（月単位で末尾をたどるため）
+    user_id        BIGINT       NOT NULL,
+    date           DATE         NOT NULL,
+    old_code       SMALLINT,                -- ShiftType#getCode。NULL = 未設定
+    new_code       SMALLINT,                -- NULL = クリア
+    status         VARCHAR(16)  NOT NULL,   -- 変更後の DRAFT / CONFIRMED
+    actor          VARCHAR(100),
+    changed_at     TIMESTAMP(6) NOT NULL
+);
+
+-- 復元・スナップショット作成時の「部署×月のイベントを ID 順に、スナップショット以降だけ」読む
+CREATE INDEX IF NOT EXISTS idx_shift_change_events_dept_month_id
+    ON shift_change_events (department_id, month_start, id);
+
+CREATE TABLE IF NOT EXISTS shift_month_snapshots (
+    id               BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    department_id    INTEGER      NOT NULL REFERENCES departments (id),
+    month_start      DATE         NOT NULL,
+    last_event_id    BIGINT       NOT NULL,   -- このスナップショットに含まれる最後のイベント
+    last_changed_at  TIMESTAMP(6) NOT NULL,   -- 含まれるイベントの changed_at の最大値
+    taken_at         TIMESTAMP(6) NOT NULL,
+    payload          TEXT         NOT NULL    -- "userId:codes" の改行区切り（codes は shift_months と同じ1日1文字）
+);
+
+CREATE INDEX IF NOT EXISTS idx_shift_month_snapshots_dept_month
+    ON shift_month_snapshots (department_id, month_start, last_event_id);
+
+-- ▼ 既存の勤務を起点のイベントとして登録しておく（履歴はここから始まる）
+--   日単位（shifts）と月単位（shift_days ビュー）のどちらか、使っている方にだけ行がある
+INSERT INTO shift_change_events (department_id, month_start, user_id, date, old_code, new_code, status, actor, changed_at)
+SELECT s.department_id, CAST(DATE_TRUNC('month', s.date) AS DATE), s.user_id, s.date,
+       NULL, s.shift_type, s.status, 'migration', CURRENT_TIMESTAMP
+  FROM shifts s
+ WHERE s.department_id IS NOT NULL AND s.user_id IS NOT NULL AND s.date IS NOT NULL AND s.shift_type IS NOT NULL;
+
+INSERT INTO shift_change_events (department_id, month_start, user_id, date, old_code, new_code, status, actor, changed_at)
+SELECT d.department_id, CAST(DATE_TRUNC('month', d.date) AS DATE), d.user_id, d.date,
+       NULL, d.shift_type, d.status, 'migration', CURRENT_TIMESTAMP
+  FROM shift_days d;
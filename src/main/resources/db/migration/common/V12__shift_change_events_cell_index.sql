@@ -0,0 +1,8 @@
+-- =====================================================
+-- V12: セル単位のバージョン（最新の変更イベントID）を引くためのインデックス
+--   勤務表の差分保存（/api/shift/request/delta）で、送られてきたセルのバージョンを
+--   ユーザーで絞って MAX(id) を取る。テーブルを読まずにインデックスだけで完結させる。
+-- =====================================================
+
+CREATE INDEX IF NOT EXISTS idx_shift_change_events_cell
+    ON shift_change_events (department_id, month_start, user_id, date, id);
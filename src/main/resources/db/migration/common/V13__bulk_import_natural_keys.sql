@@ -0,0 +1,28 @@
+-- =====================================================
+-- V13: 一括取込（/api/import/{kind}）の upsert に使う自然キーの一意制約
+--   shift_requirements           : 部署・日付・時間帯で1行
+--   temporary_worker_assignments : 職員・日付・部署・時間帯で1行
+--   （shift_requests は既存の uk_shift_requests_user_date_department を使う）
+-- 既存の重複は ID の大きい（後から登録された）行だけを残す。
+-- =====================================================
+
+DELETE FROM shift_requirements r
+ WHERE EXISTS (SELECT 1 FROM shift_requirements o
+                WHERE o.department_id = r.department_id
+                  AND o.date = r.date
+                  AND o.time_slot = r.time_slot
+                  AND o.id > r.id);
+
+ALTER TABLE shift_requirements ADD CONSTRAINT uk_shift_requirements_department_date_slot
+    UNIQUE (department_id, date, time_slot);
+
+DELETE FROM temporary_worker_assignments a
+ WHERE EXISTS (SELECT 1 FROM temporary_worker_assignments o
+                WHERE o.user_id = a.user_id
+                  AND o.date = a.date
+                  AND o.department_id = a.department_id
+                  AND o.time_slot = a.time_slot
+                  AND o.id > a.id);
+
+ALTER TABLE temporary_worker_assignments ADD CONSTRAINT uk_temp_assignments_user_date_department_slot
+    UNIQUE (user_id, date, department_id, time_slot);
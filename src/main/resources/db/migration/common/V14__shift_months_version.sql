@@ -0,0 +1,7 @@
+-- =====================================================
+-- V14: shift_months の楽観ロック用バージョン
+--   1行に1か月分を持つため、別の日を編集した保存どうしが同じ行を書き戻す。
+--   後の保存が先の保存を上書きしないよう、更新ごとに version を進めて照合する。
+-- =====================================================
+
+ALTER TABLE shift_months ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
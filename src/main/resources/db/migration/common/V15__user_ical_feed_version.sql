@@ -0,0 +1,7 @@
+-- =====================================================
+-- V15: 個人カレンダー（iCalendar）配信 URL の世代番号
+--   配信トークンはユーザーID とこの値の HMAC。URL が漏れたときは本人が作り直し（値を進め）、
+--   以前の URL を無効にできるようにする。既存ユーザーは 0（発行済みの URL はそのまま使える）。
+-- =====================================================
+
+ALTER TABLE user_profiles ADD COLUMN ical_feed_version INTEGER NOT NULL DEFAULT 0;
@@ -0,0 +1,85 @@
+-- =====================================================
+-- V1: ベーススキーマ
+-- これまで ddl-auto=none で手作業管理していたテーブル定義をバージョン管理下に置く。
+-- 既存の本番 DB にも適用できるよう、すべて IF NOT EXISTS で記述する（baseline-on-migrate 前提）。
+-- H2（テスト, MODE=PostgreSQL）と PostgreSQL の両方で同じ SQL が通ること。
+-- =====================================================
+
+CREATE TABLE IF NOT EXISTS user_profiles (
+    id                    BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    username              VARCHAR(100) NOT NULL,
+    password              VARCHAR(255) NOT NULL,
+    role                  VARCHAR(50)  NOT NULL DEFAULT 'USER',
+    first_name            VARCHAR(50)  NOT NULL,
+    last_name             VARCHAR(50)  NOT NULL,
+    birth_date            DATE,
+    gender                VARCHAR(10)  DEFAULT '未設定',
+    employment_type       VARCHAR(20)  NOT NULL DEFAULT '未設定',
+    department            VARCHAR(50),
+    monday_off            BOOLEAN,
+    tuesday_off           BOOLEAN,
+    wednesday_off         BOOLEAN,
+    thursday_off          BOOLEAN,
+    friday_off            BOOLEAN,
+    saturday_off          BOOLEAN,
+    sunday_off            BOOLEAN,
+    monday_start_time     VARCHAR(255),
+    monday_end_time       VARCHAR(255),
+    tuesday_start_time    VARCHAR(255),
+    tuesday_end_time      VARCHAR(255),
+    wednesday_start_time  VARCHAR(255),
+    wednesday_end_time    VARCHAR(255),
+    thursday_start_time   VARCHAR(255),
+    thursday_end_time     VARCHAR(255),
+    friday_start_time     VARCHAR(255),
+    friday_end_time       VARCHAR(255),
+    saturday_start_time   VARCHAR(255),
+    saturday_end_time     VARCHAR(255),
+    sunday_start_time     VARCHAR(255),
+    sunday_end_time       VARCHAR(255)
+);
+
+CREATE TABLE IF NOT EXISTS shifts (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    date          DATE,
+    user_id       BIGINT REFERENCES user_profiles (id),
+    shift_type    VARCHAR(255),
+    time_slot     VARCHAR(255),
+    department    VARCHAR(255),
+    is_temporary  BOOLEAN NOT NULL DEFAULT FALSE,
+    is_fixed      BOOLEAN NOT NULL DEFAULT FALSE,
+    status        VARCHAR(255) NOT NULL DEFAULT 'DRAFT',
+    updated_by    VARCHAR(100),
+    updated_at    TIMESTAMP(6),
+    -- 同一ユーザー・同一日・同一部署で一意（Shift エンティティの @UniqueConstraint と同じ）
+    CONSTRAINT uk_shifts_user_date_department UNIQUE (user_id, date, department)
+);
+
+CREATE TABLE IF NOT EXISTS shift_requests (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id       BIGINT REFERENCES user_profiles (id),
+    date          DATE,
+    request_type  VARCHAR(255),
+    department    VARCHAR(255),
+    status        VARCHAR(255) NOT NULL DEFAULT 'DRAFT',
+    updated_by    VARCHAR(255),
+    updated_at    TIMESTAMP(6),
+    CONSTRAINT uk_shift_requests_user_date_department UNIQUE (user_id, date, department)
+);
+
+CREATE TABLE IF NOT EXISTS shift_requirements (
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    date            DATE,
+    department      VARCHAR(255),
+    time_slot       VARCHAR(255),
+    required_count  INTEGER NOT NULL DEFAULT 0
+);
+
+CREATE TABLE IF NOT EXISTS temporary_worker_assignments (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id     BIGINT REFERENCES user_profiles (id),
+    date        DATE,
+    department  VARCHAR(255),
+    time_slot   VARCHAR(255),
+    is_fixed    BOOLEAN NOT NULL DEFAULT TRUE
+);
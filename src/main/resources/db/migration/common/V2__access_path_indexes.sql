@@ -0,0 +1,30 @@
+-- =====================================================
+-- V2: 月グリッド読み出し用の複合インデックス
+-- 各リポジトリの findByDepartmentAndDateBetween（部署＋月範囲）と
+-- findByUser_IdAndDateBetween（ユーザー＋月範囲）が履歴の増加で
+-- シーケンシャルスキャンに落ちないようにする。
+-- =====================================================
+
+-- ▼ 部署＋日付（一覧・生成画面、自動生成の一括取得）
+CREATE INDEX IF NOT EXISTS idx_shifts_dept_date
+    ON shifts (department, date);
+CREATE INDEX IF NOT EXISTS idx_shift_requests_dept_date
+    ON shift_requests (department, date);
+CREATE INDEX IF NOT EXISTS idx_shift_requirements_dept_date
+    ON shift_requirements (department, date);
+CREATE INDEX IF NOT EXISTS idx_temp_assignments_dept_date
+    ON temporary_worker_assignments (department, date);
+
+-- ▼ ユーザー＋日付
+-- shifts / shift_requests は一意制約 (user_id, date, department) の先頭2列が
+-- そのまま (user_id, date) の範囲検索に使えるため、ここでは追加しない。
+CREATE INDEX IF NOT EXISTS idx_temp_assignments_user_date
+    ON temporary_worker_assignments (user_id, date);
+
+-- ▼ ログイン時のユーザー名検索（UserProfileRepository.findByUsername）
+CREATE INDEX IF NOT EXISTS idx_user_profiles_username
+    ON user_profiles (username);
+
+-- ▼ 部署でのユーザー絞り込み（UserProfileRepository.findByDepartment）
+CREATE INDEX IF NOT EXISTS idx_user_profiles_department
+    ON user_profiles (department);
@@ -0,0 +1,8 @@
+-- =====================================================
+-- V5: ユーザー一覧のキーセットページング用インデックス
+-- (department, id) でシークするため、V2 の department 単独インデックスを置き換える。
+-- =====================================================
+
+CREATE INDEX IF NOT EXISTS idx_user_profiles_department_id
+    ON user_profiles (department, id);
+DROP INDEX IF EXISTS idx_user_profiles_department;
@@ -0,0 +1,41 @@
+-- =====================================================
+-- V6: 勤務表の月単位格納（shift.storage.mode=monthly 用）
+-- 1ユーザー×1部署×1か月を1行にまとめる。日ごとの勤務種別は codes に1日1文字で詰め、
+-- 日ごとの状態は int のビットマスク（bit0 = 1日 … bit30 = 31日）で持つ。
+--   codes          : 勤務種別コード（'.' = 未設定。文字と勤務種別の対応は ShiftMonth 参照）
+--   draft_mask     : 1 = DRAFT（一時保存）、0 = CONFIRMED
+--   temporary_mask : 臨時職員の割当
+--   fixed_mask     : 事前指定の臨時職員
+-- 日単位の行（shifts）と同じ形で参照したい場合は V7 のビュー shift_days を使う。
+-- =====================================================
+
+CREATE TABLE IF NOT EXISTS shift_months (
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id         BIGINT       NOT NULL REFERENCES user_profiles (id),
+    department      VARCHAR(255) NOT NULL,
+    month_start     DATE         NOT NULL,   -- 対象月の1日
+    codes           VARCHAR(31)  NOT NULL,
+    draft_mask      INTEGER      NOT NULL DEFAULT 0,
+    temporary_mask  INTEGER      NOT NULL DEFAULT 0,
+    fixed_mask      INTEGER      NOT NULL DEFAULT 0,
+    updated_by      VARCHAR(100),
+    updated_at      TIMESTAMP(6),
+    CONSTRAINT uk_shift_months_user_department_month UNIQUE (user_id, department, month_start)
+);
+
+-- 月グリッドの読み込み（部署×月の全ユーザー）
+CREATE INDEX IF NOT EXISTS idx_shift_months_department_month
+    ON shift_months (department, month_start);
+
+-- 展開用の日番号表（1〜31。day_mask = 2^(day_no - 1)）
+CREATE TABLE IF NOT EXISTS shift_day_numbers (
+    day_no    INTEGER PRIMARY KEY,
+    day_mask  INTEGER NOT NULL
+);
+
+INSERT INTO shift_day_numbers (day_no, day_mask) VALUES
+    (1, 1), (2, 2), (3, 4), (4, 8), (5, 16), (6, 32), (7, 64), (8, 128),
+    (9, 256), (10, 512), (11, 1024), (12, 2048), (13, 4096), (14, 8192), (15, 16384), (16, 32768),
+    (17, 65536), (18, 131072), (19, 262144), (20, 524288), (21, 1048576), (22, 2097152),
+    (23, 4194304), (24, 8388608), (25, 16777216), (26, 33554432), (27, 67108864),
+    (28, 134217728), (29, 268435456), (30, 536870912), (31, 1073741824);
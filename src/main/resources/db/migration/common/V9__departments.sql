@@ -0,0 +1,70 @@
+-- =====================================================
+-- V9: 部署マスタ departments と、各テーブルの department_id 列
+-- これまで部署はコード文字列（'amami' / 'main'）を各行に直接持っていた。
+-- 整数キーの departments を作り、各テーブルに department_id を追加して既存の値から埋める。
+-- 旧 department 列の削除とインデックス・一意制約の張り替えは V10（DB ごとに別ファイル）で行う。
+-- 部署の追加は departments への INSERT だけでよい（アプリは DepartmentRegistry で読み直す）。
+-- =====================================================
+
+CREATE TABLE IF NOT EXISTS departments (
+    id          INTEGER GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    code        VARCHAR(50)  NOT NULL,   -- 画面・URL で使う部署コード
+    name        VARCHAR(100) NOT NULL,   -- 表示名
+    sort_order  INTEGER      NOT NULL DEFAULT 0,
+    CONSTRAINT uk_departments_code UNIQUE (code)
+);
+
+INSERT INTO departments (code, name, sort_order) VALUES
+    ('amami', '天美', 1),
+    ('main',  '本社', 2);
+
+-- ▼ 既存データにだけある部署コードも取りこぼさないよう登録しておく（表示名は後から直す）
+INSERT INTO departments (code, name, sort_order)
+SELECT codes.department, codes.department, 100
+  FROM (SELECT department FROM user_profiles
+        UNION SELECT department FROM shifts
+        UNION SELECT department FROM shift_requests
+        UNION SELECT department FROM shift_requirements
+        UNION SELECT department FROM temporary_worker_assignments
+        UNION SELECT department FROM shift_months) codes
+ WHERE codes.department IS NOT NULL
+   AND codes.department <> ''
+   AND NOT EXISTS (SELECT 1 FROM departments d WHERE d.code = codes.department);
+
+-- ▼ department_id の追加と移行（空文字の部署は NULL = 未所属にする）
+ALTER TABLE user_profiles ADD COLUMN department_id INTEGER;
+ALTER TABLE user_profiles ADD CONSTRAINT fk_user_profiles_department
+    FOREIGN KEY (department_id) REFERENCES departments (id);
+UPDATE user_profiles t
+   SET department_id = (SELECT d.id FROM departments d WHERE d.code = t.department);
+
+ALTER TABLE shifts ADD COLUMN department_id INTEGER;
+ALTER TABLE shifts ADD CONSTRAINT fk_shifts_department
+    FOREIGN KEY (department_id) REFERENCES departments (id);
+UPDATE shifts t
+   SET department_id = (SELECT d.id FROM departments d WHERE d.code = t.department);
+
+ALTER TABLE shift_requests ADD COLUMN department_id INTEGER;
+ALTER TABLE shift_requests ADD CONSTRAINT fk_shift_requests_department
+    FOREIGN KEY (department_id) REFERENCES departments (id);
+UPDATE shift_requests t
+   SET department_id = (SELECT d.id FROM departments d WHERE d.code = t.department);
+
+ALTER TABLE shift_requirements ADD COLUMN department_id INTEGER;
+ALTER TABLE shift_requirements ADD CONSTRAINT fk_shift_requirements_department
+    FOREIGN KEY (department_id) REFERENCES departments (id);
+UPDATE shift_requirements t
+   SET department_id = (SELECT d.id FROM departments d WHERE d.code = t.department);
+
+ALTER TABLE temporary_worker_assignments ADD COLUMN department_id INTEGER;
+ALTER TABLE temporary_worker_assignments ADD CONSTRAINT fk_temp_assignments_department
+    FOREIGN KEY (department_id) REFERENCES departments (id);
+UPDATE temporary_worker_assignments t
+   SET department_id = (SELECT d.id FROM departments d WHERE d.code = t.department);
+
+ALTER TABLE shift_months ADD COLUMN department_id INTEGER;
+ALTER TABLE shift_months ADD CONSTRAINT fk_shift_months_department
+    FOREIGN KEY (department_id) REFERENCES departments (id);
+UPDATE shift_months t
+   SET department_id = (SELECT d.id FROM departments d WHERE d.code = t.department);
+ALTER TABLE shift_months ALTER COLUMN department_id SET NOT NULL;
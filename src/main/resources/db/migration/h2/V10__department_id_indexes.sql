@@ -0,0 +1,83 @@
+-- =====================================================
+-- V10 (H2): postgresql/V10 の代替。H2 の V2 / V3 で作ったインデックス
+-- （INCLUDE・部分インデックスの代わりの通常インデックス）を department_id で作り直す。
+-- H2 は複数列の制約・インデックスに含まれる列を DROP COLUMN できないため、先に落としておく。
+-- バージョン番号は PostgreSQL 側と揃えておくこと。
+-- =====================================================
+
+DROP VIEW IF EXISTS shift_days;
+
+-- ▼ shifts
+ALTER TABLE shifts DROP CONSTRAINT IF EXISTS uk_shifts_user_date_department;
+DROP INDEX IF EXISTS idx_shifts_dept_date;
+DROP INDEX IF EXISTS idx_shifts_status_dept_date;
+ALTER TABLE shifts DROP COLUMN department;
+
+ALTER TABLE shifts ADD CONSTRAINT uk_shifts_user_date_department UNIQUE (user_id, date, department_id);
+CREATE INDEX idx_shifts_dept_date
+    ON shifts (department_id, date);
+CREATE INDEX idx_shifts_status_dept_date
+    ON shifts (status, department_id, date);
+
+-- ▼ shift_requests
+ALTER TABLE shift_requests DROP CONSTRAINT IF EXISTS uk_shift_requests_user_date_department;
+DROP INDEX IF EXISTS idx_shift_requests_dept_date;
+DROP INDEX IF EXISTS idx_shift_requests_status_dept_date;
+ALTER TABLE shift_requests DROP COLUMN department;
+
+ALTER TABLE shift_requests ADD CONSTRAINT uk_shift_requests_user_date_department UNIQUE (user_id, date, department_id);
+CREATE INDEX idx_shift_requests_dept_date
+    ON shift_requests (department_id, date);
+CREATE INDEX idx_shift_requests_status_dept_date
+    ON shift_requests (status, department_id, date);
+
+-- ▼ shift_requirements
+DROP INDEX IF EXISTS idx_shift_requirements_dept_date;
+ALTER TABLE shift_requirements DROP COLUMN department;
+CREATE INDEX idx_shift_requirements_dept_date
+    ON shift_requirements (department_id, date);
+
+-- ▼ temporary_worker_assignments
+DROP INDEX IF EXISTS idx_temp_assignments_dept_date;
+ALTER TABLE temporary_worker_assignments DROP COLUMN department;
+CREATE INDEX idx_temp_assignments_dept_date
+    ON temporary_worker_assignments (department_id, date);
+
+-- ▼ user_profiles
+DROP INDEX IF EXISTS idx_user_profiles_department_id;
+ALTER TABLE user_profiles DROP COLUMN department;
+CREATE INDEX idx_user_profiles_department_id
+    ON user_profiles (department_id, id);
+
+-- ▼ shift_months
+ALTER TABLE shift_months DROP CONSTRAINT IF EXISTS uk_shift_months_user_department_month;
+DROP INDEX IF EXISTS idx_shift_months_department_month;
+ALTER TABLE shift_months DROP COLUMN department;
+
+ALTER TABLE shift_months ADD CONSTRAINT uk_shift_months_user_department_month
+    UNIQUE (user_id, department_id, month_start);
+CREATE INDEX idx_shift_months_department_month
+    ON shift_months (department_id, month_start);
+
+-- ▼ 互換ビュー
+CREATE VIEW shift_days AS
+SELECT m.user_id,
+       CAST(DATEADD(DAY, n.day_no - 1, m.month_start) AS DATE) AS date,
+       m.department_id,
+       CAST(CASE SUBSTR(m.codes, n.day_no, 1)
+           WHEN 'D' THEN 1
+           WHEN 'N' THEN 2
+           WHEN 'A' THEN 3
+           WHEN 'O' THEN 4
+           WHEN 'P' THEN 5
+           WHEN 'T' THEN 6
+           WHEN 'S' THEN 7
+       END AS SMALLINT) AS shift_type,
+       CASE WHEN MOD(m.draft_mask / n.day_mask, 2) = 1 THEN 'DRAFT' ELSE 'CONFIRMED' END AS status,
+       MOD(m.temporary_mask / n.day_mask, 2) = 1 AS is_temporary,
+       MOD(m.fixed_mask / n.day_mask, 2) = 1 AS is_fixed,
+       m.updated_by,
+       m.updated_at
+  FROM shift_months m
+  JOIN shift_day_numbers n ON n.day_no <= LENGTH(m.codes)
+ WHERE SUBSTR(m.codes, n.day_no, 1) <> '.';
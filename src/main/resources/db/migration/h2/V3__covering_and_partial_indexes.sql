@@ -0,0 +1,10 @@
+-- =====================================================
+-- V3 (H2): postgresql/V3 の代替
+-- H2 には INCLUDE 句・部分インデックスがないため、status を先頭にした通常の複合インデックスで
+-- DRAFT 行の絞り込みを近似する。バージョン番号は PostgreSQL 側と揃えておくこと。
+-- =====================================================
+
+CREATE INDEX IF NOT EXISTS idx_shifts_status_dept_date
+    ON shifts (status, department, date);
+CREATE INDEX IF NOT EXISTS idx_shift_requests_status_dept_date
+    ON shift_requests (status, department, date);
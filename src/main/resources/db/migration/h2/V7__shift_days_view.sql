@@ -0,0 +1,25 @@
+-- =====================================================
+-- V7 (H2): postgresql/V7 の代替（日付の加算だけ DATEADD を使う）。バージョン番号は PostgreSQL 側と揃えておくこと。
+-- =====================================================
+
+CREATE OR REPLACE VIEW shift_days AS
+SELECT m.user_id,
+       CAST(DATEADD(DAY, n.day_no - 1, m.month_start) AS DATE) AS date,
+       m.department,
+       CASE SUBSTR(m.codes, n.day_no, 1)
+           WHEN 'D' THEN '日'
+           WHEN 'N' THEN '夜'
+           WHEN 'A' THEN '明'
+           WHEN 'O' THEN '休'
+           WHEN 'P' THEN '有'
+           WHEN 'T' THEN '臨(確)'
+           WHEN 'S' THEN '臨(自)'
+       END AS shift_type,
+       CASE WHEN MOD(m.draft_mask / n.day_mask, 2) = 1 THEN 'DRAFT' ELSE 'CONFIRMED' END AS status,
+       MOD(m.temporary_mask / n.day_mask, 2) = 1 AS is_temporary,
+       MOD(m.fixed_mask / n.day_mask, 2) = 1 AS is_fixed,
+       m.updated_by,
+       m.updated_at
+  FROM shift_months m
+  JOIN shift_day_numbers n ON n.day_no <= LENGTH(m.codes)
+ WHERE SUBSTR(m.codes, n.day_no, 1) <> '.';
@@ -0,0 +1,47 @@
+-- =====================================================
+-- V8 (H2): postgresql/V8 の代替。H2 は ALTER ... TYPE ... USING がないため、
+-- 列を追加して値を移し、元の列と入れ替える。バージョン番号は PostgreSQL 側と揃えておくこと。
+-- =====================================================
+
+DROP VIEW IF EXISTS shift_days;
+
+ALTER TABLE shifts ADD COLUMN shift_type_code SMALLINT;
+
+-- 空文字は NULL。未知の値は postgresql/V8 と同じく黙って NULL にせず失敗させる
+-- （H2 には DO ブロックがないため、数値にならない文字列を CAST してエラーにする。メッセージに値が出る）
+UPDATE shifts SET shift_type_code = CASE
+        WHEN shift_type IS NULL OR TRIM(shift_type) = '' THEN NULL
+        WHEN TRIM(shift_type) = '日' THEN 1
+        WHEN TRIM(shift_type) = '夜' THEN 2
+        WHEN TRIM(shift_type) = '明' THEN 3
+        WHEN TRIM(shift_type) = '休' THEN 4
+        WHEN TRIM(shift_type) = '有' THEN 5
+        WHEN TRIM(shift_type) = '臨(確)' THEN 6
+        WHEN TRIM(shift_type) = '臨(自)' THEN 7
+        ELSE CAST('unknown shift_type: ' || shift_type AS SMALLINT)
+    END;
+
+ALTER TABLE shifts DROP COLUMN shift_type;
+ALTER TABLE shifts ALTER COLUMN shift_type_code RENAME TO shift_type;
+
+CREATE VIEW shift_days AS
+SELECT m.user_id,
+       CAST(DATEADD(DAY, n.day_no - 1, m.month_start) AS DATE) AS date,
+       m.department,
+       CAST(CASE SUBSTR(m.codes, n.day_no, 1)
+           WHEN 'D' THEN 1
+           WHEN 'N' THEN 2
+           WHEN 'A' THEN 3
+           WHEN 'O' THEN 4
+           WHEN 'P' THEN 5
+           WHEN 'T' THEN 6
+           WHEN 'S' THEN 7
+       END AS SMALLINT) AS shift_type,
+       CASE WHEN MOD(m.draft_mask / n.day_mask, 2) = 1 THEN 'DRAFT' ELSE 'CONFIRMED' END AS status,
+       MOD(m.temporary_mask / n.day_mask, 2) = 1 AS is_temporary,
+       MOD(m.fixed_mask / n.day_mask, 2) = 1 AS is_fixed,
+       m.updated_by,
+       m.updated_at
+  FROM shift_months m
+  JOIN shift_day_numbers n ON n.day_no <= LENGTH(m.codes)
+ WHERE SUBSTR(m.codes, n.day_no, 1) <> '.';
@@ -0,0 +1,87 @@
+-- =====================================================
+-- V10 (PostgreSQL): 旧 department 列を削除し、インデックス・一意制約を department_id に張り替える
+-- 名前は V3 / V4 / V5 / V6 と同じにしておく（キー列が varchar(255) から integer になり、索引が細くなる）。
+-- パーティション（V4）側のインデックスは親に作れば各パーティションに作られる。
+-- 互換ビュー shift_days（V8）は shift_months.department を参照しているため、先に落として作り直す。
+-- =====================================================
+
+DROP VIEW IF EXISTS shift_days;
+
+-- ▼ shifts
+ALTER TABLE shifts DROP CONSTRAINT IF EXISTS uk_shifts_user_date_department;
+DROP INDEX IF EXISTS idx_shifts_dept_date_covering;
+DROP INDEX IF EXISTS idx_shifts_draft_dept_date;
+ALTER TABLE shifts DROP COLUMN department;
+
+ALTER TABLE shifts ADD CONSTRAINT uk_shifts_user_date_department UNIQUE (user_id, date, department_id);
+CREATE INDEX idx_shifts_dept_date_covering
+    ON shifts (department_id, date)
+    INCLUDE (user_id, shift_type, status, updated_at);
+CREATE INDEX idx_shifts_draft_dept_date
+    ON shifts (department_id, date)
+    WHERE status = 'DRAFT';
+
+-- ▼ shift_requests
+ALTER TABLE shift_requests DROP CONSTRAINT IF EXISTS uk_shift_requests_user_date_department;
+DROP INDEX IF EXISTS idx_shift_requests_dept_date_covering;
+DROP INDEX IF EXISTS idx_shift_requests_draft_dept_date;
+ALTER TABLE shift_requests DROP COLUMN department;
+
+ALTER TABLE shift_requests ADD CONSTRAINT uk_shift_requests_user_date_department UNIQUE (user_id, date, department_id);
+CREATE INDEX idx_shift_requests_dept_date_covering
+    ON shift_requests (department_id, date)
+    INCLUDE (user_id, request_type, status);
+CREATE INDEX idx_shift_requests_draft_dept_date
+    ON shift_requests (department_id, date)
+    WHERE status = 'DRAFT';
+
+-- ▼ shift_requirements
+DROP INDEX IF EXISTS idx_shift_requirements_dept_date;
+ALTER TABLE shift_requirements DROP COLUMN department;
+CREATE INDEX idx_shift_requirements_dept_date
+    ON shift_requirements (department_id, date);
+
+-- ▼ temporary_worker_assignments
+DROP INDEX IF EXISTS idx_temp_assignments_dept_date;
+ALTER TABLE temporary_worker_assignments DROP COLUMN department;
+CREATE INDEX idx_temp_assignments_dept_date
+    ON temporary_worker_assignments (department_id, date);
+
+-- ▼ user_profiles（キーセットページングは (department_id, id) で辿る）
+DROP INDEX IF EXISTS idx_user_profiles_department_id;
+ALTER TABLE user_profiles DROP COLUMN department;
+CREATE INDEX idx_user_profiles_department_id
+    ON user_profiles (department_id, id);
+
+-- ▼ shift_months
+ALTER TABLE shift_months DROP CONSTRAINT IF EXISTS uk_shift_months_user_department_month;
+DROP INDEX IF EXISTS idx_shift_months_department_month;
+ALTER TABLE shift_months DROP COLUMN department;
+
+ALTER TABLE shift_months ADD CONSTRAINT uk_shift_months_user_department_month
+    UNIQUE (user_id, department_id, month_start);
+CREATE INDEX idx_shift_months_department_month
+    ON shift_months (department_id, month_start);
+
+-- ▼ 互換ビュー（部署は shifts と同じく department_id で返す）
+CREATE VIEW shift_days AS
+SELECT m.user_id,
+       (m.month_start + (n.day_no - 1)) AS date,
+       m.department_id,
+       CAST(CASE SUBSTR(m.codes, n.day_no, 1)
+           WHEN 'D' THEN 1
+           WHEN 'N' THEN 2
+           WHEN 'A' THEN 3
+           WHEN 'O' THEN 4
+           WHEN 'P' THEN 5
+           WHEN 'T' THEN 6
+           WHEN 'S' THEN 7
+       END AS SMALLINT) AS shift_type,
+       CASE WHEN MOD(m.draft_mask / n.day_mask, 2) = 1 THEN 'DRAFT' ELSE 'CONFIRMED' END AS status,
+       MOD(m.temporary_mask / n.day_mask, 2) = 1 AS is_temporary,
+       MOD(m.fixed_mask / n.day_mask, 2) = 1 AS is_fixed,
+       m.updated_by,
+       m.updated_at
+  FROM shift_months m
+  JOIN shift_day_numbers n ON n.day_no <= LENGTH(m.codes)
+ WHERE SUBSTR(m.codes, n.day_no, 1) <> '.';
@@ -0,0 +1,26 @@
+-- =====================================================
+-- V3 (PostgreSQL): カバリングインデックスと DRAFT 用部分インデックス
+-- H2 は INCLUDE 句・部分インデックスを持たないため、h2/V3 で近い形の通常インデックスを作る。
+-- =====================================================
+
+-- ▼ 月グリッド（ShiftService#getShiftMap）はセル表示に必要な列だけを読むので、
+--   INCLUDE でテーブル本体を見ずに済む（index-only scan）ようにする。
+--   V2 の (department, date) はこれで置き換えられるため削除する。
+CREATE INDEX IF NOT EXISTS idx_shifts_dept_date_covering
+    ON shifts (department, date)
+    INCLUDE (user_id, shift_type, status, updated_at);
+DROP INDEX IF EXISTS idx_shifts_dept_date;
+
+CREATE INDEX IF NOT EXISTS idx_shift_requests_dept_date_covering
+    ON shift_requests (department, date)
+    INCLUDE (user_id, request_type, status);
+DROP INDEX IF EXISTS idx_shift_requests_dept_date;
+
+-- ▼ 一時保存（DRAFT）行だけの部分インデックス。
+--   DRAFT は月に対してごく一部なので、CONFIRMED で埋まった履歴が増えても小さいまま保たれる。
+CREATE INDEX IF NOT EXISTS idx_shifts_draft_dept_date
+    ON shifts (department, date)
+    WHERE status = 'DRAFT';
+CREATE INDEX IF NOT EXISTS idx_shift_requests_draft_dept_date
+    ON shift_requests (department, date)
+    WHERE status = 'DRAFT';
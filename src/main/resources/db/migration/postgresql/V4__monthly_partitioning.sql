@@ -0,0 +1,195 @@
+-- =====================================================
+-- V4 (PostgreSQL): shifts / shift_requests を月単位のレンジパーティションに変換
+-- 読み出しはすべて「部署＋1か月の日付範囲」なので、パーティションプルーニングで
+-- 対象月の1パーティションだけを読むようにし、年数が増えてもレイテンシを一定に保つ。
+--
+-- ・パーティション名は <親テーブル>_yYYYYmMM（例: shifts_y2025m04）
+-- ・翌月以降のパーティション作成と古い月のアーカイブ（DETACH → archive スキーマへ移動）は
+--   PartitionMaintenanceService が下記の関数を定期的に呼び出して行う
+-- ・範囲外の日付は _default パーティションに入り、該当月のパーティション作成時に移し替える
+-- ・date は主キー（パーティションキーを含む必要がある）の一部になるため NOT NULL とする
+--   （既存データに date が NULL の行がある場合、このマイグレーションは失敗してロールバックされる）
+-- H2 にはパーティションがないため、このファイルは PostgreSQL 専用。
+-- =====================================================
+
+CREATE SCHEMA IF NOT EXISTS archive;
+
+-- ▼ 指定月のパーティションがなければ作成する（_default に溜まった該当月の行は移し替える）
+CREATE OR REPLACE FUNCTION ensure_month_partition(parent_table text, target_month date)
+RETURNS text
+LANGUAGE plpgsql
+AS $$
+DECLARE
+    first_day      date := date_trunc('month', target_month)::date;
+    next_first_day date := (date_trunc('month', target_month) + interval '1 month')::date;
+    partition_name text := format('%s_y%sm%s', parent_table, to_char(first_day, 'YYYY'), to_char(first_day, 'MM'));
+    default_name   text := parent_table || '_default';
+    has_pending    boolean := false;
+BEGIN
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN partition_name;
+    END IF;
+
+    IF to_regclass(default_name) IS NOT NULL THEN
+        EXECUTE format('SELECT EXISTS (SELECT 1 FROM %I WHERE date >= %L AND date < %L)',
+                       default_name, first_day, next_first_day)
+            INTO has_pending;
+    END IF;
+
+    IF has_pending THEN
+        EXECUTE format('CREATE TEMP TABLE pending_partition_rows ON COMMIT DROP AS '
+                       'SELECT * FROM %I WHERE date >= %L AND date < %L',
+                       default_name, first_day, next_first_day);
+        EXECUTE format('DELETE FROM %I WHERE date >= %L AND date < %L',
+                       default_name, first_day, next_first_day);
+    END IF;
+
+    EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                   partition_name, parent_table, first_day, next_first_day);
+
+    IF has_pending THEN
+        EXECUTE format('INSERT INTO %I SELECT * FROM pending_partition_rows', parent_table);
+        DROP TABLE pending_partition_rows;
+    END IF;
+
+    RETURN partition_name;
+END;
+$$;
+
+-- ▼ before_month より前の月パーティションを切り離し、archive スキーマへ移す。戻り値は件数
+CREATE OR REPLACE FUNCTION archive_month_partitions(parent_table text, before_month date)
+RETURNS integer
+LANGUAGE plpgsql
+AS $$
+DECLARE
+    part     record;
+    archived integer := 0;
+BEGIN
+    FOR part IN
+        SELECT c.relname AS name
+          FROM pg_inherits i
+          JOIN pg_class c     ON c.oid = i.inhrelid
+          JOIN pg_class p     ON p.oid = i.inhparent
+          JOIN pg_namespace n ON n.oid = p.relnamespace
+         WHERE p.relname = parent_table
+           AND n.nspname = current_schema()
+           AND c.relname ~ ('^' || parent_table || '_y[0-9]{4}m[0-9]{2}$')
+           AND to_date(substring(c.relname from '([0-9]{4})m[0-9]{2}$') || substring(c.relname from '([0-9]{2})$'),
+                       'YYYYMM') < date_trunc('month', before_month)::date
+         ORDER BY c.relname
+    LOOP
+        EXECUTE format('ALTER TABLE %I DETACH PARTITION %I', parent_table, part.name);
+        EXECUTE format('ALTER TABLE %I SET SCHEMA archive', part.name);
+        archived := archived + 1;
+    END LOOP;
+    RETURN archived;
+END;
+$$;
+
+-- =====================================================
+-- shifts
+-- =====================================================
+ALTER TABLE shifts RENAME TO shifts_legacy;
+
+CREATE SEQUENCE shifts_pk_seq;
+
+CREATE TABLE shifts (
+    id            BIGINT NOT NULL DEFAULT nextval('shifts_pk_seq'),
+    date          DATE NOT NULL,
+    user_id       BIGINT REFERENCES user_profiles (id),
+    shift_type    VARCHAR(255),
+    time_slot     VARCHAR(255),
+    department    VARCHAR(255),
+    is_temporary  BOOLEAN NOT NULL DEFAULT FALSE,
+    is_fixed      BOOLEAN NOT NULL DEFAULT FALSE,
+    status        VARCHAR(255) NOT NULL DEFAULT 'DRAFT',
+    updated_by    VARCHAR(100),
+    updated_at    TIMESTAMP(6)
+) PARTITION BY RANGE (date);
+
+CREATE TABLE shifts_default PARTITION OF shifts DEFAULT;
+
+DO $$
+DECLARE
+    m date;
+BEGIN
+    FOR m IN SELECT DISTINCT date_trunc('month', date)::date FROM shifts_legacy WHERE date IS NOT NULL LOOP
+        PERFORM ensure_month_partition('shifts', m);
+    END LOOP;
+    FOR i IN 0..3 LOOP
+        PERFORM ensure_month_partition('shifts', (date_trunc('month', current_date) + make_interval(months => i))::date);
+    END LOOP;
+END;
+$$;
+
+INSERT INTO shifts (id, date, user_id, shift_type, time_slot, department, is_temporary, is_fixed, status, updated_by, updated_at)
+SELECT id, date, user_id, shift_type, time_slot, department, is_temporary, is_fixed, status, updated_by, updated_at
+  FROM shifts_legacy;
+
+SELECT setval('shifts_pk_seq', COALESCE((SELECT MAX(id) FROM shifts), 0) + 1, false);
+
+-- 旧テーブルの主キー・一意制約・インデックスと名前が衝突するため、先に旧テーブルを落としてから作り直す
+DROP TABLE shifts_legacy;
+ALTER SEQUENCE shifts_pk_seq OWNED BY shifts.id;
+
+ALTER TABLE shifts ADD CONSTRAINT shifts_pkey PRIMARY KEY (id, date);
+ALTER TABLE shifts ADD CONSTRAINT uk_shifts_user_date_department UNIQUE (user_id, date, department);
+
+CREATE INDEX idx_shifts_dept_date_covering
+    ON shifts (department, date)
+    INCLUDE (user_id, shift_type, status, updated_at);
+CREATE INDEX idx_shifts_draft_dept_date
+    ON shifts (department, date)
+    WHERE status = 'DRAFT';
+
+-- =====================================================
+-- shift_requests
+-- =====================================================
+ALTER TABLE shift_requests RENAME TO shift_requests_legacy;
+
+CREATE SEQUENCE shift_requests_pk_seq;
+
+CREATE TABLE shift_requests (
+    id            BIGINT NOT NULL DEFAULT nextval('shift_requests_pk_seq'),
+    user_id       BIGINT REFERENCES user_profiles (id),
+    date          DATE NOT NULL,
+    request_type  VARCHAR(255),
+    department    VARCHAR(255),
+    status        VARCHAR(255) NOT NULL DEFAULT 'DRAFT',
+    updated_by    VARCHAR(255),
+    updated_at    TIMESTAMP(6)
+) PARTITION BY RANGE (date);
+
+CREATE TABLE shift_requests_default PARTITION OF shift_requests DEFAULT;
+
+DO $$
+DECLARE
+    m date;
+BEGIN
+    FOR m IN SELECT DISTINCT date_trunc('month', date)::date FROM shift_requests_legacy WHERE date IS NOT NULL LOOP
+        PERFORM ensure_month_partition('shift_requests', m);
+    END LOOP;
+    FOR i IN 0..3 LOOP
+        PERFORM ensure_month_partition('shift_requests', (date_trunc('month', current_date) + make_interval(months => i))::date);
+    END LOOP;
+END;
+$$;
+
+INSERT INTO shift_requests (id, user_id, date, request_type, department, status, updated_by, updated_at)
+SELECT id, user_id, date, request_type, department, status, updated_by, updated_at
+  FROM shift_requests_legacy;
+
+SELECT setval('shift_requests_pk_seq', COALESCE((SELECT MAX(id) FROM shift_requests), 0) + 1, false);
+
+DROP TABLE shift_requests_legacy;
+ALTER SEQUENCE shift_requests_pk_seq OWNED BY shift_requests.id;
+
+ALTER TABLE shift_requests ADD CONSTRAINT shift_requests_pkey PRIMARY KEY (id, date);
+ALTER TABLE shift_requests ADD CONSTRAINT uk_shift_requests_user_date_department UNIQUE (user_id, date, department);
+
+CREATE INDEX idx_shift_requests_dept_date_covering
+    ON shift_requests (department, date)
+    INCLUDE (user_id, request_type, status);
+CREATE INDEX idx_shift_requests_draft_dept_date
+    ON shift_requests (department, date)
+    WHERE status = 'DRAFT';
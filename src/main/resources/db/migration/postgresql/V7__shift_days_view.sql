@@ -0,0 +1,28 @@
+-- =====================================================
+-- V7 (PostgreSQL): shift_months を日単位の行に展開する互換ビュー
+-- shifts と同じ列名（user_id, date, department, shift_type, status, is_temporary, is_fixed,
+-- updated_by, updated_at）で参照できる。集計や外部連携の SQL は shifts をこのビューに置き換えればよい。
+-- コードと勤務種別の対応は ShiftMonth と揃えること。H2 側（h2/V7）も同じ内容で保守する。
+-- =====================================================
+
+CREATE OR REPLACE VIEW shift_days AS
+SELECT m.user_id,
+       (m.month_start + (n.day_no - 1)) AS date,
+       m.department,
+       CASE SUBSTR(m.codes, n.day_no, 1)
+           WHEN 'D' THEN '日'
+           WHEN 'N' THEN '夜'
+           WHEN 'A' THEN '明'
+           WHEN 'O' THEN '休'
+           WHEN 'P' THEN '有'
+           WHEN 'T' THEN '臨(確)'
+           WHEN 'S' THEN '臨(自)'
+       END AS shift_type,
+       CASE WHEN MOD(m.draft_mask / n.day_mask, 2) = 1 THEN 'DRAFT' ELSE 'CONFIRMED' END AS status,
+       MOD(m.temporary_mask / n.day_mask, 2) = 1 AS is_temporary,
+       MOD(m.fixed_mask / n.day_mask, 2) = 1 AS is_fixed,
+       m.updated_by,
+       m.updated_at
+  FROM shift_months m
+  JOIN shift_day_numbers n ON n.day_no <= LENGTH(m.codes)
+ WHERE SUBSTR(m.codes, n.day_no, 1) <> '.';
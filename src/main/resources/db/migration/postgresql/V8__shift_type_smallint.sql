@@ -0,0 +1,59 @@
+-- =====================================================
+-- V8 (PostgreSQL): shifts.shift_type を文字列から smallint コードへ変更
+-- コードは ShiftType#getCode（1=日, 2=夜, 3=明, 4=休, 5=有, 6=臨(確), 7=臨(自)）。
+-- 空文字は NULL（未設定）にする。それ以外の未知の値が残っている場合は変換せずに失敗させる
+-- （黙って NULL にするとデータが消えるため。先に手で直してから再実行すること）。
+-- ALTER ... TYPE はパーティション（V4）と既存インデックスにも反映される。
+-- 互換ビュー shift_days（V7）も shifts と同じ smallint を返すように作り直す。
+-- =====================================================
+
+DO $$
+DECLARE
+    unknown_count BIGINT;
+BEGIN
+    SELECT COUNT(*) INTO unknown_count
+      FROM shifts
+     WHERE shift_type IS NOT NULL
+       AND TRIM(shift_type) <> ''
+       AND TRIM(shift_type) NOT IN ('日', '夜', '明', '休', '有', '臨(確)', '臨(自)');
+    IF unknown_count > 0 THEN
+        RAISE EXCEPTION 'shifts.shift_type has % row(s) with unknown values', unknown_count;
+    END IF;
+END
+$$;
+
+ALTER TABLE shifts
+    ALTER COLUMN shift_type TYPE SMALLINT
+    USING (CASE TRIM(shift_type)
+        WHEN '日' THEN 1
+        WHEN '夜' THEN 2
+        WHEN '明' THEN 3
+        WHEN '休' THEN 4
+        WHEN '有' THEN 5
+        WHEN '臨(確)' THEN 6
+        WHEN '臨(自)' THEN 7
+    END);
+
+DROP VIEW IF EXISTS shift_days;
+
+CREATE VIEW shift_days AS
+SELECT m.user_id,
+       (m.month_start + (n.day_no - 1)) AS date,
+       m.department,
+       CAST(CASE SUBSTR(m.codes, n.day_no, 1)
+           WHEN 'D' THEN 1
+           WHEN 'N' THEN 2
+           WHEN 'A' THEN 3
+           WHEN 'O' THEN 4
+           WHEN 'P' THEN 5
+           WHEN 'T' THEN 6
+           WHEN 'S' THEN 7
+       END AS SMALLINT) AS shift_type,
+       CASE WHEN MOD(m.draft_mask / n.day_mask, 2) = 1 THEN 'DRAFT' ELSE 'CONFIRMED' END AS status,
+       MOD(m.temporary_mask / n.day_mask, 2) = 1 AS is_temporary,
+       MOD(m.fixed_mask / n.day_mask, 2) = 1 AS is_fixed,
+       m.updated_by,
+       m.updated_at
+  FROM shift_months m
+  JOIN shift_day_numbers n ON n.day_no <= LENGTH(m.codes)
+ WHERE SUBSTR(m.codes, n.day_no, 1) <> '.';
@@ -0,0 +1,55 @@
+// 勤務表編集画面の「変更したセル（未保存）」の記録。
+// 行ウィンドウ表示ではスクロールで描画外になった行のボタンが DOM から消えるため、
+// 差分保存に必要な値（userId・date・version）はボタンではなくここに持つ。
+// key は "userId_YYYY-MM-DD"
+function ShiftDirtyCells() {
+  this.originalValues = {}; // 表示時（または最後に保存した）値
+  this.cells = {};          // 変更したセル → {userId, date, version, value}
+}
+
+// 表示時（または保存後）の値を記録する
+ShiftDirtyCells.prototype.setOriginal = function (key, value) {
+  this.originalValues[key] = value || '';
+};
+
+// セルの変更を記録する（表示時の値に戻した場合は外す）。
+// version は最初に変更したときのもの（＝表示時に読んだバージョン）を保存まで持ち続ける
+ShiftDirtyCells.prototype.mark = function (key, cell) {
+  if ((this.originalValues[key] || '') === cell.value) {
+    delete this.cells[key];
+    return;
+  }
+  var current = this.cells[key];
+  this.cells[key] = {
+    userId: cell.userId,
+    date: cell.date,
+    version: current ? current.version : cell.version,
+    value: cell.value
+  };
+};
+
+// 保存済み（またはサーバの最新で置き換えた）セルの記録を外す
+ShiftDirtyCells.prototype.clear = function (key) {
+  delete this.cells[key];
+};
+
+ShiftDirtyCells.prototype.has = function (key) {
+  return Object.prototype.hasOwnProperty.call(this.cells, key);
+};
+
+ShiftDirtyCells.prototype.valueFor = function (key) {
+  return this.has(key) ? this.cells[key].value : undefined;
+};
+
+ShiftDirtyCells.prototype.size = function () {
+  return Object.keys(this.cells).length;
+};
+
+// 差分保存 API（/api/shift/delta）に送る cells。DOM は参照しない
+ShiftDirtyCells.prototype.toRequestCells = function () {
+  var cells = this.cells;
+  return Object.keys(cells).map(function (key) {
+    var c = cells[key];
+    return { userId: c.userId, date: c.date, value: c.value, version: c.version };
+  });
+};
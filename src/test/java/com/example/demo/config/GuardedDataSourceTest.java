@@ -0,0 +1,68 @@
+package com.example.demo.config;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class GuardedDataSourceTest {
+
+    private DataSource target;
+    private Connection physical;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        target = mock(DataSource.class);
+        physical = mock(Connection.class);
+        when(target.getConnection()).thenReturn(physical);
+    }
+
+    @Test
+    void 上限に達して待ち枠もなければすぐに失敗し_closeで枠が戻る() throws SQLException {
+        GuardedDataSource dataSource = new GuardedDataSource(target, 1, 0, Duration.ofSeconds(1));
+
+        Connection first = dataSource.getConnection();
+        assertThat(dataSource.getActive()).isEqualTo(1);
+        assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+
+        first.close();
+        first.close(); // 二重の close で枠を余分に返さない
+        verify(physical, times(2)).close();
+        assertThat(dataSource.getActive()).isZero();
+
+        Connection second = dataSource.getConnection();
+        assertThat(dataSource.getActive()).isEqualTo(1);
+        assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+        second.close();
+    }
+
+    @Test
+    void 待ち時間内に空かなければタイムアウトする() throws SQLException {
+        GuardedDataSource dataSource = new GuardedDataSource(target, 1, 1, Duration.ofMillis(50));
+
+        try (Connection held = dataSource.getConnection()) {
+            assertThatThrownBy(dataSource::getConnection)
+                    .isInstanceOf(SQLTransientConnectionException.class)
+                    .hasMessageContaining("Timed out");
+            assertThat(dataSource.getWaiting()).isZero();
+        }
+    }
+
+    @Test
+    void 接続の取得に失敗したら枠を返す() throws SQLException {
+        when(target.getConnection()).thenThrow(new SQLException("down")).thenReturn(physical);
+        GuardedDataSource dataSource = new GuardedDataSource(target, 1, 0, Duration.ofSeconds(1));
+
+        assertThatThrownBy(dataSource::getConnection).hasMessage("down");
+        assertThat(dataSource.getActive()).isZero();
+        assertThat(dataSource.getConnection()).isNotNull();
+    }
+}
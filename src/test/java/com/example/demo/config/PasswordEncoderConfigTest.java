@@ -0,0 +1,44 @@
+package com.example.demo.config;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+class PasswordEncoderConfigTest {
+
+    private final PasswordEncoder encoder = new PasswordEncoderConfig().passwordEncoder(5, 250, 4, 4);
+
+    @Test
+    void ID付きの形式で保存し_現在のコストなら再ハッシュしない() {
+        String hash = encoder.encode("secret");
+
+        assertThat(hash).startsWith("{bcrypt}$2a$05$");
+        assertThat(encoder.matches("secret", hash)).isTrue();
+        assertThat(encoder.upgradeEncoding(hash)).isFalse();
+    }
+
+    @Test
+    void ID無しの既存ハッシュも照合でき_再ハッシュ対象になる() {
+        String legacy = new BCryptPasswordEncoder(5).encode("secret");
+
+        assertThat(encoder.matches("secret", legacy)).isTrue();
+        assertThat(encoder.matches("wrong", legacy)).isFalse();
+        assertThat(encoder.upgradeEncoding(legacy)).isTrue();
+    }
+
+    @Test
+    void コストが低いハッシュは再ハッシュ対象になる() {
+        String weak = "{bcrypt}" + new BCryptPasswordEncoder(4).encode("secret");
+
+        assertThat(encoder.matches("secret", weak)).isTrue();
+        assertThat(encoder.upgradeEncoding(weak)).isTrue();
+    }
+
+    @Test
+    void 計測結果は指定範囲に収まる() {
+        assertThat(PasswordEncoderConfig.calibrate(0, 4, 6)).isEqualTo(4);
+        assertThat(PasswordEncoderConfig.calibrate(60_000, 4, 6)).isBetween(4, 6);
+    }
+}
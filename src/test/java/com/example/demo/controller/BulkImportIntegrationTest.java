@@ -0,0 +1,155 @@
+package com.example.demo.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.model.UserProfile;
+import com.example.demo.repository.UserProfileRepository;
+import com.example.demo.service.UserDirectory;
+
+// バッチサイズを小さくして、複数回に分けた書き込みも通す
+@SpringBootTest(properties = "shift.import.batch-size=2")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+class BulkImportIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserProfileRepository userProfileRepository;
+
+    @Autowired
+    private UserDirectory userDirectory;
+
+    private UserProfile nurse;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM shift_requirements");
+        jdbcTemplate.update("DELETE FROM shift_requests");
+        jdbcTemplate.update("DELETE FROM temporary_worker_assignments");
+
+        UserProfile profile = new UserProfile();
+        profile.setUsername("import-nurse");
+        profile.setPassword("password");
+        profile.setRole("USER");
+        profile.setFirstName("花子");
+        profile.setLastName("看護師");
+        profile.setBirthDate(LocalDate.of(1990, 1, 1));
+        profile.setGender("female");
+        profile.setEmploymentType("正社員");
+        profile.setDepartment("amami");
+        nurse = userProfileRepository.save(profile);
+        userDirectory.reload();
+    }
+
+    @Test
+    void 必要人員を取り込み_不正な行だけをエラーとして返す() throws Exception {
+        String csv = """
+                日付,部署,時間帯,必要人数
+                2031-04-01,amami,9:00-14:00,2
+                2031-04-01,amami,14:00-16:00,1
+                2031-04-02,unknown,9:00-14:00,2
+                2031-04-02,amami,9:00-14:00,x
+
+                2031-04-03,amami,9:00-14:00,3
+                2031-04-01,amami,9:00-14:00,4
+                """;
+
+        postCsv("requirements", csv)
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.lines").value(6))
+            .andExpect(jsonPath("$.imported").value(4))
+            .andExpect(jsonPath("$.errorCount").value(2))
+            .andExpect(jsonPath("$.errors[0].line").value(4))
+            .andExpect(jsonPath("$.errors[1].line").value(5));
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM shift_requirements", Integer.class)).isEqualTo(3);
+        // 同じキーは後の行の値で上書きされる
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT required_count FROM shift_requirements WHERE date = DATE '2031-04-01' AND time_slot = '9:00-14:00'",
+                Integer.class)).isEqualTo(4);
+    }
+
+    @Test
+    void 希望休は既存の申請を上書きし_未登録の職員は取り込まない() throws Exception {
+        postCsv("requests", "職員ID,日付,部署,種別\n" + nurse.getId() + ",2031-04-10,amami,休\n")
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.imported").value(1));
+
+        String csv = "職員ID,日付,部署,種別,状態\n"
+                + nurse.getId() + ",2031-04-10,amami,有,CONFIRMED\n"
+                + "999999,2031-04-10,amami,休\n"
+                + nurse.getId() + ",2031-04-11,amami,夜\n";
+        postCsv("requests", csv)
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.imported").value(1))
+            .andExpect(jsonPath("$.errorCount").value(2));
+
+        assertThat(jdbcTemplate.queryForList(
+                "SELECT request_type, status FROM shift_requests WHERE user_id = ?", nurse.getId()))
+                .singleElement()
+                .satisfies(row -> {
+                    assertThat(row.get("request_type")).isEqualTo("有");
+                    assertThat(row.get("status")).isEqualTo("CONFIRMED");
+                });
+    }
+
+    @Test
+    void 臨時職員の予定を取り込む() throws Exception {
+        String csv = "職員ID,日付,部署,時間帯\n"
+                + nurse.getId() + ",2031-04-10,amami,9:00-14:00\n"
+                + nurse.getId() + ",2031-04-10,amami,9:00-14:00\n"
+                + nurse.getId() + ",2031-04-11,amami,\n";
+        postCsv("assignments", csv)
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.imported").value(2))
+            .andExpect(jsonPath("$.errorCount").value(1));
+
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM temporary_worker_assignments WHERE user_id = ?", Integer.class, nurse.getId()))
+                .isEqualTo(1);
+    }
+
+    @Test
+    void 管理者以外は取り込めず_未知の種別は404() throws Exception {
+        mockMvc.perform(post("/api/import/requirements")
+                .with(user("user").roles("USER"))
+                .with(csrf())
+                .contentType("text/csv")
+                .content("日付,部署,時間帯,必要人数\n"))
+            .andExpect(status().isForbidden());
+
+        postCsv("unknown", "a\n").andExpect(status().isNotFound());
+    }
+
+    private ResultActions postCsv(String kind, String csv) throws Exception {
+        return mockMvc.perform(post("/api/import/" + kind)
+                .with(user("admin").roles("ADMIN"))
+                .with(csrf())
+                .contentType("text/csv")
+                .content(csv));
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.demo.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Map;
+
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.model.UserProfile;
+import com.example.demo.model.ShiftType;
+import com.example.demo.repository.ShiftMonthRepository;
+import com.example.demo.repository.ShiftRepository;
+import com.example.demo.repository.UserProfileRepository;
+import com.example.demo.service.ShiftCalendarService;
+
+/**
+ * shift.storage.mode=monthly での保存 → 表示の往復
+ */
+@SpringBootTest(properties = "shift.storage.mode=monthly")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+class MonthlyStorageIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserProfileRepository userProfileRepository;
+
+    @Autowired
+    private ShiftRepository shiftRepository;
+
+    @Autowired
+    private ShiftMonthRepository shiftMonthRepository;
+
+    @Autowired
+    private ShiftCalendarService shiftCalendarService;
+
+    private UserProfile nurse;
+
+    @BeforeEach
+    void setUp() {
+        shiftMonthRepository.deleteAll();
+        shiftRepository.deleteAll();
+        userProfileRepository.deleteAll();
+
+        UserProfile profile = new UserProfile();
+        profile.setUsername("nurse1");
+        profile.setPassword("password");
+        profile.setRole("USER");
+        profile.setFirstName("花子");
+        profile.setLastName("看護師");
+        profile.setBirthDate(LocalDate.of(1990, 1, 1));
+        profile.setGender("female");
+        profile.setEmploymentType("正社員");
+        profile.setDepartment("amami");
+        nurse = userProfileRepository.save(profile);
+    }
+
+    @Test
+    void 一か月分のセルが1行に保存され画面に戻る() throws Exception {
+        mockMvc.perform(post("/api/shift/request/save")
+                .with(user("user").roles("USER"))
+                .with(csrf())
+                .param("action", "DRAFT")
+                .param("department", "amami")
+                .param("targetMonth", "2024-05")
+                .param("shifts[" + nurse.getId() + "_2024-05-10]", "夜")
+                .param("shifts[" + nurse.getId() + "_2024-05-11]", "明")
+                .param("shifts[" + nurse.getId() + "_2024-05-12]", "-"))
+            .andExpect(status().is3xxRedirection());
+
+        // 日単位の行は作られず、月単位の行が1行だけ
+        assertThat(shiftRepository.findAll()).isEmpty();
+        assertThat(shiftMonthRepository.findAll()).hasSize(1);
+
+        MvcResult result = mockMvc.perform(get("/shift/generate")
+                .with(user("user").roles("USER"))
+                .param("department", "amami")
+                .param("month", "2024-05"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+        @SuppressWarnings("unchecked")
+        Map<String, ShiftType> shiftMap = (Map<String, ShiftType>) result.getModelAndView().getModel().get("shiftMap");
+        assertThat(shiftMap)
+            .containsEntry(nurse.getId() + "_2024-05-10", ShiftType.NIGHT)
+            .containsEntry(nurse.getId() + "_2024-05-11", ShiftType.AFTER_NIGHT)
+            .hasSize(2);
+
+        // 全日クリアすると行ごと消える
+        mockMvc.perform(post("/api/shift/request/save")
+                .with(user("user").roles("USER"))
+                .with(csrf())
+                .param("action", "DRAFT")
+                .param("department", "amami")
+                .param("targetMonth", "2024-05")
+                .param("shifts[" + nurse.getId() + "_2024-05-10]", "-")
+                .param("shifts[" + nurse.getId() + "_2024-05-11]", ""))
+            .andExpect(status().is3xxRedirection());
+        assertThat(shiftMonthRepository.findAll()).isEmpty();
+    }
+
+    @Test
+    void 個人カレンダーも月単位の行から確定済みの勤務を配信する() throws Exception {
+        YearMonth month = YearMonth.now();
+        LocalDate confirmed = month.atDay(10);
+        LocalDate draft = month.atDay(11);
+        save("CONFIRMED", confirmed, "夜");
+        save("DRAFT", draft, "日");
+
+        mockMvc.perform(get("/api/shift/ical/" + nurse.getId() + ".ics")
+                .param("token", shiftCalendarService.tokenFor(nurse.getId())))
+            .andExpect(status().isOk())
+            .andExpect(content().string(Matchers.containsString("DTSTART;VALUE=DATE:" + compact(confirmed) + "\r\n")))
+            .andExpect(content().string(Matchers.containsString("SUMMARY:夜（天美）\r\n")))
+            .andExpect(content().string(Matchers.not(Matchers.containsString("DTSTART;VALUE=DATE:" + compact(draft)))));
+    }
+
+    private void save(String action, LocalDate date, String value) throws Exception {
+        mockMvc.perform(post("/api/shift/request/save")
+                .with(user("user").roles("USER"))
+                .with(csrf())
+                .param("action", action)
+                .param("department", "amami")
+                .param("targetMonth", YearMonth.from(date).toString())
+                .param("shifts[" + nurse.getId() + "_" + date + "]", value))
+            .andExpect(status().is3xxRedirection());
+    }
+
+    private static String compact(LocalDate date) {
+        return date.toString().replace("-", "");
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.demo.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Map;
+
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.demo.form.ShiftGenerationForm;
+import com.example.demo.model.Shift;
+import com.example.demo.model.UserProfile;
+import com.example.demo.repository.ShiftRepository;
+import com.example.demo.repository.UserProfileRepository;
+import com.example.demo.service.ShiftCalendarService;
+import com.example.demo.service.ShiftService;
+
+/**
+ * 個人カレンダーの繰り返し取得でクエリを発行しないこと。
+ * ShiftCalendarCache は書き込みトランザクション内の読み込みをキャッシュしないため、
+ * このクラスはテスト全体をトランザクションで包まない（作ったデータは後で消す）。
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ShiftCalendarCachingIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserProfileRepository userProfileRepository;
+
+    @SpyBean
+    private ShiftRepository shiftRepository;
+
+    @Autowired
+    private ShiftService shiftService;
+
+    @Autowired
+    private ShiftCalendarService shiftCalendarService;
+
+    private UserProfile nurse;
+
+    @BeforeEach
+    void setUp() {
+        shiftRepository.deleteAll();
+        userProfileRepository.deleteAll();
+
+        UserProfile profile = new UserProfile();
+        profile.setUsername("ical-cache-nurse");
+        profile.setPassword("password");
+        profile.setRole("USER");
+        profile.setFirstName("花子");
+        profile.setLastName("看護師");
+        profile.setBirthDate(LocalDate.of(1990, 1, 1));
+        profile.setGender("female");
+        profile.setEmploymentType("正社員");
+        profile.setDepartment("amami");
+        nurse = userProfileRepository.save(profile);
+
+        ShiftGenerationForm form = new ShiftGenerationForm();
+        form.setDepartment("amami");
+        form.setShifts(Map.of(nurse.getId() + "_" + YearMonth.now().atDay(10), "夜"));
+        shiftService.saveShifts(form, Shift.Status.CONFIRMED);
+        clearInvocations(shiftRepository);
+    }
+
+    @AfterEach
+    void tearDown() {
+        shiftRepository.deleteAll();
+        userProfileRepository.deleteAll();
+    }
+
+    @Test
+    void 二回目の取得は保存がなければクエリを発行しない() throws Exception {
+        String url = "/api/shift/ical/" + nurse.getId() + ".ics?token=" + shiftCalendarService.tokenFor(nurse.getId());
+        int months = shiftCalendarService.feedMonths().size();
+
+        for (int i = 0; i < 2; i++) {
+            // If-None-Match を送らないクライアント（毎回 200 で本文を返す）
+            mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(content().string(Matchers.containsString("SUMMARY:夜（天美）\r\n")));
+        }
+
+        // 1回目に配信範囲の月ごとに1回ずつ読み、2回目はキャッシュから返す
+        verify(shiftRepository, times(months)).findByUser_IdAndDateBetween(eq(nurse.getId()), any(), any());
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.demo.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Map;
+
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.form.ShiftGenerationForm;
+import com.example.demo.model.Shift;
+import com.example.demo.model.UserProfile;
+import com.example.demo.repository.ShiftRepository;
+import com.example.demo.repository.UserProfileRepository;
+import com.example.demo.service.ShiftCalendarService;
+import com.example.demo.service.ShiftService;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+class ShiftCalendarIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserProfileRepository userProfileRepository;
+
+    @Autowired
+    private ShiftRepository shiftRepository;
+
+    @Autowired
+    private ShiftService shiftService;
+
+    @Autowired
+    private ShiftCalendarService shiftCalendarService;
+
+    private UserProfile nurse;
+    private LocalDate day1;
+    private LocalDate day2;
+
+    @BeforeEach
+    void setUp() {
+        shiftRepository.deleteAll();
+        userProfileRepository.deleteAll();
+
+        UserProfile profile = new UserProfile();
+        profile.setUsername("ical-nurse");
+        profile.setPassword("password");
+        profile.setRole("USER");
+        profile.setFirstName("花子");
+        profile.setLastName("看護師");
+        profile.setBirthDate(LocalDate.of(1990, 1, 1));
+        profile.setGender("female");
+        profile.setEmploymentType("正社員");
+        profile.setDepartment("amami");
+        nurse = userProfileRepository.save(profile);
+
+        // 配信範囲（今月）に入る日
+        YearMonth month = YearMonth.now();
+        day1 = month.atDay(10);
+        day2 = month.atDay(11);
+        save(day1, "夜", Shift.Status.CONFIRMED);
+        save(day2, "日", Shift.Status.DRAFT);
+    }
+
+    @Test
+    void 確定済みの勤務だけを配信し_変更がなければ304() throws Exception {
+        String etag = mockMvc.perform(get(feedUrl()))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CONTENT_TYPE, Matchers.startsWith("text/calendar")))
+            .andExpect(content().string(Matchers.containsString("BEGIN:VCALENDAR\r\n")))
+            .andExpect(content().string(Matchers.containsString("DTSTART;VALUE=DATE:" + compact(day1) + "\r\n")))
+            .andExpect(content().string(Matchers.containsString("SUMMARY:夜（天美）\r\n")))
+            .andExpect(content().string(Matchers.not(Matchers.containsString("DTSTART;VALUE=DATE:" + compact(day2)))))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotBlank();
+
+        mockMvc.perform(get(feedUrl()).header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isNotModified());
+
+        // 保存すると ETag が変わる
+        save(day2, "日", Shift.Status.CONFIRMED);
+        mockMvc.perform(get(feedUrl()).header(HttpHeaders.IF_NONE_MATCH, etag))
+            .andExpect(status().isOk())
+            .andExpect(content().string(Matchers.containsString("SUMMARY:日（天美）\r\n")));
+    }
+
+    @Test
+    void トークンが違えば404() throws Exception {
+        mockMvc.perform(get("/api/shift/ical/" + nurse.getId() + ".ics")
+                .param("token", shiftCalendarService.tokenFor(nurse.getId() + 1)))
+            .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/shift/ical/" + nurse.getId() + ".ics"))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void ログイン中の職員の配信URLを返す() throws Exception {
+        mockMvc.perform(get("/api/shift/ical/link").with(user("ical-nurse").roles("USER")))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.url").value(Matchers.endsWith(feedUrl())));
+    }
+
+    @Test
+    void 配信URLを作り直すと以前のURLは404() throws Exception {
+        String oldUrl = feedUrl();
+        mockMvc.perform(get(oldUrl)).andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/shift/ical/link/regenerate").with(user("ical-nurse").roles("USER")).with(csrf()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.url").value(Matchers.not(Matchers.endsWith(oldUrl))));
+
+        mockMvc.perform(get(oldUrl)).andExpect(status().isNotFound());
+        mockMvc.perform(get(feedUrl())).andExpect(status().isOk());
+        mockMvc.perform(get("/api/shift/ical/link").with(user("ical-nurse").roles("USER")))
+            .andExpect(jsonPath("$.url").value(Matchers.endsWith(feedUrl())));
+    }
+
+    @Test
+    void 削除されたユーザーのURLは404() throws Exception {
+        String url = feedUrl();
+        shiftRepository.deleteAll();
+        userProfileRepository.delete(nurse);
+        userProfileRepository.flush();
+
+        mockMvc.perform(get(url)).andExpect(status().isNotFound());
+    }
+
+    private String feedUrl() {
+        return "/api/shift/ical/" + nurse.getId() + ".ics?token=" + shiftCalendarService.tokenFor(nurse.getId());
+    }
+
+    private void save(LocalDate date, String value, Shift.Status status) {
+        ShiftGenerationForm form = new ShiftGenerationForm();
+        form.setDepartment("amami");
+        form.setShifts(Map.of(nurse.getId() + "_" + date, value));
+        shiftService.saveShifts(form, status);
+    }
+
+    private static String compact(LocalDate date) {
+        return date.toString().replace("-", "");
+    }
+}
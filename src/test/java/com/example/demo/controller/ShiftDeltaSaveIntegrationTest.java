@@ -0,0 +1,235 @@
+package com.example.demo.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.groups.Tuple.tuple;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.flash;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+
+import org.hamcrest.Matchers;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.model.Shift;
+import com.example.demo.model.ShiftType;
+import com.example.demo.model.UserProfile;
+import com.example.demo.repository.ShiftRepository;
+import com.example.demo.repository.UserProfileRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+class ShiftDeltaSaveIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserProfileRepository userProfileRepository;
+
+    @Autowired
+    private ShiftRepository shiftRepository;
+
+    private UserProfile nurse;
+
+    @BeforeEach
+    void setUp() {
+        shiftRepository.deleteAll();
+        userProfileRepository.deleteAll();
+
+        UserProfile profile = new UserProfile();
+        profile.setUsername("nurse1");
+        profile.setPassword("password");
+        profile.setRole("USER");
+        profile.setFirstName("花子");
+        profile.setLastName("看護師");
+        profile.setBirthDate(LocalDate.of(1990, 1, 1));
+        profile.setGender("female");
+        profile.setEmploymentType("正社員");
+        profile.setDepartment("amami");
+        nurse = userProfileRepository.save(profile);
+    }
+
+    @Test
+    void 変更したセルだけを保存し_新しいバージョンを返す() throws Exception {
+        String body = postDelta("DRAFT", "2024-05-10", "夜", 0)
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.applied").value(true))
+            .andExpect(jsonPath("$.cells[0].value").value("夜"))
+            .andReturn().getResponse().getContentAsString();
+        long version = objectMapper.readTree(body).at("/cells/0/version").asLong();
+        assertThat(version).isPositive();
+
+        Shift saved = shiftRepository.findByUser_IdAndDateAndDepartment(nurse.getId(), LocalDate.of(2024, 5, 10), "amami")
+                .orElseThrow();
+        assertThat(saved.getShiftType()).isEqualTo(ShiftType.NIGHT);
+        assertThat(saved.getStatus()).isEqualTo(Shift.Status.DRAFT);
+        // 送っていない日は触らない
+        assertThat(shiftRepository.findByUser_IdAndDateBetween(nurse.getId(),
+                LocalDate.of(2024, 5, 1), LocalDate.of(2024, 5, 31))).hasSize(1);
+
+        // 返ってきたバージョンで続けて保存できる（クリア）
+        postDelta("DRAFT", "2024-05-10", "-", version)
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.applied").value(true))
+            .andExpect(jsonPath("$.cells[0].value").value(""));
+        assertThat(shiftRepository.findByUser_IdAndDateAndDepartment(nurse.getId(), LocalDate.of(2024, 5, 10), "amami"))
+                .isEmpty();
+    }
+
+    @Test
+    void 古いバージョンに基づく変更は409で現在の値を返し_保存しない() throws Exception {
+        postDelta("DRAFT", "2024-05-10", "夜", 0).andExpect(status().isOk());
+
+        // 別の画面が 0（未変更）のつもりで送ってくる
+        String body = postDelta("CONFIRMED", "2024-05-10", "日", 0)
+            .andExpect(status().isConflict())
+            .andExpect(jsonPath("$.applied").value(false))
+            .andExpect(jsonPath("$.cells[0].value").value("夜"))
+            .andReturn().getResponse().getContentAsString();
+        JsonNode cell = objectMapper.readTree(body).at("/cells/0");
+        assertThat(cell.get("version").asLong()).isPositive();
+
+        Shift current = shiftRepository.findByUser_IdAndDateAndDepartment(nurse.getId(), LocalDate.of(2024, 5, 10), "amami")
+                .orElseThrow();
+        assertThat(current.getShiftType()).isEqualTo(ShiftType.NIGHT);
+        assertThat(current.getStatus()).isEqualTo(Shift.Status.DRAFT);
+    }
+
+    @Test
+    void 確定のフォーム送信も表示後に他の画面で変わったセルを上書きしない() throws Exception {
+        // 画面を開いた時点（何も入っていない）のバージョン
+        long baseVersion = 0;
+
+        // 開いた後に別の画面が差分保存した
+        String body = postDelta("DRAFT", "2024-05-10", "夜", 0).andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        long version = objectMapper.readTree(body).at("/cells/0/version").asLong();
+
+        // 表示後に変わったセルを別の値で確定しようとすると、どのセルも保存しない
+        postConfirm(baseVersion)
+            .andExpect(status().is3xxRedirection())
+            .andExpect(flash().attribute("notice", Matchers.containsString("保存しませんでした")));
+        Shift current = shiftRepository.findByUser_IdAndDateAndDepartment(nurse.getId(), LocalDate.of(2024, 5, 10), "amami")
+                .orElseThrow();
+        assertThat(current.getShiftType()).isEqualTo(ShiftType.NIGHT);
+        assertThat(current.getStatus()).isEqualTo(Shift.Status.DRAFT);
+        assertThat(shiftRepository.findByUser_IdAndDateAndDepartment(nurse.getId(), LocalDate.of(2024, 5, 11), "amami"))
+                .isEmpty();
+
+        // 再読み込みした画面（最新のバージョン）からなら確定できる
+        postConfirm(version)
+            .andExpect(status().is3xxRedirection())
+            .andExpect(flash().attribute("notice", "シフトを確定しました。"));
+        assertThat(shiftRepository.findByUser_IdAndDateAndDepartment(nurse.getId(), LocalDate.of(2024, 5, 10), "amami"))
+                .get().extracting(Shift::getShiftType).isEqualTo(ShiftType.DAY);
+    }
+
+    @Test
+    void 解釈できない勤務は400() throws Exception {
+        postDelta("DRAFT", "2024-05-10", "??", 0).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void 追加_変更_クリアを一度に保存できる() throws Exception {
+        String saved = postDelta("DRAFT", "2024-05-10", "夜", 0).andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        long version = objectMapper.readTree(saved).at("/cells/0/version").asLong();
+        saved = postDelta("DRAFT", "2024-05-11", "日", 0).andExpect(status().isOk())
+            .andReturn().getResponse().getContentAsString();
+        long clearedVersion = objectMapper.readTree(saved).at("/cells/0/version").asLong();
+
+        String json = "{\"department\":\"amami\",\"action\":\"CONFIRMED\",\"cells\":["
+                + cellJson(nurse.getId(), "2024-05-10", "明", version) + ","
+                + cellJson(nurse.getId(), "2024-05-11", "-", clearedVersion) + ","
+                + cellJson(nurse.getId(), "2024-05-12", "休", 0) + ","
+                + cellJson(nurse.getId(), "2024-06-01", "有", 0) + "]}";
+        postDeltaJson(json)
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.applied").value(true))
+            .andExpect(jsonPath("$.cells.length()").value(4));
+
+        assertThat(shiftRepository.findByUser_IdAndDateBetween(nurse.getId(),
+                LocalDate.of(2024, 5, 1), LocalDate.of(2024, 6, 30)))
+            .extracting(Shift::getDate, Shift::getShiftType, Shift::getStatus)
+            .containsExactlyInAnyOrder(
+                tuple(LocalDate.of(2024, 5, 10), ShiftType.AFTER_NIGHT, Shift.Status.CONFIRMED),
+                tuple(LocalDate.of(2024, 5, 12), ShiftType.OFF, Shift.Status.CONFIRMED),
+                tuple(LocalDate.of(2024, 6, 1), ShiftType.PAID_LEAVE, Shift.Status.CONFIRMED));
+    }
+
+    @Test
+    void 存在しないユーザーや部署に所属していないユーザーのセルは400で_何も保存しない() throws Exception {
+        UserProfile other = new UserProfile();
+        other.setUsername("nurse-main");
+        other.setPassword("password");
+        other.setRole("USER");
+        other.setFirstName("太郎");
+        other.setLastName("看護師");
+        other.setBirthDate(LocalDate.of(1990, 1, 1));
+        other.setGender("male");
+        other.setEmploymentType("正社員");
+        other.setDepartment("main");
+        other = userProfileRepository.save(other);
+
+        for (long userId : new long[] { other.getId(), other.getId() + 1000 }) {
+            String json = "{\"department\":\"amami\",\"action\":\"DRAFT\",\"cells\":["
+                    + cellJson(nurse.getId(), "2024-05-10", "夜", 0) + ","
+                    + cellJson(userId, "2024-05-10", "日", 0) + "]}";
+            postDeltaJson(json).andExpect(status().isBadRequest());
+        }
+
+        assertThat(shiftRepository.findByUser_IdAndDateBetween(nurse.getId(),
+                LocalDate.of(2024, 5, 1), LocalDate.of(2024, 5, 31))).isEmpty();
+    }
+
+    // 10日を「日」、11日を「日」にして確定する（表示時のバージョンつき）
+    private ResultActions postConfirm(long baseVersion) throws Exception {
+        return mockMvc.perform(post("/api/shift/request/save")
+                .with(user("user").roles("USER"))
+                .with(csrf())
+                .param("action", "CONFIRMED")
+                .param("department", "amami")
+                .param("targetMonth", "2024-05")
+                .param("baseVersion", String.valueOf(baseVersion))
+                .param("shifts[" + nurse.getId() + "_2024-05-10]", "日")
+                .param("shifts[" + nurse.getId() + "_2024-05-11]", "日"));
+    }
+
+    private ResultActions postDelta(String action, String date, String value, long version) throws Exception {
+        return postDeltaJson("{\"department\":\"amami\",\"action\":\"" + action + "\",\"cells\":["
+                + cellJson(nurse.getId(), date, value, version) + "]}");
+    }
+
+    private static String cellJson(long userId, String date, String value, long version) {
+        return "{\"userId\":" + userId + ",\"date\":\"" + date + "\",\"value\":\"" + value
+                + "\",\"version\":" + version + "}";
+    }
+
+    private ResultActions postDeltaJson(String json) throws Exception {
+        return mockMvc.perform(post("/api/shift/request/delta")
+                .with(user("user").roles("USER"))
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(json));
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.demo.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mozilla.javascript.Context;
+import org.mozilla.javascript.Scriptable;
+import org.springframework.core.io.ClassPathResource;
+
+/**
+ * 勤務表編集画面の未保存セルの記録（static/js/shift-dirty-cells.js）のテスト。
+ * 行ウィンドウ表示で行が描画外になっても、差分保存の送信内容を組み立てられることを確認する。
+ */
+class ShiftDirtyCellsScriptTest {
+
+    private Context cx;
+    private Scriptable scope;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        cx = Context.enter();
+        cx.setLanguageVersion(Context.VERSION_ES6);
+        scope = cx.initStandardObjects();
+        try (Reader reader = new InputStreamReader(
+                new ClassPathResource("static/js/shift-dirty-cells.js").getInputStream(), StandardCharsets.UTF_8)) {
+            cx.evaluateReader(scope, reader, "shift-dirty-cells.js", 1, null);
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        Context.exit();
+    }
+
+    private String eval(String script) {
+        return Context.toString(cx.evaluateString(scope, script, "test", 1, null));
+    }
+
+    @Test
+    void 描画外になった行のセルも記録から保存内容を組み立てられる() {
+        // 行を描画していた間に変更し、その後スクロールで行が DOM から消えた（記録は DOM を参照しない）
+        String cells = eval("""
+                var dirty = new ShiftDirtyCells();
+                dirty.setOriginal('12_2031-04-01', '日');
+                dirty.mark('12_2031-04-01', {userId: 12, date: '2031-04-01', version: 7, value: '休'});
+                JSON.stringify(dirty.toRequestCells());
+                """);
+
+        assertThat(cells).isEqualTo("[{\"userId\":12,\"date\":\"2031-04-01\",\"value\":\"休\",\"version\":7}]");
+    }
+
+    @Test
+    void 再描画後に変更し直しても最初に読んだバージョンで送る() {
+        // 描画外の間にサーバ側で更新され、再描画した行のバージョンが進んでいても、競合を検出できるよう元のバージョンを保つ
+        String cells = eval("""
+                var dirty = new ShiftDirtyCells();
+                dirty.setOriginal('12_2031-04-01', '日');
+                dirty.mark('12_2031-04-01', {userId: 12, date: '2031-04-01', version: 7, value: '休'});
+                dirty.mark('12_2031-04-01', {userId: 12, date: '2031-04-01', version: 9, value: '有'});
+                JSON.stringify(dirty.toRequestCells());
+                """);
+
+        assertThat(cells).isEqualTo("[{\"userId\":12,\"date\":\"2031-04-01\",\"value\":\"有\",\"version\":7}]");
+    }
+
+    @Test
+    void 表示時の値に戻したセルと保存済みのセルは送らない() {
+        String size = eval("""
+                var dirty = new ShiftDirtyCells();
+                dirty.setOriginal('12_2031-04-01', '日');
+                dirty.mark('12_2031-04-01', {userId: 12, date: '2031-04-01', version: 7, value: '休'});
+                dirty.mark('12_2031-04-01', {userId: 12, date: '2031-04-01', version: 7, value: '日'});
+                dirty.mark('12_2031-04-02', {userId: 12, date: '2031-04-02', version: 0, value: '夜'});
+                dirty.clear('12_2031-04-02');
+                dirty.size() + ':' + dirty.has('12_2031-04-01') + ':' + dirty.has('12_2031-04-02');
+                """);
+
+        assertThat(size).isEqualTo("0:false:false");
+    }
+}
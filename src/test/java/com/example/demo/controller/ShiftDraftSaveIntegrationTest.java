@@ -1,10 +1,12 @@
 package com.example.demo.controller;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.flash;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrlPattern;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -23,6 +25,7 @@ import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 
 import com.example.demo.model.Shift;
+import com.example.demo.model.ShiftType;
 import com.example.demo.model.UserProfile;
 import com.example.demo.repository.ShiftRepository;
 import com.example.demo.repository.UserProfileRepository;
@@ -81,7 +84,7 @@ class ShiftDraftSaveIntegrationTest {
         List<Shift> stored = shiftRepository.findAll();
         assertThat(stored).hasSize(1);
         Shift saved = stored.get(0);
-        assertThat(saved.getShiftType()).isEqualTo("夜");
+        assertThat(saved.getShiftType()).isEqualTo(ShiftType.NIGHT);
         assertThat(saved.getStatus()).isEqualTo(Shift.Status.DRAFT);
 
         MvcResult result = mockMvc.perform(get("/shift/generate")
@@ -93,9 +96,28 @@ class ShiftDraftSaveIntegrationTest {
 
         Map<String, Object> model = result.getModelAndView().getModel();
         @SuppressWarnings("unchecked")
-        Map<String, String> shiftMap = (Map<String, String>) model.get("shiftMap");
+        Map<String, ShiftType> shiftMap = (Map<String, ShiftType>) model.get("shiftMap");
 
         assertThat(shiftMap).isNotNull();
-        assertThat(shiftMap).containsEntry(cellKey, "夜");
+        assertThat(shiftMap).containsEntry(cellKey, ShiftType.NIGHT);
+    }
+
+    @Test
+    void 勤務として解釈できない値があれば何も保存せず通知する() throws Exception {
+        String validKey = nurse.getId() + "_2024-05-10";
+        String invalidKey = nurse.getId() + "_2024-05-11";
+
+        mockMvc.perform(post("/api/shift/request/save")
+                .with(user("user").roles("USER"))
+                .with(csrf())
+                .param("action", "DRAFT")
+                .param("department", "amami")
+                .param("targetMonth", "2024-05")
+                .param("shifts[" + validKey + "]", "夜")
+                .param("shifts[" + invalidKey + "]", "夜勤"))
+            .andExpect(status().is3xxRedirection())
+            .andExpect(flash().attribute("notice", containsString("登録できない値のセルがあるため保存しませんでした（1件: " + invalidKey)));
+
+        assertThat(shiftRepository.findAll()).isEmpty();
     }
 }
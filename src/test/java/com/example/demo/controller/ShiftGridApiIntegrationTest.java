@@ -0,0 +1,146 @@
+package com.example.demo.controller;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.model.UserProfile;
+import com.example.demo.repository.ShiftRepository;
+import com.example.demo.repository.UserProfileRepository;
+import com.example.demo.service.UserDirectory;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+class ShiftGridApiIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserProfileRepository userProfileRepository;
+
+    @Autowired
+    private ShiftRepository shiftRepository;
+
+    @Autowired
+    private UserDirectory userDirectory;
+
+    private UserProfile nurse;
+
+    @BeforeEach
+    void setUp() {
+        shiftRepository.deleteAll();
+        userProfileRepository.deleteAll();
+
+        UserProfile profile = new UserProfile();
+        profile.setUsername("nurse1");
+        profile.setPassword("password");
+        profile.setRole("USER");
+        profile.setFirstName("花子");
+        profile.setLastName("看護師");
+        profile.setBirthDate(LocalDate.of(1990, 1, 1));
+        profile.setGender("female");
+        profile.setEmploymentType("正社員");
+        profile.setDepartment("amami");
+        nurse = userProfileRepository.save(profile);
+        userDirectory.reload();
+    }
+
+    @Test
+    void ユーザー行ごとのコード列で返し_変更がなければ304() throws Exception {
+        mockMvc.perform(post("/api/shift/request/save")
+                .with(user("user").roles("USER"))
+                .with(csrf())
+                .param("action", "DRAFT")
+                .param("department", "amami")
+                .param("targetMonth", "2024-02")
+                .param("shifts[" + nurse.getId() + "_2024-02-01]", "日")
+                .param("shifts[" + nurse.getId() + "_2024-02-29]", "夜"))
+            .andExpect(status().is3xxRedirection());
+
+        String etag = mockMvc.perform(get("/api/shift/grid")
+                .with(user("user").roles("USER"))
+                .param("department", "amami")
+                .param("month", "2024-02"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.origin").value("2024-02-01"))
+            .andExpect(jsonPath("$.days").value(29))
+            .andExpect(jsonPath("$.userIds[0]").value(nurse.getId()))
+            .andExpect(jsonPath("$.names[0]").value("看護師 花子"))
+            .andExpect(jsonPath("$.rows[0]").value("D" + ".".repeat(27) + "N"))
+            .andExpect(jsonPath("$.legend.N").value("夜"))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/shift/grid")
+                .with(user("user").roles("USER"))
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .param("department", "amami")
+                .param("month", "2024-02"))
+            .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void 行範囲を指定するとその範囲の行とセルのバージョンだけを返す() throws Exception {
+        UserProfile second = new UserProfile();
+        second.setUsername("nurse2");
+        second.setPassword("password");
+        second.setRole("USER");
+        second.setFirstName("太郎");
+        second.setLastName("看護師");
+        second.setBirthDate(LocalDate.of(1991, 1, 1));
+        second.setGender("male");
+        second.setEmploymentType("正社員");
+        second.setDepartment("amami");
+        second = userProfileRepository.save(second);
+        userDirectory.reload();
+
+        mockMvc.perform(post("/api/shift/request/save")
+                .with(user("user").roles("USER"))
+                .with(csrf())
+                .param("action", "DRAFT")
+                .param("department", "amami")
+                .param("targetMonth", "2024-02")
+                .param("shifts[" + second.getId() + "_2024-02-03]", "休"))
+            .andExpect(status().is3xxRedirection());
+
+        mockMvc.perform(get("/api/shift/grid")
+                .with(user("user").roles("USER"))
+                .param("department", "amami")
+                .param("month", "2024-02")
+                .param("offset", "1")
+                .param("limit", "10"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.total").value(2))
+            .andExpect(jsonPath("$.offset").value(1))
+            .andExpect(jsonPath("$.userIds.length()").value(1))
+            .andExpect(jsonPath("$.userIds[0]").value(second.getId()))
+            .andExpect(jsonPath("$.rows[0]").value("..O" + ".".repeat(26)))
+            .andExpect(jsonPath("$.versions[0]['3']").isNumber());
+    }
+
+    @Test
+    void 未登録の部署は404() throws Exception {
+        mockMvc.perform(get("/api/shift/grid")
+                .with(user("user").roles("USER"))
+                .param("department", "nowhere")
+                .param("month", "2024-02"))
+            .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.demo.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.model.UserProfile;
+import com.example.demo.repository.ShiftRepository;
+import com.example.demo.repository.UserProfileRepository;
+import com.example.demo.service.UserDirectory;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+class ShiftGridEtagIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserProfileRepository userProfileRepository;
+
+    @Autowired
+    private ShiftRepository shiftRepository;
+
+    @Autowired
+    private UserDirectory userDirectory;
+
+    private UserProfile nurse;
+    private MockHttpSession session;
+
+    @BeforeEach
+    void setUp() {
+        shiftRepository.deleteAll();
+        userProfileRepository.deleteAll();
+
+        UserProfile profile = new UserProfile();
+        profile.setUsername("nurse1");
+        profile.setPassword("password");
+        profile.setRole("USER");
+        profile.setFirstName("花子");
+        profile.setLastName("看護師");
+        profile.setBirthDate(LocalDate.of(1990, 1, 1));
+        profile.setGender("female");
+        profile.setEmploymentType("正社員");
+        profile.setDepartment("amami");
+        nurse = userProfileRepository.save(profile);
+
+        session = new MockHttpSession();
+    }
+
+    @Test
+    void 変更がなければ304を返し_保存後は再描画する() throws Exception {
+        String etag = mockMvc.perform(get("/shift/list")
+                .session(session)
+                .with(user("user").roles("USER"))
+                .param("department", "amami")
+                .param("month", "2024-05"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "private, no-cache"))
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotBlank();
+
+        // 変更なし → 304（本文なし）
+        mockMvc.perform(get("/shift/list")
+                .session(session)
+                .with(user("user").roles("USER"))
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .param("department", "amami")
+                .param("month", "2024-05"))
+            .andExpect(status().isNotModified());
+
+        // 保存すると ETag が変わる
+        mockMvc.perform(post("/api/shift/request/save")
+                .session(session)
+                .with(user("user").roles("USER"))
+                .with(csrf())
+                .param("action", "DRAFT")
+                .param("department", "amami")
+                .param("targetMonth", "2024-05")
+                .param("shifts[" + nurse.getId() + "_2024-05-10]", "夜"))
+            .andExpect(status().is3xxRedirection());
+
+        mockMvc.perform(get("/shift/list")
+                .session(session)
+                .with(user("user").roles("USER"))
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .param("department", "amami")
+                .param("month", "2024-05"))
+            .andExpect(status().isOk());
+    }
+
+    @Test
+    void 別の月の保存ではETagは変わらない() throws Exception {
+        String etag = mockMvc.perform(get("/shift/list")
+                .session(session)
+                .with(user("user").roles("USER"))
+                .param("department", "amami")
+                .param("month", "2024-05"))
+            .andExpect(status().isOk())
+            .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(post("/api/shift/request/save")
+                .session(session)
+                .with(user("user").roles("USER"))
+                .with(csrf())
+                .param("action", "DRAFT")
+                .param("department", "main")
+                .param("targetMonth", "2024-06")
+                .param("shifts[" + nurse.getId() + "_2024-06-10]", "夜"))
+            .andExpect(status().is3xxRedirection());
+
+        mockMvc.perform(get("/shift/list")
+                .session(session)
+                .with(user("user").roles("USER"))
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .param("department", "amami")
+                .param("month", "2024-05"))
+            .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void 一覧のセルに保存した勤務が表示される() throws Exception {
+        userDirectory.reload();
+        mockMvc.perform(post("/api/shift/request/save")
+                .session(session)
+                .with(user("user").roles("USER"))
+                .with(csrf())
+                .param("action", "DRAFT")
+                .param("department", "amami")
+                .param("targetMonth", "2024-05")
+                .param("shifts[" + nurse.getId() + "_2024-05-10]", "臨(確)"))
+            .andExpect(status().is3xxRedirection());
+
+        mockMvc.perform(get("/shift/list")
+                .session(session)
+                .with(user("user").roles("USER"))
+                .param("department", "amami")
+                .param("month", "2024-05"))
+            .andExpect(status().isOk())
+            .andExpect(content().string(containsString("<td class=\"臨(確)\">臨(確)</td>")));
+    }
+}
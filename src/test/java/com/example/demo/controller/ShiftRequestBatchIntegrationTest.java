@@ -0,0 +1,201 @@
+package com.example.demo.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.dto.ShiftRequestRow;
+import com.example.demo.model.ShiftRequest;
+import com.example.demo.model.UserProfile;
+import com.example.demo.repository.ShiftRequestRepository;
+import com.example.demo.repository.UserProfileRepository;
+import com.example.demo.service.BulkImportService;
+import com.example.demo.service.UserDirectory;
+
+// バッチサイズを小さくして、複数回に分けた書き込みも通す
+@SpringBootTest(properties = "shift.import.batch-size=2")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+class ShiftRequestBatchIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserProfileRepository userProfileRepository;
+
+    @Autowired
+    private ShiftRequestRepository shiftRequestRepository;
+
+    @Autowired
+    private UserDirectory userDirectory;
+
+    @Autowired
+    private BulkImportService bulkImportService;
+
+    private UserProfile nurse;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM shift_requests");
+
+        UserProfile profile = new UserProfile();
+        profile.setUsername("request-nurse");
+        profile.setPassword("password");
+        profile.setRole("USER");
+        profile.setFirstName("花子");
+        profile.setLastName("看護師");
+        profile.setBirthDate(LocalDate.of(1990, 1, 1));
+        profile.setGender("female");
+        profile.setEmploymentType("正社員");
+        profile.setDepartment("amami");
+        nurse = userProfileRepository.save(profile);
+        userDirectory.reload();
+
+        existing(LocalDate.of(2031, 5, 2), "休", ShiftRequest.RequestStatus.DRAFT);
+        existing(LocalDate.of(2031, 5, 3), "休", ShiftRequest.RequestStatus.DRAFT);
+        existing(LocalDate.of(2031, 5, 4), "休", ShiftRequest.RequestStatus.CONFIRMED);
+    }
+
+    @Test
+    void 月の申請をまとめて登録し_日ごとの結果を返す() throws Exception {
+        String body = """
+                [
+                  {"date": "2031-05-01", "requestType": "休"},
+                  {"date": "2031-05-02", "requestType": "有"},
+                  {"date": "2031-05-03", "requestType": "休"},
+                  {"date": "2031-05-04", "requestType": "有"},
+                  {"date": "2031-05-05", "requestType": "有", "department": "amami"},
+                  {"date": "2031-05-05", "requestType": "休"},
+                  {"date": "2031-06-01", "requestType": "休"},
+                  {"date": "2031-05-06", "requestType": "日"},
+                  {"date": "2031-05-07", "requestType": "休", "userId": %d}
+                ]
+                """.formatted(nurse.getId() + 1);
+
+        mockMvc.perform(post("/api/shift/requests").param("month", "2031-05")
+                .with(user("request-nurse").roles("USER")).with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.department").value("amami"))
+            .andExpect(jsonPath("$.month").value("2031-05"))
+            .andExpect(jsonPath("$.saved").value(3))
+            .andExpect(jsonPath("$.days.length()").value(9))
+            .andExpect(jsonPath("$.days[0].outcome").value("CREATED"))
+            .andExpect(jsonPath("$.days[1].outcome").value("UPDATED"))
+            .andExpect(jsonPath("$.days[2].outcome").value("UNCHANGED"))
+            .andExpect(jsonPath("$.days[3].outcome").value("REJECTED"))
+            .andExpect(jsonPath("$.days[4].outcome").value("CREATED"))
+            .andExpect(jsonPath("$.days[5].outcome").value("REJECTED"))
+            .andExpect(jsonPath("$.days[6].outcome").value("REJECTED"))
+            .andExpect(jsonPath("$.days[7].outcome").value("REJECTED"))
+            .andExpect(jsonPath("$.days[8].outcome").value("REJECTED"));
+
+        assertThat(requestTypes()).containsExactlyInAnyOrderEntriesOf(Map.of(
+                "2031-05-01", "休",
+                "2031-05-02", "有",
+                "2031-05-03", "休",
+                "2031-05-04", "休",
+                "2031-05-05", "有"));
+    }
+
+    @Test
+    void 申請が多すぎれば400() throws Exception {
+        StringBuilder body = new StringBuilder("[");
+        for (int i = 0; i < 63; i++) {
+            body.append(i == 0 ? "" : ",").append("{\"date\": \"2031-05-01\", \"requestType\": \"休\"}");
+        }
+        body.append("]");
+
+        mockMvc.perform(post("/api/shift/requests").param("month", "2031-05")
+                .with(user("request-nurse").roles("USER")).with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body.toString()))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void 配列のnull要素はその日だけ却下し_残りの日は登録する() throws Exception {
+        String body = """
+                [
+                  null,
+                  {"date": "2031-05-10", "requestType": "休"}
+                ]
+                """;
+
+        mockMvc.perform(post("/api/shift/requests").param("month", "2031-05")
+                .with(user("request-nurse").roles("USER")).with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.saved").value(1))
+            .andExpect(jsonPath("$.days[0].outcome").value("REJECTED"))
+            .andExpect(jsonPath("$.days[0].message").value("申請が空です"))
+            .andExpect(jsonPath("$.days[1].outcome").value("CREATED"));
+
+        assertThat(requestTypes()).containsEntry("2031-05-10", "休");
+    }
+
+    @Test
+    void 照合の後に確定された申請は一括申請の書き込みで下書きに戻さない() {
+        // 照合時には下書きだった行を、書き込む前に管理者が確定した状態を作る
+        jdbcTemplate.update("UPDATE shift_requests SET status = 'CONFIRMED' WHERE user_id = ? AND date = ?",
+                nurse.getId(), LocalDate.of(2031, 5, 2));
+
+        int written = bulkImportService.upsertDraftRequests(List.of(
+                new ShiftRequestRow(nurse.getId(), LocalDate.of(2031, 5, 2), "amami", "有"),
+                new ShiftRequestRow(nurse.getId(), LocalDate.of(2031, 5, 3), "amami", "有"),
+                new ShiftRequestRow(nurse.getId(), LocalDate.of(2031, 5, 8), "amami", "休")), "request-nurse");
+
+        assertThat(written).isEqualTo(2);
+        assertThat(requestTypes()).containsEntry("2031-05-02", "休")
+                .containsEntry("2031-05-03", "有")
+                .containsEntry("2031-05-08", "休");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT status FROM shift_requests WHERE user_id = ? AND date = ?",
+                String.class, nurse.getId(), LocalDate.of(2031, 5, 2))).isEqualTo("CONFIRMED");
+    }
+
+    private void existing(LocalDate date, String type, ShiftRequest.RequestStatus status) {
+        ShiftRequest request = new ShiftRequest();
+        request.setUser(nurse);
+        request.setDate(date);
+        request.setRequestType(type);
+        request.setDepartment("amami");
+        request.setStatus(status);
+        shiftRequestRepository.saveAndFlush(request);
+    }
+
+    // JDBC で書き込むため、永続化コンテキストを通さずに確認する
+    private Map<String, String> requestTypes() {
+        Map<String, String> types = new HashMap<>();
+        jdbcTemplate.query("SELECT date, request_type FROM shift_requests WHERE user_id = ?",
+                rs -> { types.put(rs.getDate("date").toLocalDate().toString(), rs.getString("request_type")); },
+                nurse.getId());
+        return types;
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.demo.controller;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.view;
+
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.model.UserProfile;
+import com.example.demo.repository.UserProfileRepository;
+
+/**
+ * 未登録の部署コードは部署の変換（DepartmentConverter）に渡す前に弾き、500 にしない
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+class UnknownDepartmentIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserProfileRepository userProfileRepository;
+
+    private static final String UNKNOWN_DEPARTMENT_JSON = """
+            {"username": "dept-check", "password": "password", "role": "USER",
+             "firstName": "花子", "lastName": "看護師", "birthDate": "1990-01-01",
+             "gender": "female", "employmentType": "正社員", "department": "no-such-dept"}
+            """;
+
+    @Test
+    void ユーザー一覧は未登録の部署なら404_カーソルの部署が不正なら400() throws Exception {
+        mockMvc.perform(get("/api/user/list").param("department", "no-such-dept")
+                .with(user("admin").roles("ADMIN")))
+            .andExpect(status().isNotFound());
+        mockMvc.perform(get("/user/list").param("department", "no-such-dept")
+                .with(user("admin").roles("ADMIN")))
+            .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/user/list").param("afterDepartment", "no-such-dept").param("afterId", "1")
+                .with(user("admin").roles("ADMIN")))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void 勤務表の出力は未登録の部署なら404() throws Exception {
+        mockMvc.perform(get("/shift/export.csv").param("department", "no-such-dept")
+                .with(user("admin").roles("ADMIN")))
+            .andExpect(status().isNotFound());
+        mockMvc.perform(get("/shift/export.xlsx").param("department", "no-such-dept")
+                .with(user("admin").roles("ADMIN")))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void ユーザー登録_更新APIは未登録の部署なら400() throws Exception {
+        mockMvc.perform(post("/api/user/register")
+                .contentType(MediaType.APPLICATION_JSON).content(UNKNOWN_DEPARTMENT_JSON)
+                .with(user("admin").roles("ADMIN")).with(csrf()))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.department").exists());
+
+        UserProfile saved = userProfileRepository.save(profile("dept-check-existing"));
+        mockMvc.perform(put("/api/user/" + saved.getId())
+                .contentType(MediaType.APPLICATION_JSON).content(UNKNOWN_DEPARTMENT_JSON)
+                .with(user("admin").roles("ADMIN")).with(csrf()))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.department").exists());
+
+        assertThat(userProfileRepository.findById(saved.getId()).orElseThrow().getDepartment()).isEqualTo("amami");
+        assertThat(userProfileRepository.findAll()).noneMatch(p -> "dept-check".equals(p.getUsername()));
+    }
+
+    @Test
+    void 登録画面と編集画面は未登録の部署なら入力エラーで同じ画面に戻る() throws Exception {
+        mockMvc.perform(post("/user/register/complete")
+                .param("username", "dept-check").param("password", "password").param("role", "USER")
+                .param("firstName", "花子").param("lastName", "看護師").param("birthDate", "1990-01-01")
+                .param("gender", "female").param("employmentType", "正社員").param("department", "no-such-dept")
+                .with(user("admin").roles("ADMIN")).with(csrf()))
+            .andExpect(status().isOk())
+            .andExpect(view().name("user/register"))
+            .andExpect(model().attributeHasFieldErrors("userProfileDto", "department"));
+
+        UserProfile saved = userProfileRepository.save(profile("dept-check-existing"));
+        mockMvc.perform(post("/user/edit/complete")
+                .param("id", saved.getId().toString()).param("username", saved.getUsername())
+                .param("firstName", "花子").param("lastName", "看護師").param("department", "no-such-dept")
+                .with(user("admin").roles("ADMIN")).with(csrf()))
+            .andExpect(status().isOk())
+            .andExpect(view().name("user/edit"))
+            .andExpect(model().attributeHasFieldErrors("user", "department"));
+
+        assertThat(userProfileRepository.findById(saved.getId()).orElseThrow().getDepartment()).isEqualTo("amami");
+    }
+
+    private static UserProfile profile(String username) {
+        UserProfile profile = new UserProfile();
+        profile.setUsername(username);
+        profile.setPassword("password");
+        profile.setRole("USER");
+        profile.setFirstName("花子");
+        profile.setLastName("看護師");
+        profile.setBirthDate(LocalDate.of(1990, 1, 1));
+        profile.setGender("female");
+        profile.setEmploymentType("正社員");
+        profile.setDepartment("amami");
+        return profile;
+    }
+}
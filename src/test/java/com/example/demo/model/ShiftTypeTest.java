@@ -0,0 +1,30 @@
+package com.example.demo.model;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class ShiftTypeTest {
+
+    private final ShiftTypeConverter converter = new ShiftTypeConverter();
+
+    @Test
+    void 表示文字列とDBコードを相互に変換できる() {
+        for (ShiftType type : ShiftType.values()) {
+            assertThat(ShiftType.fromLabel(type.getLabel())).isSameAs(type);
+            assertThat(converter.convertToEntityAttribute(converter.convertToDatabaseColumn(type))).isSameAs(type);
+            assertThat(ShiftType.fromPacked(type.getPacked())).isSameAs(type);
+        }
+        assertThat(ShiftType.fromLabel(" 夜 ")).isSameAs(ShiftType.NIGHT);
+    }
+
+    @Test
+    void 未定義の値は受け付けない() {
+        assertThat(ShiftType.fromLabel("遅")).isNull();
+        assertThat(ShiftType.fromLabel(null)).isNull();
+        assertThat(ShiftType.fromPacked('.')).isNull();
+        assertThat(converter.convertToDatabaseColumn(null)).isNull();
+        assertThat(converter.convertToEntityAttribute(null)).isNull();
+        assertThatThrownBy(() -> ShiftType.fromCode((short) 99)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.demo.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.model.Shift;
+import com.example.demo.model.ShiftType;
+import com.example.demo.model.UserProfile;
+import com.example.demo.service.DepartmentRegistry;
+
+/**
+ * findEffectiveByDepartmentAndDateBetween の優先順位（同じユーザー・日に複数行ある場合にどれを返すか）。
+ * 一意制約があると競合する行を作れないため、このクラスの間だけ制約を外す。
+ * 制約の変更（DDL）はトランザクションに含められないので、テストはトランザクションで包まずに後で元に戻す。
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+// 部署コード ⇔ department_id の変換（DepartmentConverter）に使う
+@Import(DepartmentRegistry.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ShiftEffectiveCellsTest {
+
+    private static final LocalDate DAY = LocalDate.of(2031, 8, 1);
+    private static final LocalDateTime OLDER = LocalDateTime.of(2031, 7, 1, 9, 0);
+    private static final LocalDateTime NEWER = LocalDateTime.of(2031, 7, 2, 9, 0);
+
+    @Autowired
+    private ShiftRepository shiftRepository;
+
+    @Autowired
+    private UserProfileRepository userRepository;
+
+    @Autowired
+    private DepartmentRegistry departmentRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UserProfile user;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("ALTER TABLE shifts DROP CONSTRAINT uk_shifts_user_date_department");
+
+        UserProfile profile = new UserProfile();
+        profile.setUsername("effective-cells");
+        profile.setPassword("pass");
+        profile.setFirstName("Hanako");
+        profile.setLastName("Yamada");
+        profile.setDepartment("main");
+        profile.setEmploymentType("正社員");
+        user = userRepository.save(profile);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM shifts WHERE user_id = ?", user.getId());
+        userRepository.deleteById(user.getId());
+        jdbcTemplate.execute("ALTER TABLE shifts ADD CONSTRAINT uk_shifts_user_date_department"
+                + " UNIQUE (user_id, date, department_id)");
+    }
+
+    @Test
+    void 同じセルの行が複数あれば_下書き_更新が新しい_IDが大きい_の順で1行だけ返す() {
+        // 1日目：下書きは更新が古くても確定より優先
+        insert(DAY, ShiftType.DAY, "DRAFT", OLDER);
+        insert(DAY, ShiftType.NIGHT, "CONFIRMED", NEWER);
+        // 2日目：同じ状態なら更新が新しい方
+        insert(DAY.plusDays(1), ShiftType.NIGHT, "CONFIRMED", NEWER);
+        insert(DAY.plusDays(1), ShiftType.OFF, "CONFIRMED", OLDER);
+        // 3日目：更新日時が同じなら ID が大きい（後から入った）方
+        insert(DAY.plusDays(2), ShiftType.DAY, "CONFIRMED", NEWER);
+        insert(DAY.plusDays(2), ShiftType.AFTER_NIGHT, "CONFIRMED", NEWER);
+        // 4日目：更新日時のない行は後回し
+        insert(DAY.plusDays(3), ShiftType.PAID_LEAVE, "CONFIRMED", null);
+        insert(DAY.plusDays(3), ShiftType.OFF, "CONFIRMED", OLDER);
+        // 他部署の行は対象外
+        insertIn("amami", DAY.plusDays(4), ShiftType.NIGHT, "DRAFT", NEWER);
+
+        List<Shift> cells = shiftRepository.findEffectiveByDepartmentAndDateBetween("main", DAY, DAY.plusDays(4));
+
+        Map<LocalDate, ShiftType> byDate = cells.stream()
+                .collect(Collectors.toMap(Shift::getDate, Shift::getShiftType));
+        assertThat(cells).hasSize(4);
+        assertThat(byDate).containsExactlyInAnyOrderEntriesOf(Map.of(
+                DAY, ShiftType.DAY,
+                DAY.plusDays(1), ShiftType.NIGHT,
+                DAY.plusDays(2), ShiftType.AFTER_NIGHT,
+                DAY.plusDays(3), ShiftType.OFF));
+    }
+
+    private void insert(LocalDate date, ShiftType type, String status, LocalDateTime updatedAt) {
+        insertIn("main", date, type, status, updatedAt);
+    }
+
+    // エンティティの @PreUpdate で updated_at が上書きされないよう JDBC で入れる
+    private void insertIn(String department, LocalDate date, ShiftType type, String status, LocalDateTime updatedAt) {
+        jdbcTemplate.update("INSERT INTO shifts (date, user_id, shift_type, department_id, status, updated_at)"
+                        + " VALUES (?, ?, ?, ?, ?, ?)",
+                date, user.getId(), type.getCode(), departmentRegistry.idOf(department), status,
+                updatedAt != null ? Timestamp.valueOf(updatedAt) : null);
+    }
+}
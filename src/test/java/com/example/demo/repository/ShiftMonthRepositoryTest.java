@@ -0,0 +1,116 @@
+package com.example.demo.repository;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import com.example.demo.model.Shift;
+import com.example.demo.model.ShiftMonth;
+import com.example.demo.model.ShiftType;
+import com.example.demo.model.UserProfile;
+import com.example.demo.service.DepartmentRegistry;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+// 部署コード ⇔ department_id の変換（DepartmentConverter）に使う
+@Import(DepartmentRegistry.class)
+public class ShiftMonthRepositoryTest {
+
+    @Autowired
+    private ShiftMonthRepository shiftMonthRepository;
+
+    @Autowired
+    private UserProfileRepository userRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void 月単位の行を保存し互換ビューで日単位に展開できる() {
+        UserProfile user = new UserProfile();
+        user.setUsername("monthuser");
+        user.setPassword("pass");
+        user.setFirstName("Hanako");
+        user.setLastName("Yamada");
+        user.setDepartment("main");
+        user.setEmploymentType("正社員");
+        userRepository.save(user);
+
+        ShiftMonth month = new ShiftMonth(user, "main", YearMonth.of(2025, 2));
+        month.setCell(1, ShiftType.DAY, Shift.Status.CONFIRMED, false, false);
+        month.setCell(28, ShiftType.NIGHT, Shift.Status.DRAFT, true, true);
+        shiftMonthRepository.save(month);
+        entityManager.flush();
+        entityManager.clear();
+
+        // 1ユーザー1か月1行
+        List<ShiftMonth> rows = shiftMonthRepository.findByDepartmentAndMonthStartBetween(
+                "main", LocalDate.of(2025, 2, 1), LocalDate.of(2025, 2, 1));
+        assertThat(rows).hasSize(1);
+        assertThat(rows.get(0).getCodes()).hasSize(28);
+        assertThat(rows.get(0).getShiftType(1)).isEqualTo(ShiftType.DAY);
+        assertThat(rows.get(0).getShiftType(2)).isNull();
+        assertThat(rows.get(0).isDraft(28)).isTrue();
+
+        // 互換ビュー：設定済みの日だけが shifts と同じ列（勤務種別は smallint コード）で返る
+        List<Map<String, Object>> days = jdbcTemplate.queryForList(
+                "SELECT date, shift_type, status, is_temporary, is_fixed FROM shift_days"
+              + " WHERE user_id = ? ORDER BY date", user.getId());
+        assertThat(days).hasSize(2);
+        assertThat(((Number) days.get(0).get("shift_type")).shortValue()).isEqualTo(ShiftType.DAY.getCode());
+        assertThat(days.get(0).get("status")).isEqualTo("CONFIRMED");
+        assertThat(days.get(0).get("is_temporary")).isEqualTo(false);
+        assertThat(((Number) days.get(1).get("shift_type")).shortValue()).isEqualTo(ShiftType.NIGHT.getCode());
+        assertThat(days.get(1).get("status")).isEqualTo("DRAFT");
+        assertThat(days.get(1).get("is_fixed")).isEqualTo(true);
+        assertThat(((Date) days.get(1).get("date")).toLocalDate()).isEqualTo(LocalDate.of(2025, 2, 28));
+    }
+
+    @Test
+    public void 他の保存が先に行を更新していれば古い行の書き戻しは失敗する() {
+        UserProfile user = new UserProfile();
+        user.setUsername("monthlock");
+        user.setPassword("pass");
+        user.setFirstName("Taro");
+        user.setLastName("Sato");
+        user.setDepartment("main");
+        user.setEmploymentType("正社員");
+        userRepository.save(user);
+
+        ShiftMonth month = new ShiftMonth(user, "main", YearMonth.of(2025, 3));
+        month.setCell(1, ShiftType.DAY, Shift.Status.DRAFT, false, false);
+        shiftMonthRepository.save(month);
+        entityManager.flush();
+        entityManager.clear();
+
+        // 画面 A が行を読む
+        ShiftMonth stale = shiftMonthRepository.findById(month.getId()).orElseThrow();
+        assertThat(stale.getVersion()).isZero();
+
+        // その間に別の保存（別インスタンス）が 2日を書いてコミットした
+        jdbcTemplate.update("UPDATE shift_months SET codes = ?, version = version + 1 WHERE id = ?",
+                stale.getCodes().substring(0, 1) + ShiftType.NIGHT.getPacked() + stale.getCodes().substring(2),
+                month.getId());
+
+        // 画面 A が 3日を書き戻すと、2日を消さずに競合として失敗する
+        stale.setCell(3, ShiftType.OFF, Shift.Status.DRAFT, false, false);
+        assertThatThrownBy(() -> shiftMonthRepository.saveAndFlush(stale))
+                .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+    }
+}
@@ -9,12 +9,17 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
 
 import com.example.demo.model.Shift;
+import com.example.demo.model.ShiftType;
 import com.example.demo.model.UserProfile;
+import com.example.demo.service.DepartmentRegistry;
 
 @DataJpaTest
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+// 部署コード ⇔ department_id の変換（DepartmentConverter）に使う
+@Import(DepartmentRegistry.class)
 public class ShiftRepositoryTest {
 
     @Autowired
@@ -39,7 +44,7 @@ public class ShiftRepositoryTest {
         Shift shift = new Shift();
         shift.setUser(user);
         shift.setDate(LocalDate.of(2025, 7, 20));
-        shift.setShiftType("日");
+        shift.setShiftType(ShiftType.DAY);
         shift.setTimeSlot("9:00-14:00");
         shift.setDepartment("main");
         shift.setTemporary(false);
@@ -50,6 +55,6 @@ public class ShiftRepositoryTest {
         List<Shift> result = shiftRepository.findAll();
         assertThat(result).isNotEmpty();
         assertThat(result.get(0).getUser().getUsername()).isEqualTo("shiftuser");
-        assertThat(result.get(0).getShiftType()).isEqualTo("日");
+        assertThat(result.get(0).getShiftType()).isEqualTo(ShiftType.DAY);
     }
 }
@@ -9,12 +9,16 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
 
 import com.example.demo.model.ShiftRequest;
 import com.example.demo.model.UserProfile;
+import com.example.demo.service.DepartmentRegistry;
 
 @DataJpaTest
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+// 部署コード ⇔ department_id の変換（DepartmentConverter）に使う
+@Import(DepartmentRegistry.class)
 public class ShiftRequestRepositoryTest {
 
     @Autowired
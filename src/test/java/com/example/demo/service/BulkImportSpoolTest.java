@@ -0,0 +1,62 @@
+package com.example.demo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.demo.dto.BulkImportResult;
+
+/**
+ * CSV 一括取込は本文を読み終えてからトランザクションを開く（アップロード中に DB 接続を持たない）。
+ * トランザクションの有無を確認するため、このクラスはテストをトランザクションで包まない（作った行は後で消す）。
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class BulkImportSpoolTest {
+
+    @Autowired
+    private BulkImportService bulkImportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM shift_requirements WHERE date = DATE '2032-01-05'");
+    }
+
+    @Test
+    void 本文はトランザクションの外で読み切ってから取り込む() throws IOException {
+        byte[] csv = "日付,部署,時間帯,必要人数\n2032-01-05,amami,9:00-14:00,2\n2032-01-05,amami,14:00-16:00,1\n"
+                .getBytes(StandardCharsets.UTF_8);
+        List<Boolean> readInTransaction = new ArrayList<>();
+        InputStream body = new FilterInputStream(new ByteArrayInputStream(csv)) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                readInTransaction.add(TransactionSynchronizationManager.isActualTransactionActive());
+                return super.read(b, off, len);
+            }
+        };
+
+        BulkImportResult result = bulkImportService.importCsv(BulkImportService.Kind.REQUIREMENTS, body);
+
+        assertThat(result.imported()).isEqualTo(2);
+        assertThat(readInTransaction).isNotEmpty().containsOnly(false);
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM shift_requirements WHERE date = DATE '2032-01-05'", Integer.class)).isEqualTo(2);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.demo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+@JdbcTest(properties = "department.registry.reload-interval=PT0S")
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(DepartmentRegistry.class)
+class DepartmentRegistryTest {
+
+    @Autowired
+    private DepartmentRegistry registry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void 既定の部署をコードとIDで相互に引ける() {
+        assertThat(registry.displayNames()).containsEntry("amami", "天美").containsEntry("main", "本社");
+        assertThat(registry.displayNames().keySet()).startsWith("amami", "main");
+
+        Integer amamiId = registry.idOf("amami");
+        assertThat(registry.codeOf(amamiId)).isEqualTo("amami");
+        assertThat(registry.contains("main")).isTrue();
+    }
+
+    @Test
+    void 未登録のコードは例外() {
+        assertThat(registry.contains("nowhere")).isFalse();
+        assertThatThrownBy(() -> registry.idOf("nowhere")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> registry.codeOf(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void 追加された部署は再読込で引ける() {
+        registry.displayNames();
+        jdbcTemplate.update("INSERT INTO departments (code, name, sort_order) VALUES ('north', '北', 3)");
+
+        // 未知のコードを引いたときに読み直す（テストでは再読込の間隔を 0 にしている）
+        assertThat(registry.contains("north")).isTrue();
+        assertThat(registry.nameOf("north")).isEqualTo("北");
+        assertThat(registry.codeOf(registry.idOf("north"))).isEqualTo("north");
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.demo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.demo.dto.UserProfileDto;
+import com.example.demo.model.ShiftRequirement;
+import com.example.demo.model.UserProfile;
+import com.example.demo.repository.ShiftRequirementRepository;
+import com.example.demo.repository.UserProfileRepository;
+
+/**
+ * 二次キャッシュ・クエリキャッシュが効いていることと、書き込み後に破棄されることの確認。
+ * 破棄はコミット後に行われるため、テスト全体をトランザクションにはしない（作ったデータは後始末する）。
+ */
+@SpringBootTest(properties = "cache.statistics.enabled=true")
+@ActiveProfiles("test")
+class EntityCacheServiceTest {
+
+    private static final String DEPT = "amami";
+    private static final LocalDate START = LocalDate.of(2032, 1, 1);
+    private static final LocalDate END = LocalDate.of(2032, 1, 31);
+
+    @Autowired
+    private ShiftRequirementRepository shiftRequirementRepository;
+
+    @Autowired
+    private UserProfileRepository userProfileRepository;
+
+    @Autowired
+    private UserProfileService userProfileService;
+
+    @Autowired
+    private BulkImportService bulkImportService;
+
+    @Autowired
+    private EntityCacheService entityCacheService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Statistics statistics;
+    private Cache cache;
+    private UserProfile user;
+
+    @BeforeEach
+    void setUp() {
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        statistics = sessionFactory.getStatistics();
+        cache = sessionFactory.getCache();
+        cleanUp();
+
+        ShiftRequirement requirement = new ShiftRequirement();
+        requirement.setDate(START);
+        requirement.setDepartment(DEPT);
+        requirement.setTimeSlot("9:00-14:00");
+        requirement.setRequiredCount(2);
+        shiftRequirementRepository.save(requirement);
+        entityCacheService.evictShiftRequirements();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM shift_requirements WHERE date BETWEEN ? AND ?", START, END);
+        if (user != null) {
+            userProfileRepository.deleteById(user.getId());
+            user = null;
+        }
+        cache.evictAllRegions();
+    }
+
+    @Test
+    void 統計の収集が有効なら件数を返す() {
+        assertThat(entityCacheService.getStatistics()).containsEntry("enabled", true).containsKey("queryCacheHits");
+    }
+
+    @Test
+    void 同じ部署と期間の必要人員は二回目からクエリキャッシュを使う() {
+        long hits = statistics.getQueryCacheHitCount();
+
+        List<ShiftRequirement> first = shiftRequirementRepository.findByDepartmentAndDateBetween(DEPT, START, END);
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(hits);
+
+        List<ShiftRequirement> second = shiftRequirementRepository.findByDepartmentAndDateBetween(DEPT, START, END);
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(hits + 1);
+        assertThat(second).hasSameSizeAs(first).hasSize(1);
+    }
+
+    @Test
+    void 必要人員の一括取込はキャッシュを捨てる() throws Exception {
+        shiftRequirementRepository.findByDepartmentAndDateBetween(DEPT, START, END);
+        Long id = shiftRequirementRepository.findByDepartmentAndDateBetween(DEPT, START, END).get(0).getId();
+        assertThat(cache.containsEntity(ShiftRequirement.class, id)).isTrue();
+
+        String csv = "日付,部署,時間帯,必要人数\n2032-01-01,amami,9:00-14:00,5\n";
+        bulkImportService.importCsv(BulkImportService.Kind.REQUIREMENTS,
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(cache.containsEntity(ShiftRequirement.class, id)).isFalse();
+        long misses = statistics.getQueryCacheMissCount();
+        List<ShiftRequirement> reloaded = shiftRequirementRepository.findByDepartmentAndDateBetween(DEPT, START, END);
+        assertThat(statistics.getQueryCacheMissCount()).isEqualTo(misses + 1);
+        assertThat(reloaded).singleElement().extracting(ShiftRequirement::getRequiredCount).isEqualTo(5);
+    }
+
+    @Test
+    void ユーザー情報の更新はキャッシュを捨てる() {
+        UserProfile profile = new UserProfile();
+        profile.setUsername("cache-nurse");
+        profile.setPassword("password");
+        profile.setRole("USER");
+        profile.setFirstName("花子");
+        profile.setLastName("看護師");
+        profile.setBirthDate(LocalDate.of(1990, 1, 1));
+        profile.setGender("female");
+        profile.setEmploymentType("正社員");
+        profile.setDepartment(DEPT);
+        user = userProfileRepository.save(profile);
+
+        UserProfileDto dto = userProfileService.getUserProfileById(user.getId()).orElseThrow();
+        assertThat(cache.containsEntity(UserProfile.class, user.getId())).isTrue();
+
+        dto.setFirstName("桜子");
+        userProfileService.updateUserProfile(user.getId(), dto);
+
+        assertThat(cache.containsEntity(UserProfile.class, user.getId())).isFalse();
+        assertThat(userProfileService.getUserProfileById(user.getId()).orElseThrow().getFirstName()).isEqualTo("桜子");
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.demo.service;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.model.ShiftType;
+
+class MonthGridCacheTest {
+
+    private static final YearMonth AUG = YearMonth.of(2025, 8);
+    private static final YearMonth SEP = YearMonth.of(2025, 9);
+
+    private MonthGridCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        cache = new MonthGridCache(100);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void 二回目以降はキャッシュから返す() {
+        Map<String, ShiftType> first = cache.get("amami", AUG, () -> load(ShiftType.DAY));
+        Map<String, ShiftType> second = cache.get("amami", AUG, () -> load(ShiftType.NIGHT));
+
+        assertThat(second).isSameAs(first).containsEntry("1_2025-08-01", ShiftType.DAY);
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void 無効化は指定した部署と月だけに効く() {
+        cache.get("amami", AUG, () -> load(ShiftType.DAY));
+        cache.get("amami", SEP, () -> load(ShiftType.DAY));
+        cache.get("main", AUG, () -> load(ShiftType.DAY));
+
+        cache.invalidate("amami", List.of(AUG));
+
+        assertThat(cache.get("amami", AUG, () -> load(ShiftType.NIGHT))).containsEntry("1_2025-08-01", ShiftType.NIGHT);
+        assertThat(cache.get("amami", SEP, () -> load(ShiftType.NIGHT))).containsEntry("1_2025-08-01", ShiftType.DAY);
+        assertThat(cache.get("main", AUG, () -> load(ShiftType.NIGHT))).containsEntry("1_2025-08-01", ShiftType.DAY);
+    }
+
+    @Test
+    void 読み込み中に無効化された結果はキャッシュしない() {
+        // 読み込みの途中で保存（無効化）が走ったケース
+        Map<String, ShiftType> stale = cache.get("amami", AUG, () -> {
+            Map<String, ShiftType> m = load(ShiftType.DAY);
+            cache.invalidate("amami", List.of(AUG));
+            return m;
+        });
+        assertThat(stale).containsEntry("1_2025-08-01", ShiftType.DAY);
+
+        // 古い値は残っておらず、再読み込みされる
+        assertThat(cache.get("amami", AUG, () -> load(ShiftType.NIGHT))).containsEntry("1_2025-08-01", ShiftType.NIGHT);
+        assertThat(loads).hasValue(2);
+    }
+
+    private Map<String, ShiftType> load(ShiftType type) {
+        loads.incrementAndGet();
+        return Map.of("1_2025-08-01", type);
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.demo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class PartitionMaintenanceServiceTest {
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Test
+    void H2では既定でパーティション保守を動かさない() {
+        assertThat(context.getBeanProvider(PartitionMaintenanceService.class).getIfAvailable()).isNull();
+    }
+}
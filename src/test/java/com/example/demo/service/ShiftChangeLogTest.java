@@ -0,0 +1,108 @@
+package com.example.demo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.demo.dto.ShiftChangeEvent;
+import com.example.demo.model.Shift;
+import com.example.demo.model.ShiftType;
+
+@JdbcTest(properties = "shift.change-log.snapshot.lag=PT0S")
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ DepartmentRegistry.class, ShiftChangeLog.class, ShiftSnapshotService.class, ShiftLiveUpdates.class,
+          ShiftCalendarCache.class })
+class ShiftChangeLogTest {
+
+    private static final String DEPT = "amami";
+    private static final YearMonth MONTH = YearMonth.of(2031, 4);
+    private static final LocalDate D1 = MONTH.atDay(1);
+    private static final LocalDate D2 = MONTH.atDay(2);
+
+    @Autowired
+    private ShiftChangeLog changeLog;
+
+    @Autowired
+    private ShiftSnapshotService snapshotService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // ここまでの ID は changed_at を調整済み（テスト前から残っているイベントは触らない）
+    private long adjustedUpTo;
+
+    @BeforeEach
+    void setUp() {
+        adjustedUpTo = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM shift_change_events", Long.class);
+    }
+
+    @Test
+    void 指定時点の月の状態をイベントから復元できる() {
+        LocalDateTime t1 = LocalDateTime.of(2031, 3, 20, 10, 0);
+        LocalDateTime t2 = t1.plusHours(1);
+
+        changeLog.append(DEPT, List.of(
+                new ShiftChangeEvent(1L, D1, null, ShiftType.DAY, Shift.Status.DRAFT),
+                new ShiftChangeEvent(2L, D1, null, ShiftType.NIGHT, Shift.Status.DRAFT)));
+        setChangedAt(t1);
+        changeLog.append(DEPT, List.of(
+                new ShiftChangeEvent(1L, D1, ShiftType.DAY, ShiftType.OFF, Shift.Status.DRAFT),
+                new ShiftChangeEvent(2L, D1, ShiftType.NIGHT, null, Shift.Status.DRAFT)));
+        setChangedAt(t2);
+
+        assertThat(changeLog.monthAsOf(DEPT, MONTH, t1))
+                .containsOnly(Map.entry("1_" + D1, ShiftType.DAY), Map.entry("2_" + D1, ShiftType.NIGHT));
+        assertThat(changeLog.monthAsOf(DEPT, MONTH, t2))
+                .containsOnly(Map.entry("1_" + D1, ShiftType.OFF));
+        assertThat(changeLog.monthAsOf(DEPT, MONTH, t1.minusSeconds(1))).isEmpty();
+    }
+
+    @Test
+    void スナップショット以降のイベントだけを重ねて復元する() {
+        changeLog.append(DEPT, List.of(
+                new ShiftChangeEvent(1L, D1, null, ShiftType.DAY, Shift.Status.DRAFT),
+                new ShiftChangeEvent(1L, D2, null, ShiftType.NIGHT, Shift.Status.DRAFT)));
+        setChangedAt(LocalDateTime.now().minusMinutes(1));
+
+        assertThat(snapshotService.takeSnapshots()).isGreaterThanOrEqualTo(1);
+        assertThat(snapshotCount()).isEqualTo(1);
+        // 新しいイベントがなければスナップショットは増えない
+        assertThat(snapshotService.takeSnapshots()).isZero();
+        assertThat(snapshotCount()).isEqualTo(1);
+
+        changeLog.append(DEPT, List.of(
+                new ShiftChangeEvent(1L, D2, ShiftType.NIGHT, ShiftType.AFTER_NIGHT, Shift.Status.CONFIRMED)));
+
+        assertThat(changeLog.monthAsOf(DEPT, MONTH, LocalDateTime.now().plusSeconds(1)))
+                .containsOnly(Map.entry("1_" + D1, ShiftType.DAY), Map.entry("1_" + D2, ShiftType.AFTER_NIGHT));
+    }
+
+    // 直前の append で追記したイベント（changed_at を未調整のもの）の時刻を固定する
+    private void setChangedAt(LocalDateTime changedAt) {
+        jdbcTemplate.update("UPDATE shift_change_events SET changed_at = ? WHERE id > ?",
+                Timestamp.valueOf(changedAt), adjustedUpTo);
+        adjustedUpTo = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM shift_change_events", Long.class);
+    }
+
+    private int snapshotCount() {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM shift_month_snapshots WHERE month_start = ?", Integer.class,
+                Date.valueOf(MONTH.atDay(1)));
+    }
+}
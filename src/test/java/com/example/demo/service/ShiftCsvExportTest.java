@@ -0,0 +1,111 @@
+package com.example.demo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.StringWriter;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.form.ShiftGenerationForm;
+import com.example.demo.model.Shift;
+import com.example.demo.model.UserProfile;
+import com.example.demo.repository.ShiftRepository;
+import com.example.demo.repository.UserProfileRepository;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class ShiftCsvExportTest {
+
+    private static final YearMonth MONTH = YearMonth.of(2031, 6);
+
+    @Autowired
+    private ShiftExportService shiftExportService;
+
+    @Autowired
+    private ShiftService shiftService;
+
+    @Autowired
+    private UserProfileRepository userProfileRepository;
+
+    @Autowired
+    private ShiftRepository shiftRepository;
+
+    private UserProfile formula;
+    private UserProfile comma;
+
+    @BeforeEach
+    void setUp() {
+        shiftRepository.deleteAll();
+        userProfileRepository.deleteAll();
+        formula = userProfileRepository.save(profile("csv-formula", "=HYPERLINK(\"http://example.com\")", "太郎"));
+        comma = userProfileRepository.save(profile("csv-comma", "-職員", "花子,A"));
+
+        save(Shift.Status.CONFIRMED, Map.of(
+                formula.getId() + "_" + MONTH.atDay(1), "日",
+                comma.getId() + "_" + MONTH.atDay(1), "夜",
+                formula.getId() + "_" + MONTH.plusMonths(1).atDay(2), "休"));
+        // 下書きは給与向けの CSV に出さない
+        save(Shift.Status.DRAFT, Map.of(
+                formula.getId() + "_" + MONTH.atDay(2), "夜",
+                comma.getId() + "_" + MONTH.plusMonths(1).atDay(1), "日"));
+    }
+
+    @Test
+    void 複数月を確定分だけ書き出し_数式になる職員名を無害化する() throws Exception {
+        StringWriter out = new StringWriter();
+        shiftExportService.writeCsv("amami", MONTH, 2, out);
+
+        String[] lines = out.toString().split("\r\n");
+        assertThat(lines).hasSize(5);
+        assertThat(lines[0]).startsWith("年月,職員ID,職員名,1,2,3,");
+
+        String[] first = lines[1].split(",", -1);
+        assertThat(first).hasSize(3 + 31);
+        assertThat(first[0]).isEqualTo("2031-06");
+        assertThat(first[1]).isEqualTo(formula.getId().toString());
+        assertThat(first[2]).isEqualTo("\"'=HYPERLINK(\"\"http://example.com\"\") 太郎\"");
+        assertThat(first[3]).isEqualTo("日");
+        assertThat(first[4]).isEmpty();
+
+        // 先頭の - も数式扱いなので ' を付け、カンマを含むのでクォートする
+        assertThat(lines[2]).isEqualTo("2031-06," + comma.getId() + ",\"'-職員 花子,A\",夜" + ",".repeat(30));
+
+        String[] nextFormula = lines[3].split(",", -1);
+        assertThat(nextFormula[0]).isEqualTo("2031-07");
+        assertThat(nextFormula[3]).isEmpty();
+        assertThat(nextFormula[4]).isEqualTo("休");
+
+        assertThat(lines[4]).startsWith("2031-07," + comma.getId() + ",");
+        assertThat(lines[4]).endsWith("\"" + ",".repeat(31));
+    }
+
+    private void save(Shift.Status status, Map<String, String> shifts) {
+        ShiftGenerationForm form = new ShiftGenerationForm();
+        form.setDepartment("amami");
+        form.setShifts(shifts);
+        shiftService.saveShifts(form, status);
+    }
+
+    private static UserProfile profile(String username, String lastName, String firstName) {
+        UserProfile profile = new UserProfile();
+        profile.setUsername(username);
+        profile.setPassword("password");
+        profile.setRole("USER");
+        profile.setFirstName(firstName);
+        profile.setLastName(lastName);
+        profile.setBirthDate(LocalDate.of(1990, 1, 1));
+        profile.setGender("female");
+        profile.setEmploymentType("正社員");
+        profile.setDepartment("amami");
+        return profile;
+    }
+}
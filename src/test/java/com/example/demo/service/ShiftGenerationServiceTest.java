@@ -6,15 +6,18 @@ import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 
 import com.example.demo.model.Shift;
 import com.example.demo.model.ShiftRequest;
 import com.example.demo.model.ShiftRequirement;
+import com.example.demo.model.ShiftType;
 import com.example.demo.model.TemporaryWorkerAssignment;
 import com.example.demo.model.UserProfile;
 import com.example.demo.repository.ShiftRepository;
@@ -31,13 +34,17 @@ class ShiftGenerationServiceTest {
     private ShiftRequestRepository requestRepo = mock(ShiftRequestRepository.class);
     private TemporaryWorkerAssignmentRepository tempRepo = mock(TemporaryWorkerAssignmentRepository.class);
     private ShiftRepository shiftRepo = mock(ShiftRepository.class);
+    private MonthGridCache gridCache = mock(MonthGridCache.class);
+    private MonthlyShiftStore monthlyStore = mock(MonthlyShiftStore.class); // isEnabled() = false（日単位格納）
+    private ShiftChangeLog changeLog = mock(ShiftChangeLog.class);
+    private ShiftEditLocks editLocks = mock(ShiftEditLocks.class);
 
     // テスト対象
     private ShiftGenerationService service;
 
     @BeforeEach
     void setUp() {
-        service = new ShiftGenerationService(userRepo, reqRepo, requestRepo, tempRepo, shiftRepo);
+        service = new ShiftGenerationService(userRepo, reqRepo, requestRepo, tempRepo, shiftRepo, gridCache, monthlyStore, changeLog, editLocks);
     }
 
     @Test
@@ -87,7 +94,7 @@ class ShiftGenerationServiceTest {
         assertThat(saved).hasSize(2);
 
         // 事前臨時は「臨(確)」
-        Shift fixedTemp = saved.stream().filter(s -> "臨(確)".equals(s.getShiftType())).findFirst().orElseThrow();
+        Shift fixedTemp = saved.stream().filter(s -> s.getShiftType() == ShiftType.TEMP_FIXED).findFirst().orElseThrow();
         assertThat(fixedTemp.getUser().getUsername()).isEqualTo("temp");
         assertThat(fixedTemp.getDepartment()).isEqualTo(dept);
         assertThat(fixedTemp.getTimeSlot()).isEqualTo("9:00-14:00");
@@ -95,12 +102,33 @@ class ShiftGenerationServiceTest {
         assertThat(fixedTemp.isFixed()).isTrue();
 
         // 残り1名は staff1（staff2 は希望休で除外される）
-        Shift day = saved.stream().filter(s -> "日".equals(s.getShiftType())).findFirst().orElseThrow();
+        Shift day = saved.stream().filter(s -> s.getShiftType() == ShiftType.DAY).findFirst().orElseThrow();
         assertThat(day.getUser().getUsername()).isEqualTo("s1");
         assertThat(day.getDepartment()).isEqualTo(dept);
         assertThat(day.getTimeSlot()).isEqualTo("9:00-14:00");
         assertThat(day.isTemporary()).isFalse();
         assertThat(day.isFixed()).isFalse();
+
+        // 保存した2セルが変更履歴に追記される
+        verify(changeLog).append(eq(dept), argThat(events -> events.size() == 2));
+
+        // 他の保存と重ならないよう、書き込む前に部署×年月のロックを取る
+        InOrder inOrder = inOrder(editLocks, shiftRepo);
+        inOrder.verify(editLocks).lockUntilCompletion(dept, List.of(YearMonth.of(year, month)));
+        inOrder.verify(shiftRepo).saveAll(anyList());
+    }
+
+    @Test
+    void 月単位格納でも書き込む前に部署と年月のロックを取る() {
+        String dept = "amami";
+        when(monthlyStore.isEnabled()).thenReturn(true);
+
+        service.generateShifts(2025, 9, dept);
+
+        InOrder inOrder = inOrder(editLocks, monthlyStore);
+        inOrder.verify(editLocks).lockUntilCompletion(dept, List.of(YearMonth.of(2025, 9)));
+        inOrder.verify(monthlyStore).saveGenerated(eq(dept), anyList());
+        verify(shiftRepo, never()).saveAll(anyList());
     }
 
     // ====== ヘルパ ======
@@ -0,0 +1,138 @@
+package com.example.demo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.demo.dto.ShiftCellState;
+
+class ShiftLiveUpdatesTest {
+
+    private static final YearMonth MONTH = YearMonth.of(2031, 7);
+
+    private ShiftLiveUpdates live;
+
+    @AfterEach
+    void tearDown() {
+        if (live != null) {
+            live.shutdown();
+        }
+    }
+
+    @Test
+    void 同じトピックの全購読者へ保存順に届き_他のトピックには届かない() throws Exception {
+        live = new ShiftLiveUpdates(64, Duration.ofMinutes(1), Duration.ofSeconds(10));
+        RecordingEmitter first = subscribe("amami", null);
+        RecordingEmitter second = subscribe("amami", null);
+        RecordingEmitter otherDepartment = subscribe("main", null);
+
+        for (int i = 1; i <= 20; i++) {
+            live.publishAfterCommit("amami", MONTH, List.of(cell(i)));
+        }
+
+        awaitReceived(first, 20);
+        awaitReceived(second, 20);
+        assertThat(first.versions()).isEqualTo(sequence(1, 20));
+        assertThat(second.versions()).isEqualTo(sequence(1, 20));
+        assertThat(otherDepartment.versions()).isEmpty();
+    }
+
+    @Test
+    void 受信しない購読者が送信スレッドを塞いでも他の購読者には届き_止まった購読者は外れる() throws Exception {
+        live = new ShiftLiveUpdates(64, Duration.ofMinutes(1), Duration.ofMillis(50));
+        CountDownLatch release = new CountDownLatch(1);
+        // 以前の送信スレッド数（2）より多い数の購読者を止める
+        List<RecordingEmitter> stalled = List.of(
+                subscribe("amami", release), subscribe("amami", release), subscribe("main", release));
+        RecordingEmitter healthy = subscribe("amami", null);
+
+        live.publishAfterCommit("amami", MONTH, List.of(cell(1)));
+        live.publishAfterCommit("main", MONTH, List.of(cell(1)));
+        live.publishAfterCommit("amami", MONTH, List.of(cell(2)));
+        awaitReceived(healthy, 2);
+
+        Thread.sleep(100);
+        live.evictStalled();
+        assertThat(live.subscriberCount()).isEqualTo(1);
+
+        live.publishAfterCommit("amami", MONTH, List.of(cell(3)));
+        awaitReceived(healthy, 3);
+        assertThat(healthy.versions()).isEqualTo(sequence(1, 3));
+
+        // 止まっていた送信が戻っても、外された購読者には以降のイベントを送らない
+        release.countDown();
+        for (RecordingEmitter emitter : stalled) {
+            awaitReceived(emitter, 1);
+        }
+        Thread.sleep(100);
+        for (RecordingEmitter emitter : stalled) {
+            assertThat(emitter.versions()).containsExactly(1L);
+        }
+    }
+
+    private RecordingEmitter subscribe(String department, CountDownLatch release) {
+        RecordingEmitter emitter = new RecordingEmitter(release);
+        live.subscribe(department, MONTH, emitter);
+        return emitter;
+    }
+
+    private static ShiftCellState cell(long version) {
+        return new ShiftCellState(1L, MONTH.atDay(1), "日", version);
+    }
+
+    private static List<Long> sequence(long from, long to) {
+        return LongStream.rangeClosed(from, to).boxed().toList();
+    }
+
+    private static void awaitReceived(RecordingEmitter emitter, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (emitter.versions().size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(emitter.versions()).hasSizeGreaterThanOrEqualTo(count);
+    }
+
+    // 受け取った "cells" イベントのバージョンを記録する。release があれば、それが開くまで送信を止める（受信しない画面）
+    private static final class RecordingEmitter extends SseEmitter {
+
+        private final CountDownLatch release;
+        private final List<Long> versions = new CopyOnWriteArrayList<>();
+
+        RecordingEmitter(CountDownLatch release) {
+            super(0L);
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            for (ResponseBodyEmitter.DataWithMediaType part : builder.build()) {
+                if (part.getData() instanceof List<?> cells) {
+                    if (release != null) {
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new IOException(e);
+                        }
+                    }
+                    cells.forEach(c -> versions.add(((ShiftCellState) c).version()));
+                }
+            }
+        }
+
+        List<Long> versions() {
+            return versions;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.demo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.apache.poi.xssf.usermodel.XSSFRow;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.form.ShiftGenerationForm;
+import com.example.demo.model.Shift;
+import com.example.demo.model.UserProfile;
+import com.example.demo.repository.ShiftRepository;
+import com.example.demo.repository.UserProfileRepository;
+
+// MockMvc の非同期ディスパッチはテストのトランザクションの外で動くため、サービスを直接呼んで検証する
+@SpringBootTest(properties = "shift.export.xlsx.window-rows=1")
+@ActiveProfiles("test")
+@Transactional
+class ShiftXlsxExportTest {
+
+    private static final YearMonth MONTH = YearMonth.of(2031, 6);
+
+    @Autowired
+    private ShiftExportService shiftExportService;
+
+    @Autowired
+    private ShiftService shiftService;
+
+    @Autowired
+    private UserProfileRepository userProfileRepository;
+
+    @Autowired
+    private ShiftRepository shiftRepository;
+
+    private UserProfile first;
+    private UserProfile second;
+
+    @BeforeEach
+    void setUp() {
+        shiftRepository.deleteAll();
+        userProfileRepository.deleteAll();
+        first = userProfileRepository.save(profile("xlsx-first", "一郎"));
+        second = userProfileRepository.save(profile("xlsx-second", "二郎"));
+
+        ShiftGenerationForm form = new ShiftGenerationForm();
+        form.setDepartment("amami");
+        form.setShifts(Map.of(
+                first.getId() + "_" + MONTH.atDay(1), "日",
+                first.getId() + "_" + MONTH.atDay(2), "夜",
+                second.getId() + "_" + MONTH.atDay(1), "日",
+                second.getId() + "_" + MONTH.atDay(2), "休"));
+        shiftService.saveShifts(form, Shift.Status.DRAFT);
+    }
+
+    @Test
+    void 部署と月ごとのシートに勤務と出勤人数を書き出す() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        shiftExportService.writeXlsx(List.of("amami"), MONTH, 2, out);
+
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            assertThat(workbook.getNumberOfSheets()).isEqualTo(2);
+            XSSFSheet sheet = workbook.getSheet("amami_" + MONTH);
+            assertThat(sheet).isNotNull();
+
+            XSSFRow header = sheet.getRow(0);
+            assertThat(header.getCell(0).getStringCellValue()).isEqualTo("職員ID");
+            // 2031-06 は30日まで
+            assertThat(header.getLastCellNum()).isEqualTo((short) (2 + 30));
+
+            XSSFRow firstRow = sheet.getRow(1);
+            assertThat((long) firstRow.getCell(0).getNumericCellValue()).isEqualTo(first.getId());
+            assertThat(firstRow.getCell(2).getStringCellValue()).isEqualTo("日");
+            assertThat(firstRow.getCell(3).getStringCellValue()).isEqualTo("夜");
+            assertThat(firstRow.getCell(4).getStringCellValue()).isEmpty();
+            // 生成画面と同じ背景色
+            XSSFCellStyle nightStyle = firstRow.getCell(3).getCellStyle();
+            assertThat(nightStyle.getFillForegroundColorColor().getARGBHex()).endsWith("D1C4E9");
+
+            XSSFRow total = sheet.getRow(3);
+            assertThat(total.getCell(1).getStringCellValue()).isEqualTo("出勤人数");
+            assertThat(total.getCell(2).getNumericCellValue()).isEqualTo(2);
+            // 休みは数えない
+            assertThat(total.getCell(3).getNumericCellValue()).isEqualTo(1);
+            assertThat(total.getCell(4).getNumericCellValue()).isZero();
+
+            // 勤務のない月も部署の職員は行を出し、出勤人数は 0
+            XSSFSheet next = workbook.getSheet("amami_" + MONTH.plusMonths(1));
+            assertThat(next.getLastRowNum()).isEqualTo(3);
+            assertThat(next.getRow(3).getCell(2).getNumericCellValue()).isZero();
+        }
+    }
+
+    private static UserProfile profile(String username, String firstName) {
+        UserProfile profile = new UserProfile();
+        profile.setUsername(username);
+        profile.setPassword("password");
+        profile.setRole("USER");
+        profile.setFirstName(firstName);
+        profile.setLastName("職員");
+        profile.setBirthDate(LocalDate.of(1990, 1, 1));
+        profile.setGender("female");
+        profile.setEmploymentType("正社員");
+        profile.setDepartment("amami");
+        return profile;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.demo.service;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+class UserDetailsCacheTest {
+
+    private UserDetailsCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new UserDetailsCache(100, Duration.ofMinutes(5));
+    }
+
+    @Test
+    void 認証後にパスワードが消去されてもキャッシュ内の値は残る() {
+        User user = (User) User.withUsername("nurse1").password("{bcrypt}hash").roles("USER").build();
+        cache.putUserInCache(user);
+
+        // ProviderManager が認証後に行う消去
+        user.eraseCredentials();
+
+        UserDetails cached = cache.getUserFromCache("nurse1");
+        assertThat(cached.getPassword()).isEqualTo("{bcrypt}hash");
+        assertThat(cached.getAuthorities()).extracting(Object::toString).containsExactly("ROLE_USER");
+
+        // 取り出した側を消去しても次回取得に影響しない
+        ((User) cached).eraseCredentials();
+        assertThat(cache.getUserFromCache("nurse1").getPassword()).isEqualTo("{bcrypt}hash");
+    }
+
+    @Test
+    void 削除後は取得できない() {
+        cache.putUserInCache(User.withUsername("nurse1").password("hash").roles("USER").build());
+
+        cache.removeUserFromCache("nurse1");
+
+        assertThat(cache.getUserFromCache("nurse1")).isNull();
+        assertThat(cache.getUserFromCache("unknown")).isNull();
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.demo.service;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.time.DayOfWeek;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.dto.UserSummary;
+import com.example.demo.model.UserProfile;
+import com.example.demo.repository.UserProfileRepository;
+
+class UserDirectoryTest {
+
+    private UserProfileRepository userRepo = mock(UserProfileRepository.class);
+
+    private UserDirectory directory;
+
+    @BeforeEach
+    void setUp() {
+        when(userRepo.findAll()).thenReturn(List.of(
+                user(2L, "amami"),
+                user(1L, "amami"),
+                user(3L, "main")));
+        directory = new UserDirectory(userRepo);
+    }
+
+    @Test
+    void 初回参照で全件を読み込み部署ごとにID順で返す() {
+        List<UserSummary> amami = directory.findByDepartment("amami");
+
+        assertThat(amami).extracting(UserSummary::getId).containsExactly(1L, 2L);
+        assertThat(directory.findByDepartment("main")).extracting(UserSummary::getId).containsExactly(3L);
+        assertThat(directory.findByDepartment("unknown")).isEmpty();
+
+        // 2回目以降は DB を読まない
+        directory.findByDepartment("main");
+        verify(userRepo, times(1)).findAll();
+    }
+
+    @Test
+    void 部署変更は旧部署から外して新部署へ追加する() {
+        directory.findByDepartment("amami");
+        List<UserSummary> before = directory.findByDepartment("amami");
+
+        directory.put(user(2L, "main"));
+
+        assertThat(directory.findByDepartment("amami")).extracting(UserSummary::getId).containsExactly(1L);
+        assertThat(directory.findByDepartment("main")).extracting(UserSummary::getId).containsExactly(2L, 3L);
+        // 取得済みのスナップショットは変わらない（コピーオンライト）
+        assertThat(before).extracting(UserSummary::getId).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void 削除したユーザーは返さない() {
+        directory.remove(1L);
+
+        assertThat(directory.findByDepartment("amami")).extracting(UserSummary::getId).containsExactly(2L);
+    }
+
+    @Test
+    void 曜日固定休をビットマスクで保持する() {
+        UserProfile profile = user(4L, "main");
+        profile.setSundayOff(true);
+        profile.setWednesdayOff(true);
+
+        UserSummary summary = UserSummary.from(profile);
+
+        assertThat(summary.isOffOn(DayOfWeek.SUNDAY)).isTrue();
+        assertThat(summary.isOffOn(DayOfWeek.WEDNESDAY)).isTrue();
+        assertThat(summary.isOffOn(DayOfWeek.MONDAY)).isFalse();
+    }
+
+    // ====== ヘルパ ======
+    private static UserProfile user(Long id, String dept) {
+        UserProfile u = new UserProfile();
+        u.setId(id);
+        u.setUsername("u" + id);
+        u.setLastName("姓" + id);
+        u.setFirstName("名" + id);
+        u.setDepartment(dept);
+        return u;
+    }
+}
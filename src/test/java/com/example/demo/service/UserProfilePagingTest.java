@@ -0,0 +1,77 @@
+package com.example.demo.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.dto.UserProfileDto;
+import com.example.demo.dto.UserProfilePageDto;
+import com.example.demo.model.UserProfile;
+import com.example.demo.repository.UserProfileRepository;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class UserProfilePagingTest {
+
+    @Autowired
+    private UserProfileService userProfileService;
+
+    @Autowired
+    private UserProfileRepository userProfileRepository;
+
+    @Test
+    void 部署未所属のユーザーがページ境界にあっても最後まで1回ずつ辿れる() {
+        List<Long> created = new ArrayList<>();
+        created.add(save("paging-amami-1", "amami").getId());
+        created.add(save("paging-amami-2", "amami").getId());
+        created.add(save("paging-main-1", "main").getId());
+        created.add(save("paging-none-1", null).getId());
+        created.add(save("paging-none-2", null).getId());
+        created.add(save("paging-none-3", null).getId());
+
+        List<Long> seen = new ArrayList<>();
+        boolean crossedIntoNoDepartment = false;
+        UserProfilePageDto page = userProfileService.getUserProfilePage(null, null, null, 2);
+        for (int i = 0; i < 100; i++) {
+            page.getUsers().stream().map(UserProfileDto::getId).forEach(seen::add);
+            if (!page.isHasNext()) {
+                break;
+            }
+            if (UserProfilePageDto.NO_DEPARTMENT.equals(page.getNextAfterDepartment())) {
+                crossedIntoNoDepartment = true;
+            }
+            page = userProfileService.getUserProfilePage(null, page.getNextAfterDepartment(), page.getNextAfterId(), 2);
+        }
+
+        assertThat(page.isHasNext()).isFalse();
+        assertThat(crossedIntoNoDepartment).isTrue();
+        assertThat(seen).doesNotHaveDuplicates();
+        assertThat(seen).hasSize((int) userProfileRepository.count());
+        assertThat(seen).containsAll(created);
+        // 部署未所属は末尾に ID 順
+        assertThat(seen.subList(seen.size() - 3, seen.size())).containsExactly(created.get(3), created.get(4), created.get(5));
+    }
+
+    private UserProfile save(String username, String department) {
+        UserProfile profile = new UserProfile();
+        profile.setUsername(username);
+        profile.setPassword("password");
+        profile.setRole("USER");
+        profile.setFirstName("太郎");
+        profile.setLastName("職員");
+        profile.setBirthDate(LocalDate.of(1990, 1, 1));
+        profile.setGender("male");
+        profile.setEmploymentType("正社員");
+        profile.setDepartment(department);
+        return userProfileRepository.save(profile);
+    }
+}